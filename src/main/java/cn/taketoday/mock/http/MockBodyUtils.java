@@ -0,0 +1,160 @@
+/*
+ * Original Author -> Harry Yang (taketoday@foxmail.com) https://taketoday.cn
+ * Copyright © TODAY & 2017 - 2021 All Rights Reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.mock.http;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import cn.taketoday.core.io.Resource;
+import cn.taketoday.core.io.buffer.DataBuffer;
+import cn.taketoday.core.io.buffer.DataBufferUtils;
+import cn.taketoday.core.io.buffer.DefaultDataBufferFactory;
+import cn.taketoday.lang.Assert;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SynchronousSink;
+
+/**
+ * Helpers for streaming file and {@link Resource} content as mock request
+ * and response bodies without reading it into memory up front.
+ *
+ * <p>All returned publishers are lazy: the file is opened on subscription
+ * and closed on completion, error or cancellation, so the same body may be
+ * subscribed to any number of times.
+ *
+ * @author TODAY
+ * @see cn.taketoday.mock.http.server.reactive.MockServerHttpRequest.BodyBuilder#body(Path)
+ * @see cn.taketoday.mock.http.client.reactive.MockClientHttpResponse#setBody(Path)
+ * @see cn.taketoday.mock.http.server.reactive.MockServerHttpResponse#writeWith(Path)
+ * @since 4.0
+ */
+public abstract class MockBodyUtils {
+
+  /**
+   * The default size of the chunks a file body is split into: {@value}.
+   */
+  public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+  /**
+   * Read the given file in chunks of {@code chunkSize} bytes through an
+   * {@link java.nio.channels.AsynchronousFileChannel AsynchronousFileChannel}.
+   *
+   * @param path the file to read
+   * @param chunkSize the maximum size of each emitted buffer
+   * @return a lazy, re-subscribable body
+   */
+  public static Flux<DataBuffer> read(Path path, int chunkSize) {
+    Assert.notNull(path, "Path is required");
+    Assert.isTrue(chunkSize > 0, "Chunk size must be greater than 0");
+    return DataBufferUtils.read(path, DefaultDataBufferFactory.sharedInstance, chunkSize);
+  }
+
+  /**
+   * Read the given resource in chunks of {@code chunkSize} bytes. File
+   * system resources are read through an
+   * {@link java.nio.channels.AsynchronousFileChannel AsynchronousFileChannel},
+   * other resources through their input stream.
+   *
+   * @param resource the resource to read
+   * @param chunkSize the maximum size of each emitted buffer
+   * @return a lazy, re-subscribable body
+   */
+  public static Flux<DataBuffer> read(Resource resource, int chunkSize) {
+    Assert.notNull(resource, "Resource is required");
+    Assert.isTrue(chunkSize > 0, "Chunk size must be greater than 0");
+    return DataBufferUtils.read(resource, DefaultDataBufferFactory.sharedInstance, chunkSize);
+  }
+
+  /**
+   * Memory-map the given file and emit it as read-only buffers of
+   * {@code chunkSize} bytes each. Every chunk is mapped separately when
+   * requested, so files larger than 2 GB are supported and only the
+   * regions actually consumed are paged in.
+   * <p>The mappings remain valid after the channel has been closed and are
+   * released by the garbage collector.
+   *
+   * @param path the file to map
+   * @param chunkSize the maximum size of each emitted buffer
+   * @return a lazy, re-subscribable body
+   */
+  public static Flux<DataBuffer> map(Path path, int chunkSize) {
+    Assert.notNull(path, "Path is required");
+    Assert.isTrue(chunkSize > 0, "Chunk size must be greater than 0");
+    return Flux.using(
+            () -> FileChannel.open(path, StandardOpenOption.READ),
+            channel -> {
+              long size = channel.size();
+              return Flux.generate(() -> 0L, (Long position, SynchronousSink<DataBuffer> sink) -> {
+                if (position >= size) {
+                  sink.complete();
+                  return position;
+                }
+                int length = (int) Math.min(chunkSize, size - position);
+                try {
+                  sink.next(DefaultDataBufferFactory.sharedInstance.wrap(
+                          channel.map(FileChannel.MapMode.READ_ONLY, position, length)));
+                }
+                catch (IOException ex) {
+                  sink.error(ex);
+                }
+                return position + length;
+              });
+            },
+            MockBodyUtils::closeChannel);
+  }
+
+  /**
+   * Return the size of the given file, or {@code -1} if it cannot be determined.
+   */
+  public static long contentLength(Path path) {
+    try {
+      return Files.size(path);
+    }
+    catch (IOException ex) {
+      return -1;
+    }
+  }
+
+  /**
+   * Return the content length of the given resource, or {@code -1} if it
+   * cannot be determined.
+   */
+  public static long contentLength(Resource resource) {
+    try {
+      return resource.contentLength();
+    }
+    catch (IOException ex) {
+      return -1;
+    }
+  }
+
+  private static void closeChannel(FileChannel channel) {
+    try {
+      channel.close();
+    }
+    catch (IOException ex) {
+      // ignore
+    }
+  }
+
+}
@@ -25,10 +25,12 @@ import org.reactivestreams.Publisher;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.Collection;
 
 import cn.taketoday.core.DefaultMultiValueMap;
 import cn.taketoday.core.MultiValueMap;
+import cn.taketoday.core.io.Resource;
 import cn.taketoday.core.io.buffer.DataBuffer;
 import cn.taketoday.core.io.buffer.DataBufferUtils;
 import cn.taketoday.core.io.buffer.DefaultDataBufferFactory;
@@ -37,6 +39,7 @@ import cn.taketoday.http.HttpStatus;
 import cn.taketoday.http.ResponseCookie;
 import cn.taketoday.http.client.reactive.ClientHttpResponse;
 import cn.taketoday.lang.Assert;
+import cn.taketoday.mock.http.MockBodyUtils;
 import cn.taketoday.util.MediaType;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -104,6 +107,58 @@ public class MockClientHttpResponse implements ClientHttpResponse {
     this.body = Flux.just(buffer);
   }
 
+  /**
+   * Set the body to the content of the given file, streamed in chunks of
+   * {@value MockBodyUtils#DEFAULT_CHUNK_SIZE} bytes each time the body is
+   * subscribed to. The {@code Content-Length} header is set to the file
+   * size unless it has been set explicitly.
+   *
+   * @since 4.0
+   */
+  public void setBody(Path file) {
+    setBody(file, MockBodyUtils.DEFAULT_CHUNK_SIZE);
+  }
+
+  /**
+   * Variant of {@link #setBody(Path)} with a custom chunk size.
+   *
+   * @since 4.0
+   */
+  public void setBody(Path file, int chunkSize) {
+    this.body = MockBodyUtils.read(file, chunkSize);
+    applyContentLengthIfNecessary(MockBodyUtils.contentLength(file));
+  }
+
+  /**
+   * Set the body to the content of the given resource, streamed in chunks
+   * of {@value MockBodyUtils#DEFAULT_CHUNK_SIZE} bytes. The
+   * {@code Content-Length} header is set to the resource length unless it
+   * has been set explicitly or cannot be determined.
+   *
+   * @since 4.0
+   */
+  public void setBody(Resource resource) {
+    this.body = MockBodyUtils.read(resource, MockBodyUtils.DEFAULT_CHUNK_SIZE);
+    applyContentLengthIfNecessary(MockBodyUtils.contentLength(resource));
+  }
+
+  /**
+   * Set the body to the memory-mapped content of the given file, mapped one
+   * chunk at a time as it is consumed.
+   *
+   * @since 4.0
+   */
+  public void setMappedBody(Path file, int chunkSize) {
+    this.body = MockBodyUtils.map(file, chunkSize);
+    applyContentLengthIfNecessary(MockBodyUtils.contentLength(file));
+  }
+
+  private void applyContentLengthIfNecessary(long contentLength) {
+    if (contentLength >= 0 && this.headers.getContentLength() < 0) {
+      this.headers.setContentLength(contentLength);
+    }
+  }
+
   private DataBuffer toDataBuffer(String body, Charset charset) {
     byte[] bytes = body.getBytes(charset);
     ByteBuffer byteBuffer = ByteBuffer.wrap(bytes);
@@ -22,6 +22,7 @@ package cn.taketoday.mock.http.server.reactive;
 
 import cn.taketoday.core.DefaultMultiValueMap;
 import cn.taketoday.core.MultiValueMap;
+import cn.taketoday.core.io.Resource;
 import cn.taketoday.core.io.buffer.DataBuffer;
 import cn.taketoday.core.io.buffer.DefaultDataBufferFactory;
 import cn.taketoday.http.HttpCookie;
@@ -32,6 +33,7 @@ import cn.taketoday.http.server.reactive.AbstractServerHttpRequest;
 import cn.taketoday.http.server.reactive.SslInfo;
 import cn.taketoday.lang.Assert;
 import cn.taketoday.lang.Nullable;
+import cn.taketoday.mock.http.MockBodyUtils;
 import cn.taketoday.util.MediaType;
 import cn.taketoday.util.MimeType;
 import cn.taketoday.util.StringUtils;
@@ -43,6 +45,7 @@ import java.net.InetSocketAddress;
 import java.net.URI;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
@@ -447,6 +450,57 @@ public final class MockServerHttpRequest extends AbstractServerHttpRequest {
      * @return the built request entity
      */
     MockServerHttpRequest body(String body);
+
+    /**
+     * Set the body of the request to the content of the given file and
+     * build it. The file is streamed in chunks of
+     * {@value MockBodyUtils#DEFAULT_CHUNK_SIZE} bytes each time the body is
+     * subscribed to, rather than being read into memory.
+     * <p>The {@code Content-Length} header is set to the file size unless
+     * it has been set explicitly.
+     *
+     * @param file the file to stream
+     * @return the built request entity
+     * @since 4.0
+     */
+    MockServerHttpRequest body(Path file);
+
+    /**
+     * Variant of {@link #body(Path)} with a custom chunk size.
+     *
+     * @param file the file to stream
+     * @param chunkSize the maximum size of each {@code DataBuffer}
+     * @return the built request entity
+     * @since 4.0
+     */
+    MockServerHttpRequest body(Path file, int chunkSize);
+
+    /**
+     * Set the body of the request to the content of the given resource and
+     * build it, streaming it in chunks of
+     * {@value MockBodyUtils#DEFAULT_CHUNK_SIZE} bytes.
+     * <p>The {@code Content-Length} header is set to the resource length
+     * unless it has been set explicitly or cannot be determined.
+     *
+     * @param resource the resource to stream
+     * @return the built request entity
+     * @since 4.0
+     */
+    MockServerHttpRequest body(Resource resource);
+
+    /**
+     * Set the body of the request to the memory-mapped content of the given
+     * file and build it. The file is mapped one chunk at a time, so only the
+     * regions actually consumed by the handler are paged in.
+     * <p>The {@code Content-Length} header is set to the file size unless
+     * it has been set explicitly.
+     *
+     * @param file the file to map
+     * @param chunkSize the maximum size of each {@code DataBuffer}
+     * @return the built request entity
+     * @since 4.0
+     */
+    MockServerHttpRequest mappedBody(Path file, int chunkSize);
   }
 
   private static class DefaultBodyBuilder implements BodyBuilder {
@@ -605,6 +659,38 @@ public final class MockServerHttpRequest extends AbstractServerHttpRequest {
       return body(Flux.just(buffer));
     }
 
+    @Override
+    public MockServerHttpRequest body(Path file) {
+      return body(file, MockBodyUtils.DEFAULT_CHUNK_SIZE);
+    }
+
+    @Override
+    public MockServerHttpRequest body(Path file, int chunkSize) {
+      Flux<DataBuffer> body = MockBodyUtils.read(file, chunkSize);
+      applyContentLengthIfNecessary(MockBodyUtils.contentLength(file));
+      return body(body);
+    }
+
+    @Override
+    public MockServerHttpRequest body(Resource resource) {
+      Flux<DataBuffer> body = MockBodyUtils.read(resource, MockBodyUtils.DEFAULT_CHUNK_SIZE);
+      applyContentLengthIfNecessary(MockBodyUtils.contentLength(resource));
+      return body(body);
+    }
+
+    @Override
+    public MockServerHttpRequest mappedBody(Path file, int chunkSize) {
+      Flux<DataBuffer> body = MockBodyUtils.map(file, chunkSize);
+      applyContentLengthIfNecessary(MockBodyUtils.contentLength(file));
+      return body(body);
+    }
+
+    private void applyContentLengthIfNecessary(long contentLength) {
+      if (contentLength >= 0 && this.headers.getContentLength() < 0) {
+        this.headers.setContentLength(contentLength);
+      }
+    }
+
     private Charset getCharset() {
       return Optional.ofNullable(this.headers.getContentType())
               .map(MimeType::getCharset).orElse(StandardCharsets.UTF_8);
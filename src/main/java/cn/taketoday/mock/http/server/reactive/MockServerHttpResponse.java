@@ -24,10 +24,12 @@ import org.reactivestreams.Publisher;
 
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Function;
 
+import cn.taketoday.core.io.Resource;
 import cn.taketoday.core.io.buffer.DataBuffer;
 import cn.taketoday.core.io.buffer.DataBufferFactory;
 import cn.taketoday.core.io.buffer.DataBufferUtils;
@@ -36,6 +38,7 @@ import cn.taketoday.http.HttpHeaders;
 import cn.taketoday.http.ResponseCookie;
 import cn.taketoday.http.server.reactive.AbstractServerHttpResponse;
 import cn.taketoday.lang.Assert;
+import cn.taketoday.mock.http.MockBodyUtils;
 import cn.taketoday.util.MimeType;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -49,6 +52,11 @@ import reactor.core.publisher.Sinks;
  * for subsequent access, however it is also possible to set a custom
  * {@link #setWriteHandler(Function) writeHandler}.
  *
+ * <p>Large canned responses can be written from a file or {@link Resource}
+ * via {@link #writeWith(Path)} and {@link #writeWith(Resource)}. With the
+ * default write handler such content is not cached: {@link #getBody()}
+ * streams it from its source on each subscription instead.
+ *
  * @author Rossen Stoyanchev
  */
 public class MockServerHttpResponse extends AbstractServerHttpResponse {
@@ -58,6 +66,8 @@ public class MockServerHttpResponse extends AbstractServerHttpResponse {
 
   private Function<Flux<DataBuffer>, Mono<Void>> writeHandler;
 
+  private boolean customWriteHandler;
+
   public MockServerHttpResponse() {
     this(DefaultDataBufferFactory.sharedInstance);
   }
@@ -86,6 +96,7 @@ public class MockServerHttpResponse extends AbstractServerHttpResponse {
     Assert.notNull(writeHandler, "'writeHandler' is required");
     this.body = Flux.error(new IllegalStateException("Not available with custom write handler."));
     this.writeHandler = writeHandler;
+    this.customWriteHandler = true;
   }
 
   @Override
@@ -127,6 +138,63 @@ public class MockServerHttpResponse extends AbstractServerHttpResponse {
     return doCommit(() -> Mono.defer(() -> this.writeHandler.apply(Flux.empty())));
   }
 
+  /**
+   * Write the content of the given file as the response body, streamed in
+   * chunks of {@value MockBodyUtils#DEFAULT_CHUNK_SIZE} bytes. The
+   * {@code Content-Length} header is set to the file size unless it has
+   * been set explicitly.
+   *
+   * @param file the file to write
+   * @return completion of the write
+   * @since 4.0
+   */
+  public Mono<Void> writeWith(Path file) {
+    return writeWith(file, MockBodyUtils.DEFAULT_CHUNK_SIZE);
+  }
+
+  /**
+   * Variant of {@link #writeWith(Path)} with a custom chunk size.
+   *
+   * @since 4.0
+   */
+  public Mono<Void> writeWith(Path file, int chunkSize) {
+    return writeReplayable(MockBodyUtils.read(file, chunkSize), MockBodyUtils.contentLength(file));
+  }
+
+  /**
+   * Write the content of the given resource as the response body, streamed
+   * in chunks of {@value MockBodyUtils#DEFAULT_CHUNK_SIZE} bytes.
+   *
+   * @param resource the resource to write
+   * @return completion of the write
+   * @since 4.0
+   */
+  public Mono<Void> writeWith(Resource resource) {
+    return writeReplayable(MockBodyUtils.read(resource, MockBodyUtils.DEFAULT_CHUNK_SIZE),
+            MockBodyUtils.contentLength(resource));
+  }
+
+  /**
+   * Write the memory-mapped content of the given file as the response body,
+   * mapped one chunk at a time as it is consumed.
+   *
+   * @since 4.0
+   */
+  public Mono<Void> writeMapped(Path file, int chunkSize) {
+    return writeReplayable(MockBodyUtils.map(file, chunkSize), MockBodyUtils.contentLength(file));
+  }
+
+  private Mono<Void> writeReplayable(Flux<DataBuffer> body, long contentLength) {
+    if (contentLength >= 0 && getHeaders().getContentLength() < 0) {
+      getHeaders().setContentLength(contentLength);
+    }
+    if (this.customWriteHandler) {
+      return writeWith(body);
+    }
+    // The source can be re-read on demand, so keep it instead of caching its buffers
+    return doCommit(() -> Mono.fromRunnable(() -> this.body = body));
+  }
+
   /**
    * Return the response body or an error stream if the body was not set.
    */
@@ -62,6 +62,11 @@ public class DelegatingServletOutputStream extends ServletOutputStream {
     this.targetStream.write(b);
   }
 
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    this.targetStream.write(b, off, len);
+  }
+
   @Override
   public void flush() throws IOException {
     super.flush();
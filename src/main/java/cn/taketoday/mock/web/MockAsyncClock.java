@@ -0,0 +1,220 @@
+/*
+ * Original Author -> Harry Yang (taketoday@foxmail.com) https://taketoday.cn
+ * Copyright © TODAY & 2017 - 2021 All Rights Reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.mock.web;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+import cn.taketoday.lang.Assert;
+import cn.taketoday.lang.Nullable;
+
+/**
+ * A virtual clock and deterministic executor for {@link MockAsyncContext}.
+ *
+ * <p>Time only moves when a test calls {@link #advance(Duration)}. A
+ * {@code MockAsyncContext} using this clock arms its
+ * {@linkplain MockAsyncContext#setTimeout(long) timeout} against virtual
+ * time, and advancing past the deadline fires
+ * {@link jakarta.servlet.AsyncListener#onTimeout AsyncListener#onTimeout}
+ * immediately on the calling thread, without any wall-clock wait.
+ *
+ * <p>As an {@link Executor}, the clock queues tasks passed to
+ * {@link MockAsyncContext#start(Runnable)} instead of running them, until
+ * {@link #runPending()} or {@link #advance(Duration)} runs them in
+ * submission order on the calling thread. A test can thereby start any
+ * number of async requests and interleave their tasks and timeouts
+ * deterministically.
+ *
+ * <pre class="code">
+ * MockAsyncClock clock = new MockAsyncClock();
+ * MockMvc mockMvc = standaloneSetup(controller).asyncClock(clock).asyncExecutor(clock).build();
+ *
+ * MvcResult result = mockMvc.perform(get("/deferred")).andExpect(request().asyncStarted()).andReturn();
+ * clock.advance(Duration.ofSeconds(10));  // fires onTimeout
+ * </pre>
+ *
+ * <p>Instances are thread-safe; timeout callbacks and tasks are never run
+ * while holding the lock of the clock.
+ *
+ * @author TODAY
+ * @see MockAsyncContext#setClock(MockAsyncClock)
+ * @see MockAsyncContext#setExecutor(Executor)
+ * @since 4.0
+ */
+public class MockAsyncClock implements Executor {
+
+  private final Object lock = new Object();
+
+  private long millis;
+
+  private long sequence;
+
+  private final PriorityQueue<Timeout> timeouts = new PriorityQueue<>();
+
+  private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+  /**
+   * Create a clock starting at virtual time {@code 0}.
+   */
+  public MockAsyncClock() {
+  }
+
+  /**
+   * Return the current virtual time in milliseconds.
+   */
+  public long millis() {
+    synchronized(this.lock) {
+      return this.millis;
+    }
+  }
+
+  /**
+   * Queue the given task until {@link #runPending()} or {@link #advance}
+   * is called.
+   */
+  @Override
+  public void execute(Runnable task) {
+    Assert.notNull(task, "Task must not be null");
+    synchronized(this.lock) {
+      this.tasks.add(task);
+    }
+  }
+
+  /**
+   * Run all queued tasks, including tasks queued by the tasks themselves,
+   * in submission order on the calling thread.
+   *
+   * @return the number of tasks run
+   */
+  public int runPending() {
+    int count = 0;
+    Runnable task;
+    while ((task = pollTask()) != null) {
+      task.run();
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * Run the queued tasks, then move virtual time forward by the given
+   * duration, firing the timeouts that fall due in deadline order.
+   *
+   * @param duration the non-negative duration to advance by
+   */
+  public void advance(Duration duration) {
+    Assert.notNull(duration, "Duration must not be null");
+    advance(duration.toMillis());
+  }
+
+  /**
+   * Variant of {@link #advance(Duration)} with a duration in milliseconds.
+   *
+   * @param millis the non-negative number of milliseconds to advance by
+   */
+  public void advance(long millis) {
+    Assert.isTrue(millis >= 0, "Cannot move the clock backwards");
+    runPending();
+    long target;
+    synchronized(this.lock) {
+      target = this.millis + millis;
+    }
+    List<Timeout> due = new ArrayList<>();
+    while (true) {
+      synchronized(this.lock) {
+        Timeout next = this.timeouts.peek();
+        if (next == null || next.deadline > target) {
+          this.millis = target;
+          break;
+        }
+        this.timeouts.poll();
+        this.millis = next.deadline;
+        due.add(next);
+      }
+      for (Timeout timeout : due) {
+        timeout.context.fireTimeout(timeout);
+      }
+      due.clear();
+      runPending();
+    }
+  }
+
+  /**
+   * Return the number of armed timeouts that have not fired yet.
+   */
+  public int getPendingTimeoutCount() {
+    synchronized(this.lock) {
+      return this.timeouts.size();
+    }
+  }
+
+  Timeout schedule(MockAsyncContext context, long timeout) {
+    synchronized(this.lock) {
+      Timeout scheduled = new Timeout(context, this.millis + timeout, this.sequence++);
+      this.timeouts.add(scheduled);
+      return scheduled;
+    }
+  }
+
+  void cancel(Timeout timeout) {
+    synchronized(this.lock) {
+      this.timeouts.remove(timeout);
+    }
+  }
+
+  @Nullable
+  private Runnable pollTask() {
+    synchronized(this.lock) {
+      return this.tasks.poll();
+    }
+  }
+
+  /**
+   * An armed timeout of a {@link MockAsyncContext}, ordered by deadline and
+   * then by the order in which timeouts were armed.
+   */
+  static final class Timeout implements Comparable<Timeout> {
+
+    final MockAsyncContext context;
+
+    final long deadline;
+
+    final long sequence;
+
+    Timeout(MockAsyncContext context, long deadline, long sequence) {
+      this.context = context;
+      this.deadline = deadline;
+      this.sequence = sequence;
+    }
+
+    @Override
+    public int compareTo(Timeout other) {
+      int result = Long.compare(this.deadline, other.deadline);
+      return (result != 0 ? result : Long.compare(this.sequence, other.sequence));
+    }
+  }
+
+}
@@ -23,6 +23,8 @@ package cn.taketoday.mock.web;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
 
 import cn.taketoday.beans.support.BeanUtils;
 import cn.taketoday.lang.Assert;
@@ -41,6 +43,12 @@ import jakarta.servlet.http.HttpServletResponse;
 /**
  * Mock implementation of the {@link AsyncContext} interface.
  *
+ * <p>By default {@link #start(Runnable)} runs the task on the calling thread
+ * and the {@linkplain #setTimeout(long) timeout} is never enforced. An
+ * {@linkplain #setExecutor(Executor) executor} runs started tasks elsewhere,
+ * and a {@linkplain #setClock(MockAsyncClock) virtual clock} enforces the
+ * timeout when the test advances it.
+ *
  * @author Rossen Stoyanchev
  */
 public class MockAsyncContext implements AsyncContext {
@@ -50,7 +58,8 @@ public class MockAsyncContext implements AsyncContext {
   @Nullable
   private final HttpServletResponse response;
 
-  private final List<AsyncListener> listeners = new ArrayList<>();
+  // copy-on-write: listeners may be added by tasks on other threads
+  private final List<AsyncListener> listeners = new CopyOnWriteArrayList<>();
 
   @Nullable
   private String dispatchedPath;
@@ -59,6 +68,17 @@ public class MockAsyncContext implements AsyncContext {
 
   private final List<Runnable> dispatchHandlers = new ArrayList<>();
 
+  @Nullable
+  private Executor executor;
+
+  @Nullable
+  private MockAsyncClock clock;
+
+  @Nullable
+  private MockAsyncClock.Timeout scheduledTimeout;
+
+  private boolean completed;
+
   public MockAsyncContext(ServletRequest request, @Nullable ServletResponse response) {
     this.request = (HttpServletRequest) request;
     this.response = (HttpServletResponse) response;
@@ -106,6 +126,7 @@ public class MockAsyncContext implements AsyncContext {
   public void dispatch(@Nullable ServletContext context, String path) {
     synchronized(this) {
       this.dispatchedPath = path;
+      disarmTimeout();
       this.dispatchHandlers.forEach(Runnable::run);
     }
   }
@@ -117,6 +138,10 @@ public class MockAsyncContext implements AsyncContext {
 
   @Override
   public void complete() {
+    synchronized(this) {
+      this.completed = true;
+      disarmTimeout();
+    }
     MockHttpServletRequest mockRequest = WebUtils.getNativeRequest(this.request, MockHttpServletRequest.class);
     if (mockRequest != null) {
       mockRequest.setAsyncStarted(false);
@@ -131,9 +156,109 @@ public class MockAsyncContext implements AsyncContext {
     }
   }
 
+  /**
+   * Runs the task via the {@linkplain #setExecutor(Executor) executor}, if
+   * set, or else on the calling thread.
+   */
   @Override
   public void start(Runnable runnable) {
-    runnable.run();
+    Executor executor = this.executor;
+    if (executor != null) {
+      executor.execute(runnable);
+    }
+    else {
+      runnable.run();
+    }
+  }
+
+  /**
+   * Set the executor for tasks passed to {@link #start(Runnable)}, e.g. a
+   * thread pool, an executor with a virtual thread per task, or a
+   * {@link MockAsyncClock} for deterministic execution. By default tasks
+   * run on the calling thread.
+   *
+   * @since 4.0
+   */
+  public void setExecutor(@Nullable Executor executor) {
+    this.executor = executor;
+  }
+
+  /**
+   * Return the executor for tasks passed to {@link #start(Runnable)}, if any.
+   *
+   * @since 4.0
+   */
+  @Nullable
+  public Executor getExecutor() {
+    return this.executor;
+  }
+
+  /**
+   * Set the virtual clock the {@linkplain #setTimeout(long) timeout} is
+   * enforced against. When the clock is advanced past the timeout before
+   * this context is dispatched or completed, the
+   * {@link AsyncListener#onTimeout} callbacks are invoked, and the context
+   * is completed if none of them dispatched or completed it, as a Servlet
+   * container would. Without a clock the timeout is not enforced.
+   *
+   * @since 4.0
+   */
+  public void setClock(@Nullable MockAsyncClock clock) {
+    synchronized(this) {
+      disarmTimeout();
+      this.clock = clock;
+      armTimeout();
+    }
+  }
+
+  /**
+   * Return the virtual clock the timeout is enforced against, if any.
+   *
+   * @since 4.0
+   */
+  @Nullable
+  public MockAsyncClock getClock() {
+    return this.clock;
+  }
+
+  private void armTimeout() {
+    if (this.clock != null && this.timeout > 0 && !this.completed && this.dispatchedPath == null) {
+      this.scheduledTimeout = this.clock.schedule(this, this.timeout);
+    }
+  }
+
+  private void disarmTimeout() {
+    if (this.scheduledTimeout != null) {
+      this.clock.cancel(this.scheduledTimeout);
+      this.scheduledTimeout = null;
+    }
+  }
+
+  /**
+   * Invoked by the clock when the given timeout falls due.
+   */
+  void fireTimeout(MockAsyncClock.Timeout timeout) {
+    synchronized(this) {
+      if (this.scheduledTimeout != timeout) {
+        return;
+      }
+      this.scheduledTimeout = null;
+    }
+    for (AsyncListener listener : this.listeners) {
+      try {
+        listener.onTimeout(new AsyncEvent(this, this.request, this.response));
+      }
+      catch (IOException ex) {
+        throw new IllegalStateException("AsyncListener failure", ex);
+      }
+    }
+    boolean handled;
+    synchronized(this) {
+      handled = (this.completed || this.dispatchedPath != null);
+    }
+    if (!handled) {
+      complete();
+    }
   }
 
   @Override
@@ -169,7 +294,11 @@ public class MockAsyncContext implements AsyncContext {
    */
   @Override
   public void setTimeout(long timeout) {
-    this.timeout = timeout;
+    synchronized(this) {
+      this.timeout = timeout;
+      disarmTimeout();
+      armTimeout();
+    }
   }
 
   @Override
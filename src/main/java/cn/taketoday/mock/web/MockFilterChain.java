@@ -131,7 +131,13 @@ public class MockFilterChain implements FilterChain {
 
     if (this.iterator.hasNext()) {
       Filter nextFilter = this.iterator.next();
-      nextFilter.doFilter(request, response, this);
+      MockFilterEvent event = MockFilterEvent.start();
+      try {
+        nextFilter.doFilter(request, response, this);
+      }
+      finally {
+        event.end(nextFilter, request);
+      }
     }
 
     this.request = request;
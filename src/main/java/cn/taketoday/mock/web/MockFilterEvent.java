@@ -0,0 +1,81 @@
+/*
+ * Original Author -> Harry Yang (taketoday@foxmail.com) https://taketoday.cn
+ * Copyright © TODAY & 2017 - 2021 All Rights Reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.mock.web;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.http.HttpServletRequest;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder event for the invocation of a single {@link Filter}
+ * in a {@link MockFilterChain}. The duration includes the rest of the chain.
+ *
+ * <p>Public so that filter chains of the {@code MockMvc} setup that invoke
+ * filters themselves, rather than through the {@code MockFilterChain}, can
+ * record the same event for each of them.
+ *
+ * @author TODAY
+ * @since 4.0
+ */
+@Name("cn.taketoday.mock.web.Filter")
+@Label("Mock Filter Invocation")
+@Description("The invocation of a Filter in a MockFilterChain, including the rest of the chain")
+@Category({ "TODAY", "Test", "MockMvc" })
+@StackTrace(false)
+public final class MockFilterEvent extends Event {
+
+  @Label("Filter")
+  String filter;
+
+  @Label("Request URI")
+  String requestUri;
+
+  /**
+   * Begin an event for the invocation of a filter.
+   */
+  public static MockFilterEvent start() {
+    MockFilterEvent event = new MockFilterEvent();
+    event.begin();
+    return event;
+  }
+
+  /**
+   * End the event, committing it for the given filter and request if
+   * enabled.
+   */
+  public void end(Filter filter, ServletRequest request) {
+    end();
+    if (shouldCommit()) {
+      this.filter = filter.getClass().getName();
+      if (request instanceof HttpServletRequest httpRequest) {
+        this.requestUri = httpRequest.getRequestURI();
+      }
+      commit();
+    }
+  }
+
+}
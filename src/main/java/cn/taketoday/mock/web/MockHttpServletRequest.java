@@ -45,6 +45,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.TimeZone;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 import cn.taketoday.core.DefaultMultiValueMap;
@@ -219,6 +220,12 @@ public class MockHttpServletRequest implements HttpServletRequest {
   @Nullable
   private MockAsyncContext asyncContext;
 
+  @Nullable
+  private Executor asyncExecutor;
+
+  @Nullable
+  private MockAsyncClock asyncClock;
+
   private DispatcherType dispatcherType = DispatcherType.REQUEST;
 
   // ---------------------------------------------------------------------
@@ -928,8 +935,33 @@ public class MockHttpServletRequest implements HttpServletRequest {
   public AsyncContext startAsync(ServletRequest request, @Nullable ServletResponse response) {
     Assert.state(this.asyncSupported, "Async not supported");
     this.asyncStarted = true;
-    this.asyncContext = new MockAsyncContext(request, response);
-    return this.asyncContext;
+    MockAsyncContext asyncContext = new MockAsyncContext(request, response);
+    asyncContext.setExecutor(this.asyncExecutor);
+    asyncContext.setClock(this.asyncClock);
+    this.asyncContext = asyncContext;
+    return asyncContext;
+  }
+
+  /**
+   * Set the executor applied to the {@link MockAsyncContext} created by
+   * {@link #startAsync}.
+   *
+   * @see MockAsyncContext#setExecutor(Executor)
+   * @since 4.0
+   */
+  public void setAsyncExecutor(@Nullable Executor asyncExecutor) {
+    this.asyncExecutor = asyncExecutor;
+  }
+
+  /**
+   * Set the virtual clock applied to the {@link MockAsyncContext} created by
+   * {@link #startAsync}.
+   *
+   * @see MockAsyncContext#setClock(MockAsyncClock)
+   * @since 4.0
+   */
+  public void setAsyncClock(@Nullable MockAsyncClock asyncClock) {
+    this.asyncClock = asyncClock;
   }
 
   public void setAsyncStarted(boolean asyncStarted) {
@@ -20,14 +20,17 @@
 
 package cn.taketoday.mock.web;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.UnsupportedEncodingException;
 import java.io.Writer;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.UnsupportedCharsetException;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
@@ -92,7 +95,7 @@ public class MockHttpServletResponse implements HttpServletResponse {
    */
   private boolean characterEncodingSet = false;
 
-  private final ByteArrayOutputStream content = new ByteArrayOutputStream(1024);
+  private final SegmentedContentBuffer content = new SegmentedContentBuffer();
 
   private final ServletOutputStream outputStream = new ResponseServletOutputStream(this.content);
 
@@ -242,10 +245,59 @@ public class MockHttpServletResponse implements HttpServletResponse {
     return this.writer;
   }
 
+  /**
+   * Return a copy of the content of the response body.
+   * <p>For large bodies, prefer {@link #getContentAsStream()} or
+   * {@link #getContentAsByteBuffer()} which do not copy the content.
+   *
+   * @see #getContentSize()
+   */
   public byte[] getContentAsByteArray() {
     return this.content.toByteArray();
   }
 
+  /**
+   * Return a stream over the content of the response body written so far.
+   *
+   * @since 4.0
+   */
+  public InputStream getContentAsStream() {
+    return this.content.getInputStream();
+  }
+
+  /**
+   * Return a read-only {@link ByteBuffer} view of the content of the response
+   * body written so far, memory-mapped if the content has been spilled to disk.
+   *
+   * @since 4.0
+   * @see #setContentSpillThreshold(long)
+   */
+  public ByteBuffer getContentAsByteBuffer() {
+    return this.content.asByteBuffer();
+  }
+
+  /**
+   * Return the number of bytes written to the response body so far.
+   *
+   * @since 4.0
+   */
+  public long getContentSize() {
+    return this.content.size();
+  }
+
+  /**
+   * Set the number of bytes above which the response body is spilled to a
+   * temporary file rather than kept in memory, or a negative value to keep
+   * it in memory regardless of its size.
+   * <p>Defaults to 64 MB, or to the value of the
+   * {@code "today.test.response.spillThreshold"} property, if set.
+   *
+   * @since 4.0
+   */
+  public void setContentSpillThreshold(long spillThreshold) {
+    this.content.setSpillThreshold(spillThreshold);
+  }
+
   /**
    * Get the content of the response body as a {@code String}, using the charset
    * specified for the response by the application, either through
@@ -261,7 +313,7 @@ public class MockHttpServletResponse implements HttpServletResponse {
    * @see #setContentType(String)
    */
   public String getContentAsString() throws UnsupportedEncodingException {
-    return this.content.toString(getCharacterEncoding());
+    return this.content.toString(toCharset(getCharacterEncoding()));
   }
 
   /**
@@ -278,8 +330,17 @@ public class MockHttpServletResponse implements HttpServletResponse {
    * @see #setContentType(String)
    */
   public String getContentAsString(Charset fallbackCharset) throws UnsupportedEncodingException {
-    String charsetName = (this.characterEncodingSet ? getCharacterEncoding() : fallbackCharset.name());
-    return this.content.toString(charsetName);
+    Charset charset = (this.characterEncodingSet ? toCharset(getCharacterEncoding()) : fallbackCharset);
+    return this.content.toString(charset);
+  }
+
+  private static Charset toCharset(String charsetName) throws UnsupportedEncodingException {
+    try {
+      return Charset.forName(charsetName);
+    }
+    catch (IllegalCharsetNameException | UnsupportedCharsetException ex) {
+      throw new UnsupportedEncodingException(charsetName);
+    }
   }
 
   @Override
@@ -828,6 +889,13 @@ public class MockHttpServletResponse implements HttpServletResponse {
       setCommittedIfBufferSizeExceeded();
     }
 
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      super.write(b, off, len);
+      super.flush();
+      setCommittedIfBufferSizeExceeded();
+    }
+
     @Override
     public void flush() throws IOException {
       super.flush();
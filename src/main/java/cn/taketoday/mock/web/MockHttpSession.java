@@ -24,10 +24,9 @@ import java.io.Serializable;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import cn.taketoday.lang.Assert;
 import cn.taketoday.lang.Nullable;
@@ -42,6 +41,10 @@ import jakarta.servlet.http.HttpSessionBindingListener;
  *
  * <p>this set of mocks is designed on a Servlet 4.0 baseline.
  *
+ * <p>Sessions are safe for concurrent use. Attributes are held in a
+ * copy-on-write map, so reads never block and a {@link #snapshot()} of a
+ * session, e.g. one that has been authenticated, is cheap to create.
+ *
  * @author Juergen Hoeller
  * @author Rod Johnson
  * @author Mark Fisher
@@ -56,23 +59,26 @@ public class MockHttpSession implements HttpSession {
    */
   public static final String SESSION_COOKIE_NAME = "JSESSION";
 
-  private static int nextId = 1;
+  private static final AtomicInteger nextId = new AtomicInteger(1);
 
-  private String id;
+  private volatile String id;
 
   private final long creationTime = System.currentTimeMillis();
 
-  private int maxInactiveInterval;
+  private volatile int maxInactiveInterval;
 
-  private long lastAccessedTime = System.currentTimeMillis();
+  private volatile long lastAccessedTime = System.currentTimeMillis();
 
   private final ServletContext servletContext;
 
-  private final Map<String, Object> attributes = new LinkedHashMap<>();
+  /** Replaced on every modification; never mutated once published. */
+  private volatile Map<String, Object> attributes = Collections.emptyMap();
+
+  private final Object attributesMonitor = new Object();
 
-  private boolean invalid = false;
+  private volatile boolean invalid = false;
 
-  private boolean isNew = true;
+  private volatile boolean isNew = true;
 
   /**
    * Create a new MockHttpSession with a default {@link MockServletContext}.
@@ -100,7 +106,7 @@ public class MockHttpSession implements HttpSession {
    */
   public MockHttpSession(@Nullable ServletContext servletContext, @Nullable String id) {
     this.servletContext = (servletContext != null ? servletContext : new MockServletContext());
-    this.id = (id != null ? id : Integer.toString(nextId++));
+    this.id = (id != null ? id : Integer.toString(nextId.getAndIncrement()));
   }
 
   @Override
@@ -120,7 +126,7 @@ public class MockHttpSession implements HttpSession {
    * @return the new session id
    */
   public String changeSessionId() {
-    this.id = Integer.toString(nextId++);
+    this.id = Integer.toString(nextId.getAndIncrement());
     return this.id;
   }
 
@@ -170,7 +176,7 @@ public class MockHttpSession implements HttpSession {
   @Override
   public Enumeration<String> getAttributeNames() {
     assertIsValid();
-    return Collections.enumeration(new LinkedHashSet<>(this.attributes.keySet()));
+    return Collections.enumeration(this.attributes.keySet());
   }
 
   @Override
@@ -184,7 +190,12 @@ public class MockHttpSession implements HttpSession {
     assertIsValid();
     Assert.notNull(name, "Attribute name must not be null");
     if (value != null) {
-      Object oldValue = this.attributes.put(name, value);
+      Object oldValue;
+      synchronized(this.attributesMonitor) {
+        Map<String, Object> attributes = new LinkedHashMap<>(this.attributes);
+        oldValue = attributes.put(name, value);
+        this.attributes = attributes;
+      }
       if (value != oldValue) {
         if (oldValue instanceof HttpSessionBindingListener) {
           ((HttpSessionBindingListener) oldValue).valueUnbound(new HttpSessionBindingEvent(this, name, oldValue));
@@ -208,7 +219,15 @@ public class MockHttpSession implements HttpSession {
   public void removeAttribute(String name) {
     assertIsValid();
     Assert.notNull(name, "Attribute name must not be null");
-    Object value = this.attributes.remove(name);
+    Object value;
+    synchronized(this.attributesMonitor) {
+      if (!this.attributes.containsKey(name)) {
+        return;
+      }
+      Map<String, Object> attributes = new LinkedHashMap<>(this.attributes);
+      value = attributes.remove(name);
+      this.attributes = attributes;
+    }
     if (value instanceof HttpSessionBindingListener) {
       ((HttpSessionBindingListener) value).valueUnbound(new HttpSessionBindingEvent(this, name, value));
     }
@@ -223,17 +242,23 @@ public class MockHttpSession implements HttpSession {
    * Clear all of this session's attributes.
    */
   public void clearAttributes() {
-    for (Iterator<Map.Entry<String, Object>> it = this.attributes.entrySet().iterator(); it.hasNext(); ) {
-      Map.Entry<String, Object> entry = it.next();
+    for (Map.Entry<String, Object> entry : detachAttributes().entrySet()) {
       String name = entry.getKey();
       Object value = entry.getValue();
-      it.remove();
       if (value instanceof HttpSessionBindingListener) {
         ((HttpSessionBindingListener) value).valueUnbound(new HttpSessionBindingEvent(this, name, value));
       }
     }
   }
 
+  private Map<String, Object> detachAttributes() {
+    synchronized(this.attributesMonitor) {
+      Map<String, Object> attributes = this.attributes;
+      this.attributes = Collections.emptyMap();
+      return attributes;
+    }
+  }
+
   /**
    * Invalidates this session then unbinds any objects bound to it.
    *
@@ -277,12 +302,11 @@ public class MockHttpSession implements HttpSession {
    * @return a representation of this session's serialized state
    */
   public Serializable serializeState() {
-    HashMap<String, Serializable> state = new HashMap<>();
-    for (Iterator<Map.Entry<String, Object>> it = this.attributes.entrySet().iterator(); it.hasNext(); ) {
-      Map.Entry<String, Object> entry = it.next();
+    Map<String, Object> attributes = detachAttributes();
+    HashMap<String, Serializable> state = new HashMap<>(Math.max(16, (int) (attributes.size() / 0.75f) + 1));
+    for (Map.Entry<String, Object> entry : attributes.entrySet()) {
       String name = entry.getKey();
       Object value = entry.getValue();
-      it.remove();
       if (value instanceof Serializable) {
         state.put(name, (Serializable) value);
       }
@@ -306,7 +330,31 @@ public class MockHttpSession implements HttpSession {
   @SuppressWarnings("unchecked")
   public void deserializeState(Serializable state) {
     Assert.isTrue(state instanceof Map, "Serialized state needs to be of type [java.util.Map]");
-    this.attributes.putAll((Map<String, Object>) state);
+    synchronized(this.attributesMonitor) {
+      Map<String, Object> attributes = new LinkedHashMap<>(this.attributes);
+      attributes.putAll((Map<String, Object>) state);
+      this.attributes = attributes;
+    }
+  }
+
+  /**
+   * Create a new session with a new id that starts out with the attributes
+   * of this session, e.g. to reuse an authenticated session for many
+   * simulated clients without repeating the login.
+   * <p>The attribute map is shared until either session is modified, so
+   * this is cheap regardless of the number of attributes. Attribute values
+   * themselves are not copied, and no binding events are published.
+   *
+   * @return the new session, which is not {@linkplain #isNew() new}
+   * @since 4.0
+   */
+  public MockHttpSession snapshot() {
+    assertIsValid();
+    MockHttpSession snapshot = new MockHttpSession(this.servletContext);
+    snapshot.attributes = this.attributes;
+    snapshot.maxInactiveInterval = this.maxInactiveInterval;
+    snapshot.isNew = false;
+    return snapshot;
   }
 
 }
@@ -20,10 +20,11 @@
 
 package cn.taketoday.mock.web;
 
-import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 
 import cn.taketoday.lang.Assert;
 import cn.taketoday.lang.NonNull;
@@ -38,6 +39,10 @@ import cn.taketoday.web.multipart.MultipartFile;
  * <p>Useful in conjunction with a {@link MockMultipartHttpServletRequest}
  * for testing application controllers that access multipart uploads.
  *
+ * <p>Besides {@code byte[]} content, a file may be backed by a {@link Path}
+ * or a (memory-mapped) {@link ByteBuffer}, in which case its content is
+ * streamed from the source rather than held on the heap.
+ *
  * @author Juergen Hoeller
  * @author Eric Crampton
  * @see MockMultipartHttpServletRequest
@@ -51,7 +56,7 @@ public class MockMultipartFile implements MultipartFile {
   @Nullable
   private final String contentType;
 
-  private final byte[] content;
+  private final MockPartContent content;
 
   /**
    * Create a new MockMultipartFile with the given content.
@@ -85,11 +90,7 @@ public class MockMultipartFile implements MultipartFile {
   public MockMultipartFile(
           String name, @Nullable String originalFilename, @Nullable String contentType, @Nullable byte[] content) {
 
-    Assert.hasLength(name, "Name must not be empty");
-    this.name = name;
-    this.originalFilename = (originalFilename != null ? originalFilename : "");
-    this.contentType = contentType;
-    this.content = (content != null ? content : new byte[0]);
+    this(name, originalFilename, contentType, MockPartContent.forBytes(content));
   }
 
   /**
@@ -108,6 +109,64 @@ public class MockMultipartFile implements MultipartFile {
     this(name, originalFilename, contentType, FileCopyUtils.copyToByteArray(contentStream));
   }
 
+  MockMultipartFile(
+          String name, @Nullable String originalFilename, @Nullable String contentType, MockPartContent content) {
+
+    Assert.hasLength(name, "Name must not be empty");
+    this.name = name;
+    this.originalFilename = (originalFilename != null ? originalFilename : "");
+    this.contentType = contentType;
+    this.content = content;
+  }
+
+  /**
+   * Create a new MockMultipartFile backed by the given file, using the
+   * file name as the original filename.
+   * <p>The content is streamed from the file on access and is not read
+   * into memory.
+   *
+   * @param name the name of the file
+   * @param contentPath the file containing the content
+   * @since 4.0
+   */
+  public static MockMultipartFile fromPath(String name, Path contentPath) {
+    return fromPath(name, String.valueOf(contentPath.getFileName()), null, contentPath);
+  }
+
+  /**
+   * Create a new MockMultipartFile backed by the given file.
+   * <p>The content is streamed from the file on access and is not read
+   * into memory.
+   *
+   * @param name the name of the file
+   * @param originalFilename the original filename (as on the client's machine)
+   * @param contentType the content type (if known)
+   * @param contentPath the file containing the content
+   * @since 4.0
+   */
+  public static MockMultipartFile fromPath(
+          String name, @Nullable String originalFilename, @Nullable String contentType, Path contentPath) {
+
+    return new MockMultipartFile(name, originalFilename, contentType, MockPartContent.forPath(contentPath));
+  }
+
+  /**
+   * Create a new MockMultipartFile backed by the remaining content of the
+   * given buffer, typically a {@link java.nio.MappedByteBuffer}.
+   * <p>The buffer is not copied; its position and limit are left untouched.
+   *
+   * @param name the name of the file
+   * @param originalFilename the original filename (as on the client's machine)
+   * @param contentType the content type (if known)
+   * @param content the content of the file
+   * @since 4.0
+   */
+  public static MockMultipartFile fromBuffer(
+          String name, @Nullable String originalFilename, @Nullable String contentType, ByteBuffer content) {
+
+    return new MockMultipartFile(name, originalFilename, contentType, MockPartContent.forBuffer(content));
+  }
+
   @Override
   public String getName() {
     return this.name;
@@ -127,22 +186,42 @@ public class MockMultipartFile implements MultipartFile {
 
   @Override
   public boolean isEmpty() {
-    return (this.content.length == 0);
+    return (this.content.getSize() == 0);
   }
 
   @Override
   public long getSize() {
-    return this.content.length;
+    return this.content.getSize();
   }
 
+  /**
+   * {@inheritDoc}
+   * <p>For file or buffer backed content, this reads the entire content
+   * into memory; prefer {@link #getInputStream()} or {@link #save(File)}.
+   */
   @Override
   public byte[] getBytes() throws IOException {
-    return this.content;
+    return this.content.getBytes();
   }
 
+  /**
+   * Return the underlying {@code byte[]}, {@link Path} or {@link ByteBuffer}.
+   */
   @Override
   public Object getOriginalResource() {
-    return content;
+    return this.content.getSource();
+  }
+
+  /**
+   * Return the file backing this multipart file, if any.
+   *
+   * @return the backing file, or {@code null} if the content is held
+   * in memory or in a buffer
+   * @since 4.0
+   */
+  @Nullable
+  public Path getContentPath() {
+    return this.content.getPath();
   }
 
   @Override
@@ -150,12 +229,12 @@ public class MockMultipartFile implements MultipartFile {
 
   @Override
   public InputStream getInputStream() throws IOException {
-    return new ByteArrayInputStream(this.content);
+    return this.content.getInputStream();
   }
 
   @Override
   public void save(File dest) throws IOException {
-    FileCopyUtils.copy(this.content, dest);
+    this.content.transferTo(dest.toPath());
   }
 
 }
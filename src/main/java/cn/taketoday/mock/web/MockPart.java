@@ -20,9 +20,10 @@
 
 package cn.taketoday.mock.web;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.Collection;
 import java.util.Collections;
 
@@ -35,6 +36,10 @@ import jakarta.servlet.http.Part;
 /**
  * Mock implementation of {@code jakarta.servlet.http.Part}.
  *
+ * <p>The content may be given as {@code byte[]}, or as a {@link Path} or
+ * (memory-mapped) {@link ByteBuffer} which is streamed on access rather
+ * than held on the heap.
+ *
  * @author Rossen Stoyanchev
  * @author Juergen Hoeller
  * @see MockHttpServletRequest#addPart
@@ -47,7 +52,7 @@ public class MockPart implements Part {
   @Nullable
   private final String filename;
 
-  private final byte[] content;
+  private final MockPartContent content;
 
   private final HttpHeaders headers = HttpHeaders.create();
 
@@ -66,13 +71,53 @@ public class MockPart implements Part {
    * @see #getHeaders()
    */
   public MockPart(String name, @Nullable String filename, @Nullable byte[] content) {
+    this(name, filename, MockPartContent.forBytes(content));
+  }
+
+  private MockPart(String name, @Nullable String filename, MockPartContent content) {
     Assert.hasLength(name, "'name' must not be empty");
     this.name = name;
     this.filename = filename;
-    this.content = (content != null ? content : new byte[0]);
+    this.content = content;
     this.headers.setContentDispositionFormData(name, filename);
   }
 
+  /**
+   * Create a part with a filename and content backed by the given file.
+   * The content is streamed from the file and not read into memory.
+   *
+   * @see #getHeaders()
+   * @since 4.0
+   */
+  public static MockPart fromPath(String name, @Nullable String filename, Path contentPath) {
+    return new MockPart(name, filename, MockPartContent.forPath(contentPath));
+  }
+
+  /**
+   * Create a part with a filename and content backed by the given temporary
+   * file, which is deleted once neither the part nor any
+   * {@linkplain #toMultipartFile() multipart file} created from it is
+   * reachable any more.
+   *
+   * @see #fromPath(String, String, Path)
+   * @since 4.0
+   */
+  public static MockPart fromTemporaryFile(String name, @Nullable String filename, Path contentPath) {
+    return new MockPart(name, filename, MockPartContent.forTemporaryFile(contentPath));
+  }
+
+  /**
+   * Create a part with a filename and content backed by the remaining bytes
+   * of the given buffer, typically a {@link java.nio.MappedByteBuffer}. The
+   * buffer is not copied.
+   *
+   * @see #getHeaders()
+   * @since 4.0
+   */
+  public static MockPart fromBuffer(String name, @Nullable String filename, ByteBuffer content) {
+    return new MockPart(name, filename, MockPartContent.forBuffer(content));
+  }
+
   @Override
   public String getName() {
     return this.name;
@@ -93,12 +138,12 @@ public class MockPart implements Part {
 
   @Override
   public long getSize() {
-    return this.content.length;
+    return this.content.getSize();
   }
 
   @Override
   public InputStream getInputStream() throws IOException {
-    return new ByteArrayInputStream(this.content);
+    return this.content.getInputStream();
   }
 
   @Override
@@ -136,4 +181,26 @@ public class MockPart implements Part {
     return this.headers;
   }
 
+  /**
+   * Return the file backing this part, if any.
+   *
+   * @return the backing file, or {@code null} if the content is held
+   * in memory or in a buffer
+   * @since 4.0
+   */
+  @Nullable
+  public Path getContentPath() {
+    return this.content.getPath();
+  }
+
+  /**
+   * Create a {@link MockMultipartFile} for this part which shares its
+   * content rather than copying it.
+   *
+   * @since 4.0
+   */
+  public MockMultipartFile toMultipartFile() {
+    return new MockMultipartFile(this.name, this.filename, getContentType(), this.content);
+  }
+
 }
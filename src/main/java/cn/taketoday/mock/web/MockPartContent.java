@@ -0,0 +1,291 @@
+/*
+ * Original Author -> Harry Yang (taketoday@foxmail.com) https://taketoday.cn
+ * Copyright © TODAY & 2017 - 2021 All Rights Reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.mock.web;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import cn.taketoday.lang.Assert;
+import cn.taketoday.lang.Nullable;
+import cn.taketoday.util.FileCopyUtils;
+
+/**
+ * Content of a {@link MockPart} or {@link MockMultipartFile}: either an
+ * in-memory {@code byte[]}, a file on disk, or a (typically
+ * {@linkplain java.nio.MappedByteBuffer memory-mapped}) {@link ByteBuffer}.
+ *
+ * <p>File and buffer backed content is streamed on access and never copied
+ * onto the heap unless {@link #getBytes()} is called explicitly, which allows
+ * for multipart tests with fixtures larger than the test heap.
+ *
+ * @author TODAY
+ * @since 4.0
+ */
+abstract class MockPartContent {
+
+  private static final int TRANSFER_CHUNK_SIZE = 8 * 1024 * 1024;
+
+  @Nullable
+  private static Cleaner cleaner;
+
+  static MockPartContent forBytes(@Nullable byte[] content) {
+    return new BytesContent(content != null ? content : new byte[0]);
+  }
+
+  static MockPartContent forPath(Path path) {
+    Assert.notNull(path, "Path must not be null");
+    Assert.isTrue(Files.isRegularFile(path), () -> "Not a regular file: " + path);
+    return new PathContent(path);
+  }
+
+  /**
+   * Variant of {@link #forPath(Path)} for a temporary file that is deleted
+   * once the returned content, and with it every part or multipart file
+   * sharing it, is no longer reachable.
+   */
+  static MockPartContent forTemporaryFile(Path path) {
+    MockPartContent content = forPath(path);
+    getCleaner().register(content, () -> {
+      try {
+        Files.deleteIfExists(path);
+      }
+      catch (IOException ex) {
+        path.toFile().deleteOnExit();
+      }
+    });
+    return content;
+  }
+
+  private static synchronized Cleaner getCleaner() {
+    if (cleaner == null) {
+      cleaner = Cleaner.create();
+    }
+    return cleaner;
+  }
+
+  static MockPartContent forBuffer(ByteBuffer buffer) {
+    Assert.notNull(buffer, "ByteBuffer must not be null");
+    return new BufferContent(buffer.slice());
+  }
+
+  abstract long getSize();
+
+  /**
+   * Return the content as a byte array, reading it into memory if necessary.
+   */
+  abstract byte[] getBytes() throws IOException;
+
+  abstract InputStream getInputStream() throws IOException;
+
+  /**
+   * Write the content to the given file, replacing any existing content.
+   */
+  abstract void transferTo(Path dest) throws IOException;
+
+  /**
+   * Return the file backing this content, or {@code null} if not file-backed.
+   */
+  @Nullable
+  Path getPath() {
+    return null;
+  }
+
+  /**
+   * Return the underlying {@code byte[]}, {@link Path} or {@link ByteBuffer}.
+   */
+  abstract Object getSource();
+
+  private static FileChannel openForWrite(Path dest) throws IOException {
+    return FileChannel.open(dest, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+  }
+
+  private static final class BytesContent extends MockPartContent {
+
+    private final byte[] content;
+
+    BytesContent(byte[] content) {
+      this.content = content;
+    }
+
+    @Override
+    long getSize() {
+      return this.content.length;
+    }
+
+    @Override
+    byte[] getBytes() {
+      return this.content;
+    }
+
+    @Override
+    InputStream getInputStream() {
+      return new ByteArrayInputStream(this.content);
+    }
+
+    @Override
+    void transferTo(Path dest) throws IOException {
+      FileCopyUtils.copy(this.content, dest.toFile());
+    }
+
+    @Override
+    Object getSource() {
+      return this.content;
+    }
+  }
+
+  private static final class PathContent extends MockPartContent {
+
+    private final Path path;
+
+    PathContent(Path path) {
+      this.path = path;
+    }
+
+    @Override
+    long getSize() {
+      return this.path.toFile().length();
+    }
+
+    @Override
+    byte[] getBytes() throws IOException {
+      return Files.readAllBytes(this.path);
+    }
+
+    @Override
+    InputStream getInputStream() throws IOException {
+      return Files.newInputStream(this.path);
+    }
+
+    @Override
+    void transferTo(Path dest) throws IOException {
+      if (Files.exists(dest) && Files.isSameFile(this.path, dest)) {
+        return;
+      }
+      try (FileChannel in = FileChannel.open(this.path, StandardOpenOption.READ);
+              FileChannel out = openForWrite(dest)) {
+        long size = in.size();
+        long position = 0;
+        while (position < size) {
+          position += in.transferTo(position, Math.min(TRANSFER_CHUNK_SIZE, size - position), out);
+        }
+      }
+    }
+
+    @Override
+    Path getPath() {
+      return this.path;
+    }
+
+    @Override
+    Object getSource() {
+      return this.path;
+    }
+  }
+
+  private static final class BufferContent extends MockPartContent {
+
+    private final ByteBuffer buffer;
+
+    BufferContent(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    long getSize() {
+      return this.buffer.remaining();
+    }
+
+    @Override
+    byte[] getBytes() {
+      byte[] bytes = new byte[this.buffer.remaining()];
+      this.buffer.duplicate().get(bytes);
+      return bytes;
+    }
+
+    @Override
+    InputStream getInputStream() {
+      return new ByteBufferInputStream(this.buffer.duplicate());
+    }
+
+    @Override
+    void transferTo(Path dest) throws IOException {
+      ByteBuffer source = this.buffer.duplicate();
+      try (FileChannel out = openForWrite(dest)) {
+        while (source.hasRemaining()) {
+          out.write(source);
+        }
+      }
+    }
+
+    @Override
+    Object getSource() {
+      return this.buffer.asReadOnlyBuffer();
+    }
+  }
+
+  private static final class ByteBufferInputStream extends InputStream {
+
+    private final ByteBuffer buffer;
+
+    ByteBufferInputStream(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+      return (this.buffer.hasRemaining() ? this.buffer.get() & 0xFF : -1);
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+      if (len == 0) {
+        return 0;
+      }
+      if (!this.buffer.hasRemaining()) {
+        return -1;
+      }
+      int count = Math.min(len, this.buffer.remaining());
+      this.buffer.get(b, off, count);
+      return count;
+    }
+
+    @Override
+    public long skip(long n) {
+      int count = (int) Math.max(0, Math.min(n, this.buffer.remaining()));
+      this.buffer.position(this.buffer.position() + count);
+      return count;
+    }
+
+    @Override
+    public int available() {
+      return this.buffer.remaining();
+    }
+  }
+
+}
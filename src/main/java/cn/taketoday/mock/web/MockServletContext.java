@@ -25,7 +25,11 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
+import java.nio.file.StandardOpenOption;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.EventListener;
@@ -35,6 +39,7 @@ import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import cn.taketoday.core.io.DefaultResourceLoader;
 import cn.taketoday.core.io.Resource;
@@ -77,6 +82,13 @@ import jakarta.servlet.descriptor.JspConfigDescriptor;
  * {@code MockServletContext} with a {@code FileSystemResourceLoader} in order to
  * interpret resource paths as relative filesystem locations.
  *
+ * <p>Resources that exist are resolved once per path, and only their
+ * metadata (existence, backing file and URL) is cached, so that repeated
+ * lookups by view rendering or static resource handling do not resolve them
+ * again. Content and directory listings are read on each access and thus
+ * reflect later edits. Call {@link #clearResourceCache()} after creating or
+ * deleting files below the resource base path.
+ *
  * @author Rod Johnson
  * @author Juergen Hoeller
  * @author Sam Brannen
@@ -89,6 +101,9 @@ public class MockServletContext implements ServletContext {
 
   private static final String TEMP_DIR_SYSTEM_PROPERTY = "java.io.tmpdir";
 
+  /** Files of at least this size are memory-mapped rather than read onto the heap. */
+  private static final long MAPPING_THRESHOLD = 64 * 1024;
+
   private static final Set<SessionTrackingMode> DEFAULT_SESSION_TRACKING_MODES = new LinkedHashSet<>(4);
 
   static {
@@ -105,7 +120,7 @@ public class MockServletContext implements ServletContext {
 
   private String contextPath = "";
 
-  private final Map<String, ServletContext> contexts = new HashMap<>();
+  private final Map<String, ServletContext> contexts = Collections.synchronizedMap(new HashMap<>());
 
   private int majorVersion = 3;
 
@@ -115,13 +130,13 @@ public class MockServletContext implements ServletContext {
 
   private int effectiveMinorVersion = 1;
 
-  private final Map<String, RequestDispatcher> namedRequestDispatchers = new HashMap<>();
+  private final Map<String, RequestDispatcher> namedRequestDispatchers = Collections.synchronizedMap(new HashMap<>());
 
   private String defaultServletName = COMMON_DEFAULT_SERVLET_NAME;
 
   private final Map<String, String> initParameters = new LinkedHashMap<>();
 
-  private final Map<String, Object> attributes = new LinkedHashMap<>();
+  private final Map<String, Object> attributes = Collections.synchronizedMap(new LinkedHashMap<>());
 
   private String servletContextName = "MockServletContext";
 
@@ -142,6 +157,12 @@ public class MockServletContext implements ServletContext {
 
   private final Map<String, MediaType> mimeTypes = new LinkedHashMap<>();
 
+  /** Resolved MIME types by file extension. */
+  private final Map<String, Optional<String>> mimeTypeCache = new ConcurrentHashMap<>();
+
+  /** Existing resources by full resource location. */
+  private final Map<String, ResourceEntry> resourceIndex = new ConcurrentHashMap<>();
+
   /**
    * Create a new {@code MockServletContext}, using no base path and a
    * {@link DefaultResourceLoader} (i.e. the classpath root as WAR root).
@@ -270,14 +291,18 @@ public class MockServletContext implements ServletContext {
   @Nullable
   public String getMimeType(String filePath) {
     String extension = StringUtils.getFilenameExtension(filePath);
-    if (this.mimeTypes.containsKey(extension)) {
-      return this.mimeTypes.get(extension).toString();
+    if (extension == null) {
+      return resolveMimeType(filePath).orElse(null);
     }
-    else {
-      return Optional.ofNullable(MediaType.fromFileName(filePath))
-              .map(MimeType::toString)
-              .orElse(null);
+    MediaType mimeType = this.mimeTypes.get(extension);
+    if (mimeType != null) {
+      return mimeType.toString();
     }
+    return this.mimeTypeCache.computeIfAbsent(extension, key -> resolveMimeType(filePath)).orElse(null);
+  }
+
+  private static Optional<String> resolveMimeType(String filePath) {
+    return Optional.ofNullable(MediaType.fromFileName(filePath)).map(MimeType::toString);
   }
 
   /**
@@ -298,6 +323,10 @@ public class MockServletContext implements ServletContext {
     String resourceLocation = getResourceLocation(actualPath);
     Resource resource = null;
     try {
+      ResourceEntry entry = getResourceEntry(resourceLocation);
+      if (entry != null && entry.file != null) {
+        return listResourcePaths(entry.file, actualPath);
+      }
       resource = this.resourceLoader.getResource(resourceLocation);
       File file = resource.getFile();
       String[] fileList = file.list();
@@ -329,11 +358,12 @@ public class MockServletContext implements ServletContext {
     String resourceLocation = getResourceLocation(path);
     Resource resource = null;
     try {
-      resource = this.resourceLoader.getResource(resourceLocation);
-      if (!resource.exists()) {
+      ResourceEntry entry = getResourceEntry(resourceLocation);
+      if (entry == null) {
         return null;
       }
-      return resource.getLocation();
+      resource = entry.resource;
+      return entry.getLocation();
     }
     catch (MalformedURLException ex) {
       throw ex;
@@ -353,10 +383,11 @@ public class MockServletContext implements ServletContext {
     String resourceLocation = getResourceLocation(path);
     Resource resource = null;
     try {
-      resource = this.resourceLoader.getResource(resourceLocation);
-      if (!resource.exists()) {
+      ResourceEntry entry = getResourceEntry(resourceLocation);
+      if (entry == null) {
         return null;
       }
+      resource = entry.resource;
       return resource.getInputStream();
     }
     catch (InvalidPathException | IOException ex) {
@@ -368,6 +399,90 @@ public class MockServletContext implements ServletContext {
     }
   }
 
+  /**
+   * Return the content of the resource at the given path as a read-only
+   * {@link ByteBuffer}, or {@code null} if there is no such resource or it is
+   * a directory.
+   * <p>The content is read on each call and not retained. Files of 64 KB
+   * or more are memory-mapped; note that on some platforms, e.g. Windows,
+   * a mapped file cannot be modified or deleted until the returned buffer
+   * has been garbage collected.
+   *
+   * @param path the resource path
+   * @return the content, positioned at its start
+   * @since 4.0
+   */
+  @Nullable
+  public ByteBuffer getResourceAsByteBuffer(String path) {
+    String resourceLocation = getResourceLocation(path);
+    try {
+      ResourceEntry entry = getResourceEntry(resourceLocation);
+      if (entry == null) {
+        return null;
+      }
+      ByteBuffer content = entry.readContent();
+      return (content != null ? content.asReadOnlyBuffer() : null);
+    }
+    catch (InvalidPathException | IOException ex) {
+      if (logger.isDebugEnabled()) {
+        logger.debug("Could not load content of resource " + resourceLocation, ex);
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Discard all cached resource lookups, e.g. after files below the resource
+   * base path have been created or deleted.
+   *
+   * @since 4.0
+   */
+  public void clearResourceCache() {
+    this.resourceIndex.clear();
+  }
+
+  @Nullable
+  private static Set<String> listResourcePaths(File directory, String directoryPath) {
+    File[] files = directory.listFiles();
+    if (ObjectUtils.isEmpty(files)) {
+      return null;
+    }
+    Set<String> resourcePaths = new LinkedHashSet<>(files.length);
+    for (File child : files) {
+      resourcePaths.add(directoryPath + child.getName() + (child.isDirectory() ? "/" : ""));
+    }
+    return resourcePaths;
+  }
+
+  /**
+   * Resolve the resource at the given full location through the index,
+   * returning {@code null} if it does not exist. Missing resources are not
+   * cached, so that resources created later are still found.
+   */
+  @Nullable
+  private ResourceEntry getResourceEntry(String resourceLocation) {
+    ResourceEntry entry = this.resourceIndex.get(resourceLocation);
+    if (entry == null) {
+      Resource resource = this.resourceLoader.getResource(resourceLocation);
+      if (!resource.exists()) {
+        return null;
+      }
+      File file;
+      try {
+        file = resource.getFile();
+      }
+      catch (InvalidPathException | IOException ex) {
+        file = null;
+      }
+      entry = new ResourceEntry(resource, file);
+      ResourceEntry existing = this.resourceIndex.putIfAbsent(resourceLocation, entry);
+      if (existing != null) {
+        entry = existing;
+      }
+    }
+    return entry;
+  }
+
   @Override
   public RequestDispatcher getRequestDispatcher(String path) {
     Assert.isTrue(path.startsWith("/"),
@@ -476,6 +591,10 @@ public class MockServletContext implements ServletContext {
     String resourceLocation = getResourceLocation(path);
     Resource resource = null;
     try {
+      ResourceEntry entry = getResourceEntry(resourceLocation);
+      if (entry != null && entry.file != null) {
+        return entry.file.getAbsolutePath();
+      }
       resource = this.resourceLoader.getResource(resourceLocation);
       return resource.getFile().getAbsolutePath();
     }
@@ -528,7 +647,9 @@ public class MockServletContext implements ServletContext {
 
   @Override
   public Enumeration<String> getAttributeNames() {
-    return Collections.enumeration(new LinkedHashSet<>(this.attributes.keySet()));
+    synchronized(this.attributes) {
+      return Collections.enumeration(new LinkedHashSet<>(this.attributes.keySet()));
+    }
   }
 
   @Override
@@ -751,4 +872,56 @@ public class MockServletContext implements ServletContext {
     throw new UnsupportedOperationException();
   }
 
+  /**
+   * Cached metadata of an existing resource.
+   */
+  private static final class ResourceEntry {
+
+    final Resource resource;
+
+    /** The file backing the resource, or {@code null} if not in the file system. */
+    @Nullable
+    final File file;
+
+    @Nullable
+    private volatile URL location;
+
+    ResourceEntry(Resource resource, @Nullable File file) {
+      this.resource = resource;
+      this.file = file;
+    }
+
+    URL getLocation() throws IOException {
+      URL location = this.location;
+      if (location == null) {
+        location = this.resource.getLocation();
+        this.location = location;
+      }
+      return location;
+    }
+
+    /**
+     * Read the current content of this resource, or return {@code null}
+     * if it is a directory.
+     */
+    @Nullable
+    ByteBuffer readContent() throws IOException {
+      if (this.file == null) {
+        try (InputStream inputStream = this.resource.getInputStream()) {
+          return ByteBuffer.wrap(inputStream.readAllBytes());
+        }
+      }
+      if (!this.file.isFile()) {
+        return null;
+      }
+      try (FileChannel channel = FileChannel.open(this.file.toPath(), StandardOpenOption.READ)) {
+        long size = channel.size();
+        if (size >= MAPPING_THRESHOLD) {
+          return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        return ByteBuffer.wrap(Files.readAllBytes(this.file.toPath()));
+      }
+    }
+  }
+
 }
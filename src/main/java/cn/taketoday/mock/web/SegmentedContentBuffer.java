@@ -0,0 +1,468 @@
+/*
+ * Original Author -> Harry Yang (taketoday@foxmail.com) https://taketoday.cn
+ * Copyright © TODAY & 2017 - 2021 All Rights Reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.mock.web;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import cn.taketoday.lang.Assert;
+import cn.taketoday.lang.Nullable;
+import cn.taketoday.lang.TodayStrategies;
+import cn.taketoday.util.StringUtils;
+
+/**
+ * {@link OutputStream} that buffers response content in a list of chunks
+ * rather than in a single, repeatedly copied array, and that spills its
+ * content to a temporary file once a configurable threshold is exceeded.
+ *
+ * <p>Chunks start at 1 KB and double up to a fixed size of 64 KB, so small
+ * responses stay cheap while large ones never copy already written bytes.
+ * The temporary file is deleted on {@link #reset()} or once the buffer
+ * becomes unreachable.
+ *
+ * <p>The last decoded {@code String} is cached until the next write.
+ *
+ * @author TODAY
+ * @since 4.0
+ */
+final class SegmentedContentBuffer extends OutputStream {
+
+  /**
+   * System property used to configure the number of bytes above which
+   * response content is spilled to a temporary file: {@value}.
+   * A negative value disables spilling.
+   *
+   * @see #DEFAULT_SPILL_THRESHOLD
+   */
+  static final String SPILL_THRESHOLD_PROPERTY_NAME = "today.test.response.spillThreshold";
+
+  /**
+   * The default spill threshold: 64 MB.
+   */
+  static final long DEFAULT_SPILL_THRESHOLD = 64L * 1024 * 1024;
+
+  private static final int INITIAL_CHUNK_SIZE = 1024;
+
+  private static final int MAX_CHUNK_SIZE = 64 * 1024;
+
+  private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+  private static final Cleaner cleaner = Cleaner.create();
+
+  private final List<byte[]> chunks = new ArrayList<>();
+
+  /** Number of bytes used in the last chunk. */
+  private int lastChunkCount;
+
+  private long size;
+
+  private long spillThreshold = retrieveSpillThreshold();
+
+  @Nullable
+  private SpillFile spillFile;
+
+  @Nullable
+  private Cleaner.Cleanable cleanable;
+
+  @Nullable
+  private String decoded;
+
+  @Nullable
+  private Charset decodedCharset;
+
+  /**
+   * Set the number of bytes above which content is spilled to a temporary
+   * file, or a negative value to keep all content in memory.
+   */
+  synchronized void setSpillThreshold(long spillThreshold) {
+    this.spillThreshold = spillThreshold;
+    spillIfNecessary();
+  }
+
+  @Override
+  public synchronized void write(int b) {
+    if (this.spillFile != null) {
+      this.spillFile.write(b);
+    }
+    else {
+      byte[] chunk = writableChunk();
+      chunk[this.lastChunkCount++] = (byte) b;
+    }
+    this.size++;
+    this.decoded = null;
+    spillIfNecessary();
+  }
+
+  @Override
+  public synchronized void write(byte[] b, int off, int len) {
+    if (len == 0) {
+      return;
+    }
+    if (this.spillFile != null) {
+      this.spillFile.write(b, off, len);
+    }
+    else {
+      int remaining = len;
+      while (remaining > 0) {
+        byte[] chunk = writableChunk();
+        int count = Math.min(remaining, chunk.length - this.lastChunkCount);
+        System.arraycopy(b, off + len - remaining, chunk, this.lastChunkCount, count);
+        this.lastChunkCount += count;
+        remaining -= count;
+      }
+    }
+    this.size += len;
+    this.decoded = null;
+    spillIfNecessary();
+  }
+
+  private byte[] writableChunk() {
+    int count = this.chunks.size();
+    if (count > 0) {
+      byte[] last = this.chunks.get(count - 1);
+      if (this.lastChunkCount < last.length) {
+        return last;
+      }
+    }
+    int chunkSize = (count == 0 ? INITIAL_CHUNK_SIZE :
+                     Math.min(MAX_CHUNK_SIZE, this.chunks.get(count - 1).length * 2));
+    byte[] chunk = new byte[Math.max(INITIAL_CHUNK_SIZE, chunkSize)];
+    this.chunks.add(chunk);
+    this.lastChunkCount = 0;
+    return chunk;
+  }
+
+  private void spillIfNecessary() {
+    if (this.spillFile == null && this.spillThreshold >= 0 && this.size > this.spillThreshold) {
+      SpillFile spillFile = SpillFile.create();
+      for (int i = 0; i < this.chunks.size(); i++) {
+        spillFile.write(this.chunks.get(i), 0, chunkLength(i));
+      }
+      this.chunks.clear();
+      this.lastChunkCount = 0;
+      this.spillFile = spillFile;
+      this.cleanable = cleaner.register(this, spillFile);
+    }
+  }
+
+  private int chunkLength(int index) {
+    return (index == this.chunks.size() - 1 ? this.lastChunkCount : this.chunks.get(index).length);
+  }
+
+  /**
+   * Return the number of bytes written.
+   */
+  synchronized long size() {
+    return this.size;
+  }
+
+  /**
+   * Return whether the content has been spilled to a temporary file.
+   */
+  synchronized boolean isSpilled() {
+    return (this.spillFile != null);
+  }
+
+  /**
+   * Discard all content, deleting the temporary file, if any.
+   */
+  synchronized void reset() {
+    this.chunks.clear();
+    this.lastChunkCount = 0;
+    this.size = 0;
+    this.decoded = null;
+    if (this.cleanable != null) {
+      this.cleanable.clean();
+      this.cleanable = null;
+      this.spillFile = null;
+    }
+  }
+
+  /**
+   * Return a copy of the content.
+   */
+  synchronized byte[] toByteArray() {
+    checkArraySize();
+    if (this.spillFile != null) {
+      return this.spillFile.readAllBytes();
+    }
+    byte[] result = new byte[(int) this.size];
+    int position = 0;
+    for (int i = 0; i < this.chunks.size(); i++) {
+      int length = chunkLength(i);
+      System.arraycopy(this.chunks.get(i), 0, result, position, length);
+      position += length;
+    }
+    return result;
+  }
+
+  /**
+   * Return a stream over the content written so far.
+   */
+  synchronized InputStream getInputStream() {
+    if (this.spillFile != null) {
+      return this.spillFile.newInputStream(this.size);
+    }
+    List<InputStream> streams = new ArrayList<>(this.chunks.size());
+    for (int i = 0; i < this.chunks.size(); i++) {
+      streams.add(new ByteArrayInputStream(this.chunks.get(i), 0, chunkLength(i)));
+    }
+    return new SequenceInputStream(Collections.enumeration(streams));
+  }
+
+  /**
+   * Return a read-only view of the content written so far: a memory-mapped
+   * view of the temporary file if spilled, or otherwise a view of a single
+   * chunk, into which multiple chunks are consolidated on demand.
+   */
+  synchronized ByteBuffer asByteBuffer() {
+    checkArraySize();
+    if (this.spillFile != null) {
+      return this.spillFile.map(this.size);
+    }
+    if (this.chunks.isEmpty()) {
+      return ByteBuffer.allocate(0).asReadOnlyBuffer();
+    }
+    consolidate();
+    return ByteBuffer.wrap(this.chunks.get(0), 0, this.lastChunkCount).asReadOnlyBuffer();
+  }
+
+  /**
+   * Decode the content with the given charset, returning the cached result
+   * if nothing has been written since the last call.
+   */
+  synchronized String toString(Charset charset) {
+    if (this.decoded != null && charset.equals(this.decodedCharset)) {
+      return this.decoded;
+    }
+    String decoded;
+    if (this.spillFile != null) {
+      checkArraySize();
+      StringBuilder builder = new StringBuilder((int) this.size);
+      try (Reader reader = new InputStreamReader(this.spillFile.newInputStream(this.size), charset)) {
+        char[] buffer = new char[8192];
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+          builder.append(buffer, 0, read);
+        }
+      }
+      catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+      decoded = builder.toString();
+    }
+    else if (this.chunks.isEmpty()) {
+      decoded = "";
+    }
+    else {
+      consolidate();
+      decoded = new String(this.chunks.get(0), 0, this.lastChunkCount, charset);
+    }
+    this.decoded = decoded;
+    this.decodedCharset = charset;
+    return decoded;
+  }
+
+  private void consolidate() {
+    if (this.chunks.size() > 1) {
+      byte[] content = toByteArray();
+      this.chunks.clear();
+      this.chunks.add(content);
+      this.lastChunkCount = content.length;
+    }
+  }
+
+  private void checkArraySize() {
+    Assert.state(this.size <= MAX_ARRAY_SIZE,
+            () -> "Content of " + this.size + " bytes is too large for a single array; use getContentAsStream()");
+  }
+
+  private static long retrieveSpillThreshold() {
+    try {
+      String threshold = TodayStrategies.getProperty(SPILL_THRESHOLD_PROPERTY_NAME);
+      if (StringUtils.hasText(threshold)) {
+        return Long.parseLong(threshold.trim());
+      }
+    }
+    catch (Exception ex) {
+      // ignore
+    }
+
+    // Fallback
+    return DEFAULT_SPILL_THRESHOLD;
+  }
+
+  /**
+   * Temporary file holding spilled content; also the cleanup action, so it
+   * must not reference the enclosing buffer.
+   */
+  private static final class SpillFile implements Runnable {
+
+    private final Path path;
+
+    private final OutputStream out;
+
+    private SpillFile(Path path, OutputStream out) {
+      this.path = path;
+      this.out = out;
+    }
+
+    static SpillFile create() {
+      try {
+        Path path = Files.createTempFile("mock-response-", ".tmp");
+        return new SpillFile(path, new BufferedOutputStream(Files.newOutputStream(path), MAX_CHUNK_SIZE));
+      }
+      catch (IOException ex) {
+        throw new UncheckedIOException("Failed to spill response content to a temporary file", ex);
+      }
+    }
+
+    void write(int b) {
+      try {
+        this.out.write(b);
+      }
+      catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+    }
+
+    void write(byte[] b, int off, int len) {
+      try {
+        this.out.write(b, off, len);
+      }
+      catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+    }
+
+    byte[] readAllBytes() {
+      try {
+        this.out.flush();
+        return Files.readAllBytes(this.path);
+      }
+      catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+    }
+
+    InputStream newInputStream(long size) {
+      try {
+        this.out.flush();
+        return new LimitedInputStream(Files.newInputStream(this.path), size);
+      }
+      catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+    }
+
+    ByteBuffer map(long size) {
+      try {
+        this.out.flush();
+        try (FileChannel channel = FileChannel.open(this.path)) {
+          return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+      }
+      catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+    }
+
+    @Override
+    public void run() {
+      try {
+        this.out.close();
+        Files.deleteIfExists(this.path);
+      }
+      catch (IOException ex) {
+        this.path.toFile().deleteOnExit();
+      }
+    }
+  }
+
+  /**
+   * Stream over the spilled content written so far, ignoring later writes.
+   */
+  private static final class LimitedInputStream extends InputStream {
+
+    private final InputStream in;
+
+    private long remaining;
+
+    LimitedInputStream(InputStream in, long limit) {
+      this.in = in;
+      this.remaining = limit;
+    }
+
+    @Override
+    public int read() throws IOException {
+      if (this.remaining <= 0) {
+        return -1;
+      }
+      int b = this.in.read();
+      if (b != -1) {
+        this.remaining--;
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      if (this.remaining <= 0) {
+        return -1;
+      }
+      int read = this.in.read(b, off, (int) Math.min(len, this.remaining));
+      if (read > 0) {
+        this.remaining -= read;
+      }
+      return read;
+    }
+
+    @Override
+    public int available() throws IOException {
+      return (int) Math.min(this.in.available(), this.remaining);
+    }
+
+    @Override
+    public void close() throws IOException {
+      this.in.close();
+    }
+  }
+
+}
@@ -20,7 +20,10 @@
 
 package cn.taketoday.test.annotation;
 
+import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Optional;
 
 import cn.taketoday.core.annotation.AnnotatedElementUtils;
 import cn.taketoday.core.annotation.AnnotationUtils;
@@ -28,6 +31,7 @@ import cn.taketoday.lang.Assert;
 import cn.taketoday.lang.Nullable;
 import cn.taketoday.logging.Logger;
 import cn.taketoday.logging.LoggerFactory;
+import cn.taketoday.util.ConcurrentReferenceHashMap;
 import cn.taketoday.util.ObjectUtils;
 import cn.taketoday.util.ReflectionUtils;
 import cn.taketoday.util.StringUtils;
@@ -35,6 +39,16 @@ import cn.taketoday.util.StringUtils;
 /**
  * General utility methods for working with <em>profile values</em>.
  *
+ * <p>The {@link ProfileValueSource} of a test class is resolved once, and
+ * each source type is instantiated at most once. The {@link IfProfileValue
+ * &#064;IfProfileValue} annotation declared on a class or method is looked up
+ * once, but the profile value it refers to is read from the
+ * {@code ProfileValueSource} on every check, so values set at runtime
+ * &mdash; for example in a {@code @BeforeClass} method &mdash; are honored.
+ * Use {@link #clearCache()} if the {@code ProfileValueSource} configuration
+ * itself changes at runtime. The caches reference test classes and methods
+ * softly, so that they do not keep test class loaders alive.
+ *
  * @author Sam Brannen
  * @author Juergen Hoeller
  * @see ProfileValueSource
@@ -45,6 +59,25 @@ public abstract class ProfileValueUtils {
 
   private static final Logger logger = LoggerFactory.getLogger(ProfileValueUtils.class);
 
+  private static final Map<Class<?>, ProfileValueSource> profileValueSourceCache =
+          new ConcurrentReferenceHashMap<>(64);
+
+  private static final Map<Class<? extends ProfileValueSource>, ProfileValueSource> profileValueSourceInstances =
+          new ConcurrentReferenceHashMap<>(8);
+
+  private static final Map<AnnotatedElement, Optional<IfProfileValue>> ifProfileValueCache =
+          new ConcurrentReferenceHashMap<>(256);
+
+  /**
+   * Clear the cached {@code ProfileValueSources} and {@code @IfProfileValue}
+   * annotations.
+   */
+  public static void clearCache() {
+    profileValueSourceCache.clear();
+    profileValueSourceInstances.clear();
+    ifProfileValueCache.clear();
+  }
+
   /**
    * Retrieves the {@link ProfileValueSource} type for the specified
    * {@link Class test class} as configured via the
@@ -62,9 +95,18 @@ public abstract class ProfileValueUtils {
    * class
    * @see SystemProfileValueSource
    */
-  @SuppressWarnings("unchecked")
   public static ProfileValueSource retrieveProfileValueSource(Class<?> testClass) {
     Assert.notNull(testClass, "testClass must not be null");
+    ProfileValueSource profileValueSource = profileValueSourceCache.get(testClass);
+    if (profileValueSource == null) {
+      profileValueSource = doRetrieveProfileValueSource(testClass);
+      profileValueSourceCache.put(testClass, profileValueSource);
+    }
+    return profileValueSource;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static ProfileValueSource doRetrieveProfileValueSource(Class<?> testClass) {
 
     Class<ProfileValueSourceConfiguration> annotationType = ProfileValueSourceConfiguration.class;
     ProfileValueSourceConfiguration config = AnnotatedElementUtils.findMergedAnnotation(testClass, annotationType);
@@ -80,13 +122,14 @@ public abstract class ProfileValueUtils {
     }
     logger.debug("Retrieved ProfileValueSource type [{}] for class [{}]", profileValueSourceType, testClass.getName());
 
-    ProfileValueSource profileValueSource;
     if (SystemProfileValueSource.class == profileValueSourceType) {
-      profileValueSource = SystemProfileValueSource.getInstance();
+      return SystemProfileValueSource.getInstance();
     }
-    else {
+    ProfileValueSource profileValueSource = profileValueSourceInstances.get(profileValueSourceType);
+    if (profileValueSource == null) {
       try {
         profileValueSource = ReflectionUtils.accessibleConstructor(profileValueSourceType).newInstance();
+        profileValueSourceInstances.put(profileValueSourceType, profileValueSource);
       }
       catch (Exception ex) {
         logger.warn("Could not instantiate a ProfileValueSource of type [{}] for class [{}]: using default.",
@@ -94,7 +137,6 @@ public abstract class ProfileValueUtils {
         profileValueSource = SystemProfileValueSource.getInstance();
       }
     }
-
     return profileValueSource;
   }
 
@@ -110,8 +152,7 @@ public abstract class ProfileValueUtils {
    * environment
    */
   public static boolean isTestEnabledInThisEnvironment(Class<?> testClass) {
-    IfProfileValue ifProfileValue = AnnotatedElementUtils.findMergedAnnotation(testClass, IfProfileValue.class);
-    return isTestEnabledInThisEnvironment(retrieveProfileValueSource(testClass), ifProfileValue);
+    return isEnabled(retrieveProfileValueSource(testClass), testClass);
   }
 
   /**
@@ -151,15 +192,18 @@ public abstract class ProfileValueUtils {
   public static boolean isTestEnabledInThisEnvironment(
           ProfileValueSource profileValueSource, Method testMethod, Class<?> testClass) {
 
-    IfProfileValue ifProfileValue = AnnotatedElementUtils.findMergedAnnotation(testClass, IfProfileValue.class);
-    boolean classLevelEnabled = isTestEnabledInThisEnvironment(profileValueSource, ifProfileValue);
-
-    if (classLevelEnabled) {
-      ifProfileValue = AnnotatedElementUtils.findMergedAnnotation(testMethod, IfProfileValue.class);
-      return isTestEnabledInThisEnvironment(profileValueSource, ifProfileValue);
-    }
+    return isEnabled(profileValueSource, testClass) && isEnabled(profileValueSource, testMethod);
+  }
 
-    return false;
+  /**
+   * Determine if the supplied class or method is <em>enabled</em> as
+   * specified by an {@code @IfProfileValue} declared on it. Only the
+   * annotation lookup is cached; the profile value is read on every call.
+   */
+  private static boolean isEnabled(ProfileValueSource profileValueSource, AnnotatedElement element) {
+    Optional<IfProfileValue> ifProfileValue = ifProfileValueCache.computeIfAbsent(element,
+            key -> Optional.ofNullable(AnnotatedElementUtils.findMergedAnnotation(key, IfProfileValue.class)));
+    return isTestEnabledInThisEnvironment(profileValueSource, ifProfileValue.orElse(null));
   }
 
   /**
@@ -42,6 +42,14 @@ import cn.taketoday.test.context.junit4.statements.TodayRepeat;
  * {@linkplain cn.taketoday.test.context.TestExecutionListener#prepareTestInstance
  * preparation of the test instance}.
  *
+ * <p>With JUnit Jupiter and the
+ * {@link cn.taketoday.test.context.junit.jupiter.TodayExtension TodayExtension},
+ * only the test method itself is repeated.
+ *
+ * <p>Each repetition is timed individually. If {@link #warmup()} iterations
+ * are configured or the test method is repeated more than once, the mean,
+ * p50, p99 and maximum durations are reported via {@link RepetitionStatistics}.
+ *
  * <p>This annotation may be used as a <em>meta-annotation</em> to create custom
  * <em>composed annotations</em>.
  *
@@ -51,6 +59,7 @@ import cn.taketoday.test.context.junit4.statements.TodayRepeat;
  * @see TodayJUnit4ClassRunner
  * @see TodayMethodRule
  * @see TodayRepeat
+ * @see RepetitionStatistics
  */
 @Target({ ElementType.METHOD, ElementType.ANNOTATION_TYPE })
 @Retention(RetentionPolicy.RUNTIME)
@@ -62,4 +71,14 @@ public @interface Repeat {
    */
   int value() default 1;
 
+  /**
+   * The number of untimed warmup iterations executed before the measured
+   * repetitions, e.g. to let the JIT compile the code under test.
+   * <p>Warmup iterations count towards a total {@link Timed @Timed} budget
+   * but are excluded from a {@linkplain Timed#percentile() percentile} budget.
+   *
+   * @since 4.0
+   */
+  int warmup() default 0;
+
 }
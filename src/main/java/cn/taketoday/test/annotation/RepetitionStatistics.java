@@ -0,0 +1,222 @@
+/*
+ * Original Author -> Harry Yang (taketoday@foxmail.com) https://taketoday.cn
+ * Copyright © TODAY & 2017 - 2021 All Rights Reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+package cn.taketoday.test.annotation;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import cn.taketoday.lang.Assert;
+import cn.taketoday.lang.TodayStrategies;
+import cn.taketoday.logging.Logger;
+import cn.taketoday.logging.LoggerFactory;
+import cn.taketoday.util.StringUtils;
+
+/**
+ * Statistics over the individually measured repetitions of a test method
+ * annotated with {@link Repeat @Repeat} and/or {@link Timed @Timed}.
+ *
+ * <p>Durations are sampled via {@link System#nanoTime()}; warmup iterations
+ * are never included. Percentiles use the nearest-rank method.
+ *
+ * <p>If the {@value #STATISTICS_FILE_PROPERTY_NAME} property is set, each
+ * {@linkplain #report() reported} result is appended to that file as a
+ * single line of JSON, so that latency budgets can be tracked across runs.
+ *
+ * @author TODAY
+ * @see TestAnnotationUtils#getWarmupCount(Method)
+ * @see TestAnnotationUtils#getTimedPercentile(Method)
+ * @since 4.0
+ */
+public final class RepetitionStatistics {
+
+  /**
+   * System property used to configure the file that statistics are
+   * appended to as JSON lines: {@value}.
+   * <p>May alternatively be configured via the
+   * {@link cn.taketoday.lang.TodayStrategies} mechanism.
+   */
+  public static final String STATISTICS_FILE_PROPERTY_NAME = "today.test.repeat.statistics.file";
+
+  private static final Logger logger = LoggerFactory.getLogger(RepetitionStatistics.class);
+
+  private static final Object fileMonitor = new Object();
+
+  private final Method testMethod;
+
+  private final int warmup;
+
+  private final long[] sortedNanos;
+
+  private final long totalNanos;
+
+  /**
+   * Create statistics for the supplied samples.
+   *
+   * @param testMethod the measured test method
+   * @param warmup the number of warmup iterations that preceded the samples
+   * @param nanos the measured duration of each repetition, in nanoseconds
+   */
+  public RepetitionStatistics(Method testMethod, int warmup, long[] nanos) {
+    Assert.notNull(testMethod, "testMethod must not be null");
+    Assert.isTrue(nanos.length > 0, "At least one sample is required");
+    this.testMethod = testMethod;
+    this.warmup = warmup;
+    this.sortedNanos = nanos.clone();
+    Arrays.sort(this.sortedNanos);
+    long total = 0;
+    for (long sample : nanos) {
+      total += sample;
+    }
+    this.totalNanos = total;
+  }
+
+  /**
+   * Determine whether repetitions of the supplied method should be reported,
+   * i.e. if warmup iterations, more than one repetition, or a percentile
+   * budget are configured.
+   */
+  public static boolean isBenchmark(Method testMethod) {
+    return TestAnnotationUtils.getRepeatCount(testMethod) > 1
+            || TestAnnotationUtils.getWarmupCount(testMethod) > 0
+            || TestAnnotationUtils.getTimedPercentile(testMethod) > 0;
+  }
+
+  public Method getTestMethod() {
+    return this.testMethod;
+  }
+
+  public int getWarmup() {
+    return this.warmup;
+  }
+
+  public int getCount() {
+    return this.sortedNanos.length;
+  }
+
+  public long getTotalNanos() {
+    return this.totalNanos;
+  }
+
+  public long getMeanNanos() {
+    return this.totalNanos / this.sortedNanos.length;
+  }
+
+  public long getMaxNanos() {
+    return this.sortedNanos[this.sortedNanos.length - 1];
+  }
+
+  /**
+   * Get the duration at the supplied percentile, in nanoseconds.
+   *
+   * @param percentile the percentile, between {@code 0} (exclusive) and
+   * {@code 100} (inclusive)
+   */
+  public long getPercentileNanos(double percentile) {
+    Assert.isTrue(percentile > 0 && percentile <= 100, "percentile must be in (0, 100]");
+    int rank = (int) Math.ceil(percentile / 100 * this.sortedNanos.length);
+    return this.sortedNanos[Math.max(0, rank - 1)];
+  }
+
+  /**
+   * Assert that the duration at the supplied {@code percentile} does not
+   * exceed {@code millis}.
+   *
+   * @throws TimeoutException if the budget has been exceeded
+   */
+  public void assertWithinBudget(double percentile, long millis) throws TimeoutException {
+    long actual = getPercentileNanos(percentile);
+    if (actual > TimeUnit.MILLISECONDS.toNanos(millis)) {
+      throw new TimeoutException(String.format(
+              "Test p%s over %d repetitions took %.3f ms; limit was %s ms.",
+              formatPercentile(percentile), getCount(), toMillis(actual), millis));
+    }
+  }
+
+  /**
+   * Log these statistics and append them to the file configured via
+   * {@value #STATISTICS_FILE_PROPERTY_NAME}, if any.
+   */
+  public void report() {
+    if (logger.isInfoEnabled()) {
+      logger.info(toString());
+    }
+    String file = TodayStrategies.getProperty(STATISTICS_FILE_PROPERTY_NAME);
+    if (StringUtils.hasText(file)) {
+      Path path = Path.of(file.trim());
+      String line = toJson() + System.lineSeparator();
+      synchronized(fileMonitor) {
+        try {
+          Files.writeString(path, line, StandardCharsets.UTF_8,
+                  StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+        catch (IOException ex) {
+          logger.warn("Failed to write repetition statistics to [{}]", path, ex);
+        }
+      }
+    }
+  }
+
+  /**
+   * Render these statistics as a single-line JSON object.
+   */
+  public String toJson() {
+    double percentile = TestAnnotationUtils.getTimedPercentile(this.testMethod);
+    StringBuilder json = new StringBuilder(256);
+    json.append("{\"testClass\": \"").append(this.testMethod.getDeclaringClass().getName())
+            .append("\", \"testMethod\": \"").append(this.testMethod.getName())
+            .append("\", \"timestamp\": ").append(System.currentTimeMillis())
+            .append(", \"warmup\": ").append(this.warmup)
+            .append(", \"repetitions\": ").append(getCount())
+            .append(", \"meanNanos\": ").append(getMeanNanos())
+            .append(", \"p50Nanos\": ").append(getPercentileNanos(50))
+            .append(", \"p99Nanos\": ").append(getPercentileNanos(99))
+            .append(", \"maxNanos\": ").append(getMaxNanos());
+    if (percentile > 0) {
+      json.append(", \"budgetPercentile\": ").append(percentile)
+              .append(", \"budgetMillis\": ").append(TestAnnotationUtils.getTimeout(this.testMethod));
+    }
+    return json.append('}').toString();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("Test %s#%s() over %d repetitions (%d warmup): " +
+                    "mean=%.3f ms, p50=%.3f ms, p99=%.3f ms, max=%.3f ms",
+            this.testMethod.getDeclaringClass().getSimpleName(), this.testMethod.getName(),
+            getCount(), this.warmup, toMillis(getMeanNanos()), toMillis(getPercentileNanos(50)),
+            toMillis(getPercentileNanos(99)), toMillis(getMaxNanos()));
+  }
+
+  private static String formatPercentile(double percentile) {
+    return (percentile == Math.rint(percentile) ? Long.toString((long) percentile) : Double.toString(percentile));
+  }
+
+  private static double toMillis(long nanos) {
+    return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+  }
+
+}
@@ -44,6 +44,23 @@ public abstract class TestAnnotationUtils {
     return (timed == null ? 0 : Math.max(0, timed.millis()));
   }
 
+  /**
+   * Get the {@code percentile} configured via the {@link Timed @Timed}
+   * annotation on the supplied {@code method}.
+   * <p>Values outside of {@code (0, 100]} will be converted to {@code 0}.
+   *
+   * @return the configured percentile, or {@code 0} if the timeout applies
+   * to the total execution time or the method is not annotated with {@code @Timed}
+   * @since 4.0
+   */
+  public static double getTimedPercentile(Method method) {
+    Timed timed = AnnotatedElementUtils.findMergedAnnotation(method, Timed.class);
+    if (timed == null || !(timed.percentile() > 0 && timed.percentile() <= 100)) {
+      return 0;
+    }
+    return timed.percentile();
+  }
+
   /**
    * Get the repeat count configured via the {@link Repeat @Repeat}
    * annotation on the supplied {@code method}.
@@ -60,4 +77,18 @@ public abstract class TestAnnotationUtils {
     return Math.max(1, repeat.value());
   }
 
+  /**
+   * Get the number of warmup iterations configured via the {@link Repeat @Repeat}
+   * annotation on the supplied {@code method}.
+   * <p>Negative configured values will be converted to {@code 0}.
+   *
+   * @return the configured warmup count, or {@code 0} if the method is
+   * not annotated with {@code @Repeat}
+   * @since 4.0
+   */
+  public static int getWarmupCount(Method method) {
+    Repeat repeat = AnnotatedElementUtils.findMergedAnnotation(method, Repeat.class);
+    return (repeat == null ? 0 : Math.max(0, repeat.warmup()));
+  }
+
 }
@@ -41,6 +41,13 @@ import cn.taketoday.test.context.junit4.statements.TodayFailOnTimeout;
  * any {@linkplain Repeat repetitions} of the test, and any <em>set up</em> or
  * <em>tear down</em> of the test fixture.
  *
+ * <p>Alternatively, a {@linkplain #percentile() percentile} may be configured,
+ * in which case {@link #millis()} is the budget for that percentile of the
+ * individually measured {@linkplain Repeat repetitions} rather than for the
+ * total, and warmup iterations are excluded. For example,
+ * {@code @Repeat(value = 200, warmup = 50) @Timed(millis = 5, percentile = 99)}
+ * fails the test if the p99 of 200 repetitions exceeds 5 ms.
+ *
  * <p>This annotation may be used as a <em>meta-annotation</em> to create custom
  * <em>composed annotations</em>.
  *
@@ -62,4 +69,14 @@ public @interface Timed {
    */
   long millis();
 
+  /**
+   * The percentile, between {@code 0} (exclusive) and {@code 100} (inclusive),
+   * of the measured repetitions that {@link #millis()} applies to.
+   * <p>Defaults to {@code 0}, meaning that {@link #millis()} applies to the
+   * total execution time.
+   *
+   * @since 4.0
+   */
+  double percentile() default 0;
+
 }
@@ -0,0 +1,103 @@
+/*
+ * Original Author -> Harry Yang (taketoday@foxmail.com) https://taketoday.cn
+ * Copyright © TODAY & 2017 - 2021 All Rights Reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.test.context;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * {@code @LazyBeanInitialization} is a type-level annotation that switches the
+ * test's {@link cn.taketoday.context.ApplicationContext ApplicationContext}
+ * to demand-driven bean initialization.
+ *
+ * <p>Singleton beans are then no longer pre-instantiated when the context is
+ * refreshed; they are created when the test instance's injection points are
+ * resolved, when user code calls {@code getBean()}, or when an eager bean
+ * depends on them. Narrow tests against large configurations therefore only
+ * pay for the beans they actually use. Infrastructure beans and the beans
+ * listed in {@link #eagerBeans()} and {@link #eagerTypes()} stay eager.
+ *
+ * <p>If {@code @LazyBeanInitialization} is not <em>present</em> on a test
+ * class, the global default configured via
+ * {@link #LAZY_INITIALIZATION_PROPERTY_NAME} applies.
+ *
+ * <p>The mode and the eager beans and types are applied through a
+ * {@link ContextCustomizer} and are therefore part of the context cache key:
+ * test classes with the same configuration share a context only if they
+ * also use the same initialization mode.
+ *
+ * <p>Supported by all context loaders that apply
+ * {@linkplain ContextCustomizer context customizers}.
+ *
+ * <p>This annotation will be inherited from an enclosing test class by
+ * default. See {@link NestedTestConfiguration @NestedTestConfiguration}
+ * for details.
+ *
+ * @author TODAY
+ * @see ContextCustomizer
+ * @since 4.0
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Inherited
+public @interface LazyBeanInitialization {
+
+  /**
+   * JVM system property used to enable lazy bean initialization for all test
+   * classes without {@code @LazyBeanInitialization}:
+   * {@value #LAZY_INITIALIZATION_PROPERTY_NAME}.
+   * <p>May alternatively be configured via the
+   * {@link cn.taketoday.lang.TodayStrategies TodayStrategies} mechanism.
+   */
+  String LAZY_INITIALIZATION_PROPERTY_NAME = "today.test.context.lazyInitialization";
+
+  /**
+   * JVM system property listing the names of beans that always stay eager
+   * when lazy bean initialization is active, as a comma-delimited list:
+   * {@value #EAGER_BEANS_PROPERTY_NAME}.
+   */
+  String EAGER_BEANS_PROPERTY_NAME = "today.test.context.lazyInitialization.eagerBeans";
+
+  /**
+   * Whether lazy bean initialization is enabled for the annotated test class.
+   * <p>Set to {@code false} to opt a test class out when lazy initialization
+   * has been enabled globally.
+   */
+  boolean value() default true;
+
+  /**
+   * Names of beans that are still pre-instantiated, in addition to those
+   * configured via {@link #EAGER_BEANS_PROPERTY_NAME}.
+   */
+  String[] eagerBeans() default {};
+
+  /**
+   * Types whose beans are still pre-instantiated, e.g. embedded servers or
+   * schedulers that have to be running before the test starts.
+   */
+  Class<?>[] eagerTypes() default {};
+
+}
@@ -26,10 +26,14 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
+import cn.taketoday.lang.Assert;
 import cn.taketoday.lang.Nullable;
 import cn.taketoday.logging.Logger;
 import cn.taketoday.logging.LoggerFactory;
 import cn.taketoday.test.context.junit4.rules.TodayMethodRule;
+import cn.taketoday.test.context.metrics.TestContextMetrics;
+import cn.taketoday.test.context.metrics.TestContextMetricsUtils;
+import cn.taketoday.util.ConcurrentReferenceHashMap;
 import cn.taketoday.util.ReflectionUtils;
 
 /**
@@ -76,6 +80,12 @@ import cn.taketoday.util.ReflectionUtils;
  * by a {@link TestContextBootstrapper}, which is configured via
  * {@link BootstrapWith @BootstrapWith}.
  *
+ * <p>Testing frameworks that create many instances of the same test class
+ * should obtain managers via {@link #forTestClass(Class)}, which bootstraps a
+ * test class only once. The {@code TestContext} is held per thread; each
+ * thread starts from a copy of the context that {@linkplain #beforeTestClass()
+ * prepared the test class}.
+ *
  * @author Sam Brannen
  * @author Juergen Hoeller
  * @see BootstrapWith
@@ -90,15 +100,34 @@ import cn.taketoday.util.ReflectionUtils;
 public class TestContextManager {
   private static final Logger logger = LoggerFactory.getLogger(TestContextManager.class);
 
+  /**
+   * Bootstrapped managers keyed by test class, used as templates by
+   * {@link #forTestClass(Class)} and never executed themselves. Removed by
+   * {@link #afterTestClass()}, and held softly so that test classes whose
+   * class callbacks never complete, e.g. due to a failed bootstrap or a
+   * filtered run, are not retained either.
+   */
+  private static final ConcurrentReferenceHashMap<Class<?>, TestContextManager> templates =
+          new ConcurrentReferenceHashMap<>(64);
+
   private final TestContext testContext;
 
   private final ThreadLocal<TestContext> testContextHolder = ThreadLocal.withInitial(
           // Implemented as an anonymous inner class instead of a lambda expression due to a bug
           // in Eclipse IDE: "The blank final field testContext may not have been initialized"
-          () -> copyTestContext(TestContextManager.this.testContext));
+          () -> copyTestContext(TestContextManager.this.getClassTestContext()));
+
+  /**
+   * The context of the thread that executed {@link #beforeTestClass()},
+   * copied by threads that execute the test methods.
+   */
+  @Nullable
+  private volatile TestContext classTestContext;
 
   private final List<TestExecutionListener> testExecutionListeners = new ArrayList<>();
 
+  private final TestContextMetrics metrics = TestContextMetricsUtils.getMetrics();
+
   /**
    * Construct a new {@code TestContextManager} for the supplied {@linkplain Class test class}.
    * <p>Delegates to {@link #TestContextManager(TestContextBootstrapper)} with
@@ -129,8 +158,56 @@ public class TestContextManager {
    * @see #registerTestExecutionListeners
    */
   public TestContextManager(TestContextBootstrapper testContextBootstrapper) {
-    this.testContext = testContextBootstrapper.buildTestContext();
-    registerTestExecutionListeners(testContextBootstrapper.getTestExecutionListeners());
+    TestContextMetrics.Sample sample = this.metrics.start(TestContextMetrics.Phase.BOOTSTRAP,
+            testContextBootstrapper.getBootstrapContext().getTestClass().getName());
+    try {
+      this.testContext = testContextBootstrapper.buildTestContext();
+      registerTestExecutionListeners(testContextBootstrapper.getTestExecutionListeners());
+    }
+    finally {
+      sample.stop();
+    }
+  }
+
+  /**
+   * Construct a new {@code TestContextManager} from the supplied template,
+   * sharing its {@link TestExecutionListener} instances and copying its
+   * {@code TestContext}.
+   */
+  private TestContextManager(TestContextManager template) {
+    this.testContext = copyTestContext(template.testContext);
+    this.testExecutionListeners.addAll(template.testExecutionListeners);
+  }
+
+  /**
+   * Obtain a new {@code TestContextManager} for the supplied test class.
+   * <p>The test class is bootstrapped only once per run of the class: the
+   * returned manager is a cheap copy of a class-level template, sharing the
+   * merged context configuration and the {@link TestExecutionListener}
+   * instances with all other managers obtained for the same class, while
+   * holding its own {@code TestContext} state. Test frameworks that create many instances
+   * of a test class, e.g. TestNG factories or data providers, should prefer
+   * this method over {@link #TestContextManager(Class)}.
+   * <p>Listeners are thus shared in the same way as they are by the
+   * {@link cn.taketoday.test.context.junit.jupiter.TodayExtension TodayExtension},
+   * which uses a single manager for all instances of a test class, and must
+   * keep any per-test state in the {@link TestContext}.
+   * <p>The template is discarded once {@link #afterTestClass()} has been
+   * invoked for the test class. If the {@code TestContext} of the test class
+   * has no copy constructor, a fully bootstrapped manager is returned instead.
+   *
+   * @param testClass the test class to be managed
+   * @since 4.0
+   */
+  public static TestContextManager forTestClass(Class<?> testClass) {
+    Assert.notNull(testClass, "Test class must not be null");
+    TestContextManager template = templates.computeIfAbsent(testClass, TestContextManager::new);
+    TestContextManager manager = new TestContextManager(template);
+    if (manager.testContext == template.testContext) {
+      // TestContext could not be copied: do not share the mutable context of the template
+      return new TestContextManager(testClass);
+    }
+    return manager;
   }
 
   /**
@@ -206,13 +283,20 @@ public class TestContextManager {
 
     for (TestExecutionListener testExecutionListener : getTestExecutionListeners()) {
       try {
-        testExecutionListener.beforeTestClass(getTestContext());
+        TestContextMetrics.Sample sample = this.metrics.startListener(testExecutionListener, "beforeTestClass");
+        try {
+          testExecutionListener.beforeTestClass(getTestContext());
+        }
+        finally {
+          sample.stop();
+        }
       }
       catch (Throwable ex) {
         logException(ex, "beforeTestClass", testExecutionListener, testClass);
         ReflectionUtils.rethrowException(ex);
       }
     }
+    this.classTestContext = getTestContext();
   }
 
   /**
@@ -242,7 +326,13 @@ public class TestContextManager {
 
     for (TestExecutionListener testExecutionListener : getTestExecutionListeners()) {
       try {
-        testExecutionListener.prepareTestInstance(getTestContext());
+        TestContextMetrics.Sample sample = this.metrics.startListener(testExecutionListener, "prepareTestInstance");
+        try {
+          testExecutionListener.prepareTestInstance(getTestContext());
+        }
+        finally {
+          sample.stop();
+        }
       }
       catch (Throwable ex) {
         if (logger.isErrorEnabled()) {
@@ -288,7 +378,13 @@ public class TestContextManager {
 
     for (TestExecutionListener testExecutionListener : getTestExecutionListeners()) {
       try {
-        testExecutionListener.beforeTestMethod(getTestContext());
+        TestContextMetrics.Sample sample = this.metrics.startListener(testExecutionListener, "beforeTestMethod");
+        try {
+          testExecutionListener.beforeTestMethod(getTestContext());
+        }
+        finally {
+          sample.stop();
+        }
       }
       catch (Throwable ex) {
         handleBeforeException(ex, callbackName, testExecutionListener, testInstance, testMethod);
@@ -327,7 +423,13 @@ public class TestContextManager {
 
     for (TestExecutionListener testExecutionListener : getTestExecutionListeners()) {
       try {
-        testExecutionListener.beforeTestExecution(getTestContext());
+        TestContextMetrics.Sample sample = this.metrics.startListener(testExecutionListener, "beforeTestExecution");
+        try {
+          testExecutionListener.beforeTestExecution(getTestContext());
+        }
+        finally {
+          sample.stop();
+        }
       }
       catch (Throwable ex) {
         handleBeforeException(ex, callbackName, testExecutionListener, testInstance, testMethod);
@@ -377,7 +479,13 @@ public class TestContextManager {
     // "wrapper"-style execution of listeners.
     for (TestExecutionListener testExecutionListener : getReversedTestExecutionListeners()) {
       try {
-        testExecutionListener.afterTestExecution(getTestContext());
+        TestContextMetrics.Sample sample = this.metrics.startListener(testExecutionListener, "afterTestExecution");
+        try {
+          testExecutionListener.afterTestExecution(getTestContext());
+        }
+        finally {
+          sample.stop();
+        }
       }
       catch (Throwable ex) {
         logException(ex, callbackName, testExecutionListener, testInstance, testMethod);
@@ -439,7 +547,13 @@ public class TestContextManager {
     // "wrapper"-style execution of listeners.
     for (TestExecutionListener testExecutionListener : getReversedTestExecutionListeners()) {
       try {
-        testExecutionListener.afterTestMethod(getTestContext());
+        TestContextMetrics.Sample sample = this.metrics.startListener(testExecutionListener, "afterTestMethod");
+        try {
+          testExecutionListener.afterTestMethod(getTestContext());
+        }
+        finally {
+          sample.stop();
+        }
       }
       catch (Throwable ex) {
         logException(ex, callbackName, testExecutionListener, testInstance, testMethod);
@@ -473,25 +587,53 @@ public class TestContextManager {
    * @throws Exception if a registered TestExecutionListener throws an exception
    * @see #getTestExecutionListeners()
    * @see Throwable#addSuppressed(Throwable)
+   * @see #afterTestClass(Throwable)
    */
   public void afterTestClass() throws Exception {
+    afterTestClass(null);
+  }
+
+  /**
+   * Variant of {@link #afterTestClass()} that reports a failure of the test
+   * class itself, e.g. of a framework-specific <em>before</em> or <em>after
+   * class method</em>, to the registered listeners.
+   * <p>Listeners see the failure as the {@linkplain TestContext#getTestException()
+   * test exception} of the {@code TestContext}. If no such failure is given, they
+   * see the first exception thrown by a listener whose {@code afterTestClass}
+   * callback ran before theirs, if any.
+   *
+   * @param classException the exception thrown by the test class, or
+   * {@code null} if none was thrown
+   * @throws Exception if a registered TestExecutionListener throws an exception
+   * @since 4.0
+   */
+  public void afterTestClass(@Nullable Throwable classException) throws Exception {
     Class<?> testClass = getTestContext().getTestClass();
     if (logger.isTraceEnabled()) {
       logger.trace("afterTestClass(): class [{}]", testClass.getName());
     }
-    getTestContext().updateState(null, null, null);
+    getTestContext().updateState(null, null, classException);
 
     Throwable afterTestClassException = null;
     // Traverse the TestExecutionListeners in reverse order to ensure proper
     // "wrapper"-style execution of listeners.
     for (TestExecutionListener testExecutionListener : getReversedTestExecutionListeners()) {
       try {
-        testExecutionListener.afterTestClass(getTestContext());
+        TestContextMetrics.Sample sample = this.metrics.startListener(testExecutionListener, "afterTestClass");
+        try {
+          testExecutionListener.afterTestClass(getTestContext());
+        }
+        finally {
+          sample.stop();
+        }
       }
       catch (Throwable ex) {
         logException(ex, "afterTestClass", testExecutionListener, testClass);
         if (afterTestClassException == null) {
           afterTestClassException = ex;
+          if (classException == null) {
+            getTestContext().updateState(null, null, ex);
+          }
         }
         else {
           afterTestClassException.addSuppressed(ex);
@@ -500,6 +642,8 @@ public class TestContextManager {
     }
 
     this.testContextHolder.remove();
+    this.classTestContext = null;
+    templates.remove(testClass);
 
     if (afterTestClassException != null) {
       ReflectionUtils.rethrowException(afterTestClassException);
@@ -549,6 +693,16 @@ public class TestContextManager {
     }
   }
 
+  /**
+   * Return the context that the {@code TestContext} of a thread starts from:
+   * the one prepared by {@link #beforeTestClass()}, if the test class is
+   * running, or the initial one otherwise.
+   */
+  private TestContext getClassTestContext() {
+    TestContext classTestContext = this.classTestContext;
+    return (classTestContext != null ? classTestContext : this.testContext);
+  }
+
   /**
    * Attempt to create a copy of the supplied {@code TestContext} using its
    * <em>copy constructor</em>.
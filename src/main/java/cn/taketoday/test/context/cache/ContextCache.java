@@ -75,6 +75,57 @@ public interface ContextCache {
    */
   String MAX_CONTEXT_CACHE_SIZE_PROPERTY_NAME = "today.test.context.cache.maxSize";
 
+  /**
+   * System property used to configure whether contexts removed from the
+   * cache are closed on a background executor ({@code true}) or
+   * synchronously on the calling thread ({@code false}, the default):
+   * {@value}.
+   * <p>Closing asynchronously keeps slow shutdowns off the test thread, but
+   * a removed context may then still hold ports or embedded database names
+   * while the next context starts.
+   *
+   * @since 4.0
+   */
+  String CONTEXT_CLOSE_ASYNC_PROPERTY_NAME = "today.test.context.cache.closeAsync";
+
+  /**
+   * System property used to configure the maximum number of threads used
+   * to close contexts removed from the cache: {@value}.
+   *
+   * @see #DEFAULT_CONTEXT_CLOSE_THREADS
+   * @since 4.0
+   */
+  String CONTEXT_CLOSE_THREADS_PROPERTY_NAME = "today.test.context.cache.closeThreads";
+
+  /**
+   * The default maximum number of threads used to close contexts: {@value}.
+   *
+   * @since 4.0
+   */
+  int DEFAULT_CONTEXT_CLOSE_THREADS = 2;
+
+  /**
+   * System property used to configure the tenured heap occupancy after
+   * garbage collection, as a fraction between {@code 0} and {@code 1}, above
+   * which cached contexts are evicted regardless of the maximum cache size:
+   * {@value}. A value of {@code 0}, the default, disables heap-pressure
+   * eviction.
+   * <p>Note that implementations of {@code ContextCache} are not required to
+   * actually support heap-pressure eviction.
+   *
+   * @see #DEFAULT_HEAP_WATERMARK
+   * @since 4.0
+   */
+  String HEAP_WATERMARK_PROPERTY_NAME = "today.test.context.cache.heapWatermark";
+
+  /**
+   * The default heap occupancy watermark: {@value}, i.e. heap-pressure
+   * eviction is disabled unless configured.
+   *
+   * @since 4.0
+   */
+  double DEFAULT_HEAP_WATERMARK = 0;
+
   /**
    * Determine whether there is a cached context for the given key.
    *
@@ -105,6 +156,21 @@ public interface ContextCache {
    */
   void put(MergedContextConfiguration key, ApplicationContext context);
 
+  /**
+   * Variant of {@link #put(MergedContextConfiguration, ApplicationContext)}
+   * that also supplies how long the context took to load, allowing an
+   * eviction policy to weigh contexts by their reload cost.
+   * <p>The default implementation ignores the load duration.
+   *
+   * @param key the context key (never {@code null})
+   * @param context the {@code ApplicationContext} instance (never {@code null})
+   * @param loadNanos the time it took to load the context, in nanoseconds
+   * @since 4.0
+   */
+  default void put(MergedContextConfiguration key, ApplicationContext context, long loadNanos) {
+    put(key, context);
+  }
+
   /**
    * Remove the context with the given key from the cache and explicitly
    * {@linkplain cn.taketoday.context.ConfigurableApplicationContext#close() close}
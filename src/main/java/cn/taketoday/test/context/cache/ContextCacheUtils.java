@@ -20,6 +20,7 @@
 
 package cn.taketoday.test.context.cache;
 
+import cn.taketoday.context.ConfigurableApplicationContext;
 import cn.taketoday.lang.TodayStrategies;
 import cn.taketoday.util.StringUtils;
 
@@ -55,4 +56,102 @@ public abstract class ContextCacheUtils {
     return ContextCache.DEFAULT_MAX_CONTEXT_CACHE_SIZE;
   }
 
+  /**
+   * Retrieve the heap occupancy watermark above which the {@link ContextCache}
+   * evicts contexts.
+   * <p>Falls back to {@link ContextCache#DEFAULT_HEAP_WATERMARK} if no such
+   * property has been set or if the property is not a number between
+   * {@code 0} and {@code 1}.
+   *
+   * @see ContextCache#HEAP_WATERMARK_PROPERTY_NAME
+   * @since 4.0
+   */
+  public static double retrieveHeapWatermark() {
+    try {
+      String watermark = TodayStrategies.getProperty(ContextCache.HEAP_WATERMARK_PROPERTY_NAME);
+      if (StringUtils.hasText(watermark)) {
+        double value = Double.parseDouble(watermark.trim());
+        if (value >= 0 && value < 1) {
+          return value;
+        }
+      }
+    }
+    catch (Exception ex) {
+      // ignore
+    }
+
+    // Fallback
+    return ContextCache.DEFAULT_HEAP_WATERMARK;
+  }
+
+  /**
+   * Retrieve whether contexts removed from the {@link ContextCache} are
+   * closed asynchronously.
+   * <p>Uses {@link TodayStrategies} to retrieve a system property or
+   * property named {@code today.test.context.cache.closeAsync}, and
+   * defaults to {@code false}.
+   *
+   * @see ContextCache#CONTEXT_CLOSE_ASYNC_PROPERTY_NAME
+   * @since 4.0
+   */
+  public static boolean retrieveCloseAsync() {
+    String closeAsync = TodayStrategies.getProperty(ContextCache.CONTEXT_CLOSE_ASYNC_PROPERTY_NAME);
+    return StringUtils.hasText(closeAsync) && Boolean.parseBoolean(closeAsync.trim());
+  }
+
+  /**
+   * Retrieve the maximum number of threads used to close contexts.
+   * <p>Falls back to {@link ContextCache#DEFAULT_CONTEXT_CLOSE_THREADS} if
+   * no such property has been set or if the property is not a positive integer.
+   *
+   * @see ContextCache#CONTEXT_CLOSE_THREADS_PROPERTY_NAME
+   * @since 4.0
+   */
+  public static int retrieveCloseThreads() {
+    try {
+      String threads = TodayStrategies.getProperty(ContextCache.CONTEXT_CLOSE_THREADS_PROPERTY_NAME);
+      if (StringUtils.hasText(threads)) {
+        int value = Integer.parseInt(threads.trim());
+        if (value > 0) {
+          return value;
+        }
+      }
+    }
+    catch (Exception ex) {
+      // ignore
+    }
+
+    // Fallback
+    return ContextCache.DEFAULT_CONTEXT_CLOSE_THREADS;
+  }
+
+  /**
+   * Track the supplied context so that it is closed by the single JVM
+   * shutdown hook shared by all test contexts, instead of registering a
+   * shutdown hook per context via
+   * {@link ConfigurableApplicationContext#registerShutdownHook()}.
+   * <p>On shutdown, pending asynchronous closes are awaited first and any
+   * contexts still open are then closed, children before their parents.
+   * Contexts are tracked weakly: a context that is no longer referenced
+   * elsewhere is not retained for shutdown.
+   *
+   * @param context the context to track
+   * @since 4.0
+   */
+  public static void closeOnShutdown(ConfigurableApplicationContext context) {
+    ContextCloser.getInstance().register(context);
+  }
+
+  /**
+   * Wait for all contexts that have been removed from a {@link ContextCache}
+   * and are still being closed in the background.
+   *
+   * @throws IllegalStateException if a context failed to close in the
+   * background since the last check
+   * @since 4.0
+   */
+  public static void awaitPendingCloses() {
+    ContextCloser.getInstance().drain();
+  }
+
 }
@@ -0,0 +1,306 @@
+/*
+ * Original Author -> Harry Yang (taketoday@foxmail.com) https://taketoday.cn
+ * Copyright © TODAY & 2017 - 2021 All Rights Reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.test.context.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import cn.taketoday.context.ApplicationContext;
+import cn.taketoday.context.ConfigurableApplicationContext;
+import cn.taketoday.lang.Nullable;
+import cn.taketoday.logging.Logger;
+import cn.taketoday.logging.LoggerFactory;
+import cn.taketoday.test.context.MergedContextConfiguration;
+import cn.taketoday.test.context.metrics.TestContextMetrics;
+import cn.taketoday.test.context.metrics.TestContextMetricsUtils;
+
+/**
+ * Closes application contexts that have been removed from a {@link ContextCache}
+ * and tracks all test contexts through a single JVM shutdown hook.
+ *
+ * <p>By default, removed contexts are closed synchronously on the calling
+ * thread, so that ports, embedded database names and other resources of a
+ * context are released before the next context is loaded, and exceptions
+ * thrown on close propagate to the caller. If enabled via
+ * {@link ContextCache#CONTEXT_CLOSE_ASYNC_PROPERTY_NAME}, they are closed on
+ * a small pool of daemon threads instead, so that slow shutdowns (connection
+ * pools, executors, embedded brokers) stay off the test thread and out of
+ * the cache lock. Contexts removed together are closed in the given order
+ * (children before parents), and the close of a parent is only scheduled
+ * once children still being closed by an earlier removal are done, so that
+ * no pool thread ever waits for a queued task. Failures of asynchronous
+ * closes are rethrown by the next call to {@link #close(Map)} or
+ * {@link #drain()}.
+ *
+ * <p>On JVM shutdown, pending closes are awaited and any contexts that are
+ * still open are closed in reverse registration order.
+ *
+ * @author TODAY
+ * @see ContextCacheUtils#closeOnShutdown(ConfigurableApplicationContext)
+ * @see ContextCacheUtils#awaitPendingCloses()
+ * @since 4.0
+ */
+final class ContextCloser {
+
+  private static final Logger logger = LoggerFactory.getLogger(ContextCache.CONTEXT_CACHE_LOGGING_CATEGORY);
+
+  @Nullable
+  private static volatile ContextCloser instance;
+
+  /**
+   * Open contexts mapped to their registration sequence; parents are loaded,
+   * and therefore registered, before their children. Held weakly, so that
+   * contexts closed and dropped without going through this closer, e.g. by
+   * user code, are not retained.
+   */
+  private final Map<ApplicationContext, Long> contexts = Collections.synchronizedMap(new WeakHashMap<>());
+
+  private final AtomicLong registrations = new AtomicLong();
+
+  /**
+   * Contexts queued for closing, mapped to the completion of their close task.
+   */
+  private final Map<ApplicationContext, CompletableFuture<Void>> pending = new ConcurrentHashMap<>();
+
+  /**
+   * The first failure of an asynchronous close not yet reported.
+   */
+  private final AtomicReference<Throwable> asyncFailure = new AtomicReference<>();
+
+  @Nullable
+  private final ThreadPoolExecutor executor;
+
+  ContextCloser(boolean async, int threads) {
+    if (async) {
+      AtomicInteger counter = new AtomicInteger();
+      this.executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+              new LinkedBlockingQueue<>(), runnable -> {
+        Thread thread = new Thread(runnable, "TestContext-close-" + counter.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      });
+      this.executor.allowCoreThreadTimeOut(true);
+    }
+    else {
+      this.executor = null;
+    }
+  }
+
+  /**
+   * Get the shared instance, registering the JVM shutdown hook on first access.
+   */
+  static ContextCloser getInstance() {
+    ContextCloser closer = instance;
+    if (closer == null) {
+      synchronized(ContextCloser.class) {
+        closer = instance;
+        if (closer == null) {
+          closer = new ContextCloser(ContextCacheUtils.retrieveCloseAsync(), ContextCacheUtils.retrieveCloseThreads());
+          Runtime.getRuntime().addShutdownHook(new Thread(closer::shutdown, "TestContext-shutdown"));
+          instance = closer;
+        }
+      }
+    }
+    return closer;
+  }
+
+  /**
+   * Track the supplied context until it is closed.
+   */
+  void register(ConfigurableApplicationContext context) {
+    this.contexts.put(context, this.registrations.incrementAndGet());
+  }
+
+  /**
+   * Close the supplied contexts, which must already have been detached
+   * from the cache, in iteration order.
+   */
+  void close(Map<MergedContextConfiguration, ApplicationContext> removed) {
+    if (this.executor == null) {
+      closeAll(removed);
+      return;
+    }
+    if (removed.isEmpty()) {
+      rethrowAsyncFailure();
+      return;
+    }
+
+    CompletableFuture<Void> completion = new CompletableFuture<>();
+    List<CompletableFuture<Void>> children = new ArrayList<>();
+    synchronized(this.pending) {
+      // Children still being closed by an earlier removal; they were
+      // registered before us, so the dependencies cannot form a cycle
+      for (Map.Entry<ApplicationContext, CompletableFuture<Void>> entry : this.pending.entrySet()) {
+        if (removed.containsValue(entry.getKey().getParent())) {
+          children.add(entry.getValue());
+        }
+      }
+      for (ApplicationContext context : removed.values()) {
+        this.pending.put(context, completion);
+      }
+    }
+
+    Runnable task = () -> {
+      try {
+        closeAll(removed);
+      }
+      catch (Throwable ex) {
+        if (!this.asyncFailure.compareAndSet(null, ex)) {
+          logger.warn("Failed to close ApplicationContext", ex);
+        }
+      }
+      finally {
+        for (ApplicationContext context : removed.values()) {
+          this.pending.remove(context, completion);
+        }
+        completion.complete(null);
+      }
+    };
+    try {
+      if (children.isEmpty()) {
+        this.executor.execute(task);
+      }
+      else {
+        // Scheduled once the children are closed, instead of blocking a pool thread on them
+        CompletableFuture.allOf(children.toArray(new CompletableFuture[0]))
+                .whenCompleteAsync((result, ex) -> task.run(), this.executor);
+      }
+    }
+    catch (RejectedExecutionException ex) {
+      // Shutting down: close on the calling thread instead
+      task.run();
+    }
+    rethrowAsyncFailure();
+  }
+
+  /**
+   * Close the supplied contexts in iteration order. All contexts are
+   * closed even if some fail; the first failure is rethrown afterwards.
+   */
+  private void closeAll(Map<MergedContextConfiguration, ApplicationContext> removed) {
+    Throwable failure = null;
+    for (Map.Entry<MergedContextConfiguration, ApplicationContext> entry : removed.entrySet()) {
+      try {
+        closeContext(entry.getKey(), entry.getValue());
+      }
+      catch (Throwable ex) {
+        if (failure == null) {
+          failure = ex;
+        }
+        else {
+          failure.addSuppressed(ex);
+        }
+      }
+    }
+    if (failure != null) {
+      rethrow(failure);
+    }
+  }
+
+  private void closeContext(MergedContextConfiguration key, ApplicationContext context) {
+    try {
+      if (context instanceof ConfigurableApplicationContext) {
+        TestContextMetrics.Sample sample = TestContextMetricsUtils.getMetrics()
+                .start(TestContextMetrics.Phase.CONTEXT_CLOSE, TestContextMetrics.contextSubject(key));
+        try {
+          context.close();
+        }
+        finally {
+          sample.stop();
+        }
+      }
+    }
+    finally {
+      this.contexts.remove(context);
+    }
+  }
+
+  /**
+   * Wait until all queued closes have completed, and rethrow the first
+   * failure of an asynchronous close that has not been reported yet.
+   */
+  void drain() {
+    while (!this.pending.isEmpty()) {
+      for (CompletableFuture<Void> completion : new ArrayList<>(this.pending.values())) {
+        completion.join();
+      }
+    }
+    rethrowAsyncFailure();
+  }
+
+  private void rethrowAsyncFailure() {
+    Throwable failure = this.asyncFailure.getAndSet(null);
+    if (failure != null) {
+      throw new IllegalStateException("Failed to close ApplicationContext asynchronously", failure);
+    }
+  }
+
+  private static void rethrow(Throwable failure) {
+    if (failure instanceof RuntimeException runtimeException) {
+      throw runtimeException;
+    }
+    if (failure instanceof Error error) {
+      throw error;
+    }
+    throw new IllegalStateException("Failed to close ApplicationContext", failure);
+  }
+
+  private void shutdown() {
+    try {
+      drain();
+    }
+    catch (IllegalStateException ex) {
+      logger.warn("Failed to close ApplicationContext on shutdown", ex.getCause());
+    }
+    if (this.executor != null) {
+      this.executor.shutdown();
+    }
+    List<Map.Entry<ApplicationContext, Long>> remaining = new ArrayList<>();
+    synchronized(this.contexts) {
+      this.contexts.forEach((context, sequence) -> remaining.add(Map.entry(context, sequence)));
+      this.contexts.clear();
+    }
+    // children before their parents
+    remaining.sort(Map.Entry.<ApplicationContext, Long>comparingByValue().reversed());
+    for (Map.Entry<ApplicationContext, Long> entry : remaining) {
+      ApplicationContext context = entry.getKey();
+      try {
+        context.close();
+      }
+      catch (Throwable ex) {
+        logger.warn("Failed to close ApplicationContext [{}] on shutdown", context, ex);
+      }
+    }
+  }
+
+}
@@ -31,6 +31,8 @@ import cn.taketoday.test.context.CacheAwareContextLoaderDelegate;
 import cn.taketoday.test.context.ContextLoader;
 import cn.taketoday.test.context.MergedContextConfiguration;
 import cn.taketoday.test.context.SmartContextLoader;
+import cn.taketoday.test.context.metrics.TestContextMetrics;
+import cn.taketoday.test.context.metrics.TestContextMetricsUtils;
 
 /**
  * Default implementation of the {@link CacheAwareContextLoaderDelegate} interface.
@@ -53,6 +55,8 @@ public class DefaultCacheAwareContextLoaderDelegate implements CacheAwareContext
 
   private final ContextCache contextCache;
 
+  private final TestContextMetrics metrics = TestContextMetricsUtils.getMetrics();
+
   /**
    * Construct a new {@code DefaultCacheAwareContextLoaderDelegate} using
    * a static {@link DefaultContextCache}.
@@ -124,19 +128,30 @@ public class DefaultCacheAwareContextLoaderDelegate implements CacheAwareContext
     synchronized(this.contextCache) {
       ApplicationContext context = this.contextCache.get(mergedContextConfiguration);
       if (context == null) {
+        this.metrics.recordCacheEvent(TestContextMetrics.CacheEvent.MISS, mergedContextConfiguration);
         try {
-          context = loadContextInternal(mergedContextConfiguration);
+          TestContextMetrics.Sample sample = this.metrics.start(TestContextMetrics.Phase.CONTEXT_LOAD,
+                  TestContextMetrics.contextSubject(mergedContextConfiguration));
+          long start = System.nanoTime();
+          try {
+            context = loadContextInternal(mergedContextConfiguration);
+          }
+          finally {
+            sample.stop();
+          }
+          long loadNanos = System.nanoTime() - start;
           if (logger.isDebugEnabled()) {
             logger.debug(String.format("Storing ApplicationContext [%s] in cache under key [%s]",
                                        System.identityHashCode(context), mergedContextConfiguration));
           }
-          this.contextCache.put(mergedContextConfiguration, context);
+          this.contextCache.put(mergedContextConfiguration, context, loadNanos);
         }
         catch (Exception ex) {
           throw new IllegalStateException("Failed to load ApplicationContext", ex);
         }
       }
       else {
+        this.metrics.recordCacheEvent(TestContextMetrics.CacheEvent.HIT, mergedContextConfiguration);
         if (logger.isDebugEnabled()) {
           logger.debug(String.format("Retrieved ApplicationContext [%s] from cache with key [%s]",
                                      System.identityHashCode(context), mergedContextConfiguration));
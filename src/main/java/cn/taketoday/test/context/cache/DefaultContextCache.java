@@ -31,7 +31,6 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import cn.taketoday.context.ApplicationContext;
-import cn.taketoday.context.ConfigurableApplicationContext;
 import cn.taketoday.core.style.ToStringBuilder;
 import cn.taketoday.lang.Assert;
 import cn.taketoday.lang.Nullable;
@@ -39,6 +38,8 @@ import cn.taketoday.logging.Logger;
 import cn.taketoday.logging.LoggerFactory;
 import cn.taketoday.test.annotation.DirtiesContext.HierarchyMode;
 import cn.taketoday.test.context.MergedContextConfiguration;
+import cn.taketoday.test.context.metrics.TestContextMetrics;
+import cn.taketoday.test.context.metrics.TestContextMetricsUtils;
 
 /**
  * Default implementation of the {@link ContextCache} API.
@@ -51,6 +52,22 @@ import cn.taketoday.test.context.MergedContextConfiguration;
  * constructor argument} or set via a system property or property named
  * {@code today.test.context.cache.maxSize}.
  *
+ * <p>Removed contexts are detached from the cache immediately and closed by
+ * a shared {@link ContextCloser}, by default on the calling thread, or
+ * optionally on a background executor so that slow shutdowns do not block
+ * the test thread or the cache lock. See
+ * {@link ContextCache#CONTEXT_CLOSE_ASYNC_PROPERTY_NAME}.
+ *
+ * <p>In addition to the size limit, the cache can react to heap pressure if
+ * a {@linkplain ContextCache#HEAP_WATERMARK_PROPERTY_NAME watermark} is
+ * configured: when the tenured heap occupancy after a collection of the
+ * tenured heap exceeds the watermark, one
+ * context per such collection is evicted on the next cache access. The
+ * victim is the context with the lowest reload cost per unit of idle time,
+ * so cheap, long unused contexts go first; the context being accessed and
+ * its ancestors are never chosen. Pressure events and evictions are reported
+ * by {@link #logStatistics()}.
+ *
  * @author Sam Brannen
  * @author Juergen Hoeller
  * @see ContextCacheUtils#retrieveMaxCacheSize()
@@ -79,6 +96,26 @@ public class DefaultContextCache implements ContextCache {
 
   private final AtomicInteger missCount = new AtomicInteger();
 
+  private final AtomicInteger evictionCount = new AtomicInteger();
+
+  private final AtomicInteger heapPressureEventCount = new AtomicInteger();
+
+  private final AtomicInteger heapPressureEvictionCount = new AtomicInteger();
+
+  /**
+   * Number of collections above the heap watermark not yet acted upon.
+   */
+  private final AtomicInteger pendingHeapPressure = new AtomicInteger();
+
+  /**
+   * Load duration and last access time per cached context, used to select
+   * contexts to evict under heap pressure.
+   */
+  private final Map<MergedContextConfiguration, long[]> costMap = new ConcurrentHashMap<>(32);
+
+  @Nullable
+  private final HeapPressureMonitor heapPressureMonitor;
+
   /**
    * Create a new {@code DefaultContextCache} using the maximum cache size
    * obtained via {@link ContextCacheUtils#retrieveMaxCacheSize()}.
@@ -87,12 +124,12 @@ public class DefaultContextCache implements ContextCache {
    * @see ContextCacheUtils#retrieveMaxCacheSize()
    */
   public DefaultContextCache() {
-    this(ContextCacheUtils.retrieveMaxCacheSize());
+    this(ContextCacheUtils.retrieveMaxCacheSize(), ContextCacheUtils.retrieveHeapWatermark());
   }
 
   /**
    * Create a new {@code DefaultContextCache} using the supplied maximum
-   * cache size.
+   * cache size, without heap-pressure eviction.
    *
    * @param maxSize the maximum cache size
    * @throws IllegalArgumentException if the supplied {@code maxSize} value
@@ -100,8 +137,26 @@ public class DefaultContextCache implements ContextCache {
    * @see #DefaultContextCache()
    */
   public DefaultContextCache(int maxSize) {
+    this(maxSize, 0);
+  }
+
+  /**
+   * Create a new {@code DefaultContextCache} using the supplied maximum
+   * cache size and heap occupancy watermark.
+   *
+   * @param maxSize the maximum cache size
+   * @param heapWatermark the tenured heap occupancy after garbage collection,
+   * as a fraction, above which contexts are evicted; {@code 0} to disable
+   * heap-pressure eviction
+   * @throws IllegalArgumentException if the supplied {@code maxSize} value
+   * is not positive or the watermark is not in the range {@code [0, 1)}
+   * @since 4.0
+   */
+  public DefaultContextCache(int maxSize, double heapWatermark) {
     Assert.isTrue(maxSize > 0, "'maxSize' must be positive");
+    Assert.isTrue(heapWatermark >= 0 && heapWatermark < 1, "'heapWatermark' must be in the range [0, 1)");
     this.maxSize = maxSize;
+    this.heapPressureMonitor = (heapWatermark > 0 ? HeapPressureMonitor.start(this, heapWatermark) : null);
   }
 
   /**
@@ -120,12 +175,17 @@ public class DefaultContextCache implements ContextCache {
   @Nullable
   public ApplicationContext get(MergedContextConfiguration key) {
     Assert.notNull(key, "Key must not be null");
+    evictUnderHeapPressure(key);
     ApplicationContext context = this.contextMap.get(key);
     if (context == null) {
       this.missCount.incrementAndGet();
     }
     else {
       this.hitCount.incrementAndGet();
+      long[] cost = this.costMap.get(key);
+      if (cost != null) {
+        cost[1] = System.nanoTime();
+      }
     }
     return context;
   }
@@ -135,9 +195,20 @@ public class DefaultContextCache implements ContextCache {
    */
   @Override
   public void put(MergedContextConfiguration key, ApplicationContext context) {
+    put(key, context, 0);
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>The load duration is used as the reload cost when selecting contexts
+   * to evict under heap pressure.
+   */
+  @Override
+  public void put(MergedContextConfiguration key, ApplicationContext context, long loadNanos) {
     Assert.notNull(key, "Key must not be null");
     Assert.notNull(context, "ApplicationContext must not be null");
 
+    this.costMap.put(key, new long[] { loadNanos, System.nanoTime() });
     this.contextMap.put(key, context);
     MergedContextConfiguration child = key;
     MergedContextConfiguration parent = child.getParent();
@@ -167,12 +238,13 @@ public class DefaultContextCache implements ContextCache {
       }
     }
 
-    List<MergedContextConfiguration> removedContexts = new ArrayList<>();
-    remove(removedContexts, startKey);
+    List<MergedContextConfiguration> removedKeys = new ArrayList<>();
+    Map<MergedContextConfiguration, ApplicationContext> removedContexts = new LinkedHashMap<>();
+    remove(removedKeys, removedContexts, startKey);
 
     // Remove all remaining references to any removed contexts from the
     // hierarchy map.
-    for (MergedContextConfiguration currentKey : removedContexts) {
+    for (MergedContextConfiguration currentKey : removedKeys) {
       for (Set<MergedContextConfiguration> children : this.hierarchyMap.values()) {
         children.remove(currentKey);
       }
@@ -184,28 +256,108 @@ public class DefaultContextCache implements ContextCache {
         this.hierarchyMap.remove(entry.getKey());
       }
     }
+
+    // Hand the detached contexts over for closing, leaves first
+    ContextCloser.getInstance().close(removedContexts);
   }
 
-  private void remove(List<MergedContextConfiguration> removedContexts, MergedContextConfiguration key) {
+  private void remove(List<MergedContextConfiguration> removedKeys,
+          Map<MergedContextConfiguration, ApplicationContext> removedContexts, MergedContextConfiguration key) {
     Assert.notNull(key, "Key must not be null");
 
     Set<MergedContextConfiguration> children = this.hierarchyMap.get(key);
     if (children != null) {
       for (MergedContextConfiguration child : children) {
         // Recurse through lower levels
-        remove(removedContexts, child);
+        remove(removedKeys, removedContexts, child);
       }
       // Remove the set of children for the current context from the hierarchy map.
       this.hierarchyMap.remove(key);
     }
 
-    // Physically remove and close leaf nodes first (i.e., on the way back up the
-    // stack as opposed to prior to the recursive call).
+    // Physically remove leaf nodes first (i.e., on the way back up the
+    // stack as opposed to prior to the recursive call), so that they are
+    // closed before their parents.
     ApplicationContext context = this.contextMap.remove(key);
-    if (context instanceof ConfigurableApplicationContext) {
-      context.close();
+    this.costMap.remove(key);
+    if (context != null) {
+      removedContexts.put(key, context);
+    }
+    removedKeys.add(key);
+  }
+
+  /**
+   * Record a garbage collection that left the tenured heap above the watermark.
+   * <p>Invoked on a JMX notification thread; the eviction itself is deferred
+   * to the next cache access, which already holds the lock of the calling
+   * {@link cn.taketoday.test.context.CacheAwareContextLoaderDelegate}.
+   */
+  void onHeapPressure(double occupancy) {
+    this.heapPressureEventCount.incrementAndGet();
+    this.pendingHeapPressure.incrementAndGet();
+    if (statsLogger.isDebugEnabled()) {
+      statsLogger.debug(String.format("Heap occupancy after GC at %.1f%% exceeds watermark of %.1f%%",
+              occupancy * 100, this.heapPressureMonitor != null ? this.heapPressureMonitor.getWatermark() * 100 : 0));
     }
-    removedContexts.add(key);
+  }
+
+  /**
+   * Evict one context per pending heap pressure event, never choosing the
+   * supplied key or any of its ancestors.
+   */
+  private void evictUnderHeapPressure(MergedContextConfiguration current) {
+    int pending = this.pendingHeapPressure.getAndSet(0);
+    if (pending == 0) {
+      return;
+    }
+    synchronized(this.contextMap) {
+      for (int i = 0; i < pending; i++) {
+        MergedContextConfiguration victim = findLeastValuable(current);
+        if (victim == null) {
+          break;
+        }
+        remove(victim, HierarchyMode.CURRENT_LEVEL);
+        this.evictionCount.incrementAndGet();
+        this.heapPressureEvictionCount.incrementAndGet();
+        TestContextMetricsUtils.getMetrics().recordCacheEvent(TestContextMetrics.CacheEvent.EVICTION, victim);
+        if (statsLogger.isDebugEnabled()) {
+          statsLogger.debug("Evicted ApplicationContext under heap pressure for test class [" +
+                  victim.getTestClass().getName() + "]");
+        }
+      }
+    }
+  }
+
+  /**
+   * Find the cached context with the lowest reload cost per nanosecond of
+   * idle time.
+   */
+  @Nullable
+  private MergedContextConfiguration findLeastValuable(MergedContextConfiguration current) {
+    long now = System.nanoTime();
+    MergedContextConfiguration victim = null;
+    double lowest = Double.MAX_VALUE;
+    for (MergedContextConfiguration key : this.contextMap.keySet()) {
+      if (isSelfOrAncestor(key, current)) {
+        continue;
+      }
+      long[] cost = this.costMap.get(key);
+      double value = (cost != null ? Math.max(cost[0], 1) / (double) Math.max(now - cost[1], 1) : 0);
+      if (value < lowest) {
+        lowest = value;
+        victim = key;
+      }
+    }
+    return victim;
+  }
+
+  private static boolean isSelfOrAncestor(MergedContextConfiguration candidate, MergedContextConfiguration key) {
+    for (MergedContextConfiguration current = key; current != null; current = current.getParent()) {
+      if (candidate.equals(current)) {
+        return true;
+      }
+    }
+    return false;
   }
 
   /**
@@ -247,6 +399,35 @@ public class DefaultContextCache implements ContextCache {
     return this.missCount.get();
   }
 
+  /**
+   * Get the number of contexts evicted, either because the maximum size was
+   * exceeded or under heap pressure.
+   *
+   * @since 4.0
+   */
+  public int getEvictionCount() {
+    return this.evictionCount.get();
+  }
+
+  /**
+   * Get the number of garbage collections that left the tenured heap above
+   * the configured watermark.
+   *
+   * @since 4.0
+   */
+  public int getHeapPressureEventCount() {
+    return this.heapPressureEventCount.get();
+  }
+
+  /**
+   * Get the number of contexts evicted under heap pressure.
+   *
+   * @since 4.0
+   */
+  public int getHeapPressureEvictionCount() {
+    return this.heapPressureEvictionCount.get();
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -266,6 +447,7 @@ public class DefaultContextCache implements ContextCache {
     synchronized(this.contextMap) {
       this.contextMap.clear();
       this.hierarchyMap.clear();
+      this.costMap.clear();
     }
   }
 
@@ -277,6 +459,9 @@ public class DefaultContextCache implements ContextCache {
     synchronized(this.contextMap) {
       this.hitCount.set(0);
       this.missCount.set(0);
+      this.evictionCount.set(0);
+      this.heapPressureEventCount.set(0);
+      this.heapPressureEvictionCount.set(0);
     }
   }
 
@@ -306,6 +491,9 @@ public class DefaultContextCache implements ContextCache {
             .append("parentContextCount", getParentContextCount())
             .append("hitCount", getHitCount())
             .append("missCount", getMissCount())
+            .append("evictionCount", getEvictionCount())
+            .append("heapPressureEventCount", getHeapPressureEventCount())
+            .append("heapPressureEvictionCount", getHeapPressureEvictionCount())
             .toString();
   }
 
@@ -334,6 +522,8 @@ public class DefaultContextCache implements ContextCache {
         // Do NOT delete "DefaultContextCache.this."; otherwise, we accidentally
         // invoke java.util.Map.remove(Object, Object).
         DefaultContextCache.this.remove(eldest.getKey(), HierarchyMode.CURRENT_LEVEL);
+        DefaultContextCache.this.evictionCount.incrementAndGet();
+        TestContextMetricsUtils.getMetrics().recordCacheEvent(TestContextMetrics.CacheEvent.EVICTION, eldest.getKey());
       }
 
       // Return false since we invoke a custom eviction algorithm.
@@ -0,0 +1,176 @@
+/*
+ * Original Author -> Harry Yang (taketoday@foxmail.com) https://taketoday.cn
+ * Copyright © TODAY & 2017 - 2021 All Rights Reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.test.context.cache;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+
+import cn.taketoday.lang.Nullable;
+
+/**
+ * Watches the occupancy of the tenured heap pools after garbage collection
+ * and notifies a {@link DefaultContextCache} whenever it exceeds the
+ * configured watermark.
+ *
+ * <p>Listens for the GC notifications of those collectors only that manage
+ * a tenured pool, so that the {@linkplain MemoryPoolMXBean#getCollectionUsage()
+ * collection usage} read after a notification has just been updated by that
+ * collection. Young collections of collectors that do not manage the tenured
+ * pool, e.g. with the Parallel or Serial collector, are ignored, since the
+ * collection usage of the tenured pool is stale until its next collection.
+ * JVM-wide state such as collection usage thresholds is not modified. On
+ * JVMs that do not emit GC notifications, no monitoring takes place.
+ *
+ * <p>The cache is only weakly referenced: once it has been garbage collected,
+ * the monitor unregisters itself.
+ *
+ * @author TODAY
+ * @since 4.0
+ */
+final class HeapPressureMonitor implements NotificationListener {
+
+  /**
+   * Notification type emitted by {@code GarbageCollectorMXBean}s on HotSpot
+   * and OpenJ9, without depending on {@code com.sun.management}.
+   */
+  private static final String GARBAGE_COLLECTION_NOTIFICATION = "com.sun.management.gc.notification";
+
+  private final WeakReference<DefaultContextCache> cache;
+
+  private final double watermark;
+
+  private final List<NotificationEmitter> emitters = new ArrayList<>();
+
+  private HeapPressureMonitor(DefaultContextCache cache, double watermark) {
+    this.cache = new WeakReference<>(cache);
+    this.watermark = watermark;
+  }
+
+  /**
+   * Start monitoring on behalf of the supplied cache.
+   *
+   * @return the monitor, or {@code null} if the JVM exposes no suitable
+   * memory pools or collectors
+   */
+  @Nullable
+  static HeapPressureMonitor start(DefaultContextCache cache, double watermark) {
+    Map<String, MemoryPoolMXBean> tenuredPools = new HashMap<>();
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      // Only tenured pools support both usage and collection usage thresholds
+      if (pool.getType() == MemoryType.HEAP && pool.isUsageThresholdSupported()
+              && pool.isCollectionUsageThresholdSupported()) {
+        tenuredPools.put(pool.getName(), pool);
+      }
+    }
+    if (tenuredPools.isEmpty()) {
+      return null;
+    }
+
+    HeapPressureMonitor monitor = new HeapPressureMonitor(cache, watermark);
+    for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+      List<MemoryPoolMXBean> managedPools = new ArrayList<>();
+      for (String poolName : collector.getMemoryPoolNames()) {
+        MemoryPoolMXBean pool = tenuredPools.get(poolName);
+        if (pool != null) {
+          managedPools.add(pool);
+        }
+      }
+      if (!managedPools.isEmpty() && collector instanceof NotificationEmitter emitter) {
+        emitter.addNotificationListener(monitor, null, managedPools);
+        monitor.emitters.add(emitter);
+      }
+    }
+    if (monitor.emitters.isEmpty()) {
+      return null;
+    }
+    return monitor;
+  }
+
+  /**
+   * Unregister from all notification emitters.
+   */
+  void stop() {
+    for (NotificationEmitter emitter : this.emitters) {
+      try {
+        emitter.removeNotificationListener(this);
+      }
+      catch (ListenerNotFoundException ex) {
+        // ignore
+      }
+    }
+    this.emitters.clear();
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public void handleNotification(Notification notification, Object handback) {
+    if (!GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+      return;
+    }
+    DefaultContextCache cache = this.cache.get();
+    if (cache == null) {
+      stop();
+      return;
+    }
+    // The notifying collector manages these pools and has just collected them
+    double occupancy = getOccupancy((List<MemoryPoolMXBean>) handback);
+    if (occupancy > this.watermark) {
+      cache.onHeapPressure(occupancy);
+    }
+  }
+
+  /**
+   * Return the highest occupancy of the supplied pools after their last
+   * collection, as a fraction of their maximum size.
+   */
+  private static double getOccupancy(List<MemoryPoolMXBean> pools) {
+    double occupancy = 0;
+    for (MemoryPoolMXBean pool : pools) {
+      MemoryUsage usage = pool.getCollectionUsage();
+      if (usage != null) {
+        occupancy = Math.max(occupancy, usage.getUsed() / (double) getMax(usage));
+      }
+    }
+    return occupancy;
+  }
+
+  double getWatermark() {
+    return this.watermark;
+  }
+
+  private static long getMax(MemoryUsage usage) {
+    return (usage.getMax() > 0 ? usage.getMax() : Runtime.getRuntime().maxMemory());
+  }
+
+}
@@ -31,8 +31,6 @@ import java.util.function.Function;
 
 import cn.taketoday.context.ApplicationContext;
 import cn.taketoday.context.ConfigurableApplicationContext;
-import cn.taketoday.context.DefaultApplicationContext;
-import cn.taketoday.context.expression.ExpressionEvaluator;
 import cn.taketoday.core.annotation.AnnotatedElementUtils;
 import cn.taketoday.lang.Assert;
 import cn.taketoday.logging.Logger;
@@ -58,6 +56,10 @@ import cn.taketoday.util.StringUtils;
  * <pre style="code">true</pre>
  * </ul>
  *
+ * <p>Expression results are memoized via {@link ConditionExpressionCache}, and
+ * expressions which do not require the test's {@code ApplicationContext} are
+ * evaluated against a shared context rather than a new one per evaluation.
+ *
  * @author Sam Brannen
  * @author Tadaya Tsuyukubo
  * @see EnabledIf
@@ -155,33 +157,23 @@ abstract class AbstractExpressionEvaluatingCondition implements ExecutionConditi
 
     Assert.state(context.getElement().isPresent(), "No AnnotatedElement");
     AnnotatedElement element = context.getElement().get();
-    DefaultApplicationContext gac = null;
-    ApplicationContext applicationContext;
+    Object result;
 
     if (loadContext) {
-      applicationContext = TodayExtension.getApplicationContext(context);
-    }
-    else {
-      gac = new DefaultApplicationContext();
-      gac.refresh();
-      applicationContext = gac;
-    }
-
-    if (!(applicationContext instanceof ConfigurableApplicationContext)) {
-      if (logger.isWarnEnabled()) {
-        String contextType = applicationContext.getClass().getName();
-        logger.warn(String.format("@%s(\"%s\") could not be evaluated on [%s] since the test " +
-                                          "ApplicationContext [%s] is not a ConfigurableApplicationContext",
-                                  annotationType.getSimpleName(), expression, element, contextType));
+      ApplicationContext applicationContext = TodayExtension.getApplicationContext(context);
+      if (!(applicationContext instanceof ConfigurableApplicationContext)) {
+        if (logger.isWarnEnabled()) {
+          String contextType = applicationContext.getClass().getName();
+          logger.warn(String.format("@%s(\"%s\") could not be evaluated on [%s] since the test " +
+                                            "ApplicationContext [%s] is not a ConfigurableApplicationContext",
+                                    annotationType.getSimpleName(), expression, element, contextType));
+        }
+        return false;
       }
-      return false;
+      result = ConditionExpressionCache.evaluate(applicationContext, expression);
     }
-
-    ExpressionEvaluator evaluator = applicationContext.getExpressionEvaluator();
-    Object result = evaluator.evaluate(expression);
-
-    if (gac != null) {
-      gac.close();
+    else {
+      result = ConditionExpressionCache.evaluateShared(expression);
     }
 
     if (result instanceof Boolean) {
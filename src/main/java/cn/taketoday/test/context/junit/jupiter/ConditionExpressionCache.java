@@ -0,0 +1,168 @@
+/*
+ * Original Author -> Harry Yang (taketoday@foxmail.com) https://taketoday.cn
+ * Copyright © TODAY & 2017 - 2021 All Rights Reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+package cn.taketoday.test.context.junit.jupiter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import cn.taketoday.context.ApplicationContext;
+import cn.taketoday.context.DefaultApplicationContext;
+import cn.taketoday.lang.Nullable;
+
+/**
+ * Shared evaluation environment and result cache for the expressions of
+ * {@link EnabledIf @EnabledIf} and {@link DisabledIf @DisabledIf}.
+ *
+ * <p>Expressions that do not require the test's {@code ApplicationContext}
+ * are evaluated against a single, lazily refreshed context instead of a new
+ * context per evaluation.
+ *
+ * <p>Only expressions whose result is determined by the properties they
+ * reference are memoized: plain literals and expressions consisting of
+ * {@code ${...}} placeholders. Results are keyed by the expression and the
+ * current values of the referenced properties, so changing such a property
+ * between tests is honored. Expressions containing {@code #{...}} may call
+ * methods or read bean state and are evaluated every time.
+ *
+ * <p>Results of expressions evaluated against the test's
+ * {@code ApplicationContext} are memoized per context instance. A context
+ * that has been {@linkplain cn.taketoday.test.annotation.DirtiesContext dirtied}
+ * is replaced by a new instance and thereby starts with an empty cache; the
+ * entries of the closed context are released along with it.
+ *
+ * @author TODAY
+ * @see AbstractExpressionEvaluatingCondition
+ * @since 4.0
+ */
+final class ConditionExpressionCache {
+
+  private static final Map<ResultKey, Object> sharedResults = new ConcurrentHashMap<>(64);
+
+  private static final Map<ApplicationContext, Map<ResultKey, Object>> contextResults =
+          Collections.synchronizedMap(new WeakHashMap<>());
+
+  @Nullable
+  private static volatile DefaultApplicationContext sharedContext;
+
+  private ConditionExpressionCache() { }
+
+  /**
+   * Get the shared context used to evaluate expressions which do not
+   * require the test's {@code ApplicationContext}.
+   */
+  static ApplicationContext getSharedContext() {
+    DefaultApplicationContext context = sharedContext;
+    if (context == null) {
+      synchronized(ConditionExpressionCache.class) {
+        context = sharedContext;
+        if (context == null) {
+          context = new DefaultApplicationContext();
+          context.refresh();
+          DefaultApplicationContext toClose = context;
+          Runtime.getRuntime().addShutdownHook(
+                  new Thread(toClose::close, "ConditionExpressionCache-close"));
+          sharedContext = context;
+        }
+      }
+    }
+    return context;
+  }
+
+  /**
+   * Evaluate the supplied expression against the shared context, reusing
+   * a previous result for the same expression and property values.
+   */
+  @Nullable
+  static Object evaluateShared(String expression) {
+    return evaluate(getSharedContext(), expression, sharedResults);
+  }
+
+  /**
+   * Evaluate the supplied expression against the supplied test context,
+   * reusing a previous result for the same expression, context and
+   * property values.
+   */
+  @Nullable
+  static Object evaluate(ApplicationContext context, String expression) {
+    Map<ResultKey, Object> results = contextResults.computeIfAbsent(
+            context, key -> new ConcurrentHashMap<>(16));
+    return evaluate(context, expression, results);
+  }
+
+  @Nullable
+  private static Object evaluate(ApplicationContext context, String expression, Map<ResultKey, Object> results) {
+    List<String> properties = findReferencedProperties(expression);
+    if (properties == null) {
+      return context.getExpressionEvaluator().evaluate(expression);
+    }
+    List<String> values = new ArrayList<>(properties.size());
+    for (String property : properties) {
+      values.add(context.getEnvironment().getProperty(property));
+    }
+    ResultKey key = new ResultKey(expression, values);
+    Object result = results.get(key);
+    if (result == null) {
+      result = context.getExpressionEvaluator().evaluate(expression);
+      if (result != null) {
+        results.put(key, result);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Find the names of the properties referenced by {@code ${...}} placeholders
+   * in the supplied expression.
+   *
+   * @return the property names, or {@code null} if the result of the
+   * expression is not determined by property values alone
+   */
+  @Nullable
+  static List<String> findReferencedProperties(String expression) {
+    if (expression.contains("#{")) {
+      return null;
+    }
+    List<String> properties = new ArrayList<>(2);
+    int index = expression.indexOf("${");
+    while (index != -1) {
+      int end = expression.indexOf('}', index + 2);
+      if (end == -1) {
+        return null;
+      }
+      String placeholder = expression.substring(index + 2, end);
+      if (placeholder.contains("${")) {
+        // nested placeholders
+        return null;
+      }
+      int separator = placeholder.indexOf(':');
+      properties.add(separator != -1 ? placeholder.substring(0, separator) : placeholder);
+      index = expression.indexOf("${", end + 1);
+    }
+    return properties;
+  }
+
+  private record ResultKey(String expression, List<String> propertyValues) {
+  }
+
+}
@@ -30,23 +30,30 @@ import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
 import org.junit.jupiter.api.extension.BeforeAllCallback;
 import org.junit.jupiter.api.extension.BeforeEachCallback;
 import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ConditionEvaluationResult;
+import org.junit.jupiter.api.extension.ExecutionCondition;
 import org.junit.jupiter.api.extension.ExtensionContext;
 import org.junit.jupiter.api.extension.ExtensionContext.Namespace;
 import org.junit.jupiter.api.extension.ExtensionContext.Store;
+import org.junit.jupiter.api.extension.InvocationInterceptor;
 import org.junit.jupiter.api.extension.ParameterContext;
 import org.junit.jupiter.api.extension.ParameterResolver;
+import org.junit.jupiter.api.extension.ReflectiveInvocationContext;
 import org.junit.jupiter.api.extension.TestInstancePostProcessor;
 import org.junit.platform.commons.annotation.Testable;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Executable;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Parameter;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import cn.taketoday.beans.ArgumentsResolver;
 import cn.taketoday.context.ApplicationContext;
@@ -56,10 +63,15 @@ import cn.taketoday.core.annotation.RepeatableContainers;
 import cn.taketoday.lang.Assert;
 import cn.taketoday.lang.Autowired;
 import cn.taketoday.lang.Nullable;
+import cn.taketoday.test.annotation.RepetitionStatistics;
+import cn.taketoday.test.annotation.TestAnnotationUtils;
 import cn.taketoday.test.context.TestConstructor;
+import cn.taketoday.test.context.TestContext;
 import cn.taketoday.test.context.TestContextManager;
 import cn.taketoday.test.context.event.ApplicationEvents;
 import cn.taketoday.test.context.junit.jupiter.web.TodayJUnitWebConfig;
+import cn.taketoday.test.context.selection.TestSelectionUtils;
+import cn.taketoday.test.context.support.DefaultTestContext;
 import cn.taketoday.test.context.support.PropertyProvider;
 import cn.taketoday.test.context.support.TestConstructorUtils;
 import cn.taketoday.util.ReflectionUtils;
@@ -73,6 +85,16 @@ import cn.taketoday.util.ReflectionUtils.MethodFilter;
  * {@code @ExtendWith(TodayExtension.class)}, {@code @TodayJUnitConfig}, or
  * {@code @TodayJUnitWebConfig}.
  *
+ * <p>Test methods annotated with {@link cn.taketoday.test.annotation.Repeat @Repeat}
+ * or {@link cn.taketoday.test.annotation.Timed @Timed} are repeated and timed
+ * within a single Jupiter test invocation; see
+ * {@link #interceptTestMethod(Invocation, ReflectiveInvocationContext, ExtensionContext)}.
+ *
+ * <p>If {@linkplain TestSelectionUtils#isEnabled() incremental test selection}
+ * is enabled, test classes whose recorded inputs are unchanged since their
+ * last successful run are disabled; see
+ * {@link #evaluateExecutionCondition(ExtensionContext)}.
+ *
  * @author Sam Brannen
  * @see cn.taketoday.test.context.junit.jupiter.EnabledIf
  * @see cn.taketoday.test.context.junit.jupiter.DisabledIf
@@ -82,7 +104,8 @@ import cn.taketoday.util.ReflectionUtils.MethodFilter;
  */
 public class TodayExtension
         implements BeforeAllCallback, AfterAllCallback, TestInstancePostProcessor, BeforeEachCallback,
-                   AfterEachCallback, BeforeTestExecutionCallback, AfterTestExecutionCallback, ParameterResolver {
+                   AfterEachCallback, BeforeTestExecutionCallback, AfterTestExecutionCallback, ParameterResolver,
+                   InvocationInterceptor, ExecutionCondition {
 
   /**
    * {@link Namespace} in which {@code TestContextManagers} are stored, keyed
@@ -109,6 +132,31 @@ public class TodayExtension
                   .and(method -> !Modifier.isPrivate(method.getModifiers()))
                   .and(TodayExtension::isAutowiredTestOrLifecycleMethod);
 
+  /**
+   * Disables a test class if {@linkplain TestSelectionUtils#isEnabled()
+   * incremental test selection} is enabled and the class
+   * {@linkplain TestSelectionUtils#isUnchanged is unchanged} since its last
+   * successful run. Test methods are always enabled by this condition.
+   *
+   * @since 4.0
+   */
+  @Override
+  public ConditionEvaluationResult evaluateExecutionCondition(ExtensionContext context) {
+    if (context.getTestMethod().isPresent() || context.getTestClass().isEmpty()
+            || !TestSelectionUtils.isEnabled()) {
+      return ConditionEvaluationResult.enabled("Incremental test selection does not apply");
+    }
+    TestContext testContext = getTestContextManager(context).getTestContext();
+    if (testContext instanceof DefaultTestContext defaultTestContext
+            && TestSelectionUtils.isUnchanged(testContext.getTestClass(), defaultTestContext.getMergedContextConfiguration())) {
+      // JUnit does not invoke afterAll() for a disabled class, so release the manager here
+      getStore(context).remove(context.getRequiredTestClass());
+      return ConditionEvaluationResult.disabled(
+              "Skipped by incremental test selection: inputs unchanged since last successful run");
+    }
+    return ConditionEvaluationResult.enabled("Inputs of test class changed since last successful run");
+  }
+
   /**
    * Delegates to {@link TestContextManager#beforeTestClass}.
    */
@@ -118,12 +166,13 @@ public class TodayExtension
   }
 
   /**
-   * Delegates to {@link TestContextManager#afterTestClass}.
+   * Delegates to {@link TestContextManager#afterTestClass(Throwable)}, reporting
+   * the failure of a class-level callback such as an {@code @AfterAll} method.
    */
   @Override
   public void afterAll(ExtensionContext context) throws Exception {
     try {
-      getTestContextManager(context).afterTestClass();
+      getTestContextManager(context).afterTestClass(context.getExecutionException().orElse(null));
     }
     finally {
       getStore(context).remove(context.getRequiredTestClass());
@@ -187,6 +236,80 @@ public class TodayExtension
     getTestContextManager(context).beforeTestExecution(testInstance, testMethod);
   }
 
+  /**
+   * Adds support for {@link cn.taketoday.test.annotation.Repeat @Repeat} and
+   * {@link cn.taketoday.test.annotation.Timed @Timed}.
+   * <p>The configured warmup iterations and repetitions of the test method
+   * are executed within this single invocation, i.e. {@code @BeforeEach} and
+   * {@code @AfterEach} methods run once. Each repetition is timed via
+   * {@link System#nanoTime()}, and the resulting {@link RepetitionStatistics}
+   * are reported and checked against the {@code @Timed} budget &mdash; either
+   * the configured percentile of the repetitions or the total time including
+   * warmup.
+   */
+  @Override
+  public void interceptTestMethod(Invocation<Void> invocation,
+          ReflectiveInvocationContext<Method> invocationContext, ExtensionContext context) throws Throwable {
+
+    Method testMethod = invocationContext.getExecutable();
+    long timeout = TestAnnotationUtils.getTimeout(testMethod);
+    if (timeout == 0 && !RepetitionStatistics.isBenchmark(testMethod)) {
+      invocation.proceed();
+      return;
+    }
+
+    Object testInstance = invocationContext.getTarget().orElse(null);
+    Object[] arguments = invocationContext.getArguments().toArray();
+    ReflectionUtils.makeAccessible(testMethod);
+
+    long startTime = System.nanoTime();
+    int warmup = TestAnnotationUtils.getWarmupCount(testMethod);
+    for (int i = 0; i < warmup; i++) {
+      invokeTestMethod(testMethod, testInstance, arguments);
+    }
+
+    // the last repetition proceeds with the original invocation
+    int repeat = TestAnnotationUtils.getRepeatCount(testMethod);
+    long[] samples = new long[repeat];
+    for (int i = 0; i < repeat; i++) {
+      long start = System.nanoTime();
+      if (i < repeat - 1) {
+        invokeTestMethod(testMethod, testInstance, arguments);
+      }
+      else {
+        invocation.proceed();
+      }
+      samples[i] = System.nanoTime() - start;
+    }
+
+    RepetitionStatistics statistics = new RepetitionStatistics(testMethod, warmup, samples);
+    if (RepetitionStatistics.isBenchmark(testMethod)) {
+      statistics.report();
+    }
+    if (timeout > 0) {
+      double percentile = TestAnnotationUtils.getTimedPercentile(testMethod);
+      if (percentile > 0) {
+        statistics.assertWithinBudget(percentile, timeout);
+      }
+      else {
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        if (elapsed > timeout) {
+          throw new TimeoutException(String.format("Test took %s ms; limit was %s ms.", elapsed, timeout));
+        }
+      }
+    }
+  }
+
+  private static void invokeTestMethod(Method testMethod, @Nullable Object testInstance, Object[] arguments)
+          throws Throwable {
+    try {
+      testMethod.invoke(testInstance, arguments);
+    }
+    catch (InvocationTargetException ex) {
+      throw ex.getTargetException();
+    }
+  }
+
   /**
    * Delegates to {@link TestContextManager#afterTestExecution}.
    */
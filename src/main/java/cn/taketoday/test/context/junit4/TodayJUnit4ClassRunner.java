@@ -113,7 +113,8 @@ public class TodayJUnit4ClassRunner extends BlockJUnit4ClassRunner {
     withRulesMethod = method;
   }
 
-  private final TestContextManager testContextManager;
+  @Nullable
+  private volatile TestContextManager testContextManager;
 
   private static void ensureSpringRulesAreNotPresent(Class<?> testClass) {
     for (Field field : testClass.getFields()) {
@@ -127,9 +128,13 @@ public class TodayJUnit4ClassRunner extends BlockJUnit4ClassRunner {
   }
 
   /**
-   * Construct a new {@code TodayJUnit4ClassRunner} and initialize a
-   * {@link TestContextManager} to provide Today testing functionality to
-   * standard JUnit tests.
+   * Construct a new {@code TodayJUnit4ClassRunner} for the supplied test
+   * class. The {@link TestContextManager} that provides Today testing
+   * functionality to standard JUnit tests is created on first use, so a
+   * class that {@link #run(RunNotifier)} finds disabled via
+   * {@code @IfProfileValue} never bootstraps the TestContext framework.
+   * <p>The class-level {@code @IfProfileValue} condition is evaluated when
+   * the runner is run, not when it is constructed.
    *
    * @param clazz the test class to be run
    * @see #createTestContextManager(Class)
@@ -137,25 +142,37 @@ public class TodayJUnit4ClassRunner extends BlockJUnit4ClassRunner {
   public TodayJUnit4ClassRunner(Class<?> clazz) throws InitializationError {
     super(clazz);
     ensureTodayRulesAreNotPresent(clazz);
-    this.testContextManager = createTestContextManager(clazz);
     logger.debug("TodayJUnit4ClassRunner constructor called with [{}]", clazz);
   }
 
   /**
    * Create a new {@link TestContextManager} for the supplied test class.
-   * <p>Can be overridden by subclasses.
+   * <p>The default implementation copies the class-level template obtained via
+   * {@link TestContextManager#forTestClass(Class)}, so that runners created
+   * repeatedly for the same class, e.g. by parameterized runners, bootstrap
+   * the class only once. Can be overridden by subclasses.
    *
    * @param clazz the test class to be managed
    */
   protected TestContextManager createTestContextManager(Class<?> clazz) {
-    return new TestContextManager(clazz);
+    return TestContextManager.forTestClass(clazz);
   }
 
   /**
    * Get the {@link TestContextManager} associated with this runner.
    */
   protected final TestContextManager getTestContextManager() {
-    return this.testContextManager;
+    TestContextManager testContextManager = this.testContextManager;
+    if (testContextManager == null) {
+      synchronized(this) {
+        testContextManager = this.testContextManager;
+        if (testContextManager == null) {
+          testContextManager = createTestContextManager(getTestClass().getJavaClass());
+          this.testContextManager = testContextManager;
+        }
+      }
+    }
+    return testContextManager;
   }
 
   /**
@@ -391,7 +408,7 @@ public class TodayJUnit4ClassRunner extends BlockJUnit4ClassRunner {
       throw new IllegalStateException(msg);
     }
     else if (springTimeout > 0) {
-      statement = new TodayFailOnTimeout(next, springTimeout);
+      statement = new TodayFailOnTimeout(next, frameworkMethod.getMethod());
     }
     else if (junitTimeout > 0) {
       statement = FailOnTimeout.builder().withTimeout(junitTimeout, TimeUnit.MILLISECONDS).build(next);
@@ -178,7 +178,7 @@ public class TodayClassRule implements TestRule {
    */
   static TestContextManager getTestContextManager(Class<?> testClass) {
     Assert.notNull(testClass, "Test Class must not be null");
-    return testContextManagerCache.computeIfAbsent(testClass, TestContextManager::new);
+    return testContextManagerCache.computeIfAbsent(testClass, TestContextManager::forTestClass);
   }
 
   private static class TestContextManagerCacheEvictor extends Statement {
@@ -64,6 +64,8 @@ public class RunAfterTestClassCallbacks extends Statement {
    * exceptions thrown, and then invoke {@link TestContextManager#afterTestClass()}.
    * <p>If the invocation of {@code afterTestClass()} throws an exception, it will also
    * be tracked. Multiple exceptions will be combined into a {@link MultipleFailureException}.
+   * An exception thrown by the next statement is
+   * {@linkplain TestContextManager#afterTestClass(Throwable) reported} to the listeners.
    */
   @Override
   public void evaluate() throws Throwable {
@@ -76,7 +78,7 @@ public class RunAfterTestClassCallbacks extends Statement {
     }
 
     try {
-      this.testContextManager.afterTestClass();
+      this.testContextManager.afterTestClass(errors.isEmpty() ? null : errors.get(0));
     }
     catch (Throwable ex) {
       errors.add(ex);
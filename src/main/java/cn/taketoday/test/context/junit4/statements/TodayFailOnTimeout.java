@@ -23,6 +23,7 @@ package cn.taketoday.test.context.junit4.statements;
 import org.junit.runners.model.Statement;
 
 import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 import cn.taketoday.lang.Assert;
@@ -39,6 +40,10 @@ import cn.taketoday.test.annotation.TestAnnotationUtils;
  * the next {@code statement} will be executed in the same thread as the
  * caller and will therefore not be aborted preemptively.
  *
+ * <p>If a {@linkplain cn.taketoday.test.annotation.Timed#percentile() percentile}
+ * is configured, the budget applies to the individual repetitions and is
+ * enforced by {@link TodayRepeat} instead.
+ *
  * @author Sam Brannen
  * @see #evaluate()
  */
@@ -52,13 +57,16 @@ public class TodayFailOnTimeout extends Statement {
    * Construct a new {@code TodayFailOnTimeout} statement for the supplied
    * {@code testMethod}, retrieving the configured timeout from the
    * {@code @Timed} annotation on the supplied method.
+   * <p>If {@code @Timed} declares a percentile, the execution of the
+   * {@code next} statement will not be timed.
    *
    * @param next the next {@code Statement} in the execution chain
    * @param testMethod the current test method
    * @see TestAnnotationUtils#getTimeout(Method)
    */
   public TodayFailOnTimeout(Statement next, Method testMethod) {
-    this(next, TestAnnotationUtils.getTimeout(testMethod));
+    this(next, TestAnnotationUtils.getTimedPercentile(testMethod) > 0
+               ? 0 : TestAnnotationUtils.getTimeout(testMethod));
   }
 
   /**
@@ -90,9 +98,9 @@ public class TodayFailOnTimeout extends Statement {
       this.next.evaluate();
     }
     else {
-      long startTime = System.currentTimeMillis();
+      long startTime = System.nanoTime();
       this.next.evaluate();
-      long elapsed = System.currentTimeMillis() - startTime;
+      long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
       if (elapsed > this.timeout) {
         throw new TimeoutException(
                 String.format("Test took %s ms; limit was %s ms.", elapsed, this.timeout));
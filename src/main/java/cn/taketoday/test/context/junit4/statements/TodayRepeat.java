@@ -26,6 +26,7 @@ import java.lang.reflect.Method;
 
 import cn.taketoday.logging.Logger;
 import cn.taketoday.logging.LoggerFactory;
+import cn.taketoday.test.annotation.RepetitionStatistics;
 import cn.taketoday.test.annotation.TestAnnotationUtils;
 
 /**
@@ -33,6 +34,12 @@ import cn.taketoday.test.annotation.TestAnnotationUtils;
  * for {@link cn.taketoday.test.annotation.Repeat @Repeat}
  * annotation by repeating the test the specified number of times.
  *
+ * <p>Each repetition is timed via {@link System#nanoTime()}, after running
+ * the configured {@linkplain cn.taketoday.test.annotation.Repeat#warmup() warmup}
+ * iterations. The collected {@link RepetitionStatistics} are reported and, if
+ * {@link cn.taketoday.test.annotation.Timed#percentile() @Timed(percentile=...)}
+ * is configured, checked against the percentile budget.
+ *
  * @author Sam Brannen
  * @see #evaluate()
  */
@@ -46,6 +53,8 @@ public class TodayRepeat extends Statement {
 
   private final int repeat;
 
+  private final int warmup;
+
   /**
    * Construct a new {@code TodayRepeat} statement for the supplied
    * {@code testMethod}, retrieving the configured repeat count from the
@@ -71,21 +80,43 @@ public class TodayRepeat extends Statement {
     this.next = next;
     this.testMethod = testMethod;
     this.repeat = Math.max(1, repeat);
+    this.warmup = TestAnnotationUtils.getWarmupCount(testMethod);
   }
 
   /**
    * Evaluate the next {@link Statement statement} in the execution chain
-   * repeatedly, using the specified repeat count.
+   * repeatedly, using the specified warmup and repeat counts.
    */
   @Override
   public void evaluate() throws Throwable {
+    for (int i = 0; i < this.warmup; i++) {
+      if (logger.isDebugEnabled()) {
+        logger.debug(String.format(
+                "Warmup %d of test %s#%s()", (i + 1),
+                this.testMethod.getDeclaringClass().getSimpleName(), this.testMethod.getName()));
+      }
+      this.next.evaluate();
+    }
+
+    long[] samples = new long[this.repeat];
     for (int i = 0; i < this.repeat; i++) {
-      if (this.repeat > 1 && logger.isInfoEnabled()) {
-        logger.info(String.format(
+      if (this.repeat > 1 && logger.isDebugEnabled()) {
+        logger.debug(String.format(
                 "Repetition %d of test %s#%s()", (i + 1),
                 this.testMethod.getDeclaringClass().getSimpleName(), this.testMethod.getName()));
       }
+      long start = System.nanoTime();
       this.next.evaluate();
+      samples[i] = System.nanoTime() - start;
+    }
+
+    if (this.repeat > 1 || this.warmup > 0 || RepetitionStatistics.isBenchmark(this.testMethod)) {
+      RepetitionStatistics statistics = new RepetitionStatistics(this.testMethod, this.warmup, samples);
+      statistics.report();
+      double percentile = TestAnnotationUtils.getTimedPercentile(this.testMethod);
+      if (percentile > 0) {
+        statistics.assertWithinBudget(percentile, TestAnnotationUtils.getTimeout(this.testMethod));
+      }
     }
   }
 
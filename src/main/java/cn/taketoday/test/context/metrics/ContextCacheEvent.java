@@ -0,0 +1,49 @@
+/*
+ * Original Author -> Harry Yang (taketoday@foxmail.com) https://taketoday.cn
+ * Copyright © TODAY & 2017 - 2021 All Rights Reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.test.context.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder event for a {@link TestContextMetrics.CacheEvent}.
+ *
+ * @author TODAY
+ * @since 4.0
+ */
+@Name("cn.taketoday.test.context.CacheEvent")
+@Label("Test Context Cache Event")
+@Description("A hit, miss or eviction in the test ApplicationContext cache")
+@Category({ "TODAY", "Test" })
+@StackTrace(false)
+class ContextCacheEvent extends Event {
+
+  @Label("Event")
+  String event;
+
+  @Label("Test Class")
+  String testClass;
+
+}
@@ -0,0 +1,259 @@
+/*
+ * Original Author -> Harry Yang (taketoday@foxmail.com) https://taketoday.cn
+ * Copyright © TODAY & 2017 - 2021 All Rights Reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.test.context.metrics;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import cn.taketoday.lang.Assert;
+import cn.taketoday.test.context.MergedContextConfiguration;
+
+/**
+ * Default, in-memory implementation of the {@link TestContextMetrics} SPI.
+ *
+ * <p>Aggregates count, total and maximum duration per {@link Phase} and
+ * subject, counts context cache events, and additionally emits
+ * {@linkplain jdk.jfr.Event JFR events} for each sample while a flight
+ * recording is active.
+ *
+ * <p>The recorded data can be exported via {@link #writeJson(Appendable)}
+ * and summarized via {@link #getReport(int)}.
+ *
+ * @author TODAY
+ * @since 4.0
+ */
+public class DefaultTestContextMetrics implements TestContextMetrics {
+
+  private final Map<PhaseKey, Statistics> statistics = new ConcurrentHashMap<>(64);
+
+  private final Map<CacheEvent, LongAdder> cacheEvents = new EnumMap<>(CacheEvent.class);
+
+  public DefaultTestContextMetrics() {
+    for (CacheEvent event : CacheEvent.values()) {
+      this.cacheEvents.put(event, new LongAdder());
+    }
+  }
+
+  @Override
+  public Sample start(Phase phase, String subject) {
+    Assert.notNull(phase, "Phase must not be null");
+    Assert.notNull(subject, "Subject must not be null");
+    return new PhaseSample(phase, subject);
+  }
+
+  @Override
+  public void recordCacheEvent(CacheEvent event, MergedContextConfiguration key) {
+    this.cacheEvents.get(event).increment();
+
+    ContextCacheEvent jfrEvent = new ContextCacheEvent();
+    if (jfrEvent.shouldCommit()) {
+      jfrEvent.event = event.name();
+      jfrEvent.testClass = key.getTestClass().getName();
+      jfrEvent.commit();
+    }
+  }
+
+  /**
+   * Get the number of recorded cache events of the supplied type.
+   */
+  public long getCacheEventCount(CacheEvent event) {
+    return this.cacheEvents.get(event).sum();
+  }
+
+  /**
+   * Get a snapshot of the statistics recorded for the supplied phase,
+   * sorted by total duration in descending order.
+   */
+  public List<Entry> getEntries(Phase phase) {
+    List<Entry> entries = new ArrayList<>();
+    for (Map.Entry<PhaseKey, Statistics> entry : this.statistics.entrySet()) {
+      if (entry.getKey().phase == phase) {
+        entries.add(entry.getValue().toEntry(entry.getKey()));
+      }
+    }
+    entries.sort(Comparator.comparingLong(Entry::totalNanos).reversed());
+    return entries;
+  }
+
+  /**
+   * Clear all recorded statistics.
+   */
+  public void reset() {
+    this.statistics.clear();
+    for (LongAdder adder : this.cacheEvents.values()) {
+      adder.reset();
+    }
+  }
+
+  /**
+   * Build a human-readable report of the total time per phase and the
+   * {@code topN} slowest contexts and listeners.
+   */
+  public String getReport(int topN) {
+    StringBuilder report = new StringBuilder("TestContext metrics report");
+    report.append("\n  Phases (count / total ms):");
+    for (Phase phase : Phase.values()) {
+      long count = 0;
+      long total = 0;
+      for (Entry entry : getEntries(phase)) {
+        count += entry.count();
+        total += entry.totalNanos();
+      }
+      report.append(String.format("%n    %-20s %8d / %10.1f", phase, count, toMillis(total)));
+    }
+    report.append(String.format("%n  Context cache: hits=%d, misses=%d, evictions=%d",
+            getCacheEventCount(CacheEvent.HIT), getCacheEventCount(CacheEvent.MISS),
+            getCacheEventCount(CacheEvent.EVICTION)));
+    appendTopN(report, "slowest contexts", getEntries(Phase.CONTEXT_LOAD), topN);
+    appendTopN(report, "slowest listeners", getEntries(Phase.LISTENER), topN);
+    return report.toString();
+  }
+
+  private static void appendTopN(StringBuilder report, String title, List<Entry> entries, int topN) {
+    report.append("\n  Top ").append(topN).append(' ').append(title).append(" (total ms / max ms / count):");
+    for (int i = 0; i < Math.min(topN, entries.size()); i++) {
+      Entry entry = entries.get(i);
+      report.append(String.format("%n    %10.1f %10.1f %6d  %s",
+              toMillis(entry.totalNanos()), toMillis(entry.maxNanos()), entry.count(), entry.subject()));
+    }
+  }
+
+  /**
+   * Write all recorded statistics as a JSON document to the supplied target.
+   */
+  public void writeJson(Appendable out) throws IOException {
+    out.append("{\n  \"phases\": [");
+    boolean first = true;
+    for (Phase phase : Phase.values()) {
+      for (Entry entry : getEntries(phase)) {
+        out.append(first ? "\n" : ",\n");
+        first = false;
+        out.append("    {\"phase\": \"").append(phase.name())
+                .append("\", \"subject\": \"").append(escape(entry.subject()))
+                .append("\", \"count\": ").append(Long.toString(entry.count()))
+                .append(", \"totalNanos\": ").append(Long.toString(entry.totalNanos()))
+                .append(", \"maxNanos\": ").append(Long.toString(entry.maxNanos()))
+                .append('}');
+      }
+    }
+    out.append("\n  ],\n  \"cache\": {");
+    first = true;
+    for (CacheEvent event : CacheEvent.values()) {
+      out.append(first ? "" : ", ");
+      first = false;
+      out.append('"').append(event.name().toLowerCase()).append("\": ")
+              .append(Long.toString(getCacheEventCount(event)));
+    }
+    out.append("}\n}\n");
+  }
+
+  private static String escape(String value) {
+    StringBuilder builder = new StringBuilder(value.length());
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '"' -> builder.append("\\\"");
+        case '\\' -> builder.append("\\\\");
+        default -> {
+          if (c < 0x20) {
+            builder.append(String.format("\\u%04x", (int) c));
+          }
+          else {
+            builder.append(c);
+          }
+        }
+      }
+    }
+    return builder.toString();
+  }
+
+  private static double toMillis(long nanos) {
+    return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+  }
+
+  /**
+   * Immutable snapshot of the statistics for a phase and subject.
+   */
+  public record Entry(Phase phase, String subject, long count, long totalNanos, long maxNanos) {
+  }
+
+  private record PhaseKey(Phase phase, String subject) {
+  }
+
+  private static final class Statistics {
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder totalNanos = new LongAdder();
+
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    void record(long nanos) {
+      this.count.increment();
+      this.totalNanos.add(nanos);
+      this.maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    Entry toEntry(PhaseKey key) {
+      return new Entry(key.phase, key.subject, this.count.sum(), this.totalNanos.sum(), this.maxNanos.get());
+    }
+  }
+
+  private final class PhaseSample implements Sample {
+
+    private final Phase phase;
+
+    private final String subject;
+
+    private final TestPhaseEvent event = new TestPhaseEvent();
+
+    private final long startNanos;
+
+    PhaseSample(Phase phase, String subject) {
+      this.phase = phase;
+      this.subject = subject;
+      this.event.begin();
+      this.startNanos = System.nanoTime();
+    }
+
+    @Override
+    public void stop() {
+      long elapsed = System.nanoTime() - this.startNanos;
+      statistics.computeIfAbsent(new PhaseKey(this.phase, this.subject), key -> new Statistics()).record(elapsed);
+
+      this.event.end();
+      if (this.event.shouldCommit()) {
+        this.event.phase = this.phase.name();
+        this.event.subject = this.subject;
+        this.event.commit();
+      }
+    }
+  }
+
+}
@@ -0,0 +1,215 @@
+/*
+ * Original Author -> Harry Yang (taketoday@foxmail.com) https://taketoday.cn
+ * Copyright © TODAY & 2017 - 2021 All Rights Reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.test.context.metrics;
+
+import cn.taketoday.test.context.MergedContextConfiguration;
+import cn.taketoday.test.context.TestExecutionListener;
+
+/**
+ * {@code TestContextMetrics} defines the SPI for recording durations and
+ * counts of the phases of the <em>TestContext Framework</em>: bootstrapping,
+ * building the {@link MergedContextConfiguration}, loading and refreshing
+ * application contexts, closing evicted or dirtied contexts,
+ * {@link TestExecutionListener} callbacks, and
+ * context cache hits, misses and evictions.
+ *
+ * <p>Timings are taken via {@link #start(Phase, String)} and finished via
+ * {@link Sample#stop()}. When metrics are disabled, {@link #NONE} is used
+ * and each sample is a shared no-op instance, so instrumented code paths
+ * do not allocate; use {@link #startListener} for listener callbacks, so that
+ * their subject is only built if metrics are enabled.
+ *
+ * <p>The active instance is obtained via {@link TestContextMetricsUtils#getMetrics()}.
+ *
+ * @author TODAY
+ * @see TestContextMetricsUtils
+ * @see DefaultTestContextMetrics
+ * @since 4.0
+ */
+public interface TestContextMetrics {
+
+  /**
+   * The name of the logging category used for reporting metrics.
+   */
+  String METRICS_LOGGING_CATEGORY = "cn.taketoday.test.context.metrics";
+
+  /**
+   * System property used to enable recording of metrics: {@value}.
+   * May alternatively be configured via the
+   * {@link cn.taketoday.lang.TodayStrategies} mechanism.
+   */
+  String METRICS_ENABLED_PROPERTY_NAME = "today.test.context.metrics.enabled";
+
+  /**
+   * System property used to configure the file the end-of-run report is
+   * written to as JSON: {@value}.
+   */
+  String METRICS_REPORT_FILE_PROPERTY_NAME = "today.test.context.metrics.file";
+
+  /**
+   * System property used to configure the number of slowest contexts and
+   * listeners included in the end-of-run report: {@value}.
+   *
+   * @see #DEFAULT_REPORT_TOP_N
+   */
+  String METRICS_REPORT_TOP_N_PROPERTY_NAME = "today.test.context.metrics.topN";
+
+  /**
+   * The default number of entries per section in the end-of-run report: {@value}.
+   */
+  int DEFAULT_REPORT_TOP_N = 10;
+
+  /**
+   * A {@code TestContextMetrics} that records nothing.
+   */
+  TestContextMetrics NONE = new TestContextMetrics() {
+
+    @Override
+    public Sample start(Phase phase, String subject) {
+      return Sample.NONE;
+    }
+
+    @Override
+    public Sample startListener(TestExecutionListener listener, String callbackName) {
+      return Sample.NONE;
+    }
+
+    @Override
+    public void recordCacheEvent(CacheEvent event, MergedContextConfiguration key) {
+      // no-op
+    }
+  };
+
+  /**
+   * Start timing the supplied {@link Phase}.
+   *
+   * @param phase the phase to time
+   * @param subject what the phase applies to, e.g. the test class name
+   * or the listener and callback name
+   * @return the running sample; never {@code null}
+   */
+  Sample start(Phase phase, String subject);
+
+  /**
+   * Start timing a single {@link TestExecutionListener} callback.
+   * <p>The default implementation delegates to {@link #start(Phase, String)}
+   * with the {@linkplain #listenerSubject listener subject}.
+   *
+   * @param listener the listener being invoked
+   * @param callbackName the name of the invoked callback
+   * @return the running sample; never {@code null}
+   */
+  default Sample startListener(TestExecutionListener listener, String callbackName) {
+    return start(Phase.LISTENER, listenerSubject(listener, callbackName));
+  }
+
+  /**
+   * Record a context cache event for the supplied key.
+   */
+  void recordCacheEvent(CacheEvent event, MergedContextConfiguration key);
+
+  /**
+   * The subject used for a {@link TestExecutionListener} callback.
+   */
+  static String listenerSubject(TestExecutionListener listener, String callbackName) {
+    return listener.getClass().getName() + '#' + callbackName;
+  }
+
+  /**
+   * The subject used for the phases of loading an application context.
+   */
+  static String contextSubject(MergedContextConfiguration mergedConfig) {
+    return mergedConfig.getTestClass().getName();
+  }
+
+  /**
+   * A running timing of a single {@link Phase}.
+   */
+  interface Sample {
+
+    /**
+     * A {@code Sample} that records nothing.
+     */
+    Sample NONE = () -> { };
+
+    /**
+     * Stop timing and record the elapsed time.
+     */
+    void stop();
+  }
+
+  /**
+   * The timed phases of the <em>TestContext Framework</em>.
+   */
+  enum Phase {
+
+    /**
+     * Building the {@code TestContext} and resolving the listeners.
+     */
+    BOOTSTRAP,
+
+    /**
+     * Building the {@link MergedContextConfiguration}.
+     */
+    MERGED_CONFIG,
+
+    /**
+     * Loading an application context on a cache miss, including all
+     * loader phases below.
+     */
+    CONTEXT_LOAD,
+
+    /**
+     * Loading bean definitions into a new context.
+     */
+    BEAN_DEFINITIONS,
+
+    /**
+     * Applying the {@link cn.taketoday.test.context.ContextCustomizer ContextCustomizers}
+     * created by {@link cn.taketoday.test.context.ContextCustomizerFactory ContextCustomizerFactories}.
+     */
+    CONTEXT_CUSTOMIZERS,
+
+    /**
+     * Refreshing a new context.
+     */
+    REFRESH,
+
+    /**
+     * Closing a context that has been removed from the context cache.
+     */
+    CONTEXT_CLOSE,
+
+    /**
+     * A single {@link TestExecutionListener} callback.
+     */
+    LISTENER
+  }
+
+  /**
+   * Context cache events.
+   */
+  enum CacheEvent {
+
+    HIT, MISS, EVICTION
+  }
+
+}
@@ -0,0 +1,124 @@
+/*
+ * Original Author -> Harry Yang (taketoday@foxmail.com) https://taketoday.cn
+ * Copyright © TODAY & 2017 - 2021 All Rights Reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.test.context.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import cn.taketoday.lang.Nullable;
+import cn.taketoday.lang.TodayStrategies;
+import cn.taketoday.logging.Logger;
+import cn.taketoday.logging.LoggerFactory;
+import cn.taketoday.util.StringUtils;
+
+/**
+ * Collection of utilities for working with {@link TestContextMetrics}.
+ *
+ * <p>Metrics are disabled by default. Setting the
+ * {@value TestContextMetrics#METRICS_ENABLED_PROPERTY_NAME} property to
+ * {@code true} switches to a shared {@link DefaultTestContextMetrics}
+ * instance and registers a single JVM shutdown hook which logs the
+ * end-of-run report and, if {@value TestContextMetrics#METRICS_REPORT_FILE_PROPERTY_NAME}
+ * is set, writes the recorded metrics to that file as JSON.
+ *
+ * @author TODAY
+ * @since 4.0
+ */
+public abstract class TestContextMetricsUtils {
+
+  private static final Logger logger = LoggerFactory.getLogger(TestContextMetrics.METRICS_LOGGING_CATEGORY);
+
+  @Nullable
+  private static volatile TestContextMetrics metrics;
+
+  /**
+   * Get the {@link TestContextMetrics} for the current JVM.
+   * <p>Returns {@link TestContextMetrics#NONE} unless metrics have been
+   * enabled via the {@value TestContextMetrics#METRICS_ENABLED_PROPERTY_NAME}
+   * property.
+   */
+  public static TestContextMetrics getMetrics() {
+    TestContextMetrics metrics = TestContextMetricsUtils.metrics;
+    if (metrics == null) {
+      synchronized(TestContextMetricsUtils.class) {
+        metrics = TestContextMetricsUtils.metrics;
+        if (metrics == null) {
+          metrics = createMetrics();
+          TestContextMetricsUtils.metrics = metrics;
+        }
+      }
+    }
+    return metrics;
+  }
+
+  private static TestContextMetrics createMetrics() {
+    if (!Boolean.parseBoolean(TodayStrategies.getProperty(TestContextMetrics.METRICS_ENABLED_PROPERTY_NAME))) {
+      return TestContextMetrics.NONE;
+    }
+    DefaultTestContextMetrics metrics = new DefaultTestContextMetrics();
+    Runtime.getRuntime().addShutdownHook(
+            new Thread(() -> report(metrics), "TestContextMetrics-report"));
+    return metrics;
+  }
+
+  /**
+   * Log the end-of-run report and write the JSON export, if configured.
+   */
+  static void report(DefaultTestContextMetrics metrics) {
+    if (logger.isInfoEnabled()) {
+      logger.info(metrics.getReport(retrieveReportTopN()));
+    }
+    String file = TodayStrategies.getProperty(TestContextMetrics.METRICS_REPORT_FILE_PROPERTY_NAME);
+    if (StringUtils.hasText(file)) {
+      Path path = Path.of(file.trim());
+      try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+        metrics.writeJson(writer);
+      }
+      catch (IOException ex) {
+        logger.warn("Failed to write TestContext metrics to [{}]", path, ex);
+      }
+    }
+  }
+
+  /**
+   * Retrieve the number of entries per section of the end-of-run report.
+   * <p>Falls back to {@link TestContextMetrics#DEFAULT_REPORT_TOP_N} if no
+   * such property has been set or if the property is not an integer.
+   */
+  static int retrieveReportTopN() {
+    try {
+      String topN = TodayStrategies.getProperty(TestContextMetrics.METRICS_REPORT_TOP_N_PROPERTY_NAME);
+      if (StringUtils.hasText(topN)) {
+        return Integer.parseInt(topN.trim());
+      }
+    }
+    catch (Exception ex) {
+      // ignore
+    }
+
+    // Fallback
+    return TestContextMetrics.DEFAULT_REPORT_TOP_N;
+  }
+
+}
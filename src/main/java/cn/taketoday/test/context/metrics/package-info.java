@@ -0,0 +1,9 @@
+/**
+ * Timing and cache metrics for the <em>TestContext Framework</em>.
+ */
+@NonNullApi
+@NonNullFields
+package cn.taketoday.test.context.metrics;
+
+import cn.taketoday.lang.NonNullApi;
+import cn.taketoday.lang.NonNullFields;
@@ -0,0 +1,443 @@
+/*
+ * Original Author -> Harry Yang (taketoday@foxmail.com) https://taketoday.cn
+ * Copyright © TODAY & 2017 - 2021 All Rights Reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.test.context.selection;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import cn.taketoday.core.io.DefaultResourceLoader;
+import cn.taketoday.core.io.Resource;
+import cn.taketoday.lang.Nullable;
+
+/**
+ * Collects and hashes the inputs of a test class: the class files it
+ * statically depends on, the jars those dependencies are loaded from, the
+ * resources its context is configured with, default resources such as
+ * {@code application.properties} that are loaded without being configured,
+ * {@code META-INF/services} files together with the classes they name, and
+ * the listings of the directories its configuration classes are scanned from.
+ *
+ * <p>Inputs are identified by a key with a kind prefix, e.g.
+ * {@code "c:com.example.FooTests"}. Class dependencies are found by reading
+ * the constant pools of class files loaded from directories, transitively;
+ * classes loaded from jars are covered by the jar instead. Default resources
+ * are recorded in every classpath directory, whether they exist or not, so
+ * that creating one is detected as well. Hashes and constant pools are
+ * computed once per JVM, since inputs do not change while tests run.
+ *
+ * <p>Not detected are classes loaded by a name that is computed at runtime
+ * rather than referenced in a class file or service file, resources loaded
+ * from locations other than the configured and default ones, service files
+ * in jars that do not list a {@code META-INF/services} directory entry, and
+ * state outside the classpath such as system properties, environment
+ * variables, files and databases.
+ *
+ * @author TODAY
+ * @since 4.0
+ */
+final class TestInputs {
+
+  static final String CLASS = "c:";
+
+  static final String JAR = "j:";
+
+  static final String RESOURCE = "r:";
+
+  static final String DIRECTORY = "d:";
+
+  /** Hash of an input that does not exist. */
+  static final long MISSING = -1L;
+
+  /** Directory of the provider configuration files read by {@link java.util.ServiceLoader}. */
+  static final String SERVICES_DIRECTORY = "META-INF/services";
+
+  /** Upper bound of class files visited per test class. */
+  private static final int MAX_CLASSES = 50_000;
+
+  private static final ConcurrentHashMap<String, Long> hashes = new ConcurrentHashMap<>();
+
+  private static final ConcurrentHashMap<String, Set<String>> references = new ConcurrentHashMap<>();
+
+  private TestInputs() {
+  }
+
+  /**
+   * Collect the input keys for the given root classes and resource locations.
+   *
+   * @param classLoader the class loader of the test class
+   * @param roots the classes to start the dependency search from
+   * @param resourceLocations the locations of configuration resources
+   * @param defaultResources the classpath names of resources loaded by default
+   * @param scannedClasses classes whose package directories are recorded
+   */
+  static Set<String> collect(ClassLoader classLoader, Collection<Class<?>> roots,
+          Collection<String> resourceLocations, Collection<String> defaultResources,
+          Collection<Class<?>> scannedClasses) {
+
+    Set<String> inputs = new LinkedHashSet<>();
+    Set<String> visited = new HashSet<>();
+    Deque<String> queue = new ArrayDeque<>();
+    for (Class<?> root : roots) {
+      queue.add(root.getName());
+    }
+    for (Path root : getClasspathDirectories(classLoader)) {
+      for (String name : defaultResources) {
+        inputs.add(RESOURCE + root.resolve(name).toUri());
+      }
+      Path services = root.resolve(SERVICES_DIRECTORY);
+      inputs.add(DIRECTORY + services);
+      if (Files.isDirectory(services)) {
+        try (Stream<Path> files = Files.list(services)) {
+          for (Path file : files.filter(Files::isRegularFile).sorted().toList()) {
+            inputs.add(RESOURCE + file.toUri());
+            queue.addAll(getProviderNames(file));
+          }
+        }
+        catch (IOException ex) {
+          // recorded by the directory listing
+        }
+      }
+    }
+    for (String name : defaultResources) {
+      addJars(classLoader, name, inputs);
+    }
+    addJars(classLoader, SERVICES_DIRECTORY, inputs);
+
+    while (!queue.isEmpty() && visited.size() < MAX_CLASSES) {
+      String className = queue.poll();
+      if (!visited.add(className) || isPlatformClass(className)) {
+        continue;
+      }
+      URL url = classLoader.getResource(toResourcePath(className));
+      if (url == null) {
+        continue;
+      }
+      if ("file".equals(url.getProtocol())) {
+        inputs.add(CLASS + className);
+        queue.addAll(getReferences(className, url));
+      }
+      else if ("jar".equals(url.getProtocol())) {
+        String jar = toJarPath(url);
+        if (jar != null) {
+          inputs.add(JAR + jar);
+        }
+      }
+    }
+
+    for (String location : resourceLocations) {
+      inputs.add(RESOURCE + location);
+    }
+    for (Class<?> scanned : scannedClasses) {
+      URL url = classLoader.getResource(toResourcePath(scanned.getName()));
+      if (url != null && "file".equals(url.getProtocol())) {
+        try {
+          inputs.add(DIRECTORY + Path.of(url.toURI()).getParent());
+        }
+        catch (URISyntaxException | IllegalArgumentException ex) {
+          // not a directory we can list
+        }
+      }
+    }
+    return inputs;
+  }
+
+  private static List<Path> getClasspathDirectories(ClassLoader classLoader) {
+    List<Path> directories = new ArrayList<>();
+    try {
+      for (URL url : Collections.list(classLoader.getResources(""))) {
+        if ("file".equals(url.getProtocol())) {
+          directories.add(Path.of(url.toURI()));
+        }
+      }
+    }
+    catch (IOException | URISyntaxException | IllegalArgumentException ex) {
+      // no directories we can list
+    }
+    return directories;
+  }
+
+  /**
+   * Record the jars that contain the given resource, since changes inside a
+   * jar are covered by its hash.
+   */
+  private static void addJars(ClassLoader classLoader, String name, Set<String> inputs) {
+    try {
+      for (URL url : Collections.list(classLoader.getResources(name))) {
+        if ("jar".equals(url.getProtocol())) {
+          String jar = toJarPath(url);
+          if (jar != null) {
+            inputs.add(JAR + jar);
+          }
+        }
+      }
+    }
+    catch (IOException ex) {
+      // not found
+    }
+  }
+
+  /**
+   * Read the provider class names of a {@code META-INF/services} file.
+   */
+  private static List<String> getProviderNames(Path file) throws IOException {
+    List<String> names = new ArrayList<>();
+    for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+      int comment = line.indexOf('#');
+      String name = (comment != -1 ? line.substring(0, comment) : line).trim();
+      if (!name.isEmpty()) {
+        names.add(name);
+      }
+    }
+    return names;
+  }
+
+  /**
+   * Return the current hash of the given input.
+   */
+  static long hash(ClassLoader classLoader, String input) {
+    return hashes.computeIfAbsent(input, key -> computeHash(classLoader, key));
+  }
+
+  private static long computeHash(ClassLoader classLoader, String input) {
+    String name = input.substring(2);
+    try {
+      if (input.startsWith(CLASS)) {
+        URL url = classLoader.getResource(toResourcePath(name));
+        return (url != null ? hash(read(url)) : MISSING);
+      }
+      if (input.startsWith(JAR)) {
+        Path jar = Path.of(name);
+        if (!Files.isRegularFile(jar)) {
+          return MISSING;
+        }
+        try (InputStream in = Files.newInputStream(jar)) {
+          return hash(in);
+        }
+      }
+      if (input.startsWith(RESOURCE)) {
+        Resource resource = new DefaultResourceLoader(classLoader).getResource(name);
+        if (!resource.exists()) {
+          return MISSING;
+        }
+        try (InputStream in = resource.getInputStream()) {
+          return hash(in.readAllBytes());
+        }
+      }
+      if (input.startsWith(DIRECTORY)) {
+        Path directory = Path.of(name);
+        if (!Files.isDirectory(directory)) {
+          return MISSING;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+          List<String> names = paths.map(path -> directory.relativize(path).toString()).sorted().toList();
+          return hash(String.join("\n", names).getBytes(StandardCharsets.UTF_8));
+        }
+      }
+    }
+    catch (IOException ex) {
+      // treated as changed
+    }
+    return MISSING;
+  }
+
+  /**
+   * A 64-bit hash of the given bytes: the length and a CRC-32C checksum.
+   */
+  static long hash(byte[] bytes) {
+    CRC32C crc = new CRC32C();
+    crc.update(bytes);
+    return ((long) bytes.length << 32) | crc.getValue();
+  }
+
+  /**
+   * Variant of {@link #hash(byte[])} that streams the given content, e.g.
+   * to hash a jar without reading it into memory as a whole.
+   */
+  static long hash(InputStream in) throws IOException {
+    CRC32C crc = new CRC32C();
+    byte[] buffer = new byte[8192];
+    long length = 0;
+    int read;
+    while ((read = in.read(buffer)) != -1) {
+      crc.update(buffer, 0, read);
+      length += read;
+    }
+    return (length << 32) | crc.getValue();
+  }
+
+  private static Set<String> getReferences(String className, URL url) {
+    return references.computeIfAbsent(className, key -> {
+      try {
+        return ClassFileReferences.read(read(url));
+      }
+      catch (IOException | RuntimeException ex) {
+        return Set.of();
+      }
+    });
+  }
+
+  private static byte[] read(URL url) throws IOException {
+    try (InputStream in = url.openStream()) {
+      return in.readAllBytes();
+    }
+  }
+
+  private static boolean isPlatformClass(String className) {
+    return (className.startsWith("java.") || className.startsWith("javax.") ||
+            className.startsWith("jdk.") || className.startsWith("sun."));
+  }
+
+  private static String toResourcePath(String className) {
+    return className.replace('.', '/') + ".class";
+  }
+
+  @Nullable
+  private static String toJarPath(URL url) {
+    String path = url.getPath();
+    int separator = path.indexOf("!/");
+    if (separator == -1) {
+      return null;
+    }
+    try {
+      return new File(new URI(path.substring(0, separator))).getPath();
+    }
+    catch (URISyntaxException | IllegalArgumentException ex) {
+      return null;
+    }
+  }
+
+  /**
+   * Reads the class names a class file refers to from its constant pool:
+   * class entries and the types in field, method and generic signatures.
+   */
+  static final class ClassFileReferences {
+
+    private final byte[] bytes;
+
+    private int position;
+
+    private ClassFileReferences(byte[] bytes) {
+      this.bytes = bytes;
+    }
+
+    static Set<String> read(byte[] bytes) {
+      return new ClassFileReferences(bytes).read();
+    }
+
+    private Set<String> read() {
+      this.position = 8;  // magic, minor and major version
+      int count = u2();
+      String[] utf8 = new String[count];
+      List<Integer> classIndexes = new ArrayList<>();
+      for (int i = 1; i < count; i++) {
+        int tag = u1();
+        switch (tag) {
+          case 1 -> {
+            int length = u2();
+            utf8[i] = new String(this.bytes, this.position, length, StandardCharsets.UTF_8);
+            this.position += length;
+          }
+          case 7 -> classIndexes.add(u2());
+          case 8, 16, 19, 20 -> this.position += 2;
+          case 15 -> this.position += 3;
+          case 3, 4, 9, 10, 11, 12, 17, 18 -> this.position += 4;
+          case 5, 6 -> {
+            this.position += 8;
+            i++;
+          }
+          default -> throw new IllegalStateException("Unknown constant pool tag " + tag);
+        }
+      }
+
+      Set<String> names = new HashSet<>();
+      for (int index : classIndexes) {
+        String name = utf8[index];
+        if (name != null) {
+          if (name.startsWith("[")) {
+            addTypes(name, names);
+          }
+          else {
+            names.add(name.replace('/', '.'));
+          }
+        }
+      }
+      for (String value : utf8) {
+        if (value != null && !value.isEmpty() && "(L[<".indexOf(value.charAt(0)) != -1) {
+          addTypes(value, names);
+        }
+      }
+      return names;
+    }
+
+    /**
+     * Add the class types of a descriptor or generic signature.
+     */
+    private static void addTypes(String signature, Set<String> names) {
+      int i = 0;
+      while (i < signature.length()) {
+        char c = signature.charAt(i);
+        if (c == 'L') {
+          int end = i + 1;
+          while (end < signature.length() && signature.charAt(end) != ';' && signature.charAt(end) != '<') {
+            end++;
+          }
+          names.add(signature.substring(i + 1, end).replace('/', '.'));
+          i = end + 1;
+        }
+        else if (c == 'T') {
+          int end = signature.indexOf(';', i);
+          i = (end != -1 ? end + 1 : signature.length());
+        }
+        else {
+          i++;
+        }
+      }
+    }
+
+    private int u1() {
+      return this.bytes[this.position++] & 0xFF;
+    }
+
+    private int u2() {
+      return ((this.bytes[this.position++] & 0xFF) << 8) | (this.bytes[this.position++] & 0xFF);
+    }
+  }
+
+}
@@ -0,0 +1,228 @@
+/*
+ * Original Author -> Harry Yang (taketoday@foxmail.com) https://taketoday.cn
+ * Copyright © TODAY & 2017 - 2021 All Rights Reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.test.context.selection;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import cn.taketoday.lang.Nullable;
+import cn.taketoday.logging.Logger;
+import cn.taketoday.logging.LoggerFactory;
+
+/**
+ * The on-disk index of the inputs of the test classes that passed in their
+ * last run.
+ *
+ * <p>The index is a binary file holding a table of all distinct strings
+ * (test class names and input keys) followed by one entry per test class:
+ * the context configuration fingerprint and the input keys, as indexes into
+ * the string table, with their hashes. Input keys such as shared classes and
+ * jars are thereby stored once, however many test classes depend on them.
+ * The file is read once per JVM into a hash map.
+ *
+ * <p>Updates are kept in memory and {@linkplain #save() saved} at shutdown.
+ * Saving holds a file lock, re-reads the file and applies the updates of
+ * this JVM on top, so that concurrently running test JVMs do not lose each
+ * other's updates.
+ *
+ * @author TODAY
+ * @since 4.0
+ */
+final class TestSelectionIndex {
+
+  private static final Logger logger = LoggerFactory.getLogger(TestSelectionIndex.class);
+
+  private static final int MAGIC = 0x54534958;
+
+  private static final int VERSION = 1;
+
+  /** Marks a test class whose entry is to be removed on save. */
+  private static final Entry REMOVED = new Entry(0L, new String[0], new long[0]);
+
+  private final Path file;
+
+  private final Map<String, Entry> entries;
+
+  private final Map<String, Entry> updates = new ConcurrentHashMap<>();
+
+  private TestSelectionIndex(Path file, Map<String, Entry> entries) {
+    this.file = file;
+    this.entries = entries;
+  }
+
+  /**
+   * Load the index from the given file, or create an empty index if the
+   * file does not exist or cannot be read.
+   */
+  static TestSelectionIndex load(Path file) {
+    return new TestSelectionIndex(file, readSafely(file));
+  }
+
+  /**
+   * Return the entry recorded for the given test class in a previous run.
+   */
+  @Nullable
+  Entry get(String testClass) {
+    return this.entries.get(testClass);
+  }
+
+  /**
+   * Record the entry for a test class that passed.
+   */
+  void put(String testClass, Entry entry) {
+    this.updates.put(testClass, entry);
+  }
+
+  /**
+   * Remove the entry for a test class that did not pass.
+   */
+  void remove(String testClass) {
+    this.updates.put(testClass, REMOVED);
+  }
+
+  /**
+   * Apply the updates of this JVM to the index file.
+   */
+  void save() throws IOException {
+    if (this.updates.isEmpty()) {
+      return;
+    }
+    Path parent = this.file.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+    Path lockFile = this.file.resolveSibling(this.file.getFileName() + ".lock");
+    try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            FileLock ignored = channel.lock()) {
+      Map<String, Entry> merged = readSafely(this.file);
+      this.updates.forEach((testClass, entry) -> {
+        if (entry == REMOVED) {
+          merged.remove(testClass);
+        }
+        else {
+          merged.put(testClass, entry);
+        }
+      });
+      Path temp = this.file.resolveSibling(this.file.getFileName() + ".tmp");
+      write(temp, merged);
+      Files.move(temp, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+  }
+
+  private static Map<String, Entry> readSafely(Path file) {
+    if (Files.isRegularFile(file)) {
+      try {
+        return read(file);
+      }
+      catch (IOException | RuntimeException ex) {
+        logger.warn("Ignoring unreadable test selection index [{}]", file, ex);
+      }
+    }
+    return new HashMap<>();
+  }
+
+  private static Map<String, Entry> read(Path file) throws IOException {
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        throw new IOException("Not a test selection index of version " + VERSION);
+      }
+      String[] strings = new String[in.readInt()];
+      for (int i = 0; i < strings.length; i++) {
+        strings[i] = in.readUTF();
+      }
+      int count = in.readInt();
+      Map<String, Entry> entries = new HashMap<>(count * 4 / 3 + 1);
+      for (int i = 0; i < count; i++) {
+        String testClass = strings[in.readInt()];
+        long fingerprint = in.readLong();
+        String[] inputs = new String[in.readInt()];
+        long[] hashes = new long[inputs.length];
+        for (int j = 0; j < inputs.length; j++) {
+          inputs[j] = strings[in.readInt()];
+          hashes[j] = in.readLong();
+        }
+        entries.put(testClass, new Entry(fingerprint, inputs, hashes));
+      }
+      return entries;
+    }
+  }
+
+  private static void write(Path file, Map<String, Entry> entries) throws IOException {
+    Map<String, Integer> indexes = new HashMap<>();
+    List<String> strings = new ArrayList<>();
+    entries.forEach((testClass, entry) -> {
+      indexes.computeIfAbsent(testClass, key -> addString(strings, key));
+      for (String input : entry.inputs()) {
+        indexes.computeIfAbsent(input, key -> addString(strings, key));
+      }
+    });
+
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(strings.size());
+      for (String string : strings) {
+        out.writeUTF(string);
+      }
+      out.writeInt(entries.size());
+      for (Map.Entry<String, Entry> mapEntry : entries.entrySet()) {
+        Entry entry = mapEntry.getValue();
+        out.writeInt(indexes.get(mapEntry.getKey()));
+        out.writeLong(entry.fingerprint());
+        out.writeInt(entry.inputs().length);
+        for (int i = 0; i < entry.inputs().length; i++) {
+          out.writeInt(indexes.get(entry.inputs()[i]));
+          out.writeLong(entry.hashes()[i]);
+        }
+      }
+    }
+  }
+
+  private static int addString(List<String> strings, String string) {
+    strings.add(string);
+    return strings.size() - 1;
+  }
+
+  /**
+   * The recorded inputs of a test class.
+   *
+   * @param fingerprint the fingerprint of the merged context configuration
+   * @param inputs the input keys
+   * @param hashes the hashes of the inputs, by position
+   */
+  record Entry(long fingerprint, String[] inputs, long[] hashes) {
+  }
+
+}
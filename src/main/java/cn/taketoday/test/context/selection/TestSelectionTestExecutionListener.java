@@ -0,0 +1,184 @@
+/*
+ * Original Author -> Harry Yang (taketoday@foxmail.com) https://taketoday.cn
+ * Copyright © TODAY & 2017 - 2021 All Rights Reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.test.context.selection;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import cn.taketoday.context.ApplicationContext;
+import cn.taketoday.core.Ordered;
+import cn.taketoday.core.annotation.MergedAnnotations;
+import cn.taketoday.lang.Nullable;
+import cn.taketoday.test.context.TestContext;
+import cn.taketoday.test.context.TestExecutionListener;
+import cn.taketoday.test.context.support.AbstractTestExecutionListener;
+import cn.taketoday.test.context.support.DefaultTestContext;
+import cn.taketoday.util.ReflectionUtils;
+
+/**
+ * {@code TestExecutionListener} which records the inputs of every test class
+ * whose test methods all ran and passed, so that the class can be skipped in
+ * later runs while those inputs stay unchanged. Classes with a failed test
+ * method or class-level callback are removed from the index and therefore
+ * always run again.
+ *
+ * <p>Test methods are the methods annotated with JUnit Jupiter's
+ * {@code @Test} or any other {@code @Testable} annotation, JUnit 4's or
+ * TestNG's {@code @Test}, except for methods annotated with {@code @Disabled}
+ * or {@code @Ignore}. A class of which only some test methods ran, e.g. due
+ * to a filtered run or an execution condition, is not recorded.
+ *
+ * <p>This listener is not registered by default; register it via
+ * {@link cn.taketoday.test.context.TestExecutionListeners @TestExecutionListeners}
+ * or the {@link cn.taketoday.lang.TodayStrategies} mechanism. Skipping itself
+ * is controlled by {@link TestSelectionUtils#ENABLED_PROPERTY_NAME}.
+ *
+ * <p>Ordered first, so that {@link #afterTestClass} runs after all other
+ * listeners and sees failures of class-level callbacks, including those of
+ * other listeners, as the {@linkplain TestContext#getTestException() test
+ * exception}. The bean types of the context are therefore captured before
+ * each test method, while the context is still open.
+ *
+ * @author TODAY
+ * @see TestSelectionUtils
+ * @since 4.0
+ */
+public class TestSelectionTestExecutionListener extends AbstractTestExecutionListener {
+
+  private static final String[] TEST_ANNOTATIONS = {
+          "org.junit.platform.commons.annotation.Testable", "org.junit.Test", "org.testng.annotations.Test"
+  };
+
+  private static final String[] DISABLED_ANNOTATIONS = {
+          "org.junit.jupiter.api.Disabled", "org.junit.Ignore"
+  };
+
+  /**
+   * Results of the test classes currently running, kept here rather than in
+   * {@link TestContext} attributes, since test methods may run on other
+   * threads, with their own copies of the context.
+   */
+  private static final ConcurrentHashMap<Class<?>, Results> results = new ConcurrentHashMap<>();
+
+  /**
+   * Returns {@link Ordered#HIGHEST_PRECEDENCE}, so that {@link #afterTestClass}
+   * runs last.
+   */
+  @Override
+  public final int getOrder() {
+    return Ordered.HIGHEST_PRECEDENCE;
+  }
+
+  @Override
+  public void beforeTestClass(TestContext testContext) {
+    results.put(testContext.getTestClass(), new Results());
+  }
+
+  @Override
+  public void beforeTestMethod(TestContext testContext) {
+    Results classResults = results.get(testContext.getTestClass());
+    if (classResults != null && classResults.beanTypes == null && testContext.hasApplicationContext()) {
+      List<Class<?>> beanTypes = new ArrayList<>();
+      ApplicationContext context = testContext.getApplicationContext();
+      for (String beanName : context.getBeanDefinitionNames()) {
+        Class<?> beanType = context.getType(beanName);
+        if (beanType != null) {
+          beanTypes.add(beanType);
+        }
+      }
+      classResults.beanTypes = beanTypes;
+    }
+  }
+
+  @Override
+  public void afterTestMethod(TestContext testContext) {
+    Results classResults = results.get(testContext.getTestClass());
+    if (classResults != null) {
+      if (testContext.getTestException() != null) {
+        classResults.failed = true;
+      }
+      else {
+        classResults.passed.add(testContext.getTestMethod());
+      }
+    }
+  }
+
+  /**
+   * Record the inputs of the test class if all of its test methods ran and
+   * passed and no class-level callback failed, or remove it from the index
+   * otherwise.
+   *
+   * @see TestExecutionListener#afterTestClass
+   */
+  @Override
+  public void afterTestClass(TestContext testContext) {
+    Class<?> testClass = testContext.getTestClass();
+    Results classResults = results.remove(testClass);
+    boolean passed = classResults != null && !classResults.failed && testContext.getTestException() == null
+            && !classResults.passed.isEmpty() && classResults.passed.containsAll(findTestMethods(testClass));
+    if (passed && testContext instanceof DefaultTestContext defaultTestContext) {
+      List<Class<?>> beanTypes = (classResults.beanTypes != null ? classResults.beanTypes : List.of());
+      TestSelectionUtils.recordPassed(testClass, defaultTestContext.getMergedContextConfiguration(), beanTypes);
+    }
+    else {
+      TestSelectionUtils.recordNotPassed(testClass);
+    }
+  }
+
+  private static List<Method> findTestMethods(Class<?> testClass) {
+    return Arrays.asList(ReflectionUtils.getUniqueDeclaredMethods(
+            testClass, TestSelectionTestExecutionListener::isTestMethod));
+  }
+
+  private static boolean isTestMethod(Method method) {
+    MergedAnnotations annotations = MergedAnnotations.from(method);
+    for (String disabled : DISABLED_ANNOTATIONS) {
+      if (annotations.isPresent(disabled)) {
+        return false;
+      }
+    }
+    for (String test : TEST_ANNOTATIONS) {
+      if (annotations.isPresent(test)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * The test methods of a test class that passed, whether any failed, and
+   * the bean types of its context.
+   */
+  private static final class Results {
+
+    final Set<Method> passed = ConcurrentHashMap.newKeySet();
+
+    volatile boolean failed;
+
+    @Nullable
+    volatile List<Class<?>> beanTypes;
+  }
+
+}
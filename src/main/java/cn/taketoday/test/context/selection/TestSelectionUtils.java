@@ -0,0 +1,319 @@
+/*
+ * Original Author -> Harry Yang (taketoday@foxmail.com) https://taketoday.cn
+ * Copyright © TODAY & 2017 - 2021 All Rights Reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.test.context.selection;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import cn.taketoday.lang.Nullable;
+import cn.taketoday.lang.TodayStrategies;
+import cn.taketoday.logging.Logger;
+import cn.taketoday.logging.LoggerFactory;
+import cn.taketoday.test.context.ContextCustomizer;
+import cn.taketoday.test.context.MergedContextConfiguration;
+import cn.taketoday.util.ReflectionUtils;
+import cn.taketoday.util.StringUtils;
+
+/**
+ * Collection of utilities for incremental test selection.
+ *
+ * <p>The {@link TestSelectionTestExecutionListener} records, for every test
+ * class that passes, a fingerprint of its {@link MergedContextConfiguration}
+ * and the hashes of its inputs in an on-disk index. If the
+ * {@value #ENABLED_PROPERTY_NAME} property is set to {@code true}, test
+ * classes whose fingerprint and inputs are unchanged since then are skipped,
+ * see {@link #isUnchanged}.
+ *
+ * <p>Inputs are the class files the test class and its context depend on,
+ * the jars they are loaded from, the configuration resources of the context,
+ * the default {@code application} property files for its active profiles and
+ * the {@code META-INF/today.strategies} files, the {@code META-INF/services}
+ * files and the provider classes they name, and the listings of the
+ * directories of the configuration classes, so that a class added to a
+ * scanned package is detected.
+ *
+ * <p>The following are <em>not</em> detected, so delete the index when a test
+ * depends on them:
+ * <ul>
+ * <li>classes loaded by a name computed at runtime, e.g. via
+ * {@code Class.forName()}, unless they are beans of the context</li>
+ * <li>resources loaded from locations that are neither configured for the
+ * context nor one of the default resources above, e.g. SQL scripts or
+ * fixtures opened by test code</li>
+ * <li>service files in jars without a {@code META-INF/services} directory
+ * entry, unless the jar contains a class the test depends on</li>
+ * <li>state outside the classpath, such as system properties, environment
+ * variables, files and databases</li>
+ * </ul>
+ *
+ * @author TODAY
+ * @see TestSelectionTestExecutionListener
+ * @since 4.0
+ */
+public abstract class TestSelectionUtils {
+
+  /**
+   * System property used to enable skipping of unchanged test classes: {@value}.
+   * May alternatively be configured via the {@link TodayStrategies} mechanism.
+   */
+  public static final String ENABLED_PROPERTY_NAME = "today.test.selection.enabled";
+
+  /**
+   * System property used to configure the location of the index file: {@value}.
+   *
+   * @see #DEFAULT_INDEX_FILE
+   */
+  public static final String INDEX_FILE_PROPERTY_NAME = "today.test.selection.index";
+
+  /**
+   * The default location of the index file: {@value}.
+   */
+  public static final String DEFAULT_INDEX_FILE = "target/today-test-selection.idx";
+
+  /** Base name of the property files an application context loads by default. */
+  private static final String DEFAULT_PROPERTIES_NAME = "application";
+
+  /** Extensions of the property files an application context loads by default. */
+  private static final String[] DEFAULT_PROPERTIES_EXTENSIONS = { ".properties", ".yml", ".yaml" };
+
+  private static final Logger logger = LoggerFactory.getLogger(TestSelectionUtils.class);
+
+  @Nullable
+  private static volatile TestSelectionIndex index;
+
+  /** Names of the test classes that did not pass in this JVM. */
+  private static final Set<String> failedClasses = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Determine whether skipping of unchanged test classes is enabled.
+   */
+  public static boolean isEnabled() {
+    return Boolean.parseBoolean(TodayStrategies.getProperty(ENABLED_PROPERTY_NAME));
+  }
+
+  /**
+   * Determine whether the given test class passed in an earlier run and
+   * neither its context configuration nor any of its recorded inputs changed
+   * since then.
+   *
+   * @param testClass the test class
+   * @param mergedConfig the merged context configuration of the test class,
+   * or {@code null} if not known, in which case the class is considered changed
+   */
+  public static boolean isUnchanged(Class<?> testClass, @Nullable MergedContextConfiguration mergedConfig) {
+    if (mergedConfig == null || !hasFingerprint(mergedConfig)) {
+      return false;
+    }
+    TestSelectionIndex.Entry entry = getIndex().get(testClass.getName());
+    if (entry == null || entry.fingerprint() != fingerprint(mergedConfig)) {
+      return false;
+    }
+    ClassLoader classLoader = getClassLoader(testClass);
+    for (int i = 0; i < entry.inputs().length; i++) {
+      if (TestInputs.hash(classLoader, entry.inputs()[i]) != entry.hashes()[i]) {
+        if (logger.isDebugEnabled()) {
+          logger.debug("Input [{}] of test class [{}] changed", entry.inputs()[i], testClass.getName());
+        }
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Record the inputs of a test class that passed.
+   */
+  static void recordPassed(Class<?> testClass, MergedContextConfiguration mergedConfig,
+          Collection<Class<?>> beanTypes) {
+
+    if (failedClasses.contains(testClass.getName()) || !hasFingerprint(mergedConfig)) {
+      recordNotPassed(testClass);
+      return;
+    }
+    List<Class<?>> roots = new ArrayList<>();
+    for (Class<?> clazz = testClass; clazz != null; clazz = clazz.getEnclosingClass()) {
+      roots.add(clazz);
+    }
+    Set<Class<?>> configClasses = new LinkedHashSet<>();
+    Set<String> locations = new LinkedHashSet<>();
+    for (MergedContextConfiguration config = mergedConfig; config != null; config = config.getParent()) {
+      configClasses.addAll(Arrays.asList(config.getClasses()));
+      configClasses.addAll(config.getContextInitializerClasses());
+      locations.addAll(Arrays.asList(config.getLocations()));
+      locations.addAll(Arrays.asList(config.getPropertySourceLocations()));
+    }
+    roots.addAll(configClasses);
+    roots.addAll(beanTypes);
+
+    ClassLoader classLoader = getClassLoader(testClass);
+    Set<String> inputs = TestInputs.collect(
+            classLoader, roots, locations, defaultResources(mergedConfig), configClasses);
+    String[] keys = inputs.toArray(new String[0]);
+    long[] hashes = new long[keys.length];
+    for (int i = 0; i < keys.length; i++) {
+      hashes[i] = TestInputs.hash(classLoader, keys[i]);
+    }
+    getIndex().put(testClass.getName(), new TestSelectionIndex.Entry(fingerprint(mergedConfig), keys, hashes));
+  }
+
+  /**
+   * Forget the inputs of a test class that did not pass, and of its
+   * enclosing classes, since skipping those would skip it as well.
+   */
+  static void recordNotPassed(Class<?> testClass) {
+    TestSelectionIndex index = getIndex();
+    for (Class<?> clazz = testClass; clazz != null; clazz = clazz.getEnclosingClass()) {
+      failedClasses.add(clazz.getName());
+      index.remove(clazz.getName());
+    }
+  }
+
+  /**
+   * Determine whether the state of the given configuration can be
+   * fingerprinted, i.e. whether all of its {@link ContextCustomizer
+   * ContextCustomizers} implement value-based {@code equals()} and
+   * {@code hashCode()}, as their contract requires.
+   */
+  static boolean hasFingerprint(MergedContextConfiguration mergedConfig) {
+    for (MergedContextConfiguration config = mergedConfig; config != null; config = config.getParent()) {
+      for (ContextCustomizer customizer : config.getContextCustomizers()) {
+        Method hashCode = ReflectionUtils.findMethod(customizer.getClass(), "hashCode");
+        if (hashCode == null || hashCode.getDeclaringClass() == Object.class) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Compute a fingerprint of the given configuration that, unlike its
+   * {@code hashCode()}, is stable across JVMs, apart from the hash codes of
+   * context customizers, which may differ and thereby make a test class run.
+   */
+  static long fingerprint(MergedContextConfiguration mergedConfig) {
+    StringBuilder builder = new StringBuilder(256);
+    for (MergedContextConfiguration config = mergedConfig; config != null; config = config.getParent()) {
+      builder.append(config.getContextLoader() != null ? config.getContextLoader().getClass().getName() : "")
+              .append('|').append(Arrays.toString(config.getLocations()))
+              .append('|').append(classNames(Arrays.asList(config.getClasses()), false))
+              .append('|').append(classNames(config.getContextInitializerClasses(), true))
+              .append('|').append(Arrays.toString(config.getActiveProfiles()))
+              .append('|').append(Arrays.toString(config.getPropertySourceLocations()))
+              .append('|').append(Arrays.toString(config.getPropertySourceProperties()))
+              .append('|').append(customizerNames(config.getContextCustomizers()))
+              .append("||");
+    }
+    return TestInputs.hash(builder.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Return the classpath names of the resources that may be loaded without
+   * being configured: the {@code application} property files of the active
+   * profiles and the strategies files.
+   */
+  static Set<String> defaultResources(MergedContextConfiguration mergedConfig) {
+    Set<String> profiles = new LinkedHashSet<>();
+    profiles.add("");
+    for (MergedContextConfiguration config = mergedConfig; config != null; config = config.getParent()) {
+      for (String profile : config.getActiveProfiles()) {
+        profiles.add("-" + profile);
+      }
+    }
+    Set<String> resources = new LinkedHashSet<>();
+    for (String profile : profiles) {
+      for (String extension : DEFAULT_PROPERTIES_EXTENSIONS) {
+        resources.add(DEFAULT_PROPERTIES_NAME + profile + extension);
+      }
+    }
+    resources.add(TodayStrategies.STRATEGIES_LOCATION);
+    return resources;
+  }
+
+  private static List<String> classNames(Collection<? extends Class<?>> classes, boolean sort) {
+    List<String> names = new ArrayList<>(classes.size());
+    for (Class<?> clazz : classes) {
+      names.add(clazz.getName());
+    }
+    if (sort) {
+      names.sort(null);
+    }
+    return names;
+  }
+
+  private static List<String> customizerNames(Set<ContextCustomizer> customizers) {
+    List<String> names = new ArrayList<>(customizers.size());
+    for (ContextCustomizer customizer : customizers) {
+      names.add(customizer.getClass().getName() + "@" + customizer.hashCode());
+    }
+    names.sort(null);
+    return names;
+  }
+
+  private static ClassLoader getClassLoader(Class<?> testClass) {
+    ClassLoader classLoader = testClass.getClassLoader();
+    return (classLoader != null ? classLoader : ClassLoader.getSystemClassLoader());
+  }
+
+  static TestSelectionIndex getIndex() {
+    TestSelectionIndex index = TestSelectionUtils.index;
+    if (index == null) {
+      synchronized(TestSelectionUtils.class) {
+        index = TestSelectionUtils.index;
+        if (index == null) {
+          index = TestSelectionIndex.load(retrieveIndexFile());
+          TestSelectionIndex saved = index;
+          Runtime.getRuntime().addShutdownHook(new Thread(() -> save(saved), "TestSelection-index"));
+          TestSelectionUtils.index = index;
+        }
+      }
+    }
+    return index;
+  }
+
+  private static void save(TestSelectionIndex index) {
+    try {
+      index.save();
+    }
+    catch (IOException ex) {
+      logger.warn("Failed to save test selection index", ex);
+    }
+  }
+
+  /**
+   * Retrieve the location of the index file.
+   * <p>Falls back to {@link #DEFAULT_INDEX_FILE} if no such property has been set.
+   */
+  static Path retrieveIndexFile() {
+    String file = TodayStrategies.getProperty(INDEX_FILE_PROPERTY_NAME);
+    return Path.of(StringUtils.hasText(file) ? file.trim() : DEFAULT_INDEX_FILE);
+  }
+
+}
@@ -27,6 +27,9 @@ import cn.taketoday.context.DefaultApplicationContext;
 import cn.taketoday.logging.Logger;
 import cn.taketoday.logging.LoggerFactory;
 import cn.taketoday.test.context.MergedContextConfiguration;
+import cn.taketoday.test.context.cache.ContextCacheUtils;
+import cn.taketoday.test.context.metrics.TestContextMetrics;
+import cn.taketoday.test.context.metrics.TestContextMetricsUtils;
 import cn.taketoday.util.StringUtils;
 
 /**
@@ -93,7 +96,7 @@ public abstract class AbstractGenericContextLoader extends AbstractContextLoader
    * <li>Calls {@link #customizeContext(ConfigurableApplicationContext, MergedContextConfiguration)} to
    * allow for customizing the context before it is refreshed.</li>
    * <li>{@link ConfigurableApplicationContext#refresh Refreshes} the
-   * context and registers a JVM shutdown hook for it.</li>
+   * context and tracks it via the shared test context shutdown hook.</li>
    * </ul>
    *
    * @return a new application context
@@ -114,16 +117,39 @@ public abstract class AbstractGenericContextLoader extends AbstractContextLoader
       context.setParent(parent);
     }
 
+    TestContextMetrics metrics = TestContextMetricsUtils.getMetrics();
+    String subject = TestContextMetrics.contextSubject(mergedConfig);
+
     prepareContext(context);
     prepareContext(context, mergedConfig);
     customizeBeanFactory(context.getBeanFactory());
-    loadBeanDefinitions(context, mergedConfig);
-    AnnotationConfigUtils.registerAnnotationConfigProcessors(context);
-    customizeContext(context);
-    customizeContext(context, mergedConfig);
 
-    context.refresh();
-    context.registerShutdownHook();
+    TestContextMetrics.Sample sample = metrics.start(TestContextMetrics.Phase.BEAN_DEFINITIONS, subject);
+    try {
+      loadBeanDefinitions(context, mergedConfig);
+      AnnotationConfigUtils.registerAnnotationConfigProcessors(context);
+    }
+    finally {
+      sample.stop();
+    }
+
+    sample = metrics.start(TestContextMetrics.Phase.CONTEXT_CUSTOMIZERS, subject);
+    try {
+      customizeContext(context);
+      customizeContext(context, mergedConfig);
+    }
+    finally {
+      sample.stop();
+    }
+
+    sample = metrics.start(TestContextMetrics.Phase.REFRESH, subject);
+    try {
+      context.refresh();
+    }
+    finally {
+      sample.stop();
+    }
+    ContextCacheUtils.closeOnShutdown(context);
 
     return context;
   }
@@ -161,7 +187,7 @@ public abstract class AbstractGenericContextLoader extends AbstractContextLoader
    * <li>Calls {@link #customizeContext(DefaultApplicationContext)} to allow for customizing the context
    * before it is refreshed.</li>
    * <li>{@link ConfigurableApplicationContext#refresh Refreshes} the
-   * context and registers a JVM shutdown hook for it.</li>
+   * context and tracks it via the shared test context shutdown hook.</li>
    * </ul>
    * <p><b>Note</b>: this method does not provide a means to set active bean definition
    * profiles for the loaded context. See {@link #loadContext(MergedContextConfiguration)}
@@ -189,7 +215,7 @@ public abstract class AbstractGenericContextLoader extends AbstractContextLoader
     customizeContext(context);
 
     context.refresh();
-    context.registerShutdownHook();
+    ContextCacheUtils.closeOnShutdown(context);
 
     return context;
   }
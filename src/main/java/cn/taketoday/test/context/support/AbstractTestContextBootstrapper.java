@@ -54,6 +54,8 @@ import cn.taketoday.test.context.TestContextBootstrapper;
 import cn.taketoday.test.context.TestExecutionListener;
 import cn.taketoday.test.context.TestExecutionListeners;
 import cn.taketoday.test.context.TestExecutionListeners.MergeMode;
+import cn.taketoday.test.context.metrics.TestContextMetrics;
+import cn.taketoday.test.context.metrics.TestContextMetricsUtils;
 import cn.taketoday.util.ClassUtils;
 import cn.taketoday.util.StringUtils;
 
@@ -255,6 +257,17 @@ public abstract class AbstractTestContextBootstrapper implements TestContextBoot
   @Override
   public final MergedContextConfiguration buildMergedContextConfiguration() {
     Class<?> testClass = getBootstrapContext().getTestClass();
+    TestContextMetrics.Sample sample = TestContextMetricsUtils.getMetrics()
+            .start(TestContextMetrics.Phase.MERGED_CONFIG, testClass.getName());
+    try {
+      return doBuildMergedContextConfiguration(testClass);
+    }
+    finally {
+      sample.stop();
+    }
+  }
+
+  private MergedContextConfiguration doBuildMergedContextConfiguration(Class<?> testClass) {
     CacheAwareContextLoaderDelegate cacheAwareContextLoaderDelegate = getCacheAwareContextLoaderDelegate();
 
     if (TestContextAnnotationUtils.findAnnotationDescriptorForTypes(
@@ -396,13 +409,19 @@ public abstract class AbstractTestContextBootstrapper implements TestContextBoot
                                                        List<ContextConfigurationAttributes> configAttributes) {
 
     List<ContextCustomizerFactory> factories = getContextCustomizerFactories();
-    Set<ContextCustomizer> customizers = new LinkedHashSet<>(factories.size());
+    Set<ContextCustomizer> customizers = new LinkedHashSet<>(factories.size() + 1);
     for (ContextCustomizerFactory factory : factories) {
       ContextCustomizer customizer = factory.createContextCustomizer(testClass, configAttributes);
       if (customizer != null) {
         customizers.add(customizer);
       }
     }
+    // Built in, since the initialization mode must always be part of the cache key
+    ContextCustomizer lazyInitialization =
+            new LazyBeanInitializationContextCustomizerFactory().createContextCustomizer(testClass, configAttributes);
+    if (lazyInitialization != null) {
+      customizers.add(lazyInitialization);
+    }
     return customizers;
   }
 
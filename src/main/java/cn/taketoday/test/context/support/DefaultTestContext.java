@@ -100,6 +100,15 @@ public class DefaultTestContext implements TestContext {
     this.cacheAwareContextLoaderDelegate = cacheAwareContextLoaderDelegate;
   }
 
+  /**
+   * Get the merged application context configuration for this test context.
+   *
+   * @since 4.0
+   */
+  public final MergedContextConfiguration getMergedContextConfiguration() {
+    return this.mergedContextConfiguration;
+  }
+
   /**
    * Determine if the {@linkplain ApplicationContext application context} for
    * this test context is present in the context cache.
@@ -0,0 +1,128 @@
+/*
+ * Original Author -> Harry Yang (taketoday@foxmail.com) https://taketoday.cn
+ * Copyright © TODAY & 2017 - 2021 All Rights Reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.test.context.support;
+
+import java.util.Set;
+
+import cn.taketoday.beans.factory.BeanDefinition;
+import cn.taketoday.beans.factory.BeanDefinitionRegistry;
+import cn.taketoday.beans.factory.BeanFactoryPostProcessor;
+import cn.taketoday.beans.factory.ConfigurableBeanFactory;
+import cn.taketoday.context.ConfigurableApplicationContext;
+import cn.taketoday.lang.NonNull;
+import cn.taketoday.test.context.ContextCustomizer;
+import cn.taketoday.test.context.LazyBeanInitialization;
+import cn.taketoday.test.context.MergedContextConfiguration;
+
+/**
+ * {@link ContextCustomizer} to support
+ * {@link LazyBeanInitialization @LazyBeanInitialization}.
+ *
+ * <p>Only created if lazy bean initialization is active, and compared by its
+ * eager beans and types, so that lazy and eager contexts for the same
+ * configuration, as well as lazy contexts with different eager beans, are
+ * cached under different keys.
+ *
+ * @author TODAY
+ * @see LazyBeanInitializationContextCustomizerFactory
+ * @since 4.0
+ */
+class LazyBeanInitializationContextCustomizer implements ContextCustomizer {
+
+  private final Set<String> eagerBeans;
+
+  private final Set<Class<?>> eagerTypes;
+
+  LazyBeanInitializationContextCustomizer(Set<String> eagerBeans, Set<Class<?>> eagerTypes) {
+    this.eagerBeans = eagerBeans;
+    this.eagerTypes = eagerTypes;
+  }
+
+  /**
+   * Register a {@link BeanFactoryPostProcessor} that marks the singleton bean
+   * definitions of the context as lazy.
+   * <p>Post-processors added to the context run after bean definitions have
+   * been registered from configuration classes, so beans declared via
+   * {@code @Bean} methods and component scanning are covered as well.
+   */
+  @Override
+  public void customizeContext(ConfigurableApplicationContext context, @NonNull MergedContextConfiguration mergedConfig) {
+    context.addBeanFactoryPostProcessor(new LazyInitializationPostProcessor(this.eagerBeans, this.eagerTypes));
+  }
+
+  @Override
+  public int hashCode() {
+    return this.eagerBeans.hashCode() * 31 + this.eagerTypes.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null || getClass() != obj.getClass()) {
+      return false;
+    }
+    LazyBeanInitializationContextCustomizer other = (LazyBeanInitializationContextCustomizer) obj;
+    return (this.eagerBeans.equals(other.eagerBeans) && this.eagerTypes.equals(other.eagerTypes));
+  }
+
+  /**
+   * Marks all application singletons lazy, except the configured eager beans.
+   */
+  private static final class LazyInitializationPostProcessor implements BeanFactoryPostProcessor {
+
+    private final Set<String> eagerBeans;
+
+    private final Set<Class<?>> eagerTypes;
+
+    LazyInitializationPostProcessor(Set<String> eagerBeans, Set<Class<?>> eagerTypes) {
+      this.eagerBeans = eagerBeans;
+      this.eagerTypes = eagerTypes;
+    }
+
+    @Override
+    public void postProcessBeanFactory(ConfigurableBeanFactory beanFactory) {
+      if (!(beanFactory instanceof BeanDefinitionRegistry registry)) {
+        return;
+      }
+      for (String beanName : registry.getBeanDefinitionNames()) {
+        BeanDefinition definition = registry.getBeanDefinition(beanName);
+        if (definition.isSingleton()
+                && definition.getRole() != BeanDefinition.ROLE_INFRASTRUCTURE
+                && !this.eagerBeans.contains(beanName)
+                && !isEagerType(beanFactory, beanName)) {
+          definition.setLazyInit(true);
+        }
+      }
+    }
+
+    private boolean isEagerType(ConfigurableBeanFactory beanFactory, String beanName) {
+      for (Class<?> eagerType : this.eagerTypes) {
+        if (beanFactory.isTypeMatch(beanName, eagerType)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Original Author -> Harry Yang (taketoday@foxmail.com) https://taketoday.cn
+ * Copyright © TODAY & 2017 - 2021 All Rights Reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.test.context.support;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import cn.taketoday.lang.NonNull;
+import cn.taketoday.lang.Nullable;
+import cn.taketoday.lang.TodayStrategies;
+import cn.taketoday.test.context.ContextConfigurationAttributes;
+import cn.taketoday.test.context.ContextCustomizerFactory;
+import cn.taketoday.test.context.LazyBeanInitialization;
+import cn.taketoday.test.context.TestContextAnnotationUtils;
+import cn.taketoday.util.StringUtils;
+
+/**
+ * {@link ContextCustomizerFactory} to support
+ * {@link LazyBeanInitialization @LazyBeanInitialization} and the global
+ * {@link LazyBeanInitialization#LAZY_INITIALIZATION_PROPERTY_NAME lazy
+ * initialization} default.
+ *
+ * <p>Always consulted by {@link AbstractTestContextBootstrapper}, in addition
+ * to the factories registered via {@code META-INF/today.strategies}.
+ *
+ * @author TODAY
+ * @see LazyBeanInitializationContextCustomizer
+ * @since 4.0
+ */
+class LazyBeanInitializationContextCustomizerFactory implements ContextCustomizerFactory {
+
+  @Override
+  @Nullable
+  public LazyBeanInitializationContextCustomizer createContextCustomizer(
+          @NonNull Class<?> testClass, @NonNull List<ContextConfigurationAttributes> configAttributes) {
+
+    LazyBeanInitialization annotation =
+            TestContextAnnotationUtils.findMergedAnnotation(testClass, LazyBeanInitialization.class);
+    if (!isLazyInitialization(annotation)) {
+      return null;
+    }
+
+    Set<String> eagerBeans = new LinkedHashSet<>();
+    String property = TodayStrategies.getProperty(LazyBeanInitialization.EAGER_BEANS_PROPERTY_NAME);
+    if (StringUtils.hasText(property)) {
+      for (String name : StringUtils.commaDelimitedListToStringArray(property)) {
+        if (StringUtils.hasText(name)) {
+          eagerBeans.add(name.trim());
+        }
+      }
+    }
+    Set<Class<?>> eagerTypes = new LinkedHashSet<>();
+    if (annotation != null) {
+      eagerBeans.addAll(Arrays.asList(annotation.eagerBeans()));
+      eagerTypes.addAll(Arrays.asList(annotation.eagerTypes()));
+    }
+    return new LazyBeanInitializationContextCustomizer(eagerBeans, eagerTypes);
+  }
+
+  private static boolean isLazyInitialization(@Nullable LazyBeanInitialization annotation) {
+    if (annotation != null) {
+      return annotation.value();
+    }
+    return Boolean.parseBoolean(TodayStrategies.getProperty(LazyBeanInitialization.LAZY_INITIALIZATION_PROPERTY_NAME));
+  }
+
+}
@@ -63,6 +63,14 @@ import cn.taketoday.test.context.web.ServletTestExecutionListener;
  * TestExecutionListeners} manually.</em> Concrete subclasses must also have
  * constructors which either implicitly or explicitly delegate to {@code super();}.
  *
+ * <p>All instances of a test class share the {@link TestExecutionListeners}
+ * and the merged context configuration of a class-level
+ * {@linkplain TestContextManager#forTestClass template}, so that factories and
+ * data providers creating many instances bootstrap the class only once.
+ * The {@link TestContext} and the tracked test exception are held per thread,
+ * which allows for TestNG's {@code parallel="methods"} and
+ * {@code parallel="instances"} modes.
+ *
  * <p>The following {@link cn.taketoday.test.context.TestExecutionListener
  * TestExecutionListeners} are configured by default:
  *
@@ -105,15 +113,14 @@ public abstract class AbstractTestNGTodayContextTests implements IHookable, Appl
 
   private final TestContextManager testContextManager;
 
-  @Nullable
-  private Throwable testException;
+  private final ThreadLocal<Throwable> testExceptionHolder = new ThreadLocal<>();
 
   /**
    * Construct a new {@code AbstractTestNGTodayContextTests} instance and initialize
    * the internal {@link TestContextManager} for the current test class.
    */
   public AbstractTestNGTodayContextTests() {
-    this.testContextManager = new TestContextManager(getClass());
+    this.testContextManager = TestContextManager.forTestClass(getClass());
   }
 
   /**
@@ -175,31 +182,34 @@ public abstract class AbstractTestNGTodayContextTests implements IHookable, Appl
   public void run(IHookCallBack callBack, ITestResult testResult) {
     Method testMethod = testResult.getMethod().getConstructorOrMethod().getMethod();
     boolean beforeCallbacksExecuted = false;
+    Throwable testException = null;
 
     try {
       this.testContextManager.beforeTestExecution(this, testMethod);
       beforeCallbacksExecuted = true;
     }
     catch (Throwable ex) {
-      this.testException = ex;
+      testException = ex;
     }
 
     if (beforeCallbacksExecuted) {
       callBack.runTestMethod(testResult);
-      this.testException = getTestResultException(testResult);
+      testException = getTestResultException(testResult);
     }
 
     try {
-      this.testContextManager.afterTestExecution(this, testMethod, this.testException);
+      this.testContextManager.afterTestExecution(this, testMethod, testException);
     }
     catch (Throwable ex) {
-      if (this.testException == null) {
-        this.testException = ex;
+      if (testException == null) {
+        testException = ex;
       }
     }
 
-    if (this.testException != null) {
-      throwAsUncheckedException(this.testException);
+    // @AfterMethod callbacks run on the same thread as the test method
+    this.testExceptionHolder.set(testException);
+    if (testException != null) {
+      throwAsUncheckedException(testException);
     }
   }
 
@@ -215,10 +225,10 @@ public abstract class AbstractTestNGTodayContextTests implements IHookable, Appl
   @AfterMethod(alwaysRun = true)
   protected void todayTestContextAfterTestMethod(Method testMethod) throws Exception {
     try {
-      this.testContextManager.afterTestMethod(this, testMethod, this.testException);
+      this.testContextManager.afterTestMethod(this, testMethod, this.testExceptionHolder.get());
     }
     finally {
-      this.testException = null;
+      this.testExceptionHolder.remove();
     }
   }
 
@@ -31,6 +31,9 @@ import cn.taketoday.logging.Logger;
 import cn.taketoday.logging.LoggerFactory;
 import cn.taketoday.mock.web.MockServletContext;
 import cn.taketoday.test.context.MergedContextConfiguration;
+import cn.taketoday.test.context.cache.ContextCacheUtils;
+import cn.taketoday.test.context.metrics.TestContextMetrics;
+import cn.taketoday.test.context.metrics.TestContextMetricsUtils;
 import cn.taketoday.test.context.support.AbstractContextLoader;
 import cn.taketoday.web.WebApplicationContext;
 import cn.taketoday.web.servlet.StandardWebServletApplicationContext;
@@ -93,7 +96,7 @@ public abstract class AbstractGenericWebContextLoader extends AbstractContextLoa
    * <li>Calls {@link #customizeContext} to allow for customizing the context
    * before it is refreshed.</li>
    * <li>{@link ConfigurableApplicationContext#refresh Refreshes} the
-   * context and registers a JVM shutdown hook for it.</li>
+   * context and tracks it via the shared test context shutdown hook.</li>
    * </ul>
    *
    * @return a new web application context
@@ -120,14 +123,38 @@ public abstract class AbstractGenericWebContextLoader extends AbstractContextLoa
     if (parent != null) {
       context.setParent(parent);
     }
+    TestContextMetrics metrics = TestContextMetricsUtils.getMetrics();
+    String subject = TestContextMetrics.contextSubject(webMergedConfig);
+
     configureWebResources(context, webMergedConfig);
     prepareContext(context, webMergedConfig);
     customizeBeanFactory((StandardBeanFactory) context.getBeanFactory(), webMergedConfig);
-    loadBeanDefinitions(context, webMergedConfig);
-    AnnotationConfigUtils.registerAnnotationConfigProcessors(context);
-    customizeContext(context, webMergedConfig);
-    context.refresh();
-    context.registerShutdownHook();
+
+    TestContextMetrics.Sample sample = metrics.start(TestContextMetrics.Phase.BEAN_DEFINITIONS, subject);
+    try {
+      loadBeanDefinitions(context, webMergedConfig);
+      AnnotationConfigUtils.registerAnnotationConfigProcessors(context);
+    }
+    finally {
+      sample.stop();
+    }
+
+    sample = metrics.start(TestContextMetrics.Phase.CONTEXT_CUSTOMIZERS, subject);
+    try {
+      customizeContext(context, webMergedConfig);
+    }
+    finally {
+      sample.stop();
+    }
+
+    sample = metrics.start(TestContextMetrics.Phase.REFRESH, subject);
+    try {
+      context.refresh();
+    }
+    finally {
+      sample.stop();
+    }
+    ContextCacheUtils.closeOnShutdown(context);
     return context;
   }
 
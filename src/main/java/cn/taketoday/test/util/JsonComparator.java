@@ -0,0 +1,813 @@
+/*
+ * Original Author -> Harry Yang (taketoday@foxmail.com) https://taketoday.cn
+ * Copyright © TODAY & 2017 - 2021 All Rights Reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+package cn.taketoday.test.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import cn.taketoday.lang.Nullable;
+
+/**
+ * Structural comparison of two JSON documents, used by
+ * {@link JsonExpectationsHelper}.
+ *
+ * <p>Documents that are token-for-token identical (ignoring whitespace and
+ * the notation of numbers) are compared by streaming both inputs in lockstep
+ * without building a tree. Otherwise both documents are parsed into a tree
+ * in which every node carries a hash that is insensitive to array ordering,
+ * so that elements of unordered arrays are matched via hash lookups in
+ * near-linear time. Only elements without an exact counterpart fall back to
+ * pairwise, extensible matching.
+ *
+ * <p>Semantics follow JSONassert: in lenient mode objects are extensible
+ * and arrays are compared regardless of order, in strict mode neither is
+ * permitted. Arrays always need the same number of elements, and numbers
+ * are compared by their {@code double} value, so {@code 1} equals
+ * {@code 1.0}.
+ *
+ * <p>Like the {@code org.json} parser used by JSONassert, the parser is
+ * lenient: strings and field names may be single-quoted or unquoted, names
+ * may be followed by {@code =} or {@code =>}, members and elements may be
+ * separated by {@code ;}, empty array elements are {@code null}, block
+ * and line comments are skipped, and any content after the top-level value
+ * is ignored.
+ *
+ * @author TODAY
+ * @since 4.0
+ */
+final class JsonComparator {
+
+  /**
+   * The default maximum number of reported differences: {@value}.
+   */
+  static final int DEFAULT_MAX_DIFFERENCES = 20;
+
+  private static final int MAX_DESCRIPTION_LENGTH = 64;
+
+  private final boolean strict;
+
+  private final int maxDifferences;
+
+  private final List<String> differences = new ArrayList<>();
+
+  private boolean truncated;
+
+  JsonComparator(boolean strict, int maxDifferences) {
+    this.strict = strict;
+    this.maxDifferences = maxDifferences;
+  }
+
+  /**
+   * Compare the supplied documents and return the differences, each
+   * prefixed with its JSON path; empty if the documents are similar.
+   *
+   * @throws IllegalArgumentException if either document is not valid JSON
+   */
+  List<String> compare(String expected, String actual) {
+    this.differences.clear();
+    this.truncated = false;
+    if (!identical(expected, actual)) {
+      Node expectedNode = parse(expected, "expected");
+      Node actualNode = parse(actual, "actual");
+      compare(null, expectedNode, actualNode, true);
+    }
+    return this.differences;
+  }
+
+  /**
+   * Whether more differences were found than have been reported.
+   */
+  boolean isTruncated() {
+    return this.truncated;
+  }
+
+  /**
+   * Build an assertion message for the differences of the last comparison.
+   */
+  String getMessage() {
+    StringBuilder message = new StringBuilder("JSON documents differ:");
+    for (String difference : this.differences) {
+      message.append("\n  ").append(difference);
+    }
+    if (this.truncated) {
+      message.append("\n  ... (showing the first ").append(this.maxDifferences).append(" differences)");
+    }
+    return message.toString();
+  }
+
+  // Comparison
+
+  private boolean compare(@Nullable PathElement path, Node expected, Node actual, boolean record) {
+    if (expected instanceof ObjectNode expectedObject && actual instanceof ObjectNode actualObject) {
+      return compareObjects(path, expectedObject, actualObject, record);
+    }
+    if (expected instanceof ArrayNode expectedArray && actual instanceof ArrayNode actualArray) {
+      return compareArrays(path, expectedArray, actualArray, record);
+    }
+    if (expected instanceof ValueNode expectedValue && expectedValue.equals(actual)) {
+      return true;
+    }
+    return fail(record, path, "Expected " + describe(expected) + " but was " + describe(actual));
+  }
+
+  private boolean compareObjects(@Nullable PathElement path, ObjectNode expected, ObjectNode actual, boolean record) {
+    boolean similar = true;
+    for (Map.Entry<String, Node> entry : expected.members.entrySet()) {
+      Node actualValue = actual.members.get(entry.getKey());
+      PathElement fieldPath = new PathElement(path, entry.getKey(), -1);
+      if (actualValue == null) {
+        similar = fail(record, fieldPath, "Expected " + describe(entry.getValue()) + " but was missing");
+      }
+      else if (!compare(fieldPath, entry.getValue(), actualValue, record)) {
+        similar = false;
+      }
+      if (!similar && (!record || this.truncated)) {
+        return false;
+      }
+    }
+    if (this.strict) {
+      for (Map.Entry<String, Node> entry : actual.members.entrySet()) {
+        if (!expected.members.containsKey(entry.getKey())) {
+          similar = fail(record, new PathElement(path, entry.getKey(), -1),
+                  "Unexpected " + describe(entry.getValue()));
+          if (!record || this.truncated) {
+            return false;
+          }
+        }
+      }
+    }
+    return similar;
+  }
+
+  private boolean compareArrays(@Nullable PathElement path, ArrayNode expected, ArrayNode actual, boolean record) {
+    List<Node> expectedElements = expected.elements;
+    List<Node> actualElements = actual.elements;
+    int size = expectedElements.size();
+    if (size != actualElements.size()) {
+      return fail(record, path, "Expected " + size + " values but got " + actualElements.size());
+    }
+
+    boolean similar = true;
+    if (this.strict) {
+      for (int i = 0; i < size; i++) {
+        if (!compare(new PathElement(path, null, i), expectedElements.get(i), actualElements.get(i), record)) {
+          similar = false;
+          if (!record || this.truncated) {
+            return false;
+          }
+        }
+      }
+      return similar;
+    }
+
+    // Pass 1: match elements with an exact counterpart via their hashes
+    HashMap<Integer, ArrayDeque<Integer>> buckets = new HashMap<>(size * 2);
+    for (int j = 0; j < size; j++) {
+      buckets.computeIfAbsent(actualElements.get(j).hash, key -> new ArrayDeque<>(1)).add(j);
+    }
+    boolean[] matched = new boolean[size];
+    ArrayList<Integer> unmatched = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      Node element = expectedElements.get(i);
+      ArrayDeque<Integer> bucket = buckets.get(element.hash);
+      if (!removeEquivalent(element, bucket, actualElements, matched)) {
+        unmatched.add(i);
+      }
+    }
+
+    // Pass 2: extensible matching of the remaining elements
+    for (int i : unmatched) {
+      Node element = expectedElements.get(i);
+      boolean found = false;
+      for (int j = 0; j < size && !found; j++) {
+        if (!matched[j] && compare(null, element, actualElements.get(j), false)) {
+          matched[j] = true;
+          found = true;
+        }
+      }
+      if (!found) {
+        similar = fail(record, new PathElement(path, null, i),
+                "Could not find match for element " + describe(element));
+        if (!record || this.truncated) {
+          return false;
+        }
+      }
+    }
+    return similar;
+  }
+
+  private static boolean removeEquivalent(
+          Node element, @Nullable ArrayDeque<Integer> bucket, List<Node> candidates, boolean[] matched) {
+    if (bucket != null) {
+      for (Integer index : bucket) {
+        if (!matched[index] && equivalent(element, candidates.get(index))) {
+          matched[index] = true;
+          bucket.remove(index);
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Whether the supplied nodes are equal, ignoring the order of array elements.
+   */
+  private static boolean equivalent(Node x, Node y) {
+    if (x == y) {
+      return true;
+    }
+    if (x.hash != y.hash || x.getClass() != y.getClass()) {
+      return false;
+    }
+    if (x instanceof ValueNode) {
+      return x.equals(y);
+    }
+    if (x instanceof ObjectNode xObject) {
+      Map<String, Node> yMembers = ((ObjectNode) y).members;
+      if (xObject.members.size() != yMembers.size()) {
+        return false;
+      }
+      for (Map.Entry<String, Node> entry : xObject.members.entrySet()) {
+        Node other = yMembers.get(entry.getKey());
+        if (other == null || !equivalent(entry.getValue(), other)) {
+          return false;
+        }
+      }
+      return true;
+    }
+    List<Node> xElements = ((ArrayNode) x).elements;
+    List<Node> yElements = ((ArrayNode) y).elements;
+    int size = xElements.size();
+    if (size != yElements.size()) {
+      return false;
+    }
+    // Same order is the common case: only bucket the remainder
+    int start = 0;
+    while (start < size && equivalent(xElements.get(start), yElements.get(start))) {
+      start++;
+    }
+    if (start == size) {
+      return true;
+    }
+    HashMap<Integer, ArrayDeque<Integer>> buckets = new HashMap<>((size - start) * 2);
+    for (int j = start; j < size; j++) {
+      buckets.computeIfAbsent(yElements.get(j).hash, key -> new ArrayDeque<>(1)).add(j);
+    }
+    boolean[] matched = new boolean[size];
+    for (int i = start; i < size; i++) {
+      Node element = xElements.get(i);
+      if (!removeEquivalent(element, buckets.get(element.hash), yElements, matched)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean fail(boolean record, @Nullable PathElement path, String message) {
+    if (record) {
+      if (this.differences.size() < this.maxDifferences) {
+        this.differences.add((path != null ? path.toString() : "$") + ": " + message);
+      }
+      else {
+        this.truncated = true;
+      }
+    }
+    return false;
+  }
+
+  private static String describe(Node node) {
+    if (node instanceof ObjectNode objectNode) {
+      return "an object with " + objectNode.members.size() + " fields";
+    }
+    if (node instanceof ArrayNode arrayNode) {
+      return "an array with " + arrayNode.elements.size() + " values";
+    }
+    ValueNode value = (ValueNode) node;
+    String text = (value.kind == ValueKind.STRING ? '"' + value.text + '"' : value.text);
+    if (text.length() > MAX_DESCRIPTION_LENGTH) {
+      text = text.substring(0, MAX_DESCRIPTION_LENGTH) + "...";
+    }
+    return text;
+  }
+
+  // Streaming fast path
+
+  /**
+   * Whether both documents consist of the same tokens. Returns {@code false}
+   * as soon as they deviate, or if the expected document is malformed, in
+   * which case the parser reports the error.
+   */
+  private static boolean identical(String expected, String actual) {
+    Tokenizer e = new Tokenizer(expected, "expected");
+    Tokenizer a = new Tokenizer(actual, "actual");
+    e.next();
+    a.next();
+    return sameValue(e, a);
+  }
+
+  private static boolean sameValue(Tokenizer e, Tokenizer a) {
+    if (!sameToken(e, a)) {
+      return false;
+    }
+    char type = e.type;
+    if (type != '{' && type != '[') {
+      return (type == Tokenizer.STRING || type == Tokenizer.LITERAL);
+    }
+    char close = (type == '{' ? '}' : ']');
+    e.next();
+    a.next();
+    if (e.type == close) {
+      return sameToken(e, a);
+    }
+    while (true) {
+      if (type == '{') {
+        if (e.type != Tokenizer.STRING || !sameToken(e, a) || e.next() != ':' || a.next() != ':') {
+          return false;
+        }
+        e.next();
+        a.next();
+      }
+      if (!sameValue(e, a)) {
+        return false;
+      }
+      e.next();
+      a.next();
+      if (!sameToken(e, a)) {
+        return false;
+      }
+      if (e.type == close) {
+        return true;
+      }
+      if (e.type != ',') {
+        return false;
+      }
+      e.next();
+      a.next();
+    }
+  }
+
+  private static boolean sameToken(Tokenizer e, Tokenizer a) {
+    if (e.type != a.type) {
+      return false;
+    }
+    int length = e.end - e.start;
+    if (length == a.end - a.start && e.json.regionMatches(e.start, a.json, a.start, length)) {
+      return true;
+    }
+    return (e.type == Tokenizer.LITERAL && literal(e).equals(literal(a)));
+  }
+
+  // Parsing
+
+  private static Node parse(String json, String description) {
+    Tokenizer tokenizer = new Tokenizer(json, description);
+    tokenizer.next();
+    return parseValue(tokenizer);
+  }
+
+  private static Node parseValue(Tokenizer tokenizer) {
+    switch (tokenizer.type) {
+      case '{': {
+        LinkedHashMap<String, Node> members = new LinkedHashMap<>();
+        if (tokenizer.next() != '}') {
+          while (true) {
+            String name = fieldName(tokenizer);
+            if (tokenizer.next() != ':') {
+              throw tokenizer.error("Expected ':'");
+            }
+            tokenizer.next();
+            members.put(name, parseValue(tokenizer));
+            if (tokenizer.next() == '}') {
+              break;
+            }
+            if (tokenizer.type != ',') {
+              throw tokenizer.error("Expected ',' or '}'");
+            }
+            tokenizer.next();
+          }
+        }
+        return new ObjectNode(members);
+      }
+      case '[': {
+        // As with org.json, an empty element is null: [1,,2] and [1,] both have a null
+        ArrayList<Node> elements = new ArrayList<>();
+        boolean trailingSeparator = false;
+        while (true) {
+          tokenizer.next();
+          if (tokenizer.type == ']') {
+            if (trailingSeparator) {
+              elements.add(NULL);
+            }
+            break;
+          }
+          if (tokenizer.type == ',') {
+            elements.add(NULL);
+            trailingSeparator = true;
+            continue;
+          }
+          elements.add(parseValue(tokenizer));
+          if (tokenizer.next() == ']') {
+            break;
+          }
+          if (tokenizer.type != ',') {
+            throw tokenizer.error("Expected ',' or ']'");
+          }
+          trailingSeparator = true;
+        }
+        return new ArrayNode(elements);
+      }
+      case Tokenizer.STRING:
+        String value = tokenizer.stringValue();
+        return new ValueNode(ValueKind.STRING, value, value);
+      case Tokenizer.LITERAL:
+        return literal(tokenizer);
+      default:
+        throw tokenizer.error("Expected a JSON value");
+    }
+  }
+
+  private static String fieldName(Tokenizer tokenizer) {
+    if (tokenizer.type == Tokenizer.STRING) {
+      return tokenizer.stringValue();
+    }
+    if (tokenizer.type == Tokenizer.LITERAL) {
+      ValueNode name = literal(tokenizer);
+      if (name.kind == ValueKind.STRING) {
+        return name.value;
+      }
+    }
+    throw tokenizer.error("Expected field name");
+  }
+
+  /**
+   * Interpret an unquoted token the way {@code org.json} does: as
+   * {@code null} or a boolean regardless of case, as a decimal, hexadecimal
+   * or octal integer, as a floating point number, or else as a string.
+   */
+  private static ValueNode literal(Tokenizer tokenizer) {
+    String text = tokenizer.text();
+    if ("null".equalsIgnoreCase(text) || "true".equalsIgnoreCase(text) || "false".equalsIgnoreCase(text)) {
+      return new ValueNode(ValueKind.LITERAL, text.toLowerCase(Locale.ROOT), text);
+    }
+    Double number = null;
+    if (text.indexOf('.') == -1) {
+      String digits = text;
+      int radix = 10;
+      if (digits.startsWith("0x") || digits.startsWith("0X")) {
+        digits = digits.substring(2);
+        radix = 16;
+      }
+      else if (digits.startsWith("0") && digits.length() > 1) {
+        digits = digits.substring(1);
+        radix = 8;
+      }
+      try {
+        number = (double) Long.parseLong(digits, radix);
+      }
+      catch (NumberFormatException ex) {
+        // not an integer
+      }
+    }
+    if (number == null) {
+      try {
+        number = Double.valueOf(text);
+      }
+      catch (NumberFormatException ex) {
+        return new ValueNode(ValueKind.STRING, text, text);
+      }
+    }
+    // compared by double value, as JSONassert does: 0 equals -0.0
+    return new ValueNode(ValueKind.NUMBER, (number == 0 ? "0" : number.toString()), text);
+  }
+
+  private static final class Tokenizer {
+
+    static final char EOF = 0;
+
+    static final char STRING = 's';
+
+    static final char LITERAL = 'l';
+
+    /**
+     * Characters that end an unquoted literal, as in {@code org.json}.
+     */
+    private static final String LITERAL_DELIMITERS = "{}[]/\\:,=;# \t\f\r\n";
+
+    final String json;
+
+    final String description;
+
+    int position;
+
+    char type;
+
+    int start;
+
+    int end;
+
+    Tokenizer(String json, String description) {
+      this.json = json;
+      this.description = description;
+    }
+
+    char next() {
+      String json = this.json;
+      int length = json.length();
+      int pos = skipWhitespaceAndComments(json, this.position);
+      this.start = pos;
+      if (pos == length) {
+        this.type = EOF;
+        this.end = pos;
+        this.position = pos;
+        return EOF;
+      }
+      char c = json.charAt(pos);
+      switch (c) {
+        case '{', '}', '[', ']', ':', ',' -> {
+          this.type = c;
+          pos++;
+        }
+        case ';' -> {
+          this.type = ',';
+          pos++;
+        }
+        case '=' -> {
+          this.type = ':';
+          pos++;
+          if (pos < length && json.charAt(pos) == '>') {
+            pos++;
+          }
+        }
+        case '"', '\'' -> {
+          this.type = STRING;
+          pos++;
+          while (true) {
+            if (pos >= length) {
+              this.position = pos;
+              throw error("Unterminated string");
+            }
+            char ch = json.charAt(pos++);
+            if (ch == c) {
+              break;
+            }
+            if (ch == '\\') {
+              pos++;
+            }
+          }
+        }
+        default -> {
+          if (LITERAL_DELIMITERS.indexOf(c) != -1) {
+            throw error("Unexpected character '" + c + "'");
+          }
+          this.type = LITERAL;
+          pos++;
+          while (pos < length && LITERAL_DELIMITERS.indexOf(json.charAt(pos)) == -1) {
+            pos++;
+          }
+        }
+      }
+      this.end = pos;
+      this.position = pos;
+      return this.type;
+    }
+
+    private int skipWhitespaceAndComments(String json, int pos) {
+      int length = json.length();
+      while (pos < length) {
+        char c = json.charAt(pos);
+        if (Character.isWhitespace(c)) {
+          pos++;
+        }
+        else if (c == '#' || (c == '/' && pos + 1 < length && json.charAt(pos + 1) == '/')) {
+          while (pos < length && json.charAt(pos) != '\n' && json.charAt(pos) != '\r') {
+            pos++;
+          }
+        }
+        else if (c == '/' && pos + 1 < length && json.charAt(pos + 1) == '*') {
+          int end = json.indexOf("*/", pos + 2);
+          if (end == -1) {
+            this.start = pos;
+            throw error("Unterminated comment");
+          }
+          pos = end + 2;
+        }
+        else {
+          break;
+        }
+      }
+      return pos;
+    }
+
+    String text() {
+      return this.json.substring(this.start, this.end);
+    }
+
+    String stringValue() {
+      int from = this.start + 1;
+      int to = this.end - 1;
+      int escape = from;
+      while (escape < to && this.json.charAt(escape) != '\\') {
+        escape++;
+      }
+      if (escape == to) {
+        return this.json.substring(from, to);
+      }
+      StringBuilder builder = new StringBuilder(to - from);
+      for (int i = from; i < to; i++) {
+        char c = this.json.charAt(i);
+        if (c != '\\') {
+          builder.append(c);
+          continue;
+        }
+        char escaped = this.json.charAt(++i);
+        switch (escaped) {
+          case 'b' -> builder.append('\b');
+          case 'f' -> builder.append('\f');
+          case 'n' -> builder.append('\n');
+          case 'r' -> builder.append('\r');
+          case 't' -> builder.append('\t');
+          case 'u' -> {
+            if (i + 4 >= to) {
+              throw error("Invalid unicode escape");
+            }
+            try {
+              builder.append((char) Integer.parseInt(this.json.substring(i + 1, i + 5), 16));
+            }
+            catch (NumberFormatException ex) {
+              throw error("Invalid unicode escape");
+            }
+            i += 4;
+          }
+          default -> builder.append(escaped);
+        }
+      }
+      return builder.toString();
+    }
+
+    IllegalArgumentException error(String message) {
+      return new IllegalArgumentException(
+              message + " at position " + this.start + " of " + this.description + " JSON");
+    }
+  }
+
+  // Tree model
+
+  private static final ValueNode NULL = new ValueNode(ValueKind.LITERAL, "null", "null");
+
+  private enum ValueKind {
+    STRING, NUMBER, LITERAL
+  }
+
+  private abstract static class Node {
+
+    /**
+     * Hash of this subtree, independent of the order of array elements.
+     */
+    final int hash;
+
+    Node(int hash) {
+      this.hash = hash;
+    }
+  }
+
+  private static final class ValueNode extends Node {
+
+    final ValueKind kind;
+
+    /**
+     * The canonical value, compared for equality.
+     */
+    final String value;
+
+    /**
+     * The value as written in the document, used in messages.
+     */
+    final String text;
+
+    ValueNode(ValueKind kind, String value, String text) {
+      super(kind.ordinal() * 31 + value.hashCode());
+      this.kind = kind;
+      this.value = value;
+      this.text = text;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return (this == other || (other instanceof ValueNode that
+              && this.kind == that.kind && this.value.equals(that.value)));
+    }
+
+    @Override
+    public int hashCode() {
+      return this.hash;
+    }
+  }
+
+  private static final class ObjectNode extends Node {
+
+    final Map<String, Node> members;
+
+    ObjectNode(Map<String, Node> members) {
+      super(hash(members));
+      this.members = members;
+    }
+
+    private static int hash(Map<String, Node> members) {
+      int hash = 0x0B7EC7;
+      for (Map.Entry<String, Node> entry : members.entrySet()) {
+        hash += mix(entry.getKey().hashCode() * 31 + entry.getValue().hash);
+      }
+      return hash;
+    }
+  }
+
+  private static final class ArrayNode extends Node {
+
+    final List<Node> elements;
+
+    ArrayNode(List<Node> elements) {
+      super(hash(elements));
+      this.elements = elements;
+    }
+
+    private static int hash(List<Node> elements) {
+      int hash = 0xA77A4;
+      for (Node element : elements) {
+        hash += mix(element.hash);
+      }
+      return hash;
+    }
+  }
+
+  private static int mix(int hash) {
+    int h = hash * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  /**
+   * Lazily rendered JSON path of a compared node.
+   */
+  private record PathElement(@Nullable PathElement parent, @Nullable String name, int index) {
+
+    @Override
+    public String toString() {
+      StringBuilder builder = new StringBuilder();
+      append(builder);
+      return builder.toString();
+    }
+
+    private void append(StringBuilder builder) {
+      if (this.parent != null) {
+        this.parent.append(builder);
+      }
+      else {
+        builder.append('$');
+      }
+      if (this.name == null) {
+        builder.append('[').append(this.index).append(']');
+      }
+      else if (isIdentifier(this.name)) {
+        builder.append('.').append(this.name);
+      }
+      else {
+        builder.append("['").append(this.name.replace("'", "\\'")).append("']");
+      }
+    }
+
+    private static boolean isIdentifier(String name) {
+      if (name.isEmpty() || !Character.isJavaIdentifierStart(name.charAt(0))) {
+        return false;
+      }
+      for (int i = 1; i < name.length(); i++) {
+        if (!Character.isJavaIdentifierPart(name.charAt(i))) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+}
@@ -20,13 +20,16 @@
 
 package cn.taketoday.test.util;
 
-import org.skyscreamer.jsonassert.JSONAssert;
+import java.util.List;
 
 /**
  * A helper class for assertions on JSON content.
  *
- * <p>Use of this class requires the <a
- * href="https://jsonassert.skyscreamer.org/">JSONassert</a> library.
+ * <p>Comparisons follow the semantics of the <a
+ * href="https://jsonassert.skyscreamer.org/">JSONassert</a> library, but are
+ * performed in near-linear time, also for large unordered arrays. Failures
+ * report up to {@value JsonComparator#DEFAULT_MAX_DIFFERENCES} differences,
+ * each addressed by its JSON path.
  *
  * @author Sebastien Deleuze
  */
@@ -61,7 +64,11 @@ public class JsonExpectationsHelper {
    * @param strict enables strict checking
    */
   public void assertJsonEqual(String expected, String actual, boolean strict) throws Exception {
-    JSONAssert.assertEquals(expected, actual, strict);
+    JsonComparator comparator = new JsonComparator(strict, JsonComparator.DEFAULT_MAX_DIFFERENCES);
+    List<String> differences = comparator.compare(expected, actual);
+    if (!differences.isEmpty()) {
+      AssertionErrors.fail(comparator.getMessage());
+    }
   }
 
   /**
@@ -93,7 +100,10 @@ public class JsonExpectationsHelper {
    * @param strict enables strict checking
    */
   public void assertJsonNotEqual(String expected, String actual, boolean strict) throws Exception {
-    JSONAssert.assertNotEquals(expected, actual, strict);
+    JsonComparator comparator = new JsonComparator(strict, 1);
+    if (comparator.compare(expected, actual).isEmpty()) {
+      AssertionErrors.fail("Expected JSON documents to differ, but they are similar");
+    }
   }
 
 }
@@ -0,0 +1,189 @@
+/*
+ * Original Author -> Harry Yang (taketoday@foxmail.com) https://taketoday.cn
+ * Copyright © TODAY & 2017 - 2021 All Rights Reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+package cn.taketoday.test.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import cn.taketoday.lang.Nullable;
+
+/**
+ * Compares two XML documents event by event via StAX, without building
+ * a DOM for either of them.
+ *
+ * <p>Elements and attributes are compared by namespace URI and local name,
+ * so namespace prefixes and declarations do not matter. Attribute order is
+ * ignored, text is trimmed with whitespace-only text dropped, CDATA sections
+ * are treated as text, and comments and the document type declaration are
+ * skipped. Documents found similar here are also similar to XMLUnit's
+ * {@code checkForSimilar()} comparison used by {@link XmlExpectationsHelper};
+ * the reverse does not hold since XMLUnit also matches reordered elements,
+ * so a negative result must be confirmed with XMLUnit.
+ *
+ * @author TODAY
+ * @since 4.0
+ */
+final class StreamingXmlComparator {
+
+  private StreamingXmlComparator() { }
+
+  /**
+   * Determine whether the supplied documents are similar, streaming both.
+   *
+   * @throws XMLStreamException if either document is not well-formed
+   */
+  static boolean similar(String expected, String actual) throws XMLStreamException {
+    XMLStreamReader expectedReader = XmlFactories.createStreamReader(expected);
+    try {
+      XMLStreamReader actualReader = XmlFactories.createStreamReader(actual);
+      try {
+        return similar(new EventCursor(expectedReader), new EventCursor(actualReader));
+      }
+      finally {
+        actualReader.close();
+      }
+    }
+    finally {
+      expectedReader.close();
+    }
+  }
+
+  private static boolean similar(EventCursor expected, EventCursor actual) throws XMLStreamException {
+    while (true) {
+      int event = expected.next();
+      if (event != actual.next()) {
+        return false;
+      }
+      switch (event) {
+        case XMLStreamConstants.END_DOCUMENT -> {
+          return true;
+        }
+        case XMLStreamConstants.START_ELEMENT -> {
+          if (!sameElement(expected.reader, actual.reader)) {
+            return false;
+          }
+        }
+        case XMLStreamConstants.CHARACTERS -> {
+          if (!expected.text.equals(actual.text)) {
+            return false;
+          }
+        }
+        case XMLStreamConstants.PROCESSING_INSTRUCTION -> {
+          if (!expected.reader.getPITarget().equals(actual.reader.getPITarget())
+                  || !nullSafeTrim(expected.reader.getPIData()).equals(nullSafeTrim(actual.reader.getPIData()))) {
+            return false;
+          }
+        }
+        default -> {
+          // END_ELEMENT: names are balanced by the parser
+        }
+      }
+    }
+  }
+
+  private static boolean sameElement(XMLStreamReader expected, XMLStreamReader actual) {
+    if (!expected.getLocalName().equals(actual.getLocalName())
+            || !nullSafe(expected.getNamespaceURI()).equals(nullSafe(actual.getNamespaceURI()))) {
+      return false;
+    }
+    int count = expected.getAttributeCount();
+    if (count != actual.getAttributeCount()) {
+      return false;
+    }
+    if (count == 0) {
+      return true;
+    }
+    Map<String, String> attributes = new HashMap<>(count * 2);
+    for (int i = 0; i < count; i++) {
+      attributes.put(attributeKey(expected, i), expected.getAttributeValue(i));
+    }
+    for (int i = 0; i < count; i++) {
+      if (!actual.getAttributeValue(i).equals(attributes.get(attributeKey(actual, i)))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static String attributeKey(XMLStreamReader reader, int index) {
+    return nullSafe(reader.getAttributeNamespace(index)) + '|' + reader.getAttributeLocalName(index);
+  }
+
+  private static String nullSafe(@Nullable String value) {
+    return (value != null ? value : "");
+  }
+
+  private static String nullSafeTrim(@Nullable String value) {
+    return (value != null ? value.trim() : "");
+  }
+
+  /**
+   * Iterates over the significant events of a document, joining adjacent
+   * text into a single trimmed {@code CHARACTERS} event.
+   */
+  private static final class EventCursor {
+
+    final XMLStreamReader reader;
+
+    String text = "";
+
+    private boolean pending;
+
+    EventCursor(XMLStreamReader reader) {
+      this.reader = reader;
+    }
+
+    int next() throws XMLStreamException {
+      StringBuilder buffer = null;
+      while (true) {
+        int event = (this.pending ? this.reader.getEventType() : this.reader.next());
+        this.pending = false;
+        switch (event) {
+          case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA, XMLStreamConstants.SPACE -> {
+            if (buffer == null) {
+              buffer = new StringBuilder();
+            }
+            buffer.append(this.reader.getTextCharacters(), this.reader.getTextStart(), this.reader.getTextLength());
+          }
+          case XMLStreamConstants.COMMENT, XMLStreamConstants.DTD -> {
+            // ignored
+          }
+          default -> {
+            if (buffer != null) {
+              String trimmed = buffer.toString().trim();
+              buffer = null;
+              if (!trimmed.isEmpty()) {
+                this.text = trimmed;
+                this.pending = true;
+                return XMLStreamConstants.CHARACTERS;
+              }
+            }
+            return event;
+          }
+        }
+      }
+    }
+  }
+
+}
@@ -0,0 +1,470 @@
+/*
+ * Original Author -> Harry Yang (taketoday@foxmail.com) https://taketoday.cn
+ * Copyright © TODAY & 2017 - 2021 All Rights Reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+package cn.taketoday.test.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import cn.taketoday.lang.Nullable;
+import cn.taketoday.util.StringUtils;
+
+/**
+ * Evaluates a common subset of XPath in a single StAX pass, without
+ * building a DOM, for {@link XpathExpectationsHelper}.
+ *
+ * <p>Supported are absolute location paths of child ({@code /}) and
+ * descendant ({@code //}) steps with name tests, {@code *} and an optional
+ * positional predicate such as {@code [2]}, optionally ending in an
+ * attribute step ({@code /@name}) or {@code /text()}, and such a path
+ * wrapped in {@code count(...)}. For example:
+ * <pre class="code">
+ * /feed/entry[3]/title
+ * //item/@id
+ * count(//ns:order/ns:line)
+ * </pre>
+ * {@link #compile} returns {@code null} for any other expression, in which
+ * case the DOM based evaluation must be used.
+ *
+ * <p>Name tests follow the DOM the helper would otherwise build: with
+ * namespaces, names are matched by namespace URI and local name; without
+ * namespaces, by name, and prefixed name tests are not supported. Since
+ * the JAXP XPath engine treats prefixed names in a DOM built without
+ * namespace support inconsistently, such documents are not evaluated here
+ * and the methods below return {@code null} or {@code -1} instead.
+ *
+ * @author TODAY
+ * @since 4.0
+ */
+final class StreamingXpathEvaluator {
+
+  private static final Pattern NAME_PATTERN = Pattern.compile("[A-Za-z_][\\w.\\-]*(:[A-Za-z_][\\w.\\-]*)?");
+
+  private static final Pattern POSITION_PATTERN = Pattern.compile("[1-9][0-9]{0,8}");
+
+  private static final Pattern NUMBER_PATTERN = Pattern.compile("-?([0-9]+(\\.[0-9]*)?|\\.[0-9]+)");
+
+  private final Step[] steps;
+
+  @Nullable
+  private final NameTest attribute;
+
+  private final boolean text;
+
+  private final boolean count;
+
+  private final boolean namespaceAware;
+
+  private StreamingXpathEvaluator(List<Step> steps, @Nullable NameTest attribute,
+          boolean text, boolean count, boolean namespaceAware) {
+
+    this.steps = steps.toArray(new Step[0]);
+    this.attribute = attribute;
+    this.text = text;
+    this.count = count;
+    this.namespaceAware = namespaceAware;
+  }
+
+  /**
+   * Compile the supplied expression, or return {@code null} if it is
+   * outside the supported subset.
+   *
+   * @param expression the XPath expression
+   * @param namespaces the namespace bindings; may be empty
+   */
+  @Nullable
+  static StreamingXpathEvaluator compile(String expression, Map<String, String> namespaces) {
+    String path = expression.trim();
+    boolean count = false;
+    if (path.startsWith("count(") && path.endsWith(")")) {
+      count = true;
+      path = path.substring(6, path.length() - 1).trim();
+    }
+    boolean namespaceAware = !namespaces.isEmpty();
+    List<Step> steps = new ArrayList<>();
+    NameTest attribute = null;
+    boolean text = false;
+    int pos = 0;
+    int length = path.length();
+    while (pos < length) {
+      if (attribute != null || text || path.charAt(pos) != '/') {
+        return null;
+      }
+      pos++;
+      boolean descendant = (pos < length && path.charAt(pos) == '/');
+      if (descendant) {
+        pos++;
+      }
+      int end = pos;
+      while (end < length && path.charAt(end) != '/') {
+        end++;
+      }
+      String step = path.substring(pos, end).trim();
+      pos = end;
+      if (step.equals("text()")) {
+        if (descendant) {
+          return null;
+        }
+        text = true;
+      }
+      else if (step.startsWith("@")) {
+        String name = step.substring(1);
+        if (descendant || name.equals("*") || name.startsWith("xmlns")) {
+          return null;
+        }
+        attribute = NameTest.parse(name, namespaces, namespaceAware);
+        if (attribute == null) {
+          return null;
+        }
+      }
+      else {
+        int position = 0;
+        int bracket = step.indexOf('[');
+        if (bracket >= 0) {
+          String predicate = step.substring(bracket + 1, step.length() - 1).trim();
+          if (!step.endsWith("]") || !POSITION_PATTERN.matcher(predicate).matches()) {
+            return null;
+          }
+          position = Integer.parseInt(predicate);
+          step = step.substring(0, bracket).trim();
+        }
+        NameTest nameTest = NameTest.parse(step, namespaces, namespaceAware);
+        if (nameTest == null) {
+          return null;
+        }
+        steps.add(new Step(descendant, nameTest, position));
+      }
+    }
+    if (steps.isEmpty()) {
+      return null;
+    }
+    return new StreamingXpathEvaluator(steps, attribute, text, count, namespaceAware);
+  }
+
+  /**
+   * Whether the expression is wrapped in {@code count(...)} and therefore
+   * evaluates to a number rather than to nodes.
+   */
+  boolean isCount() {
+    return this.count;
+  }
+
+  /**
+   * Whether the location path selects at least one node.
+   *
+   * @return {@code null} if the document must be evaluated via the DOM
+   */
+  @Nullable
+  Boolean exists(byte[] content, @Nullable String encoding) throws XMLStreamException {
+    Result result = scan(content, encoding, Mode.EXISTS);
+    return (result != null ? result.count > 0 : null);
+  }
+
+  /**
+   * The number of nodes selected by the location path.
+   *
+   * @return {@code -1} if the document must be evaluated via the DOM
+   */
+  int count(byte[] content, @Nullable String encoding) throws XMLStreamException {
+    Result result = scan(content, encoding, Mode.COUNT);
+    return (result != null ? result.count : -1);
+  }
+
+  /**
+   * Evaluate the expression as a number, string or boolean, following the
+   * XPath 1.0 conversion rules.
+   *
+   * @return {@code null} if the document must be evaluated via the DOM
+   */
+  @Nullable
+  Object evaluate(byte[] content, @Nullable String encoding, Class<?> targetClass) throws XMLStreamException {
+    if (this.count) {
+      int count = count(content, encoding);
+      if (count < 0) {
+        return null;
+      }
+      if (Number.class.isAssignableFrom(targetClass)) {
+        return (double) count;
+      }
+      if (Boolean.class.isAssignableFrom(targetClass)) {
+        return count != 0;
+      }
+      return Integer.toString(count);
+    }
+    if (Boolean.class.isAssignableFrom(targetClass)) {
+      return exists(content, encoding);
+    }
+    Result result = scan(content, encoding, Mode.STRING);
+    if (result == null) {
+      return null;
+    }
+    String value = (result.value != null ? result.value : "");
+    if (Number.class.isAssignableFrom(targetClass)) {
+      String trimmed = value.trim();
+      return (NUMBER_PATTERN.matcher(trimmed).matches() ? Double.valueOf(trimmed) : Double.NaN);
+    }
+    return value;
+  }
+
+  @Nullable
+  private Result scan(byte[] content, @Nullable String encoding, Mode mode) throws XMLStreamException {
+    XMLStreamReader reader = XmlFactories.createStreamReader(content, encoding);
+    try {
+      return scan(reader, mode);
+    }
+    finally {
+      reader.close();
+    }
+  }
+
+  @Nullable
+  private Result scan(XMLStreamReader reader, Mode mode) throws XMLStreamException {
+    Step[] steps = this.steps;
+    int stepCount = steps.length;
+    Result result = new Result();
+    ArrayList<Frame> stack = new ArrayList<>();
+    Frame root = new Frame(new int[] { 0 }, stepCount);
+    stack.add(root);
+
+    // capture of the string-value of the first selected element or text node
+    StringBuilder capture = null;
+    int captureDepth = -1;
+
+    while (reader.hasNext()) {
+      int event = reader.next();
+      switch (event) {
+        case XMLStreamConstants.START_ELEMENT -> {
+          if (!this.namespaceAware && hasPrefixedName(reader)) {
+            return null;
+          }
+          Frame parent = stack.get(stack.size() - 1);
+          parent.textRun = false;
+          if (capture != null && captureDepth == stack.size() - 1 && this.text) {
+            // first selected text node ended
+            result.value = capture.toString();
+            return result;
+          }
+          boolean[] next = new boolean[stepCount + 1];
+          boolean any = false;
+          for (int k : parent.states) {
+            if (k == stepCount) {
+              continue;
+            }
+            Step step = steps[k];
+            if (step.descendant) {
+              next[k] = true;
+              any = true;
+            }
+            if (step.nameTest.matchesElement(reader, this.namespaceAware)) {
+              if (step.position == 0 || ++parent.positions[k] == step.position) {
+                next[k + 1] = true;
+                any = true;
+              }
+            }
+          }
+          Frame frame = new Frame(any ? toStates(next) : Frame.NO_STATES, stepCount);
+          stack.add(frame);
+          if (next[stepCount]) {
+            if (this.attribute != null) {
+              String value = this.attribute.attributeValue(reader, this.namespaceAware);
+              if (value != null) {
+                result.count++;
+                if (mode != Mode.COUNT) {
+                  result.value = value;
+                  return result;
+                }
+              }
+            }
+            else if (this.text) {
+              frame.textTarget = true;
+            }
+            else {
+              result.count++;
+              if (mode == Mode.EXISTS) {
+                return result;
+              }
+              if (mode == Mode.STRING && capture == null) {
+                capture = new StringBuilder();
+                captureDepth = stack.size() - 1;
+              }
+            }
+          }
+        }
+        case XMLStreamConstants.END_ELEMENT -> {
+          int depth = stack.size() - 1;
+          if (capture != null && captureDepth >= depth) {
+            result.value = capture.toString();
+            return result;
+          }
+          stack.remove(depth);
+          stack.get(depth - 1).textRun = false;
+        }
+        case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA, XMLStreamConstants.SPACE -> {
+          Frame frame = stack.get(stack.size() - 1);
+          if (frame.textTarget && !frame.textRun) {
+            frame.textRun = true;
+            result.count++;
+            if (mode == Mode.EXISTS) {
+              return result;
+            }
+            if (mode == Mode.STRING && capture == null) {
+              capture = new StringBuilder();
+              captureDepth = stack.size() - 1;
+            }
+          }
+          if (capture != null) {
+            capture.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+          }
+        }
+        case XMLStreamConstants.COMMENT, XMLStreamConstants.PROCESSING_INSTRUCTION -> {
+          Frame frame = stack.get(stack.size() - 1);
+          frame.textRun = false;
+          if (capture != null && this.text && captureDepth == stack.size() - 1) {
+            result.value = capture.toString();
+            return result;
+          }
+        }
+        default -> {
+          // ignore
+        }
+      }
+    }
+    return result;
+  }
+
+  private static boolean hasPrefixedName(XMLStreamReader reader) {
+    if (StringUtils.isNotEmpty(reader.getPrefix())) {
+      return true;
+    }
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      if (StringUtils.isNotEmpty(reader.getAttributePrefix(i))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static int[] toStates(boolean[] next) {
+    int size = 0;
+    for (boolean state : next) {
+      if (state) {
+        size++;
+      }
+    }
+    int[] states = new int[size];
+    int index = 0;
+    for (int k = 0; k < next.length; k++) {
+      if (next[k]) {
+        states[index++] = k;
+      }
+    }
+    return states;
+  }
+
+  private enum Mode {
+    EXISTS, COUNT, STRING
+  }
+
+  private static final class Result {
+
+    int count;
+
+    @Nullable
+    String value;
+  }
+
+  /**
+   * An open element: the indexes of the steps matched so far on the way to
+   * it, and per step the number of its children passing the name test.
+   */
+  private static final class Frame {
+
+    static final int[] NO_STATES = new int[0];
+
+    final int[] states;
+
+    final int[] positions;
+
+    boolean textTarget;
+
+    boolean textRun;
+
+    Frame(int[] states, int stepCount) {
+      this.states = states;
+      this.positions = new int[stepCount];
+    }
+  }
+
+  private record Step(boolean descendant, NameTest nameTest, int position) {
+  }
+
+  private record NameTest(@Nullable String namespaceUri, String localName) {
+
+    @Nullable
+    static NameTest parse(String name, Map<String, String> namespaces, boolean namespaceAware) {
+      if (name.equals("*")) {
+        return new NameTest(null, "*");
+      }
+      if (!NAME_PATTERN.matcher(name).matches()) {
+        return null;
+      }
+      int colon = name.indexOf(':');
+      if (colon < 0) {
+        return new NameTest("", name);
+      }
+      String namespaceUri = namespaces.get(name.substring(0, colon));
+      if (!namespaceAware || namespaceUri == null) {
+        return null;
+      }
+      return new NameTest(namespaceUri, name.substring(colon + 1));
+    }
+
+    boolean matchesElement(XMLStreamReader reader, boolean namespaceAware) {
+      if (this.localName.equals("*")) {
+        return true;
+      }
+      if (!this.localName.equals(reader.getLocalName())) {
+        return false;
+      }
+      return (!namespaceAware || this.namespaceUri.equals(nullSafe(reader.getNamespaceURI())));
+    }
+
+    @Nullable
+    String attributeValue(XMLStreamReader reader, boolean namespaceAware) {
+      for (int i = 0; i < reader.getAttributeCount(); i++) {
+        if (this.localName.equals(reader.getAttributeLocalName(i))
+                && (!namespaceAware || this.namespaceUri.equals(nullSafe(reader.getAttributeNamespace(i))))) {
+          return reader.getAttributeValue(i);
+        }
+      }
+      return null;
+    }
+
+    private static String nullSafe(@Nullable String value) {
+      return (value != null ? value : "");
+    }
+  }
+
+}
@@ -33,7 +33,7 @@ import java.io.StringReader;
 import java.util.Map;
 
 import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLStreamException;
 import javax.xml.transform.Source;
 import javax.xml.transform.dom.DOMSource;
 
@@ -55,9 +55,7 @@ public class XmlExpectationsHelper {
   }
 
   private Document parseXmlString(String xml) throws Exception {
-    DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-    factory.setNamespaceAware(true);
-    DocumentBuilder documentBuilder = factory.newDocumentBuilder();
+    DocumentBuilder documentBuilder = XmlFactories.getDocumentBuilder(true);
     InputSource inputSource = new InputSource(new StringReader(xml));
     return documentBuilder.parse(inputSource);
   }
@@ -76,6 +74,11 @@ public class XmlExpectationsHelper {
    * Parse the expected and actual content strings as XML and assert that the
    * two are "similar" -- i.e. they contain the same elements and attributes
    * regardless of order.
+   * <p>Both documents are first compared in a single streaming pass, which
+   * succeeds without building a DOM if they only differ in formatting,
+   * comments, namespace prefixes or attribute order. Otherwise the
+   * comparison falls back to XMLUnit, which also matches reordered elements
+   * and describes the differences.
    * <p>Use of this method assumes the
    * <a href="https://github.com/xmlunit/xmlunit">XMLUnit</a> library is available.
    *
@@ -85,6 +88,14 @@ public class XmlExpectationsHelper {
    * @see cn.taketoday.test.web.servlet.result.MockMvcResultMatchers#xpath(String, Map, Object...)
    */
   public void assertXmlEqual(String expected, String actual) throws Exception {
+    try {
+      if (StreamingXmlComparator.similar(expected, actual)) {
+        return;
+      }
+    }
+    catch (XMLStreamException ex) {
+      // let XMLUnit report the parse error
+    }
     XmlUnitDiff diff = new XmlUnitDiff(expected, actual);
     if (diff.hasDifferences()) {
       AssertionErrors.fail("Body content " + diff);
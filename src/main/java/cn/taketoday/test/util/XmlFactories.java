@@ -0,0 +1,112 @@
+/*
+ * Original Author -> Harry Yang (taketoday@foxmail.com) https://taketoday.cn
+ * Copyright © TODAY & 2017 - 2021 All Rights Reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+package cn.taketoday.test.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathFactory;
+
+import cn.taketoday.lang.Nullable;
+import cn.taketoday.util.StringUtils;
+
+/**
+ * Pooled XML parser and XPath factories for the XML assertion helpers.
+ *
+ * <p>Creating a {@link DocumentBuilderFactory} or {@link XPathFactory}
+ * involves a service lookup, so builders are reused per thread and reset
+ * before each use. The {@link XMLInputFactory} is thread-safe once
+ * configured and therefore shared.
+ *
+ * @author TODAY
+ * @since 4.0
+ */
+final class XmlFactories {
+
+  private static final ThreadLocal<DocumentBuilder[]> documentBuilders =
+          ThreadLocal.withInitial(() -> new DocumentBuilder[2]);
+
+  private static final ThreadLocal<XPathFactory> xpathFactories =
+          ThreadLocal.withInitial(XPathFactory::newInstance);
+
+  private static final XMLInputFactory inputFactory = createInputFactory();
+
+  private XmlFactories() { }
+
+  private static XMLInputFactory createInputFactory() {
+    XMLInputFactory factory = XMLInputFactory.newInstance();
+    factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+    factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+    return factory;
+  }
+
+  /**
+   * Get a reset {@link DocumentBuilder} for the current thread.
+   */
+  static DocumentBuilder getDocumentBuilder(boolean namespaceAware) throws ParserConfigurationException {
+    DocumentBuilder[] builders = documentBuilders.get();
+    int index = (namespaceAware ? 1 : 0);
+    DocumentBuilder builder = builders[index];
+    if (builder == null) {
+      DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+      factory.setNamespaceAware(namespaceAware);
+      builder = factory.newDocumentBuilder();
+      builders[index] = builder;
+    }
+    else {
+      builder.reset();
+    }
+    return builder;
+  }
+
+  /**
+   * Create a new {@link XPath} from the {@link XPathFactory} of the current thread.
+   */
+  static XPath newXPath() {
+    return xpathFactories.get().newXPath();
+  }
+
+  /**
+   * Create a namespace-aware, coalescing {@link XMLStreamReader}.
+   */
+  static XMLStreamReader createStreamReader(String xml) throws XMLStreamException {
+    return inputFactory.createXMLStreamReader(new StringReader(xml));
+  }
+
+  /**
+   * Create a namespace-aware, coalescing {@link XMLStreamReader}.
+   *
+   * @param encoding optional content encoding, if provided as metadata
+   */
+  static XMLStreamReader createStreamReader(byte[] xml, @Nullable String encoding) throws XMLStreamException {
+    ByteArrayInputStream input = new ByteArrayInputStream(xml);
+    return (StringUtils.hasText(encoding)
+            ? inputFactory.createXMLStreamReader(input, encoding)
+            : inputFactory.createXMLStreamReader(input));
+  }
+
+}
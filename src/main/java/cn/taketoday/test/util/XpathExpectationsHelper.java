@@ -33,12 +33,10 @@ import java.util.Map;
 
 import javax.xml.namespace.QName;
 import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
 import cn.taketoday.lang.Nullable;
 import cn.taketoday.util.CollectionUtils;
@@ -47,6 +45,13 @@ import cn.taketoday.util.StringUtils;
 /**
  * A helper class for applying assertions via XPath expressions.
  *
+ * <p>Expressions within the subset supported by {@link StreamingXpathEvaluator}
+ * &mdash; absolute paths with name tests, positional predicates, attribute
+ * and {@code text()} steps, and {@code count()} &mdash; are evaluated in a
+ * single streaming pass without building a DOM, unless a {@link Node} or
+ * {@link NodeList} is requested. All other expressions are evaluated against
+ * a DOM.
+ *
  * @author Rossen Stoyanchev
  */
 public class XpathExpectationsHelper {
@@ -57,6 +62,9 @@ public class XpathExpectationsHelper {
 
   private final boolean hasNamespaces;
 
+  @Nullable
+  private final StreamingXpathEvaluator streamingEvaluator;
+
   /**
    * XpathExpectationsHelper constructor.
    *
@@ -72,6 +80,11 @@ public class XpathExpectationsHelper {
     this.expression = String.format(expression, args);
     this.xpathExpression = compileXpathExpression(this.expression, namespaces);
     this.hasNamespaces = !CollectionUtils.isEmpty(namespaces);
+    // Subclasses may customize parsing or evaluation: keep using the DOM
+    this.streamingEvaluator = (getClass() == XpathExpectationsHelper.class
+                               ? StreamingXpathEvaluator.compile(
+                                       this.expression, namespaces != null ? namespaces : Collections.emptyMap())
+                               : null);
   }
 
   private static XPathExpression compileXpathExpression(
@@ -80,7 +93,7 @@ public class XpathExpectationsHelper {
 
     SimpleNamespaceContext namespaceContext = new SimpleNamespaceContext();
     namespaceContext.setBindings(namespaces != null ? namespaces : Collections.emptyMap());
-    XPath xpath = XPathFactory.newInstance().newXPath();
+    XPath xpath = XmlFactories.newXPath();
     xpath.setNamespaceContext(namespaceContext);
     return xpath.compile(expression);
   }
@@ -121,6 +134,12 @@ public class XpathExpectationsHelper {
    * @throws Exception if content parsing or expression evaluation fails
    */
   public void exists(byte[] content, @Nullable String encoding) throws Exception {
+    StreamingXpathEvaluator evaluator = this.streamingEvaluator;
+    Boolean exists = (evaluator != null && !evaluator.isCount() ? evaluator.exists(content, encoding) : null);
+    if (exists != null) {
+      AssertionErrors.assertTrue("XPath " + this.expression + " does not exist", exists);
+      return;
+    }
     Node node = evaluateXpath(content, encoding, Node.class);
     AssertionErrors.assertNotNull("XPath " + this.expression + " does not exist", node);
   }
@@ -131,6 +150,12 @@ public class XpathExpectationsHelper {
    * @throws Exception if content parsing or expression evaluation fails
    */
   public void doesNotExist(byte[] content, @Nullable String encoding) throws Exception {
+    StreamingXpathEvaluator evaluator = this.streamingEvaluator;
+    Boolean exists = (evaluator != null && !evaluator.isCount() ? evaluator.exists(content, encoding) : null);
+    if (exists != null) {
+      AssertionErrors.assertFalse("XPath " + this.expression + " exists", exists);
+      return;
+    }
     Node node = evaluateXpath(content, encoding, Node.class);
     AssertionErrors.assertNull("XPath " + this.expression + " exists", node);
   }
@@ -144,9 +169,8 @@ public class XpathExpectationsHelper {
   public void assertNodeCount(byte[] content, @Nullable String encoding, Matcher<? super Integer> matcher)
           throws Exception {
 
-    NodeList nodeList = evaluateXpath(content, encoding, NodeList.class);
     String reason = "nodeCount for XPath " + this.expression;
-    MatcherAssert.assertThat(reason, nodeList != null ? nodeList.getLength() : 0, matcher);
+    MatcherAssert.assertThat(reason, getNodeCount(content, encoding), matcher);
   }
 
   /**
@@ -155,9 +179,18 @@ public class XpathExpectationsHelper {
    * @throws Exception if content parsing or expression evaluation fails
    */
   public void assertNodeCount(byte[] content, @Nullable String encoding, int expectedCount) throws Exception {
-    NodeList nodeList = evaluateXpath(content, encoding, NodeList.class);
     AssertionErrors.assertEquals("nodeCount for XPath " + this.expression, expectedCount,
-                                 (nodeList != null ? nodeList.getLength() : 0));
+                                 getNodeCount(content, encoding));
+  }
+
+  private int getNodeCount(byte[] content, @Nullable String encoding) throws Exception {
+    StreamingXpathEvaluator evaluator = this.streamingEvaluator;
+    int count = (evaluator != null && !evaluator.isCount() ? evaluator.count(content, encoding) : -1);
+    if (count >= 0) {
+      return count;
+    }
+    NodeList nodeList = evaluateXpath(content, encoding, NodeList.class);
+    return (nodeList != null ? nodeList.getLength() : 0);
   }
 
   /**
@@ -224,9 +257,18 @@ public class XpathExpectationsHelper {
    * @throws Exception if content parsing or expression evaluation fails
    */
   @Nullable
+  @SuppressWarnings("unchecked")
   public <T> T evaluateXpath(byte[] content, @Nullable String encoding, Class<T> targetClass) throws Exception {
+    QName evaluationType = toQName(targetClass);
+    StreamingXpathEvaluator evaluator = this.streamingEvaluator;
+    if (evaluator != null && evaluationType != XPathConstants.NODE && evaluationType != XPathConstants.NODESET) {
+      Object result = evaluator.evaluate(content, encoding, targetClass);
+      if (result != null) {
+        return (T) result;
+      }
+    }
     Document document = parseXmlByteArray(content, encoding);
-    return evaluateXpath(document, toQName(targetClass), targetClass);
+    return evaluateXpath(document, evaluationType, targetClass);
   }
 
   /**
@@ -237,9 +279,7 @@ public class XpathExpectationsHelper {
    * @return the parsed document
    */
   protected Document parseXmlByteArray(byte[] xml, @Nullable String encoding) throws Exception {
-    DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-    factory.setNamespaceAware(this.hasNamespaces);
-    DocumentBuilder documentBuilder = factory.newDocumentBuilder();
+    DocumentBuilder documentBuilder = XmlFactories.getDocumentBuilder(this.hasNamespaces);
     InputSource inputSource = new InputSource(new ByteArrayInputStream(xml));
     if (StringUtils.hasText(encoding)) {
       inputSource.setEncoding(encoding);
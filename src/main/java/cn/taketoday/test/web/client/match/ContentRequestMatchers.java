@@ -301,7 +301,7 @@ public class ContentRequestMatchers {
    * are "similar" - i.e. they contain the same attribute-value pairs
    * regardless of formatting with a lenient checking (extensible, and non-strict array
    * ordering).
-   * <p>Use of this matcher requires the <a
+   * <p>Uses the same semantics as the <a
    * href="https://jsonassert.skyscreamer.org/">JSONassert</a> library.
    *
    * @param expectedJsonContent the expected JSON content
@@ -319,7 +319,7 @@ public class ContentRequestMatchers {
    * <li>{@code true}: strict checking. Not extensible, and strict array ordering.</li>
    * <li>{@code false}: lenient checking. Extensible, and non-strict array ordering.</li>
    * </ul>
-   * <p>Use of this matcher requires the <a
+   * <p>Uses the same semantics as the <a
    * href="https://jsonassert.skyscreamer.org/">JSONassert</a> library.
    *
    * @param expectedJsonContent the expected JSON content
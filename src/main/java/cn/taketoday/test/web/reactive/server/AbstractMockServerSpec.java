@@ -24,6 +24,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import cn.taketoday.lang.Assert;
 import cn.taketoday.lang.Nullable;
 import cn.taketoday.util.CollectionUtils;
 import cn.taketoday.web.server.WebFilter;
@@ -49,6 +50,8 @@ abstract class AbstractMockServerSpec<B extends WebTestClient.MockServerSpec<B>>
   @Nullable
   private List<MockServerConfigurer> configurers;
 
+  private HttpHandlerConnector.SchedulingPolicy schedulingPolicy = HttpHandlerConnector.SchedulingPolicy.PARALLEL;
+
   AbstractMockServerSpec() {
     // Default instance to be re-used across requests, unless one is configured explicitly
     this.sessionManager = new DefaultWebSessionManager();
@@ -77,6 +80,13 @@ abstract class AbstractMockServerSpec<B extends WebTestClient.MockServerSpec<B>>
     return self();
   }
 
+  @Override
+  public <T extends B> T schedulingPolicy(HttpHandlerConnector.SchedulingPolicy schedulingPolicy) {
+    Assert.notNull(schedulingPolicy, "SchedulingPolicy is required");
+    this.schedulingPolicy = schedulingPolicy;
+    return self();
+  }
+
   @SuppressWarnings("unchecked")
   private <T extends B> T self() {
     return (T) this;
@@ -94,7 +104,7 @@ abstract class AbstractMockServerSpec<B extends WebTestClient.MockServerSpec<B>>
     if (!CollectionUtils.isEmpty(this.configurers)) {
       this.configurers.forEach(configurer -> configurer.beforeServerCreated(builder));
     }
-    return new DefaultWebTestClientBuilder(builder);
+    return new DefaultWebTestClientBuilder(builder, this.schedulingPolicy);
   }
 
   /**
@@ -29,7 +29,9 @@ import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -63,6 +65,7 @@ import cn.taketoday.web.reactive.function.client.ClientResponse;
 import cn.taketoday.web.reactive.function.client.ExchangeFunction;
 import cn.taketoday.web.util.UriBuilder;
 import cn.taketoday.web.util.UriBuilderFactory;
+import reactor.core.Exceptions;
 import reactor.core.publisher.Flux;
 
 /**
@@ -476,6 +479,16 @@ class DefaultWebTestClient implements WebTestClient {
       return new DefaultListBodySpec<>(entityResult);
     }
 
+    @Override
+    public <E> StreamingBodySpec<E> expectBodyStream(Class<E> elementType) {
+      return new DefaultStreamingBodySpec<>(this.exchangeResult, this.response.bodyToFlux(elementType), this.timeout);
+    }
+
+    @Override
+    public <E> StreamingBodySpec<E> expectBodyStream(TypeReference<E> elementType) {
+      return new DefaultStreamingBodySpec<>(this.exchangeResult, this.response.bodyToFlux(elementType), this.timeout);
+    }
+
     @Override
     public BodyContentSpec expectBody() {
       ByteArrayResource resource = this.response.bodyToMono(ByteArrayResource.class).block(this.timeout);
@@ -634,6 +647,193 @@ class DefaultWebTestClient implements WebTestClient {
     }
   }
 
+  private static class DefaultStreamingBodySpec<E> implements StreamingBodySpec<E> {
+
+    private static final int DEFAULT_PREFETCH = 256;
+
+    private static final int DEFAULT_RECORDED_CONTENT = 8 * 1024;
+
+    private final ExchangeResult result;
+
+    private final Flux<E> body;
+
+    private final List<ElementAssertion<E>> assertions = new ArrayList<>();
+
+    private Duration timeout;
+
+    private long maxElements = -1;
+
+    private int prefetch = DEFAULT_PREFETCH;
+
+    private int recordedContent = DEFAULT_RECORDED_CONTENT;
+
+    DefaultStreamingBodySpec(ExchangeResult result, Flux<E> body, Duration timeout) {
+      this.result = result;
+      this.body = body;
+      this.timeout = timeout;
+    }
+
+    @Override
+    public StreamingBodySpec<E> eachElement(Matcher<? super E> matcher) {
+      this.assertions.add((element, index) ->
+                                  MatcherAssert.assertThat("Response body element [" + index + "]", element, matcher));
+      return this;
+    }
+
+    @Override
+    public StreamingBodySpec<E> eachElement(Consumer<? super E> consumer) {
+      this.assertions.add((element, index) -> consumer.accept(element));
+      return this;
+    }
+
+    @Override
+    public StreamingBodySpec<E> isOrdered(Comparator<? super E> comparator) {
+      this.assertions.add(new ElementAssertion<>() {
+
+        @Nullable
+        private E previous;
+
+        @Override
+        public void next(E element, long index) {
+          if (this.previous != null && comparator.compare(this.previous, element) > 0) {
+            AssertionErrors.fail("Response body elements [" + (index - 1) + "] and [" + index +
+                                         "] are out of order: " + this.previous + ", " + element);
+          }
+          this.previous = element;
+        }
+      });
+      return this;
+    }
+
+    @Override
+    public StreamingBodySpec<E> hasCount(long count) {
+      this.assertions.add(new ElementAssertion<>() {
+
+        @Override
+        public void next(E element, long index) {
+          if (index >= count) {
+            AssertionErrors.fail("Response body contains more than " + count + " elements");
+          }
+        }
+
+        @Override
+        public void complete(long actualCount, long elapsedNanos) {
+          AssertionErrors.assertEquals("Response body element count", count, actualCount);
+        }
+      });
+      return this;
+    }
+
+    @Override
+    public StreamingBodySpec<E> hasCount(Matcher<? super Long> matcher) {
+      this.assertions.add(new ElementAssertion<>() {
+
+        @Override
+        public void next(E element, long index) { }
+
+        @Override
+        public void complete(long actualCount, long elapsedNanos) {
+          MatcherAssert.assertThat("Response body element count", actualCount, matcher);
+        }
+      });
+      return this;
+    }
+
+    @Override
+    public StreamingBodySpec<E> hasMinRate(double elementsPerSecond) {
+      this.assertions.add(new ElementAssertion<>() {
+
+        @Override
+        public void next(E element, long index) { }
+
+        @Override
+        public void complete(long actualCount, long elapsedNanos) {
+          if (elapsedNanos > 0) {
+            double rate = actualCount / (elapsedNanos / 1_000_000_000d);
+            AssertionErrors.assertTrue(String.format(
+                    "Response body rate of %.1f elements/s is below %.1f", rate, elementsPerSecond),
+                                       rate >= elementsPerSecond);
+          }
+        }
+      });
+      return this;
+    }
+
+    @Override
+    public StreamingBodySpec<E> take(long maxElements) {
+      Assert.isTrue(maxElements >= 0, "'maxElements' must not be negative");
+      this.maxElements = maxElements;
+      return this;
+    }
+
+    @Override
+    public StreamingBodySpec<E> prefetch(int prefetch) {
+      Assert.isTrue(prefetch > 0, "'prefetch' must be greater than 0");
+      this.prefetch = prefetch;
+      return this;
+    }
+
+    @Override
+    public StreamingBodySpec<E> timeout(Duration timeout) {
+      Assert.notNull(timeout, "Timeout must not be null");
+      this.timeout = timeout;
+      return this;
+    }
+
+    @Override
+    public StreamingBodySpec<E> recordContent(int maxBytes) {
+      this.recordedContent = maxBytes;
+      return this;
+    }
+
+    @Override
+    public Duration verify() {
+      this.result.limitResponseBodyRecording(this.recordedContent);
+      AtomicLong elapsed = new AtomicLong();
+      this.result.assertWithDiagnostics(() -> {
+        AtomicLong count = new AtomicLong();
+        Flux<E> flux = this.body.limitRate(this.prefetch);
+        if (this.maxElements >= 0) {
+          flux = flux.take(this.maxElements);
+        }
+        long start = System.nanoTime();
+        try {
+          flux.doOnNext(element -> {
+                    long index = count.getAndIncrement();
+                    for (ElementAssertion<E> assertion : this.assertions) {
+                      assertion.next(element, index);
+                    }
+                  })
+                  .then()
+                  .block(this.timeout);
+        }
+        catch (RuntimeException ex) {
+          // Assertion errors raised while streaming are wrapped by block()
+          if (Exceptions.unwrap(ex) instanceof AssertionError assertionError) {
+            throw assertionError;
+          }
+          throw ex;
+        }
+        elapsed.set(System.nanoTime() - start);
+        for (ElementAssertion<E> assertion : this.assertions) {
+          assertion.complete(count.get(), elapsed.get());
+        }
+      });
+      return Duration.ofNanos(elapsed.get());
+    }
+
+    /**
+     * Assertion applied to each element as it is received, and optionally
+     * to the running aggregates once the stream has completed.
+     */
+    private interface ElementAssertion<E> {
+
+      void next(E element, long index);
+
+      default void complete(long count, long elapsedNanos) { }
+    }
+  }
+
   private static class DefaultBodyContentSpec implements BodyContentSpec {
 
     private final EntityExchangeResult<byte[]> result;
@@ -79,6 +79,8 @@ class DefaultWebTestClientBuilder implements WebTestClient.Builder {
   @Nullable
   private final ClientHttpConnector connector;
 
+  private final HttpHandlerConnector.SchedulingPolicy schedulingPolicy;
+
   @Nullable
   private String baseUrl;
 
@@ -107,12 +109,19 @@ class DefaultWebTestClientBuilder implements WebTestClient.Builder {
 
   /** Determine connector via classpath detection. */
   DefaultWebTestClientBuilder() {
-    this(null, null);
+    this(null, null, HttpHandlerConnector.SchedulingPolicy.PARALLEL);
   }
 
   /** Use HttpHandlerConnector with mock server. */
   DefaultWebTestClientBuilder(WebHttpHandlerBuilder httpHandlerBuilder) {
-    this(httpHandlerBuilder, null);
+    this(httpHandlerBuilder, HttpHandlerConnector.SchedulingPolicy.PARALLEL);
+  }
+
+  /** Use HttpHandlerConnector with mock server and the given scheduling policy. */
+  DefaultWebTestClientBuilder(
+          WebHttpHandlerBuilder httpHandlerBuilder, HttpHandlerConnector.SchedulingPolicy schedulingPolicy) {
+
+    this(httpHandlerBuilder, null, schedulingPolicy);
   }
 
   /** Use given connector. */
@@ -123,6 +132,12 @@ class DefaultWebTestClientBuilder implements WebTestClient.Builder {
   DefaultWebTestClientBuilder(
           @Nullable WebHttpHandlerBuilder httpHandlerBuilder, @Nullable ClientHttpConnector connector) {
 
+    this(httpHandlerBuilder, connector, HttpHandlerConnector.SchedulingPolicy.PARALLEL);
+  }
+
+  private DefaultWebTestClientBuilder(@Nullable WebHttpHandlerBuilder httpHandlerBuilder,
+          @Nullable ClientHttpConnector connector, HttpHandlerConnector.SchedulingPolicy schedulingPolicy) {
+
     Assert.isTrue(httpHandlerBuilder == null || connector == null,
                   "Expected WebHttpHandlerBuilder or ClientHttpConnector but not both.");
 
@@ -132,12 +147,14 @@ class DefaultWebTestClientBuilder implements WebTestClient.Builder {
 
     this.connector = connector;
     this.httpHandlerBuilder = (httpHandlerBuilder != null ? httpHandlerBuilder.clone() : null);
+    this.schedulingPolicy = schedulingPolicy;
   }
 
   /** Copy constructor. */
   DefaultWebTestClientBuilder(DefaultWebTestClientBuilder other) {
     this.httpHandlerBuilder = (other.httpHandlerBuilder != null ? other.httpHandlerBuilder.clone() : null);
     this.connector = other.connector;
+    this.schedulingPolicy = other.schedulingPolicy;
     this.responseTimeout = other.responseTimeout;
 
     this.baseUrl = other.baseUrl;
@@ -277,7 +294,7 @@ class DefaultWebTestClientBuilder implements WebTestClient.Builder {
     ClientHttpConnector connectorToUse = this.connector;
     if (connectorToUse == null) {
       if (this.httpHandlerBuilder != null) {
-        connectorToUse = new HttpHandlerConnector(this.httpHandlerBuilder.build());
+        connectorToUse = new HttpHandlerConnector(this.httpHandlerBuilder.build(), this.schedulingPolicy);
       }
     }
     if (connectorToUse == null) {
@@ -220,6 +220,14 @@ public class ExchangeResult {
     return this.mockServerResult;
   }
 
+  /**
+   * Capture at most the given number of bytes of the response body for
+   * diagnostics, e.g. while a long stream is consumed incrementally.
+   */
+  void limitResponseBodyRecording(int maxBytes) {
+    WiretapConnector.limitResponseRecording(this.response, maxBytes);
+  }
+
   /**
    * Execute the given Runnable, catch any {@link AssertionError}, log details
    * about the request and response at ERROR level under the class log
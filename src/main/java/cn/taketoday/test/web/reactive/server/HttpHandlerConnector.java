@@ -22,7 +22,10 @@ package cn.taketoday.test.web.reactive.server;
 
 import org.reactivestreams.Publisher;
 
+import java.lang.reflect.Method;
 import java.net.URI;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Function;
 
 import cn.taketoday.core.io.buffer.DataBuffer;
@@ -43,10 +46,11 @@ import cn.taketoday.mock.http.client.reactive.MockClientHttpRequest;
 import cn.taketoday.mock.http.client.reactive.MockClientHttpResponse;
 import cn.taketoday.mock.http.server.reactive.MockServerHttpRequest;
 import cn.taketoday.mock.http.server.reactive.MockServerHttpResponse;
+import cn.taketoday.lang.Nullable;
 import cn.taketoday.util.MultiValueMap;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
 
 /**
@@ -57,6 +61,9 @@ import reactor.core.scheduler.Schedulers;
  * {@link MockClientHttpRequest} and {@link MockClientHttpResponse} to<br>
  * {@link MockServerHttpRequest} and {@link MockServerHttpResponse}.
  *
+ * <p>Where each exchange runs is determined by the {@link SchedulingPolicy};
+ * by default on the shared {@link Schedulers#parallel() parallel} scheduler.
+ *
  * @author Rossen Stoyanchev
  */
 public class HttpHandlerConnector implements ClientHttpConnector {
@@ -65,28 +72,46 @@ public class HttpHandlerConnector implements ClientHttpConnector {
 
   private final HttpHandler handler;
 
+  @Nullable
+  private final Scheduler scheduler;
+
   /**
    * Constructor with the {@link HttpHandler} to handle requests with.
    */
   public HttpHandlerConnector(HttpHandler handler) {
+    this(handler, SchedulingPolicy.PARALLEL);
+  }
+
+  /**
+   * Constructor with the {@link HttpHandler} to handle requests with and the
+   * {@link SchedulingPolicy} that determines where exchanges run.
+   *
+   * @since 4.0
+   */
+  public HttpHandlerConnector(HttpHandler handler, SchedulingPolicy schedulingPolicy) {
     Assert.notNull(handler, "HttpHandler is required");
+    Assert.notNull(schedulingPolicy, "SchedulingPolicy is required");
     this.handler = handler;
+    this.scheduler = schedulingPolicy.getScheduler();
   }
 
   @Override
   public Mono<ClientHttpResponse> connect(HttpMethod httpMethod, URI uri,
                                           Function<? super ClientHttpRequest, Mono<Void>> requestCallback) {
 
-    return Mono.defer(() -> doConnect(httpMethod, uri, requestCallback))
-            .subscribeOn(Schedulers.parallel());
+    Mono<ClientHttpResponse> result = Mono.defer(() -> doConnect(httpMethod, uri, requestCallback));
+    return (this.scheduler != null ? result.subscribeOn(this.scheduler) : result);
   }
 
   private Mono<ClientHttpResponse> doConnect(
           HttpMethod httpMethod, URI uri, Function<? super ClientHttpRequest, Mono<Void>> requestCallback) {
 
-    // unsafe(): we're intercepting, already serialized Publisher signals
-    Sinks.Empty<Void> requestWriteSink = Sinks.unsafe().empty();
-    Sinks.Empty<Void> handlerSink = Sinks.unsafe().empty();
+    WebTestClientExchangeEvent event = WebTestClientExchangeEvent.start();
+
+    // The handler is subscribed to once the client request has been written,
+    // which for MockClientHttpRequest completes as soon as the handler is set up
+    @SuppressWarnings("unchecked")
+    Mono<Void>[] handlerResult = new Mono[1];
     ClientHttpResponse[] savedResponse = new ClientHttpResponse[1];
 
     MockClientHttpRequest mockClientRequest = new MockClientHttpRequest(httpMethod, uri);
@@ -96,10 +121,7 @@ public class HttpHandlerConnector implements ClientHttpConnector {
       log("Invoking HttpHandler for ", httpMethod, uri);
       ServerHttpRequest mockServerRequest = adaptRequest(mockClientRequest, requestBody);
       ServerHttpResponse responseToUse = prepareResponse(mockServerResponse, mockServerRequest);
-      this.handler.handle(mockServerRequest, responseToUse).subscribe(
-              aVoid -> { },
-              handlerSink::tryEmitError,  // Ignore result: signals cannot compete
-              handlerSink::tryEmitEmpty);
+      handlerResult[0] = this.handler.handle(mockServerRequest, responseToUse);
       return Mono.empty();
     });
 
@@ -110,18 +132,15 @@ public class HttpHandlerConnector implements ClientHttpConnector {
                                                }));
 
     log("Writing client request for ", httpMethod, uri);
-    requestCallback.apply(mockClientRequest).subscribe(
-            aVoid -> { },
-            requestWriteSink::tryEmitError,  // Ignore result: signals cannot compete
-            requestWriteSink::tryEmitEmpty);
-
-    return Mono.when(requestWriteSink.asMono(), handlerSink.asMono())
+    return requestCallback.apply(mockClientRequest)
+            .then(Mono.defer(() -> handlerResult[0] != null ? handlerResult[0] : Mono.<Void>empty()))
             .onErrorMap(ex -> {
               ClientHttpResponse response = savedResponse[0];
               return response != null ? new FailureAfterResponseCompletedException(response, ex) : ex;
             })
             .then(Mono.fromCallable(() -> savedResponse[0] != null ?
-                                          savedResponse[0] : adaptResponse(mockServerResponse, Flux.empty())));
+                                          savedResponse[0] : adaptResponse(mockServerResponse, Flux.empty())))
+            .doFinally(signal -> event.end(WebTestClientExchangeEvent.HTTP_HANDLER, httpMethod, uri, savedResponse[0]));
   }
 
   private void log(String message, HttpMethod httpMethod, URI uri) {
@@ -151,6 +170,77 @@ public class HttpHandlerConnector implements ClientHttpConnector {
     return clientResponse;
   }
 
+  /**
+   * Policy for where {@link HttpHandlerConnector} runs each exchange.
+   *
+   * @since 4.0
+   */
+  public enum SchedulingPolicy {
+
+    /**
+     * Run each exchange on the shared {@link Schedulers#parallel() parallel}
+     * scheduler. This is the default.
+     */
+    PARALLEL,
+
+    /**
+     * Run each exchange on the calling thread, without a thread hop.
+     * <p>Lowest overhead for handlers that do not block, e.g. router
+     * functions or controllers bound directly to the client.
+     */
+    IMMEDIATE,
+
+    /**
+     * Run all exchanges on a single dedicated daemon thread that is not
+     * shared with other work on the parallel scheduler.
+     */
+    EVENT_LOOP,
+
+    /**
+     * Run each exchange on a new virtual thread.
+     * <p>Requires a Java runtime with virtual thread support.
+     */
+    VIRTUAL_THREADS;
+
+    @Nullable
+    Scheduler getScheduler() {
+      return switch (this) {
+        case PARALLEL -> Schedulers.parallel();
+        case IMMEDIATE -> null;
+        case EVENT_LOOP -> EventLoopHolder.scheduler;
+        case VIRTUAL_THREADS -> VirtualThreadsHolder.getScheduler();
+      };
+    }
+  }
+
+  private static class EventLoopHolder {
+
+    static final Scheduler scheduler = Schedulers.newSingle("http-handler-connector", true);
+  }
+
+  private static class VirtualThreadsHolder {
+
+    @Nullable
+    private static final Scheduler scheduler = createScheduler();
+
+    @Nullable
+    private static Scheduler createScheduler() {
+      try {
+        Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        return Schedulers.fromExecutorService((ExecutorService) factory.invoke(null), "http-handler-connector-vt");
+      }
+      catch (ReflectiveOperationException ex) {
+        // virtual threads not available on this runtime
+        return null;
+      }
+    }
+
+    static Scheduler getScheduler() {
+      Assert.state(scheduler != null, "Virtual threads are not supported by this Java runtime");
+      return scheduler;
+    }
+  }
+
   /**
    * Indicates that an error occurred after the server response was completed,
    * via {@link ServerHttpResponse#writeWith} or {@link ServerHttpResponse#setComplete()},
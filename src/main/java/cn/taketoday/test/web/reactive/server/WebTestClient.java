@@ -29,6 +29,7 @@ import java.net.URI;
 import java.nio.charset.Charset;
 import java.time.Duration;
 import java.time.ZonedDateTime;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
@@ -276,6 +277,18 @@ public interface WebTestClient {
      */
     <T extends B> T apply(MockServerConfigurer configurer);
 
+    /**
+     * Configure where exchanges with the mock server are run.
+     * <p>By default, on the shared parallel scheduler. For suites running
+     * many exchanges against non-blocking handlers,
+     * {@link HttpHandlerConnector.SchedulingPolicy#IMMEDIATE IMMEDIATE}
+     * avoids a thread hop per request.
+     *
+     * @param schedulingPolicy the scheduling policy to use
+     * @since 4.0
+     */
+    <T extends B> T schedulingPolicy(HttpHandlerConnector.SchedulingPolicy schedulingPolicy);
+
     /**
      * Proceed to configure and build the test client.
      */
@@ -878,6 +891,27 @@ public interface WebTestClient {
      */
     <E> ListBodySpec<E> expectBodyList(TypeReference<E> elementType);
 
+    /**
+     * Consume and decode the response body incrementally, e.g. a
+     * {@code text/event-stream} or NDJSON stream, and apply per-element
+     * assertions and running aggregates without collecting the elements.
+     * <p>Nothing is consumed until {@link StreamingBodySpec#verify()} is
+     * called. Only the first bytes of the raw response content are captured
+     * for diagnostics, so memory use does not grow with the stream.
+     *
+     * @param elementType the expected element type
+     * @since 4.0
+     */
+    <E> StreamingBodySpec<E> expectBodyStream(Class<E> elementType);
+
+    /**
+     * Alternative to {@link #expectBodyStream(Class)} that accepts information
+     * about a target type with generics.
+     *
+     * @since 4.0
+     */
+    <E> StreamingBodySpec<E> expectBodyStream(TypeReference<E> elementType);
+
     /**
      * Consume and decode the response body to {@code byte[]} and then apply
      * assertions on the raw content (e.g. isEmpty, JSONPath, etc.)
@@ -982,6 +1016,85 @@ public interface WebTestClient {
     ListBodySpec<E> doesNotContain(E... elements);
   }
 
+  /**
+   * Spec for expectations on a response body that is consumed incrementally,
+   * one decoded element at a time, with backpressure.
+   * <p>Expectations are declared first and then checked while the body is
+   * consumed by {@link #verify()}, which fails on the first element that does
+   * not meet them and cancels the rest of the stream.
+   *
+   * @param <E> the element type
+   * @since 4.0
+   */
+  interface StreamingBodySpec<E> {
+
+    /**
+     * Assert each element with a {@link Matcher}.
+     */
+    StreamingBodySpec<E> eachElement(Matcher<? super E> matcher);
+
+    /**
+     * Assert each element with a {@link Consumer}, e.g. using AssertJ.
+     */
+    StreamingBodySpec<E> eachElement(Consumer<? super E> consumer);
+
+    /**
+     * Assert that the elements are in ascending order according to the given
+     * comparator; equal consecutive elements are allowed.
+     */
+    StreamingBodySpec<E> isOrdered(Comparator<? super E> comparator);
+
+    /**
+     * Assert the number of elements, failing as soon as the stream exceeds it.
+     */
+    StreamingBodySpec<E> hasCount(long count);
+
+    /**
+     * Assert the number of elements with a {@link Matcher} once the stream
+     * has completed.
+     */
+    StreamingBodySpec<E> hasCount(Matcher<? super Long> matcher);
+
+    /**
+     * Assert that elements were received at an average rate of at least the
+     * given number per second.
+     */
+    StreamingBodySpec<E> hasMinRate(double elementsPerSecond);
+
+    /**
+     * Consume at most the given number of elements and then cancel the
+     * stream, e.g. for an infinite event stream.
+     */
+    StreamingBodySpec<E> take(long maxElements);
+
+    /**
+     * Set how many elements are requested from the server at a time.
+     * <p>By default, 256.
+     */
+    StreamingBodySpec<E> prefetch(int prefetch);
+
+    /**
+     * Set the maximum time to wait for the stream to complete.
+     * <p>By default, the response timeout of the {@code WebTestClient}.
+     */
+    StreamingBodySpec<E> timeout(Duration timeout);
+
+    /**
+     * Set how many bytes of the raw response content are captured for
+     * diagnostics, or {@code -1} to capture all of it.
+     * <p>By default, 8 KB.
+     */
+    StreamingBodySpec<E> recordContent(int maxBytes);
+
+    /**
+     * Consume the response body and check all declared expectations.
+     *
+     * @return the time taken to consume the body
+     * @throws AssertionError on the first failed expectation
+     */
+    Duration verify();
+  }
+
   /**
    * Spec for expectations on the response body content.
    */
@@ -995,9 +1108,8 @@ public interface WebTestClient {
     /**
      * Parse the expected and actual response content as JSON and perform a
      * "lenient" comparison verifying the same attribute-value pairs.
-     * <p>Use of this option requires the
-     * <a href="https://jsonassert.skyscreamer.org/">JSONassert</a> library
-     * on to be on the classpath.
+     * <p>Uses the same semantics as the
+     * <a href="https://jsonassert.skyscreamer.org/">JSONassert</a> library.
      *
      * @param expectedJson the expected JSON content.
      */
@@ -0,0 +1,86 @@
+/*
+ * Original Author -> Harry Yang (taketoday@foxmail.com) https://taketoday.cn
+ * Copyright © TODAY & 2017 - 2021 All Rights Reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.test.web.reactive.server;
+
+import java.net.URI;
+
+import cn.taketoday.http.HttpMethod;
+import cn.taketoday.http.client.reactive.ClientHttpResponse;
+import cn.taketoday.lang.Nullable;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder event for a {@link WebTestClient} exchange passing
+ * through a {@link cn.taketoday.http.client.reactive.ClientHttpConnector}.
+ *
+ * <p>The {@link WiretapConnector} event spans from connecting until the
+ * response is available; the {@link HttpHandlerConnector} event spans the
+ * handling of the request by the server-side {@code HttpHandler}.
+ *
+ * @author TODAY
+ * @since 4.0
+ */
+@Name("cn.taketoday.test.web.reactive.server.Exchange")
+@Label("WebTestClient Exchange")
+@Description("A WebTestClient exchange through a ClientHttpConnector")
+@Category({ "TODAY", "Test", "WebTestClient" })
+@StackTrace(false)
+final class WebTestClientExchangeEvent extends Event {
+
+  static final String WIRETAP = "wiretap";
+
+  static final String HTTP_HANDLER = "httpHandler";
+
+  @Label("Connector")
+  String connector;
+
+  @Label("Method")
+  String method;
+
+  @Label("URI")
+  String uri;
+
+  @Label("Status")
+  int status;
+
+  static WebTestClientExchangeEvent start() {
+    WebTestClientExchangeEvent event = new WebTestClientExchangeEvent();
+    event.begin();
+    return event;
+  }
+
+  void end(String connector, HttpMethod method, URI uri, @Nullable ClientHttpResponse response) {
+    end();
+    if (shouldCommit()) {
+      this.connector = connector;
+      this.method = method.name();
+      this.uri = uri.toString();
+      this.status = (response != null ? response.getRawStatusCode() : 0);
+      commit();
+    }
+  }
+
+}
@@ -67,6 +67,8 @@ class WiretapConnector implements ClientHttpConnector {
                                           Function<? super ClientHttpRequest, Mono<Void>> requestCallback) {
 
     AtomicReference<WiretapClientHttpRequest> requestRef = new AtomicReference<>();
+    WebTestClientExchangeEvent event = WebTestClientExchangeEvent.start();
+    AtomicReference<ClientHttpResponse> responseRef = new AtomicReference<>();
 
     return this.delegate
             .connect(method, uri, request -> {
@@ -81,8 +83,10 @@ class WiretapConnector implements ClientHttpConnector {
               Assert.state(requestId != null, () -> "No \"" + header + "\" header");
               WiretapClientHttpResponse wrappedResponse = new WiretapClientHttpResponse(response);
               this.exchanges.put(requestId, new ClientExchangeInfo(wrappedRequest, wrappedResponse));
+              responseRef.set(response);
               return wrappedResponse;
-            });
+            })
+            .doFinally(signal -> event.end(WebTestClientExchangeEvent.WIRETAP, method, uri, responseRef.get()));
   }
 
   /**
@@ -101,6 +105,17 @@ class WiretapConnector implements ClientHttpConnector {
                               clientInfo.getResponse().getMockServerResult());
   }
 
+  /**
+   * Limit how much of the body of the given response, if tapped, is captured.
+   *
+   * @see WiretapRecorder#setRecordingLimit(int)
+   */
+  static void limitResponseRecording(ClientHttpResponse response, int maxBytes) {
+    if (response instanceof WiretapClientHttpResponse wiretapResponse) {
+      wiretapResponse.getRecorder().setRecordingLimit(maxBytes);
+    }
+  }
+
   /**
    * Holder for {@link WiretapClientHttpRequest} and {@link WiretapClientHttpResponse}.
    */
@@ -142,6 +157,10 @@ class WiretapConnector implements ClientHttpConnector {
 
     private boolean hasContentConsumer;
 
+    private volatile int recordingLimit = -1;
+
+    private int recorded;
+
     public WiretapRecorder(@Nullable Publisher<? extends DataBuffer> publisher,
                            @Nullable Publisher<? extends Publisher<? extends DataBuffer>> publisherNested) {
 
@@ -152,7 +171,7 @@ class WiretapConnector implements ClientHttpConnector {
       this.publisher = publisher != null ?
                        Flux.from(publisher)
                                .doOnSubscribe(s -> this.hasContentConsumer = true)
-                               .doOnNext(this.buffer::write)
+                               .doOnNext(this::record)
                                .doOnError(this::handleOnError)
                                .doOnCancel(this::handleOnComplete)
                                .doOnComplete(this::handleOnComplete) : null;
@@ -160,7 +179,7 @@ class WiretapConnector implements ClientHttpConnector {
       this.publisherNested = publisherNested != null ?
                              Flux.from(publisherNested)
                                      .doOnSubscribe(s -> this.hasContentConsumer = true)
-                                     .map(p -> Flux.from(p).doOnNext(this.buffer::write).doOnError(this::handleOnError))
+                                     .map(p -> Flux.from(p).doOnNext(this::record).doOnError(this::handleOnError))
                                      .doOnError(this::handleOnError)
                                      .doOnCancel(this::handleOnComplete)
                                      .doOnComplete(this::handleOnComplete) : null;
@@ -170,6 +189,26 @@ class WiretapConnector implements ClientHttpConnector {
       }
     }
 
+    /**
+     * Capture at most the given number of bytes, or all content if negative,
+     * e.g. to keep memory use constant while a long stream is consumed.
+     */
+    public void setRecordingLimit(int maxBytes) {
+      this.recordingLimit = maxBytes;
+    }
+
+    private void record(DataBuffer dataBuffer) {
+      int limit = this.recordingLimit;
+      if (limit < 0) {
+        this.buffer.write(dataBuffer);
+      }
+      else if (this.recorded < limit) {
+        int length = Math.min(limit - this.recorded, dataBuffer.readableByteCount());
+        this.buffer.write(dataBuffer.slice(dataBuffer.readPosition(), length));
+        this.recorded += length;
+      }
+    }
+
     public Publisher<? extends DataBuffer> getPublisherToUse() {
       Assert.notNull(this.publisher, "Publisher not in use.");
       return this.publisher;
@@ -156,12 +156,16 @@ class DefaultMvcResult implements MvcResult {
   private boolean awaitAsyncDispatch(long timeout) {
     Assert.state(this.asyncDispatchLatch != null,
                  "The asyncDispatch CountDownLatch was not set by the TestDispatcherServlet.");
+    MockMvcEvent event = MockMvcEvent.start();
     try {
       return this.asyncDispatchLatch.await(timeout, TimeUnit.MILLISECONDS);
     }
     catch (InterruptedException ex) {
       return false;
     }
+    finally {
+      event.end(MockMvcEvent.ASYNC_WAIT, this.mockRequest, this.handler);
+    }
   }
 
   void setAsyncDispatchLatch(CountDownLatch asyncDispatchLatch) {
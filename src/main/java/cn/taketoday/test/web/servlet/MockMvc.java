@@ -23,9 +23,11 @@ package cn.taketoday.test.web.servlet;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 import cn.taketoday.lang.Assert;
 import cn.taketoday.lang.Nullable;
+import cn.taketoday.mock.web.MockAsyncClock;
 import cn.taketoday.mock.web.MockFilterChain;
 import cn.taketoday.mock.web.MockHttpServletRequest;
 import cn.taketoday.mock.web.MockHttpServletResponse;
@@ -64,6 +66,16 @@ import jakarta.servlet.http.HttpServletResponseWrapper;
  *     .andExpect(forwardedUrl("/WEB-INF/layouts/main.jsp"));
  * </pre>
  *
+ * <p>Once built, a {@code MockMvc} instance and its {@link TestDispatcherServlet}
+ * hold no per-request state and may be shared across threads; all state of an
+ * exchange lives in the request, the response and the {@link MvcResult}.
+ * Note however that {@link RequestBuilder RequestBuilders} are mutable and
+ * are {@linkplain Mergeable#merge merged} with the default request every time
+ * they are performed, so a builder must not be performed from several
+ * threads at once; use a
+ * {@linkplain cn.taketoday.test.web.servlet.request.MockHttpServletRequestBuilder#prepare()
+ * prepared request} instead, which merges once and is safe to share.
+ *
  * @author Rossen Stoyanchev
  * @author Rob Winch
  * @author Sam Brannen
@@ -84,6 +96,12 @@ public final class MockMvc {
   @Nullable
   private Charset defaultResponseCharacterEncoding;
 
+  @Nullable
+  private Executor asyncExecutor;
+
+  @Nullable
+  private MockAsyncClock asyncClock;
+
   private List<ResultMatcher> defaultResultMatchers = new ArrayList<>();
 
   private List<ResultHandler> defaultResultHandlers = new ArrayList<>();
@@ -121,6 +139,24 @@ public final class MockMvc {
     this.defaultResponseCharacterEncoding = defaultResponseCharacterEncoding;
   }
 
+  /**
+   * The executor applied to the async context of every request.
+   *
+   * @see cn.taketoday.test.web.servlet.setup.ConfigurableMockMvcBuilder#asyncExecutor(Executor)
+   */
+  void setAsyncExecutor(@Nullable Executor asyncExecutor) {
+    this.asyncExecutor = asyncExecutor;
+  }
+
+  /**
+   * The virtual clock applied to the async context of every request.
+   *
+   * @see cn.taketoday.test.web.servlet.setup.ConfigurableMockMvcBuilder#asyncClock(MockAsyncClock)
+   */
+  void setAsyncClock(@Nullable MockAsyncClock asyncClock) {
+    this.asyncClock = asyncClock;
+  }
+
   /**
    * Expectations to assert after every performed request.
    *
@@ -167,53 +203,83 @@ public final class MockMvc {
    * @see cn.taketoday.test.web.servlet.result.MockMvcResultMatchers
    */
   public ResultActions perform(RequestBuilder requestBuilder) throws Exception {
-    if (this.defaultRequestBuilder != null && requestBuilder instanceof Mergeable) {
-      requestBuilder = (RequestBuilder) ((Mergeable) requestBuilder).merge(this.defaultRequestBuilder);
-    }
-
-    MockHttpServletRequest request = requestBuilder.buildRequest(this.servletContext);
-
-    AsyncContext asyncContext = request.getAsyncContext();
-    MockHttpServletResponse mockResponse;
-    HttpServletResponse servletResponse;
-    if (asyncContext != null) {
-      servletResponse = (HttpServletResponse) asyncContext.getResponse();
-      mockResponse = unwrapResponseIfNecessary(servletResponse);
-    }
-    else {
-      mockResponse = new MockHttpServletResponse();
-      servletResponse = mockResponse;
-    }
+    MockMvcEvent performEvent = MockMvcEvent.start();
+    MockHttpServletRequest request = null;
+    try {
+      MockMvcEvent buildEvent = MockMvcEvent.start();
+      AsyncContext asyncContext;
+      MockHttpServletResponse mockResponse;
+      HttpServletResponse servletResponse;
+      try {
+        if (this.defaultRequestBuilder != null && requestBuilder instanceof Mergeable) {
+          requestBuilder = (RequestBuilder) ((Mergeable) requestBuilder).merge(this.defaultRequestBuilder);
+        }
+
+        request = requestBuilder.buildRequest(this.servletContext);
+
+        asyncContext = request.getAsyncContext();
+        if (asyncContext != null) {
+          servletResponse = (HttpServletResponse) asyncContext.getResponse();
+          mockResponse = unwrapResponseIfNecessary(servletResponse);
+        }
+        else {
+          mockResponse = new MockHttpServletResponse();
+          servletResponse = mockResponse;
+        }
+
+        if (this.defaultResponseCharacterEncoding != null) {
+          mockResponse.setDefaultCharacterEncoding(this.defaultResponseCharacterEncoding.name());
+        }
+
+        if (requestBuilder instanceof SmartRequestBuilder) {
+          request = ((SmartRequestBuilder) requestBuilder).postProcessRequest(request);
+        }
+        if (this.asyncExecutor != null) {
+          request.setAsyncExecutor(this.asyncExecutor);
+        }
+        if (this.asyncClock != null) {
+          request.setAsyncClock(this.asyncClock);
+        }
+      }
+      finally {
+        buildEvent.end(MockMvcEvent.BUILD_REQUEST, request, requestBuilder.getClass());
+      }
 
-    if (this.defaultResponseCharacterEncoding != null) {
-      mockResponse.setDefaultCharacterEncoding(this.defaultResponseCharacterEncoding.name());
-    }
+      MvcResult mvcResult = new DefaultMvcResult(request, mockResponse);
+      request.setAttribute(MVC_RESULT_ATTRIBUTE, mvcResult);
 
-    if (requestBuilder instanceof SmartRequestBuilder) {
-      request = ((SmartRequestBuilder) requestBuilder).postProcessRequest(request);
-    }
+      RequestContext previousAttributes = RequestContextHolder.getContext();
+      RequestContextHolder.prepareContext(new ServletRequestContext(request, servletResponse));
 
-    MvcResult mvcResult = new DefaultMvcResult(request, mockResponse);
-    request.setAttribute(MVC_RESULT_ATTRIBUTE, mvcResult);
+      MockFilterChain filterChain = new MockFilterChain(this.servlet, this.filters);
+      filterChain.doFilter(request, servletResponse);
 
-    RequestContext previousAttributes = RequestContextHolder.getContext();
-    RequestContextHolder.prepareContext(new ServletRequestContext(request, servletResponse));
+      if (DispatcherType.ASYNC.equals(request.getDispatcherType()) &&
+              asyncContext != null && !request.isAsyncStarted()) {
+        asyncContext.complete();
+      }
 
-    MockFilterChain filterChain = new MockFilterChain(this.servlet, this.filters);
-    filterChain.doFilter(request, servletResponse);
+      applyDefaultResultActions(mvcResult);
+      RequestContextHolder.prepareContext(previousAttributes);
 
-    if (DispatcherType.ASYNC.equals(request.getDispatcherType()) &&
-            asyncContext != null && !request.isAsyncStarted()) {
-      asyncContext.complete();
+      return createResultActions(mvcResult, request);
     }
+    finally {
+      performEvent.end(MockMvcEvent.PERFORM, request, null);
+    }
+  }
 
-    applyDefaultResultActions(mvcResult);
-    RequestContextHolder.prepareContext(previousAttributes);
-
+  private ResultActions createResultActions(MvcResult mvcResult, MockHttpServletRequest performedRequest) {
     return new ResultActions() {
       @Override
       public ResultActions andExpect(ResultMatcher matcher) throws Exception {
-        matcher.match(mvcResult);
+        MockMvcEvent event = MockMvcEvent.start();
+        try {
+          matcher.match(mvcResult);
+        }
+        finally {
+          event.end(MockMvcEvent.EXPECT, performedRequest, matcher.getClass());
+        }
         return this;
       }
 
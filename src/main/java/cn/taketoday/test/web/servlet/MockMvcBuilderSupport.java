@@ -22,9 +22,11 @@ package cn.taketoday.test.web.servlet;
 
 import java.nio.charset.Charset;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 import cn.taketoday.core.NestedRuntimeException;
 import cn.taketoday.lang.Nullable;
+import cn.taketoday.mock.web.MockAsyncClock;
 import cn.taketoday.mock.web.MockServletConfig;
 import cn.taketoday.web.servlet.WebServletApplicationContext;
 import jakarta.servlet.Filter;
@@ -82,6 +84,19 @@ public abstract class MockMvcBuilderSupport {
     return mockMvc;
   }
 
+  /**
+   * Configure the executor and the virtual clock applied to the async
+   * context of every request performed by the given {@link MockMvc}.
+   *
+   * @since 4.0
+   */
+  protected final void configureAsync(MockMvc mockMvc,
+          @Nullable Executor asyncExecutor, @Nullable MockAsyncClock asyncClock) {
+
+    mockMvc.setAsyncExecutor(asyncExecutor);
+    mockMvc.setAsyncClock(asyncClock);
+  }
+
   @SuppressWarnings("serial")
   private static class MockMvcBuildException extends NestedRuntimeException {
 
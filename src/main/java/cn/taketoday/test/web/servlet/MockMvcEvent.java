@@ -0,0 +1,108 @@
+/*
+ * Original Author -> Harry Yang (taketoday@foxmail.com) https://taketoday.cn
+ * Copyright © TODAY & 2017 - 2021 All Rights Reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.test.web.servlet;
+
+import cn.taketoday.lang.Nullable;
+import jakarta.servlet.http.HttpServletRequest;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder event for a single phase of a {@link MockMvc} exchange.
+ *
+ * <p>Instances are created and {@link #begin() begun} unconditionally, but
+ * fields are only populated in {@link #end(String, HttpServletRequest, Object)}
+ * if the event is going to be committed. While no recording is active the
+ * cost is therefore limited to the (usually scalar-replaced) allocation.
+ *
+ * @author TODAY
+ * @since 4.0
+ */
+@Name("cn.taketoday.test.web.servlet.MockMvc")
+@Label("MockMvc Phase")
+@Description("A phase of a MockMvc exchange")
+@Category({ "TODAY", "Test", "MockMvc" })
+@StackTrace(false)
+final class MockMvcEvent extends Event {
+
+  static final String PERFORM = "perform";
+
+  static final String BUILD_REQUEST = "buildRequest";
+
+  static final String GET_HANDLER = "getHandler";
+
+  static final String RENDER = "render";
+
+  static final String PROCESS_HANDLER_EXCEPTION = "processHandlerException";
+
+  static final String ASYNC_WAIT = "asyncWait";
+
+  static final String EXPECT = "andExpect";
+
+  @Label("Phase")
+  String phase;
+
+  @Label("Method")
+  String method;
+
+  @Label("Request URI")
+  String requestUri;
+
+  @Label("Detail")
+  String detail;
+
+  /**
+   * Create and begin a new event.
+   */
+  static MockMvcEvent start() {
+    MockMvcEvent event = new MockMvcEvent();
+    event.begin();
+    return event;
+  }
+
+  /**
+   * End this event and commit it if it passes the recording's settings.
+   *
+   * @param phase the phase that was timed
+   * @param request the current request, if any
+   * @param detail additional information, e.g. the handler or the matcher;
+   * only rendered via {@code toString()} when the event is committed
+   */
+  void end(String phase, @Nullable HttpServletRequest request, @Nullable Object detail) {
+    end();
+    if (shouldCommit()) {
+      this.phase = phase;
+      if (request != null) {
+        this.method = request.getMethod();
+        this.requestUri = request.getRequestURI();
+      }
+      if (detail != null) {
+        this.detail = (detail instanceof Class<?> clazz ? clazz.getName() : detail.toString());
+      }
+      commit();
+    }
+  }
+
+}
@@ -113,7 +113,14 @@ final class TestDispatcherServlet extends DispatcherServlet {
 
   @Override
   protected HandlerExecutionChain getHandler(HttpServletRequest request) throws Exception {
-    HandlerExecutionChain chain = super.getHandler(request);
+    MockMvcEvent event = MockMvcEvent.start();
+    HandlerExecutionChain chain = null;
+    try {
+      chain = super.getHandler(request);
+    }
+    finally {
+      event.end(MockMvcEvent.GET_HANDLER, request, (chain != null ? chain.getHandler() : null));
+    }
     if (chain != null) {
       DefaultMvcResult mvcResult = getMvcResult(request);
       mvcResult.setHandler(chain.getHandler());
@@ -128,14 +135,27 @@ final class TestDispatcherServlet extends DispatcherServlet {
 
     DefaultMvcResult mvcResult = getMvcResult(request);
     mvcResult.setModelAndView(mv);
-    super.render(mv, request, response);
+    MockMvcEvent event = MockMvcEvent.start();
+    try {
+      super.render(mv, request, response);
+    }
+    finally {
+      event.end(MockMvcEvent.RENDER, request, mv.getViewName());
+    }
   }
 
   @Override
   protected ModelAndView processHandlerException(HttpServletRequest request, HttpServletResponse response,
                                                  @Nullable Object handler, Exception ex) throws Exception {
 
-    ModelAndView mav = super.processHandlerException(request, response, handler, ex);
+    MockMvcEvent event = MockMvcEvent.start();
+    ModelAndView mav;
+    try {
+      mav = super.processHandlerException(request, response, handler, ex);
+    }
+    finally {
+      event.end(MockMvcEvent.PROCESS_HANDLER_EXCEPTION, request, ex.getClass());
+    }
 
     // We got this far, exception was processed..
     DefaultMvcResult mvcResult = getMvcResult(request);
@@ -20,9 +20,13 @@
 
 package cn.taketoday.test.web.servlet.client;
 
+import java.io.IOException;
 import java.io.StringWriter;
 import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
@@ -81,6 +85,8 @@ public class MockMvcHttpConnector implements ClientHttpConnector {
 
   private static final Duration TIMEOUT = Duration.ofSeconds(5);
 
+  private static final int BUFFER_SIZE = 64 * 1024;
+
   private final MockMvc mockMvc;
 
   public MockMvcHttpConnector(MockMvc mockMvc) {
@@ -91,8 +97,9 @@ public class MockMvcHttpConnector implements ClientHttpConnector {
   public Mono<ClientHttpResponse> connect(
           HttpMethod method, URI uri, Function<? super ClientHttpRequest, Mono<Void>> requestCallback) {
 
-    RequestBuilder requestBuilder = adaptRequest(method, uri, requestCallback);
+    List<Path> tempFiles = Collections.synchronizedList(new ArrayList<>(2));
     try {
+      RequestBuilder requestBuilder = adaptRequest(method, uri, requestCallback, tempFiles);
       MvcResult mvcResult = this.mockMvc.perform(requestBuilder).andReturn();
       if (mvcResult.getRequest().isAsyncStarted()) {
         mvcResult.getAsyncResult();
@@ -101,31 +108,45 @@ public class MockMvcHttpConnector implements ClientHttpConnector {
       return Mono.just(adaptResponse(mvcResult));
     }
     catch (Exception ex) {
+      // on success, file parts own their temporary files and delete them once released
+      deleteTempFiles(tempFiles);
       return Mono.error(ex);
     }
   }
 
-  private RequestBuilder adaptRequest(
-          HttpMethod httpMethod, URI uri, Function<? super ClientHttpRequest, Mono<Void>> requestCallback) {
+  private RequestBuilder adaptRequest(HttpMethod httpMethod, URI uri,
+          Function<? super ClientHttpRequest, Mono<Void>> requestCallback, List<Path> tempFiles) {
 
     MockClientHttpRequest httpRequest = new MockClientHttpRequest(httpMethod, uri);
 
+    // Multipart bodies are spooled to disk, so that large file uploads
+    // are forwarded to MockMvc without being held in memory
     AtomicReference<byte[]> contentRef = new AtomicReference<>();
-    httpRequest.setWriteHandler(dataBuffers ->
-                                        DataBufferUtils.join(dataBuffers)
-                                                .doOnNext(buffer -> {
-                                                  byte[] bytes = new byte[buffer.readableByteCount()];
-                                                  buffer.read(bytes);
-                                                  DataBufferUtils.release(buffer);
-                                                  contentRef.set(bytes);
-                                                })
-                                                .then());
+    AtomicReference<Path> contentFileRef = new AtomicReference<>();
+    httpRequest.setWriteHandler(dataBuffers -> {
+      if (isMultipart(httpRequest)) {
+        return Mono.fromCallable(() -> createTempFile(tempFiles))
+                .flatMap(file -> {
+                  contentFileRef.set(file);
+                  return DataBufferUtils.write(dataBuffers, file);
+                });
+      }
+      return DataBufferUtils.join(dataBuffers)
+              .doOnNext(buffer -> {
+                byte[] bytes = new byte[buffer.readableByteCount()];
+                buffer.read(bytes);
+                DataBufferUtils.release(buffer);
+                contentRef.set(bytes);
+              })
+              .then();
+    });
 
     // Initialize the client request
     requestCallback.apply(httpRequest).block(TIMEOUT);
 
-    MockHttpServletRequestBuilder requestBuilder =
-            initRequestBuilder(httpMethod, uri, httpRequest, contentRef.get());
+    MockHttpServletRequestBuilder requestBuilder = isMultipart(httpRequest) ?
+            initMultipartRequestBuilder(uri, httpRequest, contentFileRef.get(), tempFiles) :
+            initRequestBuilder(httpMethod, uri, contentRef.get());
 
     requestBuilder.headers(httpRequest.getHeaders());
     for (List<HttpCookie> cookies : httpRequest.getCookies().values()) {
@@ -137,46 +158,86 @@ public class MockMvcHttpConnector implements ClientHttpConnector {
     return requestBuilder;
   }
 
-  private MockHttpServletRequestBuilder initRequestBuilder(
-          HttpMethod httpMethod, URI uri, MockClientHttpRequest httpRequest, @Nullable byte[] bytes) {
-
+  private static boolean isMultipart(MockClientHttpRequest httpRequest) {
     String contentType = httpRequest.getHeaders().getFirst(HttpHeaders.CONTENT_TYPE);
-    if (!StringUtils.startsWithIgnoreCase(contentType, "multipart/")) {
-      MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.request(httpMethod, uri);
-      if (!ObjectUtils.isEmpty(bytes)) {
-        requestBuilder.content(bytes);
-      }
-      return requestBuilder;
+    return StringUtils.startsWithIgnoreCase(contentType, "multipart/");
+  }
+
+  private MockHttpServletRequestBuilder initRequestBuilder(HttpMethod httpMethod, URI uri, @Nullable byte[] bytes) {
+    MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.request(httpMethod, uri);
+    if (!ObjectUtils.isEmpty(bytes)) {
+      requestBuilder.content(bytes);
     }
+    return requestBuilder;
+  }
+
+  private MockHttpServletRequestBuilder initMultipartRequestBuilder(
+          URI uri, MockClientHttpRequest httpRequest, @Nullable Path contentFile, List<Path> tempFiles) {
 
     // Parse the multipart request in order to adapt to Servlet Part's
     MockMultipartHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.multipart(uri);
 
-    Assert.notNull(bytes, "No multipart content");
-    ReactiveHttpInputMessage inputMessage = MockServerHttpRequest.post(uri.toString())
-            .headers(httpRequest.getHeaders())
-            .body(Mono.just(DefaultDataBufferFactory.sharedInstance.wrap(bytes)));
-
-    MULTIPART_READER.read(ResolvableType.fromClass(Part.class), inputMessage, Collections.emptyMap())
-            .flatMap(part ->
-                             DataBufferUtils.join(part.content())
-                                     .doOnNext(buffer -> {
-                                       byte[] partBytes = new byte[buffer.readableByteCount()];
-                                       buffer.read(partBytes);
-                                       DataBufferUtils.release(buffer);
-
-                                       // Adapt to jakarta.servlet.http.Part...
-                                       MockPart mockPart = (part instanceof FilePart ?
-                                                            new MockPart(part.name(), ((FilePart) part).filename(), partBytes) :
-                                                            new MockPart(part.name(), partBytes));
-                                       mockPart.getHeaders().putAll(part.headers());
-                                       requestBuilder.part(mockPart);
-                                     }))
-            .blockLast(TIMEOUT);
+    Assert.notNull(contentFile, "No multipart content");
+    try {
+      ReactiveHttpInputMessage inputMessage = MockServerHttpRequest.post(uri.toString())
+              .headers(httpRequest.getHeaders())
+              .body(DataBufferUtils.read(contentFile, DefaultDataBufferFactory.sharedInstance, BUFFER_SIZE));
+
+      MULTIPART_READER.read(ResolvableType.fromClass(Part.class), inputMessage, Collections.emptyMap())
+              .concatMap(part -> adaptPart(part, tempFiles))
+              .doOnNext(requestBuilder::part)
+              .blockLast(TIMEOUT);
+    }
+    finally {
+      // the spooled request body is no longer needed once parsed
+      tempFiles.remove(contentFile);
+      deleteTempFiles(List.of(contentFile));
+    }
 
     return requestBuilder;
   }
 
+  private Mono<MockPart> adaptPart(Part part, List<Path> tempFiles) {
+    Mono<MockPart> mockPart;
+    if (part instanceof FilePart filePart) {
+      // File content is transferred to a file-backed part, not copied onto the heap,
+      // and the file lives as long as the part and the MvcResult referencing it
+      mockPart = Mono.fromCallable(() -> createTempFile(tempFiles))
+              .flatMap(file -> filePart.transferTo(file)
+                      .then(Mono.fromCallable(() -> MockPart.fromTemporaryFile(part.name(), filePart.filename(), file))));
+    }
+    else {
+      mockPart = DataBufferUtils.join(part.content())
+              .map(buffer -> {
+                byte[] partBytes = new byte[buffer.readableByteCount()];
+                buffer.read(partBytes);
+                DataBufferUtils.release(buffer);
+                return new MockPart(part.name(), partBytes);
+              });
+    }
+    // Adapt to jakarta.servlet.http.Part...
+    return mockPart.doOnNext(adapted -> adapted.getHeaders().putAll(part.headers()));
+  }
+
+  private static Path createTempFile(List<Path> tempFiles) throws IOException {
+    Path file = Files.createTempFile("mockmvc-multipart-", ".tmp");
+    tempFiles.add(file);
+    return file;
+  }
+
+  private static void deleteTempFiles(List<Path> tempFiles) {
+    synchronized(tempFiles) {
+      for (Path file : tempFiles) {
+        try {
+          Files.deleteIfExists(file);
+        }
+        catch (IOException ex) {
+          file.toFile().deleteOnExit();
+        }
+      }
+    }
+  }
+
   private MockClientHttpResponse adaptResponse(MvcResult mvcResult) {
     MockClientHttpResponse clientResponse = new MockMvcServerClientHttpResponse(mvcResult);
     MockHttpServletResponse servletResponse = mvcResult.getResponse();
@@ -28,12 +28,10 @@ import com.gargoylesoftware.htmlunit.util.KeyDataPair;
 import com.gargoylesoftware.htmlunit.util.NameValuePair;
 
 import java.io.File;
-import java.io.IOException;
 import java.net.URL;
 import java.net.URLDecoder;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Enumeration;
@@ -95,6 +93,9 @@ final class HtmlUnitRequestBuilder implements RequestBuilder, Mergeable {
   @Nullable
   private RequestPostProcessor forwardPostProcessor;
 
+  @Nullable
+  private RequestPostProcessor conditionalPostProcessor;
+
   /**
    * Construct a new {@code HtmlUnitRequestBuilder}.
    *
@@ -158,6 +159,9 @@ final class HtmlUnitRequestBuilder implements RequestBuilder, Mergeable {
     if (this.forwardPostProcessor != null) {
       request = this.forwardPostProcessor.postProcessRequest(request);
     }
+    if (this.conditionalPostProcessor != null) {
+      request = this.conditionalPostProcessor.postProcessRequest(request);
+    }
     return request;
   }
 
@@ -230,6 +234,14 @@ final class HtmlUnitRequestBuilder implements RequestBuilder, Mergeable {
     this.forwardPostProcessor = forwardPostProcessor;
   }
 
+  /**
+   * Set a post processor that adds conditional request headers, used to
+   * revalidate a stale {@link MockMvcResponseCache} entry.
+   */
+  void setConditionalPostProcessor(@Nullable RequestPostProcessor conditionalPostProcessor) {
+    this.conditionalPostProcessor = conditionalPostProcessor;
+  }
+
   private void authType(MockHttpServletRequest request) {
     String authorization = header("Authorization");
     String[] authSplit = StringUtils.split(authorization, ": ");
@@ -376,7 +388,7 @@ final class HtmlUnitRequestBuilder implements RequestBuilder, Mergeable {
         File file = pair.getFile();
         MockPart part;
         if (file != null) {
-          part = new MockPart(pair.getName(), file.getName(), readAllBytes(file));
+          part = MockPart.fromPath(pair.getName(), file.getName(), file.toPath());
         }
         else {
           // Support empty file upload OR file upload via setData().
@@ -401,15 +413,6 @@ final class HtmlUnitRequestBuilder implements RequestBuilder, Mergeable {
     return URLDecoder.decode(value, StandardCharsets.UTF_8);
   }
 
-  private byte[] readAllBytes(File file) {
-    try {
-      return Files.readAllBytes(file.toPath());
-    }
-    catch (IOException ex) {
-      throw new IllegalStateException(ex);
-    }
-  }
-
   private void servletPath(MockHttpServletRequest request, String requestPath) {
     String servletPath = requestPath.substring(request.getContextPath().length());
     request.setServletPath(servletPath);
@@ -0,0 +1,330 @@
+/*
+ * Original Author -> Harry Yang (taketoday@foxmail.com) https://taketoday.cn
+ * Copyright © TODAY & 2017 - 2021 All Rights Reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.test.web.servlet.htmlunit;
+
+import com.gargoylesoftware.htmlunit.HttpMethod;
+import com.gargoylesoftware.htmlunit.WebRequest;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import cn.taketoday.http.HttpHeaders;
+import cn.taketoday.lang.Assert;
+import cn.taketoday.lang.Nullable;
+import cn.taketoday.mock.web.MockHttpServletRequest;
+import cn.taketoday.mock.web.MockHttpServletResponse;
+import cn.taketoday.util.StringUtils;
+
+/**
+ * In-memory, {@code ETag}/{@code Cache-Control}-aware cache of static resource
+ * responses for {@link MockMvcWebConnection}.
+ *
+ * <p>A single cache may be shared across any number of {@code WebClient}
+ * instances and connections, for example via a static field in a test base
+ * class, so that CSS, JavaScript and image subresources are dispatched through
+ * {@code MockMvc} once per test run rather than once per page and test.
+ *
+ * <p>Only successful {@code GET} responses for stylesheets, scripts, images
+ * and fonts that carry a validator ({@code ETag} or {@code Last-Modified}) or
+ * a positive {@code max-age} are stored; HTML pages, {@code no-store} and
+ * {@code private} responses, responses that set cookies and responses with
+ * {@code Vary: *} never are. Entries are keyed by method, URL and the values
+ * of the request headers named by the {@code Vary} header of the response. Fresh
+ * entries are served without invoking {@code MockMvc}. Stale entries are
+ * revalidated with {@code If-None-Match}/{@code If-Modified-Since}, and a
+ * {@code 304} response reuses the stored body.
+ *
+ * @author TODAY
+ * @see MockMvcWebConnection#setResponseCache(MockMvcResponseCache)
+ * @since 4.0
+ */
+public final class MockMvcResponseCache {
+
+  /**
+   * The default maximum number of cached responses: {@value}.
+   */
+  public static final int DEFAULT_MAX_ENTRIES = 1024;
+
+  private static final String[] NO_VARY = new String[0];
+
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+  /** The request headers named by {@code Vary}, keyed by method and URL. */
+  private final Map<String, String[]> varyHeaders = new ConcurrentHashMap<>();
+
+  private final int maxEntries;
+
+  private final AtomicLong hitCount = new AtomicLong();
+
+  private final AtomicLong revalidationCount = new AtomicLong();
+
+  /**
+   * Create a cache holding at most {@value #DEFAULT_MAX_ENTRIES} responses.
+   */
+  public MockMvcResponseCache() {
+    this(DEFAULT_MAX_ENTRIES);
+  }
+
+  /**
+   * Create a cache holding at most {@code maxEntries} responses.
+   */
+  public MockMvcResponseCache(int maxEntries) {
+    Assert.isTrue(maxEntries > 0, "'maxEntries' must be positive");
+    this.maxEntries = maxEntries;
+  }
+
+  /**
+   * Look up the entry for the supplied request.
+   *
+   * @return the cached entry, fresh or stale, or {@code null} if the request
+   * is not cacheable or nothing is cached for it
+   */
+  @Nullable
+  Entry lookup(WebRequest webRequest) {
+    if (webRequest.getHttpMethod() != HttpMethod.GET) {
+      return null;
+    }
+    String primaryKey = primaryKey(webRequest);
+    String[] vary = this.varyHeaders.get(primaryKey);
+    return (vary != null ? this.entries.get(entryKey(primaryKey, vary, webRequest)) : null);
+  }
+
+  /**
+   * Record a hit on a fresh entry.
+   */
+  void recordHit() {
+    this.hitCount.incrementAndGet();
+  }
+
+  /**
+   * Record a successful {@code 304} revalidation of a stale entry.
+   */
+  void recordRevalidation(Entry entry) {
+    this.revalidationCount.incrementAndGet();
+    entry.revalidated(System.currentTimeMillis());
+  }
+
+  /**
+   * Store the supplied response if it is cacheable.
+   */
+  void store(WebRequest webRequest, MockHttpServletResponse response) {
+    if (webRequest.getHttpMethod() != HttpMethod.GET || response.getStatus() != 200
+            || response.getForwardedUrl() != null || response.getRedirectedUrl() != null
+            || !isSubresource(response.getContentType()) || response.containsHeader(HttpHeaders.SET_COOKIE)) {
+      return;
+    }
+    String[] vary = parseVary(response.getHeaders(HttpHeaders.VARY));
+    if (vary == null) {
+      return;
+    }
+    String cacheControl = response.getHeader(HttpHeaders.CACHE_CONTROL);
+    long maxAgeMillis = -1;
+    boolean noCache = false;
+    if (cacheControl != null) {
+      for (String directive : StringUtils.tokenizeToStringArray(cacheControl.toLowerCase(Locale.ROOT), ",")) {
+        if (directive.equals("no-store") || directive.equals("private")) {
+          return;
+        }
+        if (directive.equals("no-cache")) {
+          noCache = true;
+        }
+        else if (directive.startsWith("max-age=")) {
+          try {
+            maxAgeMillis = Long.parseLong(directive.substring(8).trim()) * 1000;
+          }
+          catch (NumberFormatException ex) {
+            // ignore
+          }
+        }
+      }
+    }
+    String eTag = response.getHeader(HttpHeaders.ETAG);
+    String lastModified = response.getHeader(HttpHeaders.LAST_MODIFIED);
+    if (eTag == null && lastModified == null && maxAgeMillis <= 0) {
+      return;
+    }
+    if (noCache) {
+      maxAgeMillis = 0;
+    }
+    if (this.entries.size() >= this.maxEntries) {
+      evictOne(this.entries);
+    }
+    if (this.varyHeaders.size() >= this.maxEntries) {
+      evictOne(this.varyHeaders);
+    }
+    String primaryKey = primaryKey(webRequest);
+    this.varyHeaders.put(primaryKey, vary);
+    this.entries.put(entryKey(primaryKey, vary, webRequest),
+            new Entry(response, eTag, lastModified, maxAgeMillis, System.currentTimeMillis()));
+  }
+
+  private static boolean isSubresource(@Nullable String contentType) {
+    if (contentType == null) {
+      return false;
+    }
+    String type = contentType.toLowerCase(Locale.ROOT);
+    return type.startsWith("text/css") || type.startsWith("image/") || type.startsWith("font/")
+            || type.startsWith("application/font") || type.contains("javascript") || type.contains("ecmascript");
+  }
+
+  /**
+   * Parse the supplied {@code Vary} header values into lower-case header names.
+   *
+   * @return the header names, or {@code null} for {@code Vary: *}
+   */
+  @Nullable
+  private static String[] parseVary(Collection<String> values) {
+    if (values.isEmpty()) {
+      return NO_VARY;
+    }
+    TreeSet<String> names = new TreeSet<>();
+    for (String value : values) {
+      for (String name : StringUtils.tokenizeToStringArray(value.toLowerCase(Locale.ROOT), ",")) {
+        if (name.equals("*")) {
+          return null;
+        }
+        names.add(name);
+      }
+    }
+    return names.toArray(NO_VARY);
+  }
+
+  private static String primaryKey(WebRequest webRequest) {
+    return webRequest.getHttpMethod().name() + ' ' + webRequest.getUrl().toExternalForm();
+  }
+
+  private static String entryKey(String primaryKey, String[] vary, WebRequest webRequest) {
+    if (vary.length == 0) {
+      return primaryKey;
+    }
+    StringBuilder key = new StringBuilder(primaryKey);
+    for (String name : vary) {
+      key.append('\n').append(name).append(':');
+      for (Map.Entry<String, String> header : webRequest.getAdditionalHeaders().entrySet()) {
+        if (header.getKey().equalsIgnoreCase(name)) {
+          key.append(header.getValue());
+        }
+      }
+    }
+    return key.toString();
+  }
+
+  private static void evictOne(Map<String, ?> map) {
+    Iterator<String> iterator = map.keySet().iterator();
+    if (iterator.hasNext()) {
+      iterator.next();
+      iterator.remove();
+    }
+  }
+
+  /**
+   * Return the number of cached responses.
+   */
+  public int size() {
+    return this.entries.size();
+  }
+
+  /**
+   * Return the number of requests served from a fresh entry without
+   * invoking {@code MockMvc}.
+   */
+  public long getHitCount() {
+    return this.hitCount.get();
+  }
+
+  /**
+   * Return the number of stale entries that were successfully revalidated.
+   */
+  public long getRevalidationCount() {
+    return this.revalidationCount.get();
+  }
+
+  /**
+   * Remove all cached responses and reset the statistics.
+   */
+  public void clear() {
+    this.entries.clear();
+    this.varyHeaders.clear();
+    this.hitCount.set(0);
+    this.revalidationCount.set(0);
+  }
+
+  /**
+   * A cached response along with its validators.
+   */
+  static final class Entry {
+
+    private final MockHttpServletResponse response;
+
+    @Nullable
+    private final String eTag;
+
+    @Nullable
+    private final String lastModified;
+
+    private final long maxAgeMillis;
+
+    private volatile long validatedAt;
+
+    Entry(MockHttpServletResponse response, @Nullable String eTag,
+            @Nullable String lastModified, long maxAgeMillis, long validatedAt) {
+      this.response = response;
+      this.eTag = eTag;
+      this.lastModified = lastModified;
+      this.maxAgeMillis = maxAgeMillis;
+      this.validatedAt = validatedAt;
+    }
+
+    MockHttpServletResponse getResponse() {
+      return this.response;
+    }
+
+    boolean isFresh() {
+      return this.maxAgeMillis > 0 && System.currentTimeMillis() - this.validatedAt < this.maxAgeMillis;
+    }
+
+    boolean canRevalidate() {
+      return this.eTag != null || this.lastModified != null;
+    }
+
+    void revalidated(long now) {
+      this.validatedAt = now;
+    }
+
+    /**
+     * Add the conditional request headers for revalidating this entry.
+     */
+    void addConditionalHeaders(MockHttpServletRequest request) {
+      if (this.eTag != null) {
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, this.eTag);
+      }
+      if (this.lastModified != null) {
+        request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, this.lastModified);
+      }
+    }
+  }
+
+}
@@ -20,7 +20,9 @@
 
 package cn.taketoday.test.web.servlet.htmlunit;
 
+import com.gargoylesoftware.htmlunit.BrowserVersion;
 import com.gargoylesoftware.htmlunit.CookieManager;
+import com.gargoylesoftware.htmlunit.HttpMethod;
 import com.gargoylesoftware.htmlunit.WebClient;
 import com.gargoylesoftware.htmlunit.WebConnection;
 import com.gargoylesoftware.htmlunit.WebRequest;
@@ -30,10 +32,22 @@ import com.gargoylesoftware.htmlunit.util.Cookie;
 import org.apache.http.impl.cookie.BasicClientCookie;
 
 import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.MalformedURLException;
+import java.net.URL;
 import java.util.Date;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
+import cn.taketoday.http.HttpHeaders;
 import cn.taketoday.lang.Assert;
 import cn.taketoday.lang.Nullable;
 import cn.taketoday.mock.web.MockHttpServletResponse;
@@ -41,6 +55,7 @@ import cn.taketoday.mock.web.MockHttpSession;
 import cn.taketoday.test.web.servlet.MockMvc;
 import cn.taketoday.test.web.servlet.RequestBuilder;
 import cn.taketoday.test.web.servlet.ResultActions;
+import jakarta.servlet.http.HttpServletResponse;
 
 /**
  * {@code MockMvcWebConnection} enables {@link MockMvc} to transform a
@@ -57,13 +72,30 @@ import cn.taketoday.test.web.servlet.ResultActions;
  * // Use webClient as normal ...
  * </pre>
  *
+ * <p>Sessions are tracked in a concurrent map, so a connection can serve
+ * requests from several threads. Static resources may be served from a shared
+ * {@link MockMvcResponseCache}, and the subresources of a page may be
+ * dispatched concurrently via {@link #setSubresourceExecutor(Executor)}.
+ * Prefetched subresources are only served to the page load that triggered
+ * them: they are discarded as soon as a request does not match one of them.
+ *
  * @author Rob Winch
  * @author Sam Brannen
  * @see cn.taketoday.test.web.servlet.htmlunit.webdriver.WebConnectionHtmlUnitDriver
  */
 public final class MockMvcWebConnection implements WebConnection {
 
-  private final Map<String, MockHttpSession> sessions = new HashMap<>();
+  private static final Pattern SUBRESOURCE_PATTERN = Pattern.compile(
+          "<(script|img|link)\\b[^>]*?\\b(src|href)\\s*=\\s*[\"']([^\"']+)[\"'][^>]*>",
+          Pattern.CASE_INSENSITIVE);
+
+  private static final Pattern STYLESHEET_PATTERN = Pattern.compile(
+          "\\brel\\s*=\\s*[\"']?[^\"'>]*\\bstylesheet\\b", Pattern.CASE_INSENSITIVE);
+
+  private final Map<String, MockHttpSession> sessions = new ConcurrentHashMap<>();
+
+  private final Map<String, CompletableFuture<MockHttpServletResponse>> prefetchedResponses =
+          new ConcurrentHashMap<>();
 
   private final MockMvc mockMvc;
 
@@ -72,6 +104,12 @@ public final class MockMvcWebConnection implements WebConnection {
 
   private WebClient webClient;
 
+  @Nullable
+  private MockMvcResponseCache responseCache;
+
+  @Nullable
+  private Executor subresourceExecutor;
+
   /**
    * Create a new instance that assumes the context path of the application
    * is {@code ""} (i.e., the root context).
@@ -129,11 +167,74 @@ public final class MockMvcWebConnection implements WebConnection {
     this.webClient = webClient;
   }
 
+  /**
+   * Set the {@link MockMvcResponseCache} used to serve static resources.
+   * <p>The same cache may be shared across connections and {@code WebClient}
+   * instances. Default is no cache.
+   */
+  public void setResponseCache(@Nullable MockMvcResponseCache responseCache) {
+    this.responseCache = responseCache;
+  }
+
+  /**
+   * Set the executor used to dispatch the stylesheet, script and image
+   * subresources referenced by an HTML page concurrently, as soon as the page
+   * has been rendered. HtmlUnit's subsequent requests for these resources are
+   * then served from the completed (or in-flight) results.
+   * <p>Only same-origin {@code GET} subresources are dispatched. Default is
+   * {@code null}, which dispatches every request on the calling thread.
+   */
+  public void setSubresourceExecutor(@Nullable Executor subresourceExecutor) {
+    this.subresourceExecutor = subresourceExecutor;
+  }
+
   @Override
   public WebResponse getResponse(WebRequest webRequest) throws IOException {
     long startTime = System.currentTimeMillis();
+    MockMvcResponseCache responseCache = this.responseCache;
+    MockMvcResponseCache.Entry cached = (responseCache != null ? responseCache.lookup(webRequest) : null);
+    if (cached != null && cached.isFresh()) {
+      responseCache.recordHit();
+      return new MockWebResponseBuilder(startTime, webRequest, cached.getResponse()).build();
+    }
+
+    CompletableFuture<MockHttpServletResponse> prefetch = (webRequest.getHttpMethod() == HttpMethod.GET ?
+            this.prefetchedResponses.remove(webRequest.getUrl().toExternalForm()) : null);
+    if (prefetch == null) {
+      // Not part of the page load that triggered the prefetches: never serve them later
+      discardPrefetchedResponses();
+    }
+    MockHttpServletResponse httpServletResponse =
+            (prefetch != null ? awaitPrefetch(prefetch) : getResponse(webRequest, cached));
+
+    if (cached != null && httpServletResponse.getStatus() == HttpServletResponse.SC_NOT_MODIFIED) {
+      responseCache.recordRevalidation(cached);
+      return new MockWebResponseBuilder(startTime, webRequest, cached.getResponse()).build();
+    }
+
+    storeCookies(webRequest, httpServletResponse.getCookies());
+    if (responseCache != null) {
+      responseCache.store(webRequest, httpServletResponse);
+    }
+    Executor subresourceExecutor = this.subresourceExecutor;
+    if (subresourceExecutor != null && isHtml(httpServletResponse)) {
+      prefetchSubresources(webRequest, httpServletResponse, subresourceExecutor);
+    }
+
+    return new MockWebResponseBuilder(startTime, webRequest, httpServletResponse).build();
+  }
+
+  private MockHttpServletResponse getResponse(
+          WebRequest webRequest, @Nullable MockMvcResponseCache.Entry cached) throws IOException {
+
     HtmlUnitRequestBuilder requestBuilder = new HtmlUnitRequestBuilder(this.sessions, this.webClient, webRequest);
     requestBuilder.setContextPath(this.contextPath);
+    if (cached != null && cached.canRevalidate()) {
+      requestBuilder.setConditionalPostProcessor(request -> {
+        cached.addConditionalHeaders(request);
+        return request;
+      });
+    }
 
     MockHttpServletResponse httpServletResponse = getResponse(requestBuilder);
     String forwardedUrl = httpServletResponse.getForwardedUrl();
@@ -142,9 +243,7 @@ public final class MockMvcWebConnection implements WebConnection {
       httpServletResponse = getResponse(requestBuilder);
       forwardedUrl = httpServletResponse.getForwardedUrl();
     }
-    storeCookies(webRequest, httpServletResponse.getCookies());
-
-    return new MockWebResponseBuilder(startTime, webRequest, httpServletResponse).build();
+    return httpServletResponse;
   }
 
   private MockHttpServletResponse getResponse(RequestBuilder requestBuilder) throws IOException {
@@ -159,6 +258,116 @@ public final class MockMvcWebConnection implements WebConnection {
     return resultActions.andReturn().getResponse();
   }
 
+  private static boolean isHtml(MockHttpServletResponse response) {
+    String contentType = response.getContentType();
+    return (response.getStatus() == HttpServletResponse.SC_OK
+            && contentType != null && contentType.startsWith("text/html"));
+  }
+
+  private void prefetchSubresources(WebRequest page, MockHttpServletResponse response, Executor executor) {
+    String html;
+    try {
+      html = response.getContentAsString();
+    }
+    catch (UnsupportedEncodingException ex) {
+      return;
+    }
+    BrowserVersion browserVersion = this.webClient.getBrowserVersion();
+    for (Map.Entry<String, String> entry : findSubresourceLocations(html).entrySet()) {
+      URL url;
+      try {
+        url = new URL(page.getUrl(), entry.getKey());
+      }
+      catch (MalformedURLException ex) {
+        continue;
+      }
+      if (!isSameOrigin(page.getUrl(), url)) {
+        continue;
+      }
+      WebRequest subresource = createSubresourceRequest(page, url, entry.getValue(), browserVersion);
+      MockMvcResponseCache responseCache = this.responseCache;
+      MockMvcResponseCache.Entry cached = (responseCache != null ? responseCache.lookup(subresource) : null);
+      if (cached != null && cached.isFresh()) {
+        continue;
+      }
+      this.prefetchedResponses.computeIfAbsent(url.toExternalForm(), key ->
+              CompletableFuture.supplyAsync(() -> {
+                try {
+                  return getResponse(subresource, cached);
+                }
+                catch (IOException ex) {
+                  throw new CompletionException(ex);
+                }
+              }, executor));
+    }
+  }
+
+  /**
+   * Create the request for a subresource the way HtmlUnit's page loader would:
+   * with the headers of the page request, the page as referer and the
+   * browser's accept header for the type of subresource.
+   */
+  private static WebRequest createSubresourceRequest(WebRequest page, URL url, String tag, BrowserVersion browserVersion) {
+    WebRequest subresource = new WebRequest(url);
+    subresource.setCharset(page.getCharset());
+    for (Map.Entry<String, String> header : page.getAdditionalHeaders().entrySet()) {
+      subresource.setAdditionalHeader(header.getKey(), header.getValue());
+    }
+    subresource.setAdditionalHeader(HttpHeaders.REFERER, page.getUrl().toExternalForm());
+    String accept = switch (tag) {
+      case "link" -> browserVersion.getCssAcceptHeader();
+      case "script" -> browserVersion.getScriptAcceptHeader();
+      default -> browserVersion.getImgAcceptHeader();
+    };
+    subresource.setAdditionalHeader(HttpHeaders.ACCEPT, accept);
+    return subresource;
+  }
+
+  /**
+   * Find the stylesheet, script and image locations referenced by the
+   * supplied page.
+   *
+   * @return the locations, mapped to the lower-case name of the referencing tag
+   */
+  static Map<String, String> findSubresourceLocations(String html) {
+    Map<String, String> locations = new LinkedHashMap<>();
+    Matcher matcher = SUBRESOURCE_PATTERN.matcher(html);
+    while (matcher.find()) {
+      String tag = matcher.group(1).toLowerCase(Locale.ROOT);
+      if (tag.equals("link") && !STYLESHEET_PATTERN.matcher(matcher.group()).find()) {
+        continue;
+      }
+      String location = matcher.group(3).trim();
+      if (!location.isEmpty() && !location.startsWith("data:") && !location.startsWith("#")) {
+        locations.putIfAbsent(location, tag);
+      }
+    }
+    return locations;
+  }
+
+  private static boolean isSameOrigin(URL page, URL url) {
+    return page.getProtocol().equals(url.getProtocol()) && page.getHost().equals(url.getHost())
+            && page.getPort() == url.getPort();
+  }
+
+  private static MockHttpServletResponse awaitPrefetch(CompletableFuture<MockHttpServletResponse> prefetch)
+          throws IOException {
+    try {
+      return prefetch.get();
+    }
+    catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for subresource", ex);
+    }
+    catch (ExecutionException ex) {
+      Throwable cause = (ex.getCause() instanceof CompletionException ? ex.getCause().getCause() : ex.getCause());
+      if (cause instanceof IOException ioException) {
+        throw ioException;
+      }
+      throw new IOException(cause);
+    }
+  }
+
   private void storeCookies(WebRequest webRequest, jakarta.servlet.http.Cookie[] cookies) {
     Date now = new Date();
     CookieManager cookieManager = this.webClient.getCookieManager();
@@ -194,8 +403,15 @@ public final class MockMvcWebConnection implements WebConnection {
     return new com.gargoylesoftware.htmlunit.util.Cookie(result);
   }
 
+  private void discardPrefetchedResponses() {
+    if (!this.prefetchedResponses.isEmpty()) {
+      this.prefetchedResponses.clear();
+    }
+  }
+
   @Override
   public void close() {
+    this.prefetchedResponses.clear();
   }
 
 }
@@ -26,8 +26,10 @@ import com.gargoylesoftware.htmlunit.WebConnection;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 import cn.taketoday.lang.Assert;
+import cn.taketoday.lang.Nullable;
 import cn.taketoday.test.web.servlet.MockMvc;
 import cn.taketoday.test.web.servlet.htmlunit.DelegatingWebConnection.DelegateWebConnection;
 import cn.taketoday.test.web.servlet.setup.MockMvcBuilders;
@@ -56,6 +58,12 @@ public abstract class MockMvcWebConnectionBuilderSupport<T extends MockMvcWebCon
 
   private boolean alwaysUseMockMvc;
 
+  @Nullable
+  private MockMvcResponseCache responseCache;
+
+  @Nullable
+  private Executor subresourceExecutor;
+
   /**
    * Create a new instance using the supplied {@link MockMvc} instance.
    *
@@ -144,6 +152,36 @@ public abstract class MockMvcWebConnectionBuilderSupport<T extends MockMvcWebCon
     return (T) this;
   }
 
+  /**
+   * Serve cacheable static resources from the supplied {@link MockMvcResponseCache},
+   * which may be shared across all {@code WebClient} instances of a test run.
+   *
+   * @param responseCache the cache to use
+   * @return this builder for further customization
+   * @see MockMvcWebConnection#setResponseCache(MockMvcResponseCache)
+   */
+  @SuppressWarnings("unchecked")
+  public T responseCache(MockMvcResponseCache responseCache) {
+    Assert.notNull(responseCache, "MockMvcResponseCache must not be null");
+    this.responseCache = responseCache;
+    return (T) this;
+  }
+
+  /**
+   * Dispatch the subresources referenced by HTML pages concurrently on the
+   * supplied executor.
+   *
+   * @param subresourceExecutor the executor to use
+   * @return this builder for further customization
+   * @see MockMvcWebConnection#setSubresourceExecutor(Executor)
+   */
+  @SuppressWarnings("unchecked")
+  public T subresourceExecutor(Executor subresourceExecutor) {
+    Assert.notNull(subresourceExecutor, "Executor must not be null");
+    this.subresourceExecutor = subresourceExecutor;
+    return (T) this;
+  }
+
   /**
    * Create a new {@link WebConnection} that will use a {@link MockMvc}
    * instance if one of the specified {@link WebRequestMatcher} instances
@@ -163,7 +201,9 @@ public abstract class MockMvcWebConnectionBuilderSupport<T extends MockMvcWebCon
   }
 
   private WebConnection createConnection(WebClient webClient, WebConnection defaultConnection) {
-    WebConnection connection = new MockMvcWebConnection(this.mockMvc, webClient, this.contextPath);
+    MockMvcWebConnection connection = new MockMvcWebConnection(this.mockMvc, webClient, this.contextPath);
+    connection.setResponseCache(this.responseCache);
+    connection.setSubresourceExecutor(this.subresourceExecutor);
     if (this.alwaysUseMockMvc) {
       return connection;
     }
@@ -0,0 +1,158 @@
+/*
+ * Original Author -> Harry Yang (taketoday@foxmail.com) https://taketoday.cn
+ * Copyright © TODAY & 2017 - 2021 All Rights Reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.test.web.servlet.load;
+
+import java.util.concurrent.TimeUnit;
+
+import cn.taketoday.lang.Assert;
+
+/**
+ * Log-linear latency histogram in the style of HdrHistogram.
+ *
+ * <p>Values are recorded in nanoseconds into 64 linear sub-buckets per power
+ * of two, which bounds the relative error of reported percentiles to about
+ * 1.6% across the full {@code long} range with a fixed footprint of
+ * a few thousand counters.
+ *
+ * <p>Instances are not thread-safe: each load worker records into its own
+ * histogram and the results are {@linkplain #add(LatencyHistogram) merged}.
+ *
+ * @author TODAY
+ * @since 4.0
+ */
+public final class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 6;
+
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+  private static final int BUCKET_COUNT = (63 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT + 2 * SUB_BUCKET_COUNT;
+
+  private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private final long[] counts = new long[BUCKET_COUNT];
+
+  private long totalCount;
+
+  private long totalNanos;
+
+  private long minNanos = Long.MAX_VALUE;
+
+  private long maxNanos;
+
+  /**
+   * Record a single latency value.
+   *
+   * @param nanos the latency in nanoseconds; negative values are recorded as 0
+   */
+  public void record(long nanos) {
+    long value = Math.max(nanos, 0);
+    this.counts[indexOf(value)]++;
+    this.totalCount++;
+    this.totalNanos += value;
+    this.minNanos = Math.min(this.minNanos, value);
+    this.maxNanos = Math.max(this.maxNanos, value);
+  }
+
+  /**
+   * Add all values recorded by the supplied histogram to this histogram.
+   */
+  public void add(LatencyHistogram other) {
+    Assert.notNull(other, "LatencyHistogram must not be null");
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      this.counts[i] += other.counts[i];
+    }
+    this.totalCount += other.totalCount;
+    this.totalNanos += other.totalNanos;
+    this.minNanos = Math.min(this.minNanos, other.minNanos);
+    this.maxNanos = Math.max(this.maxNanos, other.maxNanos);
+  }
+
+  public long getTotalCount() {
+    return this.totalCount;
+  }
+
+  public long getMinNanos() {
+    return (this.totalCount != 0 ? this.minNanos : 0);
+  }
+
+  public long getMaxNanos() {
+    return this.maxNanos;
+  }
+
+  public double getMeanNanos() {
+    return (this.totalCount != 0 ? (double) this.totalNanos / this.totalCount : 0);
+  }
+
+  /**
+   * Get the value at the supplied percentile, i.e. the highest value that is
+   * equivalent (within the resolution of this histogram) to the value below
+   * which {@code percentile} percent of all recorded values fall.
+   *
+   * @param percentile the percentile between {@code 0} and {@code 100}
+   * @return the value in nanoseconds, or {@code 0} if nothing was recorded
+   */
+  public long getValueAtPercentile(double percentile) {
+    Assert.isTrue(percentile >= 0 && percentile <= 100, "'percentile' must be between 0 and 100");
+    if (this.totalCount == 0) {
+      return 0;
+    }
+    long countAtPercentile = Math.max(1, (long) Math.ceil(percentile / 100 * this.totalCount));
+    long count = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      count += this.counts[i];
+      if (count >= countAtPercentile) {
+        return Math.min(highestEquivalentValue(i), this.maxNanos);
+      }
+    }
+    return this.maxNanos;
+  }
+
+  static int indexOf(long value) {
+    if (value < 2 * SUB_BUCKET_COUNT) {
+      return (int) value;
+    }
+    int shift = (63 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+    return shift * SUB_BUCKET_COUNT + (int) (value >>> shift);
+  }
+
+  static long highestEquivalentValue(int index) {
+    if (index < 2 * SUB_BUCKET_COUNT) {
+      return index;
+    }
+    int shift = index / SUB_BUCKET_COUNT - 1;
+    long subBucket = index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+    return ((subBucket + 1) << shift) - 1;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("count=%d, mean=%.3fms, p50=%.3fms, p90=%.3fms, p99=%.3fms, p99.9=%.3fms, max=%.3fms",
+            getTotalCount(), getMeanNanos() / NANOS_PER_MILLI, toMillis(getValueAtPercentile(50)),
+            toMillis(getValueAtPercentile(90)), toMillis(getValueAtPercentile(99)),
+            toMillis(getValueAtPercentile(99.9)), toMillis(getMaxNanos()));
+  }
+
+  private static double toMillis(long nanos) {
+    return nanos / NANOS_PER_MILLI;
+  }
+
+}
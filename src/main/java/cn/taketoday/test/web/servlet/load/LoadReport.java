@@ -0,0 +1,223 @@
+/*
+ * Original Author -> Harry Yang (taketoday@foxmail.com) https://taketoday.cn
+ * Copyright © TODAY & 2017 - 2021 All Rights Reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.test.web.servlet.load;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+import cn.taketoday.lang.Nullable;
+
+/**
+ * Result of a {@link MockMvcLoadDriver} run: per-endpoint throughput,
+ * latency percentiles, error counts and allocation rate.
+ *
+ * @author TODAY
+ * @since 4.0
+ */
+public final class LoadReport {
+
+  private final Duration elapsed;
+
+  private final List<EndpointReport> endpoints;
+
+  private final long allocatedBytes;
+
+  @Nullable
+  private final Throwable firstFailure;
+
+  LoadReport(Duration elapsed, List<EndpointReport> endpoints, long allocatedBytes, @Nullable Throwable firstFailure) {
+    this.elapsed = elapsed;
+    this.endpoints = Collections.unmodifiableList(endpoints);
+    this.allocatedBytes = allocatedBytes;
+    this.firstFailure = firstFailure;
+  }
+
+  /**
+   * Return the wall-clock time of the measured run.
+   */
+  public Duration getElapsed() {
+    return this.elapsed;
+  }
+
+  /**
+   * Return the per-endpoint reports, in registration order.
+   */
+  public List<EndpointReport> getEndpoints() {
+    return this.endpoints;
+  }
+
+  /**
+   * Return the report for the endpoint with the supplied name.
+   *
+   * @throws IllegalArgumentException if there is no such endpoint
+   */
+  public EndpointReport getEndpoint(String name) {
+    for (EndpointReport endpoint : this.endpoints) {
+      if (endpoint.getName().equals(name)) {
+        return endpoint;
+      }
+    }
+    throw new IllegalArgumentException("No endpoint named '" + name + "'");
+  }
+
+  /**
+   * Return the total number of requests performed.
+   */
+  public long getTotalRequests() {
+    long total = 0;
+    for (EndpointReport endpoint : this.endpoints) {
+      total += endpoint.getRequests();
+    }
+    return total;
+  }
+
+  /**
+   * Return the overall throughput in requests per second.
+   */
+  public double getThroughput() {
+    return perSecond(getTotalRequests(), this.elapsed);
+  }
+
+  /**
+   * Return the average number of bytes allocated per request by the worker
+   * threads, or {@code -1} if allocation could not be measured on this JVM
+   * or for the threads used.
+   */
+  public long getAllocatedBytesPerRequest() {
+    long requests = getTotalRequests();
+    return (this.allocatedBytes < 0 || requests == 0 ? -1 : this.allocatedBytes / requests);
+  }
+
+  /**
+   * Return the first exception or assertion failure, if any.
+   */
+  @Nullable
+  public Throwable getFirstFailure() {
+    return this.firstFailure;
+  }
+
+  /**
+   * Assert that no request failed and no sampled {@code ResultMatcher} failed.
+   *
+   * @throws AssertionError wrapping the first failure
+   */
+  public void assertNoFailures() {
+    if (this.firstFailure != null) {
+      throw new AssertionError("Load run failed: " + this, this.firstFailure);
+    }
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+    builder.append(String.format("%d requests in %dms (%.1f req/s, %s bytes/request)",
+            getTotalRequests(), this.elapsed.toMillis(), getThroughput(),
+            (getAllocatedBytesPerRequest() < 0 ? "n/a" : Long.toString(getAllocatedBytesPerRequest()))));
+    for (EndpointReport endpoint : this.endpoints) {
+      builder.append("\n  ").append(endpoint);
+    }
+    return builder.toString();
+  }
+
+  static double perSecond(long count, Duration elapsed) {
+    long nanos = elapsed.toNanos();
+    return (nanos > 0 ? count * 1_000_000_000d / nanos : 0);
+  }
+
+  /**
+   * Statistics for a single named request of the mix.
+   */
+  public static final class EndpointReport {
+
+    private final String name;
+
+    private final Duration elapsed;
+
+    private final LatencyHistogram latencies;
+
+    private final long errors;
+
+    private final long sampledMatches;
+
+    private final long matcherFailures;
+
+    EndpointReport(String name, Duration elapsed, LatencyHistogram latencies,
+            long errors, long sampledMatches, long matcherFailures) {
+      this.name = name;
+      this.elapsed = elapsed;
+      this.latencies = latencies;
+      this.errors = errors;
+      this.sampledMatches = sampledMatches;
+      this.matcherFailures = matcherFailures;
+    }
+
+    public String getName() {
+      return this.name;
+    }
+
+    /**
+     * Return the number of performed requests, including failed ones.
+     */
+    public long getRequests() {
+      return this.latencies.getTotalCount();
+    }
+
+    /**
+     * Return the throughput of this endpoint in requests per second.
+     */
+    public double getThroughput() {
+      return perSecond(getRequests(), this.elapsed);
+    }
+
+    public LatencyHistogram getLatencies() {
+      return this.latencies;
+    }
+
+    /**
+     * Return the number of requests for which {@code MockMvc.perform} threw an exception.
+     */
+    public long getErrors() {
+      return this.errors;
+    }
+
+    /**
+     * Return the number of requests on which the result matchers were applied.
+     */
+    public long getSampledMatches() {
+      return this.sampledMatches;
+    }
+
+    /**
+     * Return the number of sampled requests for which a result matcher failed.
+     */
+    public long getMatcherFailures() {
+      return this.matcherFailures;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s: %.1f req/s, errors=%d, matched=%d, matcherFailures=%d, %s",
+              this.name, getThroughput(), this.errors, this.sampledMatches, this.matcherFailures, this.latencies);
+    }
+  }
+
+}
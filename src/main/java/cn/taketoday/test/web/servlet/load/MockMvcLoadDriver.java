@@ -0,0 +1,502 @@
+/*
+ * Original Author -> Harry Yang (taketoday@foxmail.com) https://taketoday.cn
+ * Copyright © TODAY & 2017 - 2021 All Rights Reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.test.web.servlet.load;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import cn.taketoday.lang.Assert;
+import cn.taketoday.lang.Nullable;
+import cn.taketoday.mock.web.MockHttpServletRequest;
+import cn.taketoday.test.Mergeable;
+import cn.taketoday.test.web.servlet.MockMvc;
+import cn.taketoday.test.web.servlet.RequestBuilder;
+import cn.taketoday.test.web.servlet.ResultActions;
+import cn.taketoday.test.web.servlet.ResultMatcher;
+import cn.taketoday.test.web.servlet.SmartRequestBuilder;
+import cn.taketoday.test.web.servlet.request.MockHttpServletRequestBuilder;
+import cn.taketoday.test.web.servlet.request.PreparedRequest;
+import jakarta.servlet.ServletContext;
+
+/**
+ * In-process load driver that pushes a weighted mix of {@link RequestBuilder
+ * RequestBuilders} through a shared {@link MockMvc} from several threads,
+ * without a servlet container.
+ *
+ * <h3>Example</h3>
+ *
+ * <pre class="code">
+ * LoadReport report = MockMvcLoadDriver.forMockMvc(mockMvc)
+ *     .request("list", 3, get("/persons"), status().isOk())
+ *     .request("show", 1, get("/persons/1"), status().isOk(), jsonPath("$.name").exists())
+ *     .threads(16)
+ *     .duration(Duration.ofSeconds(10))
+ *     .matcherSampleRate(0.05)
+ *     .run();
+ *
+ * report.assertNoFailures();
+ * assertThat(report.getEndpoint("show").getLatencies().getValueAtPercentile(99))
+ *     .isLessThan(TimeUnit.MILLISECONDS.toNanos(20));
+ * </pre>
+ *
+ * <p>Request builders are mutable and {@code MockMvc} merges them with its
+ * default request on every perform, so each run works on its own request per
+ * entry of the mix: a {@link MockHttpServletRequestBuilder} is
+ * {@linkplain MockHttpServletRequestBuilder#prepare() prepared}, and any other
+ * {@link Mergeable} builder is merged only once, on the calling thread during
+ * warmup. The builders passed in are never merged themselves. Latencies cover
+ * {@link MockMvc#perform} only; the configured {@link ResultMatcher ResultMatchers}
+ * are applied to a random sample of the results, outside of the measurement.
+ *
+ * @author TODAY
+ * @see LoadReport
+ * @since 4.0
+ */
+public final class MockMvcLoadDriver {
+
+  private final MockMvc mockMvc;
+
+  private final List<Endpoint> endpoints = new ArrayList<>();
+
+  private int threads = Runtime.getRuntime().availableProcessors();
+
+  private ThreadFactory threadFactory = new WorkerThreadFactory();
+
+  @Nullable
+  private Duration duration;
+
+  private long iterations = -1;
+
+  private int warmupIterations = 1;
+
+  private double matcherSampleRate = 0.01;
+
+  private MockMvcLoadDriver(MockMvc mockMvc) {
+    Assert.notNull(mockMvc, "MockMvc must not be null");
+    this.mockMvc = mockMvc;
+  }
+
+  /**
+   * Create a load driver for the supplied {@code MockMvc}.
+   */
+  public static MockMvcLoadDriver forMockMvc(MockMvc mockMvc) {
+    return new MockMvcLoadDriver(mockMvc);
+  }
+
+  /**
+   * Add a request to the mix with a weight of {@code 1}.
+   *
+   * @see #request(String, int, RequestBuilder, ResultMatcher...)
+   */
+  public MockMvcLoadDriver request(String name, RequestBuilder requestBuilder, ResultMatcher... matchers) {
+    return request(name, 1, requestBuilder, matchers);
+  }
+
+  /**
+   * Add a request to the mix.
+   *
+   * @param name the name under which statistics are reported
+   * @param weight the relative frequency of this request in the mix
+   * @param requestBuilder the request to perform
+   * @param matchers the matchers to apply to sampled results
+   */
+  public MockMvcLoadDriver request(String name, int weight, RequestBuilder requestBuilder, ResultMatcher... matchers) {
+    Assert.hasText(name, "Name must not be empty");
+    Assert.isTrue(weight > 0, "'weight' must be positive");
+    Assert.notNull(requestBuilder, "RequestBuilder must not be null");
+    Assert.noNullElements(matchers, "ResultMatchers must not contain null elements");
+    for (Endpoint endpoint : this.endpoints) {
+      Assert.isTrue(!endpoint.name.equals(name), () -> "Duplicate request name '" + name + "'");
+    }
+    this.endpoints.add(new Endpoint(name, weight, requestBuilder, matchers));
+    return this;
+  }
+
+  /**
+   * Set the number of worker threads.
+   * <p>Defaults to the number of available processors.
+   */
+  public MockMvcLoadDriver threads(int threads) {
+    Assert.isTrue(threads > 0, "'threads' must be positive");
+    this.threads = threads;
+    return this;
+  }
+
+  /**
+   * Set the factory used to create worker threads.
+   * <p>Defaults to platform daemon threads.
+   */
+  public MockMvcLoadDriver threadFactory(ThreadFactory threadFactory) {
+    Assert.notNull(threadFactory, "ThreadFactory must not be null");
+    this.threadFactory = threadFactory;
+    return this;
+  }
+
+  /**
+   * Run workers on virtual threads.
+   *
+   * @throws IllegalStateException if virtual threads are not available
+   * on the current JVM
+   */
+  public MockMvcLoadDriver virtualThreads() {
+    try {
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      Method factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+      this.threadFactory = (ThreadFactory) factory.invoke(builder);
+    }
+    catch (ReflectiveOperationException | LinkageError ex) {
+      throw new IllegalStateException("Virtual threads are not available on this JVM", ex);
+    }
+    return this;
+  }
+
+  /**
+   * Run for the supplied duration.
+   * <p>If {@link #iterations(long)} is set as well, the run stops at
+   * whichever limit is reached first.
+   */
+  public MockMvcLoadDriver duration(Duration duration) {
+    Assert.isTrue(duration != null && !duration.isNegative() && !duration.isZero(), "'duration' must be positive");
+    this.duration = duration;
+    return this;
+  }
+
+  /**
+   * Run the supplied total number of requests, spread across all workers.
+   */
+  public MockMvcLoadDriver iterations(long iterations) {
+    Assert.isTrue(iterations > 0, "'iterations' must be positive");
+    this.iterations = iterations;
+    return this;
+  }
+
+  /**
+   * Set the number of times each request is performed on the calling
+   * thread before the measured run. Must be at least {@code 1}.
+   */
+  public MockMvcLoadDriver warmupIterations(int warmupIterations) {
+    Assert.isTrue(warmupIterations > 0, "'warmupIterations' must be positive");
+    this.warmupIterations = warmupIterations;
+    return this;
+  }
+
+  /**
+   * Set the fraction of results on which the result matchers are applied,
+   * between {@code 0} (never) and {@code 1} (always).
+   * <p>Defaults to {@code 0.01}.
+   */
+  public MockMvcLoadDriver matcherSampleRate(double matcherSampleRate) {
+    Assert.isTrue(matcherSampleRate >= 0 && matcherSampleRate <= 1, "'matcherSampleRate' must be between 0 and 1");
+    this.matcherSampleRate = matcherSampleRate;
+    return this;
+  }
+
+  /**
+   * Perform the configured run and return its report.
+   *
+   * @throws Exception if a warmup request fails
+   */
+  public LoadReport run() throws Exception {
+    Assert.state(!this.endpoints.isEmpty(), "No requests configured");
+    Assert.state(this.duration != null || this.iterations > 0, "Either 'duration' or 'iterations' must be set");
+
+    RequestBuilder[] requests = new RequestBuilder[this.endpoints.size()];
+    for (int i = 0; i < requests.length; i++) {
+      requests[i] = prepareRequest(this.endpoints.get(i).requestBuilder);
+      for (int j = 0; j < this.warmupIterations; j++) {
+        this.mockMvc.perform(requests[i]);
+      }
+    }
+
+    int[] cumulativeWeights = new int[this.endpoints.size()];
+    int totalWeight = 0;
+    for (int i = 0; i < cumulativeWeights.length; i++) {
+      totalWeight += this.endpoints.get(i).weight;
+      cumulativeWeights[i] = totalWeight;
+    }
+
+    RunState state = new RunState(this.iterations, (this.duration != null), cumulativeWeights, requests);
+    List<Worker> workers = new ArrayList<>(this.threads);
+    List<Thread> workerThreads = new ArrayList<>(this.threads);
+    for (int i = 0; i < this.threads; i++) {
+      Worker worker = new Worker(state);
+      workers.add(worker);
+      workerThreads.add(this.threadFactory.newThread(worker));
+    }
+    for (Thread thread : workerThreads) {
+      thread.start();
+    }
+
+    long start = System.nanoTime();
+    if (this.duration != null) {
+      state.deadline = start + saturatedNanos(this.duration);
+    }
+    state.startGate.countDown();
+    for (Thread thread : workerThreads) {
+      thread.join();
+    }
+    Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+    return buildReport(workers, elapsed, state.firstFailure.get());
+  }
+
+  /**
+   * Create the request shared by the workers for the supplied builder.
+   */
+  private static RequestBuilder prepareRequest(RequestBuilder requestBuilder) {
+    if (requestBuilder instanceof MockHttpServletRequestBuilder mockRequestBuilder) {
+      return mockRequestBuilder.prepare();
+    }
+    if (requestBuilder instanceof Mergeable && !(requestBuilder instanceof PreparedRequest)) {
+      return new MergeOnceRequest(requestBuilder);
+    }
+    return requestBuilder;
+  }
+
+  private static long saturatedNanos(Duration duration) {
+    // Long.MAX_VALUE / 4 nanoseconds is still more than 70 years
+    long maxSeconds = Long.MAX_VALUE / 4 / 1_000_000_000L;
+    return (duration.getSeconds() < maxSeconds ? duration.toNanos() : maxSeconds * 1_000_000_000L);
+  }
+
+  private LoadReport buildReport(List<Worker> workers, Duration elapsed, @Nullable Throwable firstFailure) {
+    List<LoadReport.EndpointReport> reports = new ArrayList<>(this.endpoints.size());
+    long allocatedBytes = 0;
+    for (Worker worker : workers) {
+      allocatedBytes = (allocatedBytes < 0 || worker.allocatedBytes < 0 ? -1 : allocatedBytes + worker.allocatedBytes);
+    }
+    for (int i = 0; i < this.endpoints.size(); i++) {
+      LatencyHistogram latencies = new LatencyHistogram();
+      long errors = 0;
+      long sampledMatches = 0;
+      long matcherFailures = 0;
+      for (Worker worker : workers) {
+        latencies.add(worker.latencies[i]);
+        errors += worker.errors[i];
+        sampledMatches += worker.sampledMatches[i];
+        matcherFailures += worker.matcherFailures[i];
+      }
+      reports.add(new LoadReport.EndpointReport(this.endpoints.get(i).name, elapsed,
+              latencies, errors, sampledMatches, matcherFailures));
+    }
+    return new LoadReport(elapsed, reports, allocatedBytes, firstFailure);
+  }
+
+  private static long currentThreadAllocatedBytes() {
+    ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    if (threadMXBean instanceof com.sun.management.ThreadMXBean sunThreadMXBean
+            && sunThreadMXBean.isThreadAllocatedMemorySupported()
+            && sunThreadMXBean.isThreadAllocatedMemoryEnabled()) {
+      return sunThreadMXBean.getCurrentThreadAllocatedBytes();
+    }
+    return -1;
+  }
+
+  private record Endpoint(String name, int weight, RequestBuilder requestBuilder, ResultMatcher[] matchers) {
+  }
+
+  private static final class RunState {
+
+    final CountDownLatch startGate = new CountDownLatch(1);
+
+    final AtomicLong remaining;
+
+    final boolean limitedIterations;
+
+    final boolean limitedDuration;
+
+    final int[] cumulativeWeights;
+
+    final RequestBuilder[] requests;
+
+    final AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+
+    volatile long deadline;
+
+    RunState(long iterations, boolean limitedDuration, int[] cumulativeWeights, RequestBuilder[] requests) {
+      this.limitedIterations = (iterations > 0);
+      this.limitedDuration = limitedDuration;
+      this.remaining = new AtomicLong(iterations);
+      this.cumulativeWeights = cumulativeWeights;
+      this.requests = requests;
+    }
+
+    boolean next() {
+      if (this.limitedIterations && this.remaining.getAndDecrement() <= 0) {
+        return false;
+      }
+      return !this.limitedDuration || System.nanoTime() - this.deadline < 0;
+    }
+
+    int selectEndpoint(ThreadLocalRandom random) {
+      int value = random.nextInt(this.cumulativeWeights[this.cumulativeWeights.length - 1]);
+      for (int i = 0; i < this.cumulativeWeights.length; i++) {
+        if (value < this.cumulativeWeights[i]) {
+          return i;
+        }
+      }
+      return this.cumulativeWeights.length - 1;
+    }
+  }
+
+  private final class Worker implements Runnable {
+
+    private final RunState state;
+
+    final LatencyHistogram[] latencies;
+
+    final long[] errors;
+
+    final long[] sampledMatches;
+
+    final long[] matcherFailures;
+
+    long allocatedBytes;
+
+    Worker(RunState state) {
+      int size = endpoints.size();
+      this.state = state;
+      this.latencies = new LatencyHistogram[size];
+      for (int i = 0; i < size; i++) {
+        this.latencies[i] = new LatencyHistogram();
+      }
+      this.errors = new long[size];
+      this.sampledMatches = new long[size];
+      this.matcherFailures = new long[size];
+    }
+
+    @Override
+    public void run() {
+      try {
+        this.state.startGate.await();
+      }
+      catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+
+      long allocatedBefore = currentThreadAllocatedBytes();
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+      while (this.state.next()) {
+        int index = this.state.selectEndpoint(random);
+        Endpoint endpoint = endpoints.get(index);
+
+        long start = System.nanoTime();
+        ResultActions resultActions;
+        try {
+          resultActions = mockMvc.perform(this.state.requests[index]);
+        }
+        catch (Throwable ex) {
+          this.latencies[index].record(System.nanoTime() - start);
+          this.errors[index]++;
+          this.state.firstFailure.compareAndSet(null, ex);
+          continue;
+        }
+        this.latencies[index].record(System.nanoTime() - start);
+
+        if (endpoint.matchers.length > 0 && random.nextDouble() < matcherSampleRate) {
+          this.sampledMatches[index]++;
+          try {
+            for (ResultMatcher matcher : endpoint.matchers) {
+              resultActions.andExpect(matcher);
+            }
+          }
+          catch (Throwable ex) {
+            this.matcherFailures[index]++;
+            this.state.firstFailure.compareAndSet(null, ex);
+          }
+        }
+      }
+      long allocatedAfter = currentThreadAllocatedBytes();
+      this.allocatedBytes = (allocatedBefore < 0 || allocatedAfter < 0 ? -1 : allocatedAfter - allocatedBefore);
+    }
+  }
+
+  /**
+   * Wraps a {@link Mergeable} request builder so that it is merged with the
+   * {@code MockMvc} default request only once, rather than once per perform.
+   */
+  private static final class MergeOnceRequest implements SmartRequestBuilder, Mergeable {
+
+    private final RequestBuilder delegate;
+
+    @Nullable
+    private RequestBuilder merged;
+
+    MergeOnceRequest(RequestBuilder delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public boolean isMergeEnabled() {
+      return true;
+    }
+
+    @Override
+    public synchronized Object merge(@Nullable Object parent) {
+      if (parent == null) {
+        return this;
+      }
+      RequestBuilder merged = this.merged;
+      if (merged == null) {
+        merged = (RequestBuilder) ((Mergeable) this.delegate).merge(parent);
+        this.merged = merged;
+      }
+      return merged;
+    }
+
+    @Override
+    public MockHttpServletRequest buildRequest(ServletContext servletContext) {
+      return this.delegate.buildRequest(servletContext);
+    }
+
+    @Override
+    public MockHttpServletRequest postProcessRequest(MockHttpServletRequest request) {
+      if (this.delegate instanceof SmartRequestBuilder smartRequestBuilder) {
+        return smartRequestBuilder.postProcessRequest(request);
+      }
+      return request;
+    }
+  }
+
+  private static final class WorkerThreadFactory implements ThreadFactory {
+
+    private final AtomicInteger threadCount = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "MockMvcLoadDriver-" + this.threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+
+}
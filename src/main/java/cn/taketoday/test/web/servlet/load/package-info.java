@@ -0,0 +1,9 @@
+/**
+ * In-process load testing on top of {@link cn.taketoday.test.web.servlet.MockMvc}.
+ */
+@NonNullApi
+@NonNullFields
+package cn.taketoday.test.web.servlet.load;
+
+import cn.taketoday.lang.NonNullApi;
+import cn.taketoday.lang.NonNullFields;
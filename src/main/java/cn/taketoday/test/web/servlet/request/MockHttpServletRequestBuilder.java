@@ -90,6 +90,12 @@ public class MockHttpServletRequestBuilder
 
   private final URI url;
 
+  @Nullable
+  private String urlTemplate;
+
+  @Nullable
+  private RequestTarget target;
+
   private String contextPath = "";
 
   private String servletPath = "";
@@ -146,6 +152,7 @@ public class MockHttpServletRequestBuilder
    */
   MockHttpServletRequestBuilder(HttpMethod httpMethod, String url, Object... vars) {
     this(httpMethod.name(), initUri(url, vars));
+    this.urlTemplate = url;
   }
 
   private static URI initUri(String url, Object[] vars) {
@@ -673,6 +680,71 @@ public class MockHttpServletRequestBuilder
     return this;
   }
 
+  /**
+   * Freeze the current state of this builder into a {@link PreparedRequest}
+   * that can be performed repeatedly, optionally
+   * {@linkplain PreparedRequest#bind(Object...) bound} to other URI variables
+   * of the URL template this builder was created with.
+   * <p>The URL template is parsed once, and the URL and merge with the
+   * {@code MockMvc} default request are resolved once rather than on every
+   * request. Later changes to this builder do not affect the returned
+   * {@code PreparedRequest}.
+   * <pre class="code">
+   * PreparedRequest getHotel = get("/hotels/{id}", 1).accept(MediaType.APPLICATION_JSON).prepare();
+   *
+   * mockMvc.perform(getHotel.bind(42)).andExpect(status().isOk());
+   * </pre>
+   *
+   * @return the prepared request
+   * @since 4.0
+   */
+  public PreparedRequest prepare() {
+    return new PreparedRequest(copy());
+  }
+
+  /**
+   * Create an independent copy of this builder.
+   */
+  MockHttpServletRequestBuilder copy() {
+    MockHttpServletRequestBuilder copy = newInstance();
+    copy.merge(this);
+    copy.contentType = this.contentType;
+    copy.urlTemplate = this.urlTemplate;
+    copy.target = this.target;
+    copy.headers.replaceAll((name, values) -> new ArrayList<>(values));
+    copy.parameters.replaceAll((name, values) -> new ArrayList<>(values));
+    copy.queryParams.replaceAll((name, values) -> new ArrayList<>(values));
+    return copy;
+  }
+
+  /**
+   * Create a new, empty builder of the same type for the same method and URL.
+   */
+  MockHttpServletRequestBuilder newInstance() {
+    return new MockHttpServletRequestBuilder(this.method, this.url);
+  }
+
+  URI getUrl() {
+    return this.url;
+  }
+
+  @Nullable
+  String getUrlTemplate() {
+    return this.urlTemplate;
+  }
+
+  /**
+   * Return the parsed and decoded parts of the URL, computed on first use.
+   */
+  RequestTarget getTarget() {
+    RequestTarget target = this.target;
+    if (target == null) {
+      target = RequestTarget.from(this.url);
+      this.target = target;
+    }
+    return target;
+  }
+
   private boolean containsCookie(Cookie cookie) {
     for (Cookie cookieToCheck : this.cookies) {
       if (ObjectUtils.nullSafeEquals(cookieToCheck.getName(), cookie.getName())) {
@@ -687,22 +759,30 @@ public class MockHttpServletRequestBuilder
    */
   @Override
   public final MockHttpServletRequest buildRequest(ServletContext servletContext) {
+    return buildRequest(servletContext, getTarget());
+  }
+
+  /**
+   * Build a {@link MockHttpServletRequest} for the given target, which
+   * replaces the URL of this builder.
+   */
+  final MockHttpServletRequest buildRequest(ServletContext servletContext, RequestTarget target) {
     MockHttpServletRequest request = createServletRequest(servletContext);
 
     request.setAsyncSupported(true);
     request.setMethod(this.method);
 
-    String requestUri = this.url.getRawPath();
+    String requestUri = target.requestUri;
     request.setRequestURI(requestUri);
 
-    if (this.url.getScheme() != null) {
-      request.setScheme(this.url.getScheme());
+    if (target.scheme != null) {
+      request.setScheme(target.scheme);
     }
-    if (this.url.getHost() != null) {
-      request.setServerName(this.url.getHost());
+    if (target.host != null) {
+      request.setServerName(target.host);
     }
-    if (this.url.getPort() != -1) {
-      request.setServerPort(this.url.getPort());
+    if (target.port != -1) {
+      request.setServerPort(target.port);
     }
 
     updatePathRequestProperties(request, requestUri);
@@ -734,7 +814,7 @@ public class MockHttpServletRequestBuilder
       request.addHeader(HttpHeaders.CONTENT_LENGTH, this.content.length);
     }
 
-    String query = this.url.getRawQuery();
+    String query = target.rawQuery;
     if (!this.queryParams.isEmpty()) {
       String str = UriComponentsBuilder.newInstance().queryParams(this.queryParams).build().encode().getQuery();
       query = StringUtils.isNotEmpty(query) ? (query + "&" + str) : str;
@@ -742,7 +822,9 @@ public class MockHttpServletRequestBuilder
     if (query != null) {
       request.setQueryString(query);
     }
-    addRequestParams(request, UriComponentsBuilder.fromUri(this.url).build().getQueryParams());
+    for (String[] param : target.queryParameters) {
+      request.addParameter(param[0], param[1]);
+    }
 
     this.parameters.forEach((name, values) -> {
       for (String value : values) {
@@ -807,16 +889,18 @@ public class MockHttpServletRequestBuilder
     request.setContextPath(this.contextPath);
     request.setServletPath(this.servletPath);
 
-    if ("".equals(this.pathInfo)) {
+    // computed per request, since a prepared request builds requests for different URLs
+    String pathInfo = this.pathInfo;
+    if ("".equals(pathInfo)) {
       if (!requestUri.startsWith(this.contextPath + this.servletPath)) {
         throw new IllegalArgumentException(
                 "Invalid servlet path [" + this.servletPath + "] for request URI [" + requestUri + "]");
       }
       String extraPath = requestUri.substring(this.contextPath.length() + this.servletPath.length());
-      this.pathInfo = (StringUtils.hasText(extraPath) ?
-                       UrlPathHelper.defaultInstance.decodeRequestString(request, extraPath) : null);
+      pathInfo = (StringUtils.hasText(extraPath) ?
+                  UrlPathHelper.defaultInstance.decodeRequestString(request, extraPath) : null);
     }
-    request.setPathInfo(this.pathInfo);
+    request.setPathInfo(pathInfo);
   }
 
   private void addRequestParams(MockHttpServletRequest request, MultiValueMap<String, String> map) {
@@ -26,6 +26,7 @@ import java.io.InputStreamReader;
 import java.net.URI;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -37,6 +38,7 @@ import cn.taketoday.lang.Nullable;
 import cn.taketoday.mock.web.MockHttpServletRequest;
 import cn.taketoday.mock.web.MockMultipartFile;
 import cn.taketoday.mock.web.MockMultipartHttpServletRequest;
+import cn.taketoday.mock.web.MockPart;
 import cn.taketoday.util.FileCopyUtils;
 import cn.taketoday.util.MediaType;
 import jakarta.servlet.ServletContext;
@@ -94,6 +96,20 @@ public class MockMultipartHttpServletRequestBuilder extends MockHttpServletReque
     return this;
   }
 
+  /**
+   * Create a new MockMultipartFile backed by the given file.
+   * <p>The content is streamed from the file when the request is processed
+   * and is not read into memory.
+   *
+   * @param name the name of the file
+   * @param contentPath the file containing the content
+   * @since 4.0
+   */
+  public MockMultipartHttpServletRequestBuilder file(String name, Path contentPath) {
+    this.files.add(MockMultipartFile.fromPath(name, contentPath));
+    return this;
+  }
+
   /**
    * Add the given MockMultipartFile.
    *
@@ -137,6 +153,11 @@ public class MockMultipartHttpServletRequestBuilder extends MockHttpServletReque
     return this;
   }
 
+  @Override
+  MockHttpServletRequestBuilder newInstance() {
+    return new MockMultipartHttpServletRequestBuilder(getUrl());
+  }
+
   /**
    * Create a new {@link MockMultipartHttpServletRequest} based on the
    * supplied {@code ServletContext} and the {@code MockMultipartFiles}
@@ -154,11 +175,17 @@ public class MockMultipartHttpServletRequestBuilder extends MockHttpServletReque
       try {
         String name = part.getName();
         String filename = part.getSubmittedFileName();
-        InputStream is = part.getInputStream();
         if (filename != null) {
-          request.addFile(new MockMultipartFile(name, filename, part.getContentType(), is));
+          if (part instanceof MockPart mockPart) {
+            // share file or buffer backed content instead of copying it
+            request.addFile(mockPart.toMultipartFile());
+          }
+          else {
+            request.addFile(new MockMultipartFile(name, filename, part.getContentType(), part.getInputStream()));
+          }
         }
         else {
+          InputStream is = part.getInputStream();
           InputStreamReader reader = new InputStreamReader(is, getCharsetOrDefault(part, defaultCharset));
           String value = FileCopyUtils.copyToString(reader);
           request.addParameter(part.getName(), value);
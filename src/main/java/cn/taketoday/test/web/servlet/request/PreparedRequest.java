@@ -0,0 +1,152 @@
+/*
+ * Original Author -> Harry Yang (taketoday@foxmail.com) https://taketoday.cn
+ * Copyright © TODAY & 2017 - 2021 All Rights Reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.test.web.servlet.request;
+
+import java.util.Map;
+
+import cn.taketoday.lang.Assert;
+import cn.taketoday.lang.Nullable;
+import cn.taketoday.mock.web.MockHttpServletRequest;
+import cn.taketoday.test.Mergeable;
+import cn.taketoday.test.web.servlet.SmartRequestBuilder;
+import cn.taketoday.web.util.UriComponents;
+import cn.taketoday.web.util.UriComponentsBuilder;
+import jakarta.servlet.ServletContext;
+
+/**
+ * An immutable, reusable request created via
+ * {@link MockHttpServletRequestBuilder#prepare()}.
+ *
+ * <p>Unlike a {@link MockHttpServletRequestBuilder}, which is mutable and is
+ * merged with the {@code MockMvc} default request on every use, a
+ * {@code PreparedRequest} resolves its URL template once and caches the
+ * result of the merge, so performing it many times, or
+ * {@linkplain #bind(Object...) binding} it to different URI variables, only
+ * costs the expansion of the template and the creation of the request.
+ *
+ * <p>Instances are thread-safe provided the request post-processors
+ * registered on the original builder are.
+ *
+ * @author TODAY
+ * @see MockHttpServletRequestBuilder#prepare()
+ * @since 4.0
+ */
+public final class PreparedRequest implements SmartRequestBuilder, Mergeable {
+
+  private final MockHttpServletRequestBuilder builder;
+
+  @Nullable
+  private final UriComponents template;
+
+  private final RequestTarget target;
+
+  /** The request the merge result is cached on: the one {@code prepare()} returned. */
+  private final PreparedRequest root;
+
+  @Nullable
+  private volatile MergeResult lastMerge;
+
+  PreparedRequest(MockHttpServletRequestBuilder builder) {
+    this.builder = builder;
+    String urlTemplate = builder.getUrlTemplate();
+    this.template = (urlTemplate != null ? UriComponentsBuilder.fromUriString(urlTemplate).build() : null);
+    this.target = builder.getTarget();
+    this.root = this;
+  }
+
+  private PreparedRequest(MockHttpServletRequestBuilder builder, RequestTarget target, PreparedRequest root) {
+    this.builder = builder;
+    this.template = root.template;
+    this.target = target;
+    this.root = root;
+  }
+
+  /**
+   * Return a request for the URL template of the original builder expanded
+   * with the given URI variables, sharing all other request state.
+   *
+   * @param uriVariables zero or more URI variables
+   * @throws IllegalStateException if the original builder was not created
+   * from a URL template
+   */
+  public PreparedRequest bind(Object... uriVariables) {
+    return bind(getTemplate().expand(uriVariables));
+  }
+
+  /**
+   * Variant of {@link #bind(Object...)} with URI variables by name.
+   *
+   * @param uriVariables the URI variables
+   * @throws IllegalStateException if the original builder was not created
+   * from a URL template
+   */
+  public PreparedRequest bind(Map<String, ?> uriVariables) {
+    return bind(getTemplate().expand(uriVariables));
+  }
+
+  private PreparedRequest bind(UriComponents expanded) {
+    return new PreparedRequest(this.builder, RequestTarget.from(expanded.encode()), this.root);
+  }
+
+  private UriComponents getTemplate() {
+    Assert.state(this.template != null, "PreparedRequest was not created from a URL template");
+    return this.template;
+  }
+
+  @Override
+  public boolean isMergeEnabled() {
+    return true;
+  }
+
+  /**
+   * Merge with the given parent request builder. The result is cached by
+   * parent identity, so requests prepared once and performed against the
+   * same {@code MockMvc} are merged only once.
+   */
+  @Override
+  public Object merge(@Nullable Object parent) {
+    if (parent == null) {
+      return this;
+    }
+    MergeResult merge = this.root.lastMerge;
+    if (merge == null || merge.parent != parent) {
+      MockHttpServletRequestBuilder merged = this.root.builder.copy();
+      merged.merge(parent);
+      merge = new MergeResult(parent, merged);
+      this.root.lastMerge = merge;
+    }
+    return new PreparedRequest(merge.builder, this.target, this.root);
+  }
+
+  @Override
+  public MockHttpServletRequest buildRequest(ServletContext servletContext) {
+    return this.builder.buildRequest(servletContext, this.target);
+  }
+
+  @Override
+  public MockHttpServletRequest postProcessRequest(MockHttpServletRequest request) {
+    return this.builder.postProcessRequest(request);
+  }
+
+  private record MergeResult(Object parent, MockHttpServletRequestBuilder builder) {
+  }
+
+}
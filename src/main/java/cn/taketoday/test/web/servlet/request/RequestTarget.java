@@ -0,0 +1,100 @@
+/*
+ * Original Author -> Harry Yang (taketoday@foxmail.com) https://taketoday.cn
+ * Copyright © TODAY & 2017 - 2021 All Rights Reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.test.web.servlet.request;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import cn.taketoday.core.MultiValueMap;
+import cn.taketoday.lang.Nullable;
+import cn.taketoday.web.util.UriComponents;
+import cn.taketoday.web.util.UriComponentsBuilder;
+import cn.taketoday.web.util.UriUtils;
+
+/**
+ * The URL-derived parts of a request built by a
+ * {@link MockHttpServletRequestBuilder}: request URI, scheme, host, port,
+ * query string and the decoded query parameters of the URL.
+ *
+ * <p>Computed once per URL, so that a {@link PreparedRequest} does not parse
+ * and decode its URL again for every request it builds.
+ *
+ * @author TODAY
+ * @since 4.0
+ */
+final class RequestTarget {
+
+  final String requestUri;
+
+  @Nullable
+  final String scheme;
+
+  @Nullable
+  final String host;
+
+  final int port;
+
+  @Nullable
+  final String rawQuery;
+
+  /** Decoded query parameter name and value pairs, in URL order. */
+  final List<String[]> queryParameters;
+
+  private RequestTarget(String requestUri, @Nullable String scheme, @Nullable String host, int port,
+          @Nullable String rawQuery, MultiValueMap<String, String> encodedQueryParams) {
+
+    this.requestUri = requestUri;
+    this.scheme = scheme;
+    this.host = host;
+    this.port = port;
+    this.rawQuery = rawQuery;
+    this.queryParameters = decode(encodedQueryParams);
+  }
+
+  static RequestTarget from(URI url) {
+    return new RequestTarget(url.getRawPath(), url.getScheme(), url.getHost(), url.getPort(),
+            url.getRawQuery(), UriComponentsBuilder.fromUri(url).build().getQueryParams());
+  }
+
+  /**
+   * Create a target from already encoded {@link UriComponents}, avoiding a
+   * round trip through {@link URI}.
+   */
+  static RequestTarget from(UriComponents encoded) {
+    String path = encoded.getPath();
+    return new RequestTarget((path != null ? path : ""), encoded.getScheme(), encoded.getHost(),
+            encoded.getPort(), encoded.getQuery(), encoded.getQueryParams());
+  }
+
+  private static List<String[]> decode(MultiValueMap<String, String> params) {
+    if (params.isEmpty()) {
+      return List.of();
+    }
+    List<String[]> decoded = new ArrayList<>();
+    params.forEach((key, values) -> values.forEach(value -> decoded.add(new String[] {
+            UriUtils.decode(key, StandardCharsets.UTF_8),
+            (value != null ? UriUtils.decode(value, StandardCharsets.UTF_8) : null) })));
+    return decoded;
+  }
+
+}
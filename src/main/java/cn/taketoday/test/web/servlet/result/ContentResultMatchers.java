@@ -23,6 +23,7 @@ package cn.taketoday.test.web.servlet.result;
 import org.hamcrest.Matcher;
 import org.w3c.dom.Node;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.Map;
@@ -30,6 +31,7 @@ import java.util.Map;
 import javax.xml.transform.Source;
 import javax.xml.transform.dom.DOMSource;
 
+import cn.taketoday.mock.web.MockHttpServletResponse;
 import cn.taketoday.test.util.JsonExpectationsHelper;
 import cn.taketoday.test.util.XmlExpectationsHelper;
 import cn.taketoday.test.web.servlet.ResultMatcher;
@@ -154,7 +156,13 @@ public class ContentResultMatchers {
    * Assert the response body content as a byte array.
    */
   public ResultMatcher bytes(byte[] expectedContent) {
-    return result -> assertEquals("Response content", expectedContent, result.getResponse().getContentAsByteArray());
+    return result -> {
+      // Compare against a view of the content; only copy it to report a mismatch
+      MockHttpServletResponse response = result.getResponse();
+      if (!ByteBuffer.wrap(expectedContent).equals(response.getContentAsByteBuffer())) {
+        assertEquals("Response content", expectedContent, response.getContentAsByteArray());
+      }
+    };
   }
 
   /**
@@ -219,7 +227,7 @@ public class ContentResultMatchers {
    * <li>{@code true}: strict checking. Not extensible, and strict array ordering.</li>
    * <li>{@code false}: lenient checking. Extensible, and non-strict array ordering.</li>
    * </ul>
-   * <p>Use of this matcher requires the <a
+   * <p>Uses the same semantics as the <a
    * href="https://jsonassert.skyscreamer.org/">JSONassert</a> library.
    *
    * @param jsonContent the expected JSON content
@@ -23,9 +23,11 @@ package cn.taketoday.test.web.servlet.setup;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 import cn.taketoday.lang.Assert;
 import cn.taketoday.lang.Nullable;
+import cn.taketoday.mock.web.MockAsyncClock;
 import cn.taketoday.mock.web.MockServletConfig;
 import cn.taketoday.test.web.servlet.DispatcherServletCustomizer;
 import cn.taketoday.test.web.servlet.MockMvc;
@@ -66,6 +68,12 @@ public abstract class AbstractMockMvcBuilder<B extends AbstractMockMvcBuilder<B>
   @Nullable
   private Charset defaultResponseCharacterEncoding;
 
+  @Nullable
+  private Executor asyncExecutor;
+
+  @Nullable
+  private MockAsyncClock asyncClock;
+
   private final List<ResultMatcher> globalResultMatchers = new ArrayList<>();
 
   private final List<ResultHandler> globalResultHandlers = new ArrayList<>();
@@ -112,6 +120,28 @@ public abstract class AbstractMockMvcBuilder<B extends AbstractMockMvcBuilder<B>
     return self();
   }
 
+  @Override
+  public final <T extends B> T asyncExecutor(Executor asyncExecutor) {
+    Assert.notNull(asyncExecutor, "asyncExecutor cannot be null");
+    this.asyncExecutor = asyncExecutor;
+    return self();
+  }
+
+  /**
+   * Return the executor configured via {@link #asyncExecutor(Executor)}, if any.
+   */
+  @Nullable
+  protected final Executor getAsyncExecutor() {
+    return this.asyncExecutor;
+  }
+
+  @Override
+  public final <T extends B> T asyncClock(MockAsyncClock asyncClock) {
+    Assert.notNull(asyncClock, "asyncClock cannot be null");
+    this.asyncClock = asyncClock;
+    return self();
+  }
+
   @Override
   public final <T extends B> T alwaysExpect(ResultMatcher resultMatcher) {
     this.globalResultMatchers.add(resultMatcher);
@@ -170,12 +200,15 @@ public abstract class AbstractMockMvcBuilder<B extends AbstractMockMvcBuilder<B>
       }
     }
 
-    Filter[] filterArray = this.filters.toArray(new Filter[0]);
+    // resolve the URL pattern mappings of consecutive mapped filters once per path
+    Filter[] filterArray = CompiledFilterPipeline.compile(this.filters);
 
-    return super.createMockMvc(
+    MockMvc mockMvc = super.createMockMvc(
             filterArray, mockServletConfig, wac, this.defaultRequestBuilder,
             this.defaultResponseCharacterEncoding, this.globalResultMatchers, this.globalResultHandlers,
             this.dispatcherServletCustomizers);
+    configureAsync(mockMvc, this.asyncExecutor, this.asyncClock);
+    return mockMvc;
   }
 
   /**
@@ -0,0 +1,282 @@
+/*
+ * Original Author -> Harry Yang (taketoday@foxmail.com) https://taketoday.cn
+ * Copyright © TODAY & 2017 - 2021 All Rights Reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.test.web.servlet.setup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import cn.taketoday.lang.Nullable;
+import cn.taketoday.mock.web.MockFilterEvent;
+import cn.taketoday.web.util.UrlPathHelper;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.FilterConfig;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * A single {@link Filter} that replaces a run of consecutive
+ * {@link PatternMappingFilterProxy} instances registered with a
+ * {@code MockMvc} builder.
+ *
+ * <p>The URL patterns of the proxies are compiled once into hash lookups for
+ * exact and extension patterns and a segment trie for path prefix patterns.
+ * The proxies that apply to a request path are resolved on first use and
+ * cached per path, so that only the filters that actually apply are invoked,
+ * in registration order, instead of passing every proxy in turn. The path
+ * is derived from the request passed down the chain, and derived again
+ * whenever a filter passes on a different (e.g. wrapped) request.
+ *
+ * <p>Filters that are not mapped to URL patterns are never part of a
+ * pipeline, and keep being invoked individually by the outer chain. Like
+ * the outer chain, the pipeline records a {@link MockFilterEvent} for each
+ * filter it invokes.
+ *
+ * @author TODAY
+ * @see PatternMappingFilterProxy
+ * @since 4.0
+ */
+final class CompiledFilterPipeline implements Filter {
+
+  /** Upper bound of distinct request paths whose filters are cached. */
+  private static final int MAX_CACHED_PATHS = 1024;
+
+  /** The compiled proxies. */
+  private final PatternMappingFilterProxy[] proxies;
+
+  /** The filters to invoke, by registration index. */
+  private final Filter[] delegates;
+
+  /** Indexes of filters by exact path, e.g. "/test". */
+  private final Map<String, BitSet> exactMatches = new HashMap<>();
+
+  /** Indexes of filters by path suffix, e.g. ".html". */
+  private final Map<String, BitSet> extensionMatches = new HashMap<>();
+
+  /** Indexes of filters by path prefix, e.g. "/test/". */
+  private final PrefixNode prefixMatches = new PrefixNode();
+
+  /** Indexes of the filters that apply, by request path; never modified once cached. */
+  private final ConcurrentHashMap<String, BitSet> filtersByPath = new ConcurrentHashMap<>();
+
+  CompiledFilterPipeline(List<PatternMappingFilterProxy> proxies) {
+    this.proxies = proxies.toArray(new PatternMappingFilterProxy[0]);
+    this.delegates = new Filter[this.proxies.length];
+    for (int i = 0; i < this.proxies.length; i++) {
+      PatternMappingFilterProxy proxy = this.proxies[i];
+      this.delegates[i] = proxy.getDelegate();
+      for (String pattern : proxy.getExactMatches()) {
+        this.exactMatches.computeIfAbsent(pattern, key -> new BitSet()).set(i);
+      }
+      for (String pattern : proxy.getEndsWithMatches()) {
+        this.extensionMatches.computeIfAbsent(pattern, key -> new BitSet()).set(i);
+      }
+      for (String pattern : proxy.getStartsWithMatches()) {
+        this.prefixMatches.add(pattern, i);
+      }
+    }
+  }
+
+  /**
+   * Replace each run of two or more consecutive
+   * {@link PatternMappingFilterProxy} instances in the given filters with a
+   * {@code CompiledFilterPipeline}, leaving all other filters in place.
+   */
+  static Filter[] compile(List<Filter> filters) {
+    List<Filter> result = new ArrayList<>(filters.size());
+    List<PatternMappingFilterProxy> run = new ArrayList<>();
+    for (Filter filter : filters) {
+      if (filter instanceof PatternMappingFilterProxy proxy) {
+        run.add(proxy);
+      }
+      else {
+        addRun(run, result);
+        result.add(filter);
+      }
+    }
+    addRun(run, result);
+    return result.toArray(new Filter[0]);
+  }
+
+  private static void addRun(List<PatternMappingFilterProxy> run, List<Filter> result) {
+    if (run.size() > 1) {
+      result.add(new CompiledFilterPipeline(new ArrayList<>(run)));
+    }
+    else {
+      result.addAll(run);
+    }
+    run.clear();
+  }
+
+  @Override
+  public void doFilter(ServletRequest request, ServletResponse response, FilterChain filterChain)
+          throws IOException, ServletException {
+
+    new Chain(filterChain).doFilter(request, response);
+  }
+
+  /**
+   * Return the indexes of the filters that apply to the given path.
+   */
+  BitSet getFilters(String requestPath) {
+    BitSet filters = this.filtersByPath.get(requestPath);
+    if (filters == null) {
+      filters = match(requestPath);
+      if (this.filtersByPath.size() < MAX_CACHED_PATHS) {
+        this.filtersByPath.putIfAbsent(requestPath, filters);
+      }
+    }
+    return filters;
+  }
+
+  private BitSet match(String requestPath) {
+    BitSet matching = new BitSet(this.delegates.length);
+    BitSet exact = this.exactMatches.get(requestPath);
+    if (exact != null) {
+      matching.or(exact);
+    }
+    // same as PatternMappingFilterProxy: only exact patterns match relative paths
+    if (requestPath.startsWith("/")) {
+      if (!this.extensionMatches.isEmpty()) {
+        for (int dot = requestPath.indexOf('.'); dot != -1; dot = requestPath.indexOf('.', dot + 1)) {
+          BitSet extension = this.extensionMatches.get(requestPath.substring(dot));
+          if (extension != null) {
+            matching.or(extension);
+          }
+        }
+      }
+      this.prefixMatches.collect(requestPath, matching);
+    }
+    return matching;
+  }
+
+  @Override
+  public void init(FilterConfig filterConfig) throws ServletException {
+    for (Filter filter : this.proxies) {
+      filter.init(filterConfig);
+    }
+  }
+
+  @Override
+  public void destroy() {
+    for (Filter filter : this.proxies) {
+      filter.destroy();
+    }
+  }
+
+  /**
+   * A node of the path prefix trie, one per path segment. Prefix patterns
+   * are either empty or end with a '/', so a node only matches a segment
+   * that is followed by a '/' in the request path.
+   */
+  private static final class PrefixNode {
+
+    final BitSet filters = new BitSet();
+
+    final Map<String, PrefixNode> children = new HashMap<>(4);
+
+    void add(String prefix, int index) {
+      if (!prefix.isEmpty() && !prefix.startsWith("/")) {
+        // can never match a path starting with '/'
+        return;
+      }
+      PrefixNode node = this;
+      int start = 1;
+      while (start < prefix.length()) {
+        int end = prefix.indexOf('/', start);
+        node = node.children.computeIfAbsent(prefix.substring(start, end), key -> new PrefixNode());
+        start = end + 1;
+      }
+      node.filters.set(index);
+    }
+
+    void collect(String requestPath, BitSet result) {
+      PrefixNode node = this;
+      result.or(node.filters);
+      int start = 1;
+      int end;
+      while (!node.children.isEmpty() && (end = requestPath.indexOf('/', start)) != -1) {
+        node = node.children.get(requestPath.substring(start, end));
+        if (node == null) {
+          return;
+        }
+        result.or(node.filters);
+        start = end + 1;
+      }
+    }
+  }
+
+  /**
+   * Invokes the applicable filters for one request, then the rest of the
+   * outer chain. Like a chain of proxies, each filter is matched against the
+   * request it is actually passed.
+   */
+  private final class Chain implements FilterChain {
+
+    private final FilterChain next;
+
+    /** Index of the next filter to consider. */
+    private int position;
+
+    @Nullable
+    private ServletRequest matchedRequest;
+
+    @Nullable
+    private BitSet matching;
+
+    Chain(FilterChain next) {
+      this.next = next;
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response) throws IOException, ServletException {
+      if (request != this.matchedRequest || this.matching == null) {
+        String requestPath = UrlPathHelper.defaultInstance.getPathWithinApplication((HttpServletRequest) request);
+        this.matching = getFilters(requestPath);
+        this.matchedRequest = request;
+      }
+      int index = (this.position < delegates.length ? this.matching.nextSetBit(this.position) : -1);
+      if (index >= 0) {
+        this.position = index + 1;
+        Filter delegate = delegates[index];
+        MockFilterEvent event = MockFilterEvent.start();
+        try {
+          delegate.doFilter(request, response, this);
+        }
+        finally {
+          event.end(delegate, request);
+        }
+      }
+      else {
+        this.position = delegates.length;
+        this.next.doFilter(request, response);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,140 @@
+/*
+ * Original Author -> Harry Yang (taketoday@foxmail.com) https://taketoday.cn
+ * Copyright © TODAY & 2017 - 2021 All Rights Reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.test.web.servlet.setup;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import cn.taketoday.lang.Assert;
+import cn.taketoday.lang.Nullable;
+import cn.taketoday.mock.web.MockHttpSession;
+import jakarta.servlet.http.HttpSession;
+
+/**
+ * {@link HttpSessionStore} backed by a {@link ConcurrentHashMap}.
+ *
+ * <p>If a template session is configured, each client without a session of
+ * its own starts out with a {@linkplain MockHttpSession#snapshot() snapshot}
+ * of it, so that a session authenticated once can be reused by any number
+ * of clients without repeating the login. A client whose session was
+ * invalidated, e.g. by logging out, does not get a new snapshot but
+ * continues without a session:
+ *
+ * <pre class="code">
+ * MockHttpSession loggedIn = (MockHttpSession) mockMvc.perform(post("/login")...)
+ *         .andReturn().getRequest().getSession();
+ *
+ * MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new TestController())
+ *         .apply(sessionStore(new ConcurrentHttpSessionStore(loggedIn)))
+ *         .build();
+ * </pre>
+ *
+ * @author TODAY
+ * @since 4.0
+ */
+public class ConcurrentHttpSessionStore implements HttpSessionStore {
+
+  /**
+   * Session per client; empty for a client whose session was removed while
+   * a template is configured, so that the client is not handed the template
+   * session again.
+   */
+  private final Map<Object, Optional<HttpSession>> sessions = new ConcurrentHashMap<>();
+
+  @Nullable
+  private final MockHttpSession template;
+
+  /**
+   * Create a store in which clients start without a session.
+   */
+  public ConcurrentHttpSessionStore() {
+    this.template = null;
+  }
+
+  /**
+   * Create a store in which clients start with a snapshot of the given session.
+   *
+   * @param template the session to copy for each new client
+   */
+  public ConcurrentHttpSessionStore(MockHttpSession template) {
+    Assert.notNull(template, "Template session must not be null");
+    this.template = template;
+  }
+
+  @Override
+  @Nullable
+  public HttpSession getSession(Object clientKey) {
+    Assert.notNull(clientKey, "Client key must not be null");
+    Optional<HttpSession> session = (this.template != null ?
+            this.sessions.computeIfAbsent(clientKey, key -> Optional.of(this.template.snapshot())) :
+            this.sessions.get(clientKey));
+    if (session == null || session.isEmpty()) {
+      return null;
+    }
+    if (isInvalid(session.get())) {
+      // invalidated outside a request
+      saveSession(clientKey, null);
+      return null;
+    }
+    return session.get();
+  }
+
+  @Override
+  public void saveSession(Object clientKey, @Nullable HttpSession session) {
+    Assert.notNull(clientKey, "Client key must not be null");
+    if (session != null && !isInvalid(session)) {
+      this.sessions.put(clientKey, Optional.of(session));
+    }
+    else if (this.template != null) {
+      this.sessions.put(clientKey, Optional.empty());
+    }
+    else {
+      this.sessions.remove(clientKey);
+    }
+  }
+
+  private static boolean isInvalid(HttpSession session) {
+    return (session instanceof MockHttpSession mockSession && mockSession.isInvalid());
+  }
+
+  /**
+   * Return the number of clients that currently have a session.
+   */
+  public int size() {
+    int size = 0;
+    for (Optional<HttpSession> session : this.sessions.values()) {
+      if (session.isPresent()) {
+        size++;
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Remove the sessions of all clients, so that each client starts out
+   * afresh, with a snapshot of the template session if configured.
+   */
+  public void clear() {
+    this.sessions.clear();
+  }
+
+}
@@ -21,6 +21,9 @@
 package cn.taketoday.test.web.servlet.setup;
 
 import java.nio.charset.Charset;
+import java.util.concurrent.Executor;
+
+import cn.taketoday.mock.web.MockAsyncClock;
 
 import cn.taketoday.test.web.servlet.DispatcherServletCustomizer;
 import cn.taketoday.test.web.servlet.MockMvcBuilder;
@@ -101,6 +104,40 @@ public interface ConfigurableMockMvcBuilder<B extends ConfigurableMockMvcBuilder
     throw new UnsupportedOperationException("defaultResponseCharacterEncoding is not supported by this MockMvcBuilder");
   }
 
+  /**
+   * Define the executor for tasks started via
+   * {@link jakarta.servlet.AsyncContext#start(Runnable)} on the async context
+   * of every request, instead of running them on the calling thread.
+   * <p>Standalone setups also use it as the task executor of the MVC async
+   * support, so that {@code Callable} controller methods run on it. For
+   * {@code WebApplicationContext} based setups the async support executor
+   * remains whatever the application configures.
+   * <p>The default implementation of this method throws an
+   * {@link UnsupportedOperationException}.
+   *
+   * @param asyncExecutor the executor
+   * @see cn.taketoday.mock.web.MockAsyncContext#setExecutor(Executor)
+   * @see StandaloneMockMvcBuilder#setAsyncRequestTimeout(long)
+   * @since 4.0
+   */
+  default <T extends B> T asyncExecutor(Executor asyncExecutor) {
+    throw new UnsupportedOperationException("asyncExecutor is not supported by this MockMvcBuilder");
+  }
+
+  /**
+   * Define the virtual clock against which the async timeout of every
+   * request is enforced, so that tests can trigger timeouts by advancing it.
+   * <p>The default implementation of this method throws an
+   * {@link UnsupportedOperationException}.
+   *
+   * @param asyncClock the virtual clock
+   * @see cn.taketoday.mock.web.MockAsyncContext#setClock(MockAsyncClock)
+   * @since 4.0
+   */
+  default <T extends B> T asyncClock(MockAsyncClock asyncClock) {
+    throw new UnsupportedOperationException("asyncClock is not supported by this MockMvcBuilder");
+  }
+
   /**
    * Define a global expectation that should <em>always</em> be applied to
    * every response. For example, status code 200 (OK), content type
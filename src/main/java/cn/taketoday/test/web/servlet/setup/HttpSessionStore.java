@@ -0,0 +1,58 @@
+/*
+ * Original Author -> Harry Yang (taketoday@foxmail.com) https://taketoday.cn
+ * Copyright © TODAY & 2017 - 2021 All Rights Reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.test.web.servlet.setup;
+
+import cn.taketoday.lang.Nullable;
+import jakarta.servlet.http.HttpSession;
+
+/**
+ * Strategy for keeping the HTTP session of each simulated client across
+ * requests performed through a {@code MockMvc} instance.
+ *
+ * <p>Implementations must be safe for concurrent use, since requests of
+ * different clients may be performed from different threads.
+ *
+ * @author TODAY
+ * @see SessionStoreConfigurer
+ * @see ConcurrentHttpSessionStore
+ * @since 4.0
+ */
+public interface HttpSessionStore {
+
+  /**
+   * Return the session to use for the next request of the given client.
+   *
+   * @param clientKey the key identifying the simulated client
+   * @return the session, or {@code null} if the client has none yet
+   */
+  @Nullable
+  HttpSession getSession(Object clientKey);
+
+  /**
+   * Save the session of the given client after a request was performed.
+   *
+   * @param clientKey the key identifying the simulated client
+   * @param session the session, or {@code null} to remove it, e.g. if the
+   * request did not create one or invalidated it
+   */
+  void saveSession(Object clientKey, @Nullable HttpSession session);
+
+}
@@ -126,6 +126,22 @@ final class PatternMappingFilterProxy implements Filter {
     return false;
   }
 
+  Filter getDelegate() {
+    return this.delegate;
+  }
+
+  List<String> getExactMatches() {
+    return this.exactMatches;
+  }
+
+  List<String> getStartsWithMatches() {
+    return this.startsWithMatches;
+  }
+
+  List<String> getEndsWithMatches() {
+    return this.endsWithMatches;
+  }
+
   @Override
   public void init(FilterConfig filterConfig) throws ServletException {
     this.delegate.init(filterConfig);
@@ -0,0 +1,138 @@
+/*
+ * Original Author -> Harry Yang (taketoday@foxmail.com) https://taketoday.cn
+ * Copyright © TODAY & 2017 - 2021 All Rights Reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.test.web.servlet.setup;
+
+import java.util.function.Function;
+
+import cn.taketoday.lang.Assert;
+import cn.taketoday.mock.web.MockHttpServletRequest;
+import cn.taketoday.test.web.servlet.request.RequestPostProcessor;
+import cn.taketoday.web.WebApplicationContext;
+import jakarta.servlet.http.HttpSession;
+
+/**
+ * {@link MockMvcConfigurer} that keeps a separate HTTP session per simulated
+ * client in an {@link HttpSessionStore}, for example to perform requests of
+ * many logged-in users concurrently through the same {@code MockMvc} instance.
+ *
+ * <p>Every request must name its client, either through the
+ * {@link #CLIENT_KEY_ATTRIBUTE} request attribute or through a custom
+ * {@link #clientKey(Function) key resolver}. There is deliberately no
+ * implicit default such as the current thread, since threads are pooled and
+ * reused across tests and would carry sessions from one test to the next.
+ *
+ * <p>Example use:
+ * <pre class="code">
+ * import static cn.taketoday.test.web.servlet.setup.SessionStoreConfigurer.sessionStore;
+ *
+ * // ...
+ *
+ * MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new TestController())
+ *         .apply(sessionStore())
+ *         .build();
+ *
+ * mockMvc.perform(get("/cart").requestAttr(SessionStoreConfigurer.CLIENT_KEY_ATTRIBUTE, "user-42"));
+ * </pre>
+ *
+ * @author TODAY
+ * @see SharedHttpSessionConfigurer
+ * @since 4.0
+ */
+public class SessionStoreConfigurer implements MockMvcConfigurer {
+
+  /**
+   * Name of the request attribute that identifies the simulated client.
+   */
+  public static final String CLIENT_KEY_ATTRIBUTE = SessionStoreConfigurer.class.getName() + ".CLIENT_KEY";
+
+  private final HttpSessionStore sessionStore;
+
+  private Function<MockHttpServletRequest, Object> clientKeyResolver = SessionStoreConfigurer::defaultClientKey;
+
+  public SessionStoreConfigurer(HttpSessionStore sessionStore) {
+    Assert.notNull(sessionStore, "HttpSessionStore must not be null");
+    this.sessionStore = sessionStore;
+  }
+
+  /**
+   * Configure how the simulated client of a request is determined, instead
+   * of reading the {@link #CLIENT_KEY_ATTRIBUTE} request attribute.
+   * <p>The resolver must return a non-null key for every request.
+   */
+  public SessionStoreConfigurer clientKey(Function<MockHttpServletRequest, Object> clientKeyResolver) {
+    Assert.notNull(clientKeyResolver, "Client key resolver must not be null");
+    this.clientKeyResolver = clientKeyResolver;
+    return this;
+  }
+
+  /**
+   * Return the underlying session store.
+   */
+  public HttpSessionStore getSessionStore() {
+    return this.sessionStore;
+  }
+
+  @Override
+  public void afterConfigurerAdded(ConfigurableMockMvcBuilder<?> builder) {
+    builder.alwaysDo(result -> {
+      MockHttpServletRequest request = result.getRequest();
+      this.sessionStore.saveSession(this.clientKeyResolver.apply(request), request.getSession(false));
+    });
+  }
+
+  @Override
+  public RequestPostProcessor beforeMockMvcCreated(
+          ConfigurableMockMvcBuilder<?> builder, WebApplicationContext context) {
+
+    return request -> {
+      // A session set explicitly on the request takes precedence
+      if (request.getSession(false) == null) {
+        HttpSession session = this.sessionStore.getSession(this.clientKeyResolver.apply(request));
+        if (session != null) {
+          request.setSession(session);
+        }
+      }
+      return request;
+    };
+  }
+
+  private static Object defaultClientKey(MockHttpServletRequest request) {
+    Object clientKey = request.getAttribute(CLIENT_KEY_ATTRIBUTE);
+    Assert.state(clientKey != null, () -> "No client key for request [" + request.getRequestURI() +
+            "]: set the '" + CLIENT_KEY_ATTRIBUTE + "' request attribute or configure a client key resolver");
+    return clientKey;
+  }
+
+  /**
+   * Keep a session per simulated client in a {@link ConcurrentHttpSessionStore}.
+   */
+  public static SessionStoreConfigurer sessionStore() {
+    return new SessionStoreConfigurer(new ConcurrentHttpSessionStore());
+  }
+
+  /**
+   * Keep a session per simulated client in the given store.
+   */
+  public static SessionStoreConfigurer sessionStore(HttpSessionStore sessionStore) {
+    return new SessionStoreConfigurer(sessionStore);
+  }
+
+}
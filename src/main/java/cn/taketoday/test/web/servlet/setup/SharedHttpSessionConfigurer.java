@@ -42,12 +42,17 @@ import jakarta.servlet.http.HttpSession;
  * // Use mockMvc to perform requests ...
  * </pre>
  *
+ * <p>All requests share the session of the most recent request. To keep a
+ * separate session per simulated client, e.g. when performing requests from
+ * several threads, use {@link SessionStoreConfigurer} instead.
+ *
  * @author Rossen Stoyanchev
+ * @see SessionStoreConfigurer
  */
 public class SharedHttpSessionConfigurer implements MockMvcConfigurer {
 
   @Nullable
-  private HttpSession session;
+  private volatile HttpSession session;
 
   @Override
   public void afterConfigurerAdded(ConfigurableMockMvcBuilder<?> builder) {
@@ -59,8 +64,9 @@ public class SharedHttpSessionConfigurer implements MockMvcConfigurer {
           ConfigurableMockMvcBuilder<?> builder, WebApplicationContext context) {
 
     return request -> {
-      if (this.session != null) {
-        request.setSession(this.session);
+      HttpSession session = this.session;
+      if (session != null) {
+        request.setSession(session);
       }
       return request;
     };
@@ -0,0 +1,182 @@
+/*
+ * Original Author -> Harry Yang (taketoday@foxmail.com) https://taketoday.cn
+ * Copyright © TODAY & 2017 - 2021 All Rights Reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+
+package cn.taketoday.test.web.servlet.setup;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import cn.taketoday.format.support.FormattingConversionService;
+import cn.taketoday.http.converter.HttpMessageConverter;
+import cn.taketoday.lang.Nullable;
+import cn.taketoday.util.ConcurrentReferenceHashMap;
+import cn.taketoday.web.accept.ContentNegotiationManager;
+import cn.taketoday.web.servlet.mvc.method.RequestMappingInfo;
+import cn.taketoday.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import cn.taketoday.web.validation.Validator;
+
+/**
+ * Cache of the immutable infrastructure built by {@link StandaloneMockMvcBuilder
+ * StandaloneMockMvcBuilders} with {@linkplain StandaloneMockMvcBuilder#setSharedInfrastructure(boolean)
+ * shared infrastructure}, keyed by controller classes and builder configuration.
+ *
+ * <p>Entries hold the request mappings of the handler methods detected on
+ * the controllers, by controller position, and stateless objects such as
+ * the message converters and the conversion service, but never a context
+ * or a controller instance. Each build registers the handler methods for
+ * its own controllers with a handler mapping of its own.
+ *
+ * <p>Entries are referenced softly, so that they and the test classes they
+ * refer to can be reclaimed.
+ *
+ * @author TODAY
+ * @since 4.0
+ */
+final class StandaloneInfrastructureCache {
+
+  private static final Map<List<Object>, Infrastructure> cache = new ConcurrentReferenceHashMap<>(64);
+
+  private StandaloneInfrastructureCache() {
+  }
+
+  /**
+   * Return the infrastructure shared under the given key, if any.
+   */
+  @Nullable
+  static Infrastructure get(List<Object> key) {
+    return cache.get(key);
+  }
+
+  /**
+   * Share the given infrastructure under the given key, unless another
+   * build shared its infrastructure first.
+   */
+  static void put(List<Object> key, Infrastructure infrastructure) {
+    cache.putIfAbsent(key, infrastructure);
+  }
+
+  static List<Class<?>> classes(@Nullable List<?> objects) {
+    if (objects == null) {
+      return List.of();
+    }
+    List<Class<?>> classes = new ArrayList<>(objects.size());
+    for (Object object : objects) {
+      classes.add(object.getClass());
+    }
+    return classes;
+  }
+
+  @Nullable
+  static List<Object> identities(@Nullable List<?> objects) {
+    if (objects == null) {
+      return null;
+    }
+    List<Object> identities = new ArrayList<>(objects.size());
+    for (Object object : objects) {
+      identities.add(identity(object));
+    }
+    return identities;
+  }
+
+  @Nullable
+  static Object identity(@Nullable Object object) {
+    return (object != null ? new Identity(object) : null);
+  }
+
+  /**
+   * Shared infrastructure of a builder configuration.
+   *
+   * @param handlerMethods the detected handler methods
+   * @param messageConverters the message converters of the handler adapter
+   * @param conversionService the conversion service
+   * @param contentNegotiationManager the content negotiation manager
+   * @param validator the validator
+   */
+  record Infrastructure(List<HandlerMethodMapping> handlerMethods,
+          List<HttpMessageConverter<?>> messageConverters, FormattingConversionService conversionService,
+          ContentNegotiationManager contentNegotiationManager, Validator validator) {
+
+    /**
+     * Create the shared infrastructure from the handler mapping of a build
+     * that detected the handler methods of its controllers.
+     *
+     * @param handlerMapping the handler mapping
+     * @param controllerIndexes the position of each controller by bean name
+     */
+    static Infrastructure of(RequestMappingHandlerMapping handlerMapping, Map<Object, Integer> controllerIndexes,
+            List<HttpMessageConverter<?>> messageConverters, FormattingConversionService conversionService,
+            ContentNegotiationManager contentNegotiationManager, Validator validator) {
+
+      List<HandlerMethodMapping> handlerMethods = new ArrayList<>();
+      handlerMapping.getHandlerMethods().forEach((mapping, handlerMethod) -> {
+        Integer index = controllerIndexes.get(handlerMethod.getBean());
+        if (index != null) {
+          handlerMethods.add(new HandlerMethodMapping(mapping, index, handlerMethod.getMethod()));
+        }
+      });
+      return new Infrastructure(List.copyOf(handlerMethods), List.copyOf(messageConverters),
+              conversionService, contentNegotiationManager, validator);
+    }
+
+    /**
+     * Register the shared handler methods with the given handler mapping,
+     * bound to the given controllers.
+     */
+    void registerHandlerMethods(RequestMappingHandlerMapping handlerMapping, List<Object> controllers) {
+      for (HandlerMethodMapping handlerMethod : this.handlerMethods) {
+        handlerMapping.registerMapping(
+                handlerMethod.mapping(), controllers.get(handlerMethod.controllerIndex()), handlerMethod.method());
+      }
+    }
+  }
+
+  /**
+   * The request mapping of a handler method of the controller at the given
+   * position.
+   */
+  record HandlerMethodMapping(RequestMappingInfo mapping, int controllerIndex, Method method) {
+  }
+
+  /**
+   * Key component that compares the wrapped object by identity.
+   */
+  private static final class Identity {
+
+    private final Object object;
+
+    Identity(Object object) {
+      this.object = object;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object other) {
+      return (this == other || (other instanceof Identity that && this.object == that.object));
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(this.object);
+    }
+  }
+
+}
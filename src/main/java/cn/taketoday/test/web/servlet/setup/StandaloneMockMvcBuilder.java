@@ -27,6 +27,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.Executor;
 import java.util.function.Supplier;
 
 import javax.swing.text.View;
@@ -37,8 +38,11 @@ import cn.taketoday.beans.support.BeanUtils;
 import cn.taketoday.context.ApplicationContext;
 import cn.taketoday.context.aware.ApplicationContextAware;
 import cn.taketoday.core.StringValueResolver;
+import cn.taketoday.core.task.AsyncTaskExecutor;
+import cn.taketoday.core.task.support.TaskExecutorAdapter;
 import cn.taketoday.http.converter.HttpMessageConverter;
 import cn.taketoday.lang.Nullable;
+import cn.taketoday.lang.TodayStrategies;
 import cn.taketoday.mock.web.MockServletContext;
 import cn.taketoday.util.PlaceholderResolver;
 import cn.taketoday.util.PropertyPlaceholderHandler;
@@ -68,10 +72,25 @@ import jakarta.servlet.ServletContext;
  * request performed (see {@link #setSingleView(View)}) or provide a list of
  * {@code ViewResolver}s (see {@link #setViewResolvers(ViewResolver...)}).
  *
+ * <p>Building the infrastructure and detecting the handler methods of the
+ * controllers is repeated for every builder. Tests that set up the same
+ * controller classes with the same configuration many times can
+ * {@linkplain #setSharedInfrastructure(boolean) share} it instead.
+ *
  * @author Rossen Stoyanchev
  */
 public class StandaloneMockMvcBuilder extends AbstractMockMvcBuilder<StandaloneMockMvcBuilder> {
 
+  /**
+   * System property used to enable {@linkplain #setSharedInfrastructure(boolean)
+   * shared infrastructure} for all standalone builders: {@value}. May
+   * alternatively be configured via the {@link cn.taketoday.lang.TodayStrategies}
+   * mechanism.
+   *
+   * @since 4.0
+   */
+  public static final String SHARED_INFRASTRUCTURE_PROPERTY_NAME = "today.test.mockmvc.standalone.sharedInfrastructure";
+
   private final List<Object> controllers;
 
   @Nullable
@@ -103,7 +122,8 @@ public class StandaloneMockMvcBuilder extends AbstractMockMvcBuilder<StandaloneM
   @Nullable
   private List<ViewResolver> viewResolvers;
 
-  private LocaleResolver localeResolver = new AcceptHeaderLocaleResolver();
+  @Nullable
+  private LocaleResolver localeResolver;
 
   @Nullable
   private FlashMapManager flashMapManager;
@@ -120,7 +140,11 @@ public class StandaloneMockMvcBuilder extends AbstractMockMvcBuilder<StandaloneM
 
   private final Map<String, String> placeholderValues = new HashMap<>();
 
-  private Supplier<RequestMappingHandlerMapping> handlerMappingFactory = RequestMappingHandlerMapping::new;
+  @Nullable
+  private Supplier<RequestMappingHandlerMapping> handlerMappingFactory;
+
+  private boolean sharedInfrastructure = Boolean.parseBoolean(
+          TodayStrategies.getProperty(SHARED_INFRASTRUCTURE_PROPERTY_NAME));
 
   /**
    * Protected constructor. Not intended for direct instantiation.
@@ -357,6 +381,32 @@ public class StandaloneMockMvcBuilder extends AbstractMockMvcBuilder<StandaloneM
     return this;
   }
 
+  /**
+   * Whether to reuse the immutable infrastructure built for an earlier
+   * builder with the same controller classes and the same configuration:
+   * the handler methods detected on the controllers with their request
+   * mappings, the message converters, the conversion service, the validator
+   * and the content negotiation manager.
+   * <p>Every build still creates its own {@code ServletContext},
+   * {@code WebApplicationContext}, handler mapping, handler adapter,
+   * exception resolver and view resolvers, and the handler mapping dispatches
+   * to the controller instances of this builder only. {@code MockMvc}
+   * instances built from the same configuration are thereby independent,
+   * even if they are used concurrently.
+   * <p>Configured objects such as message converters, resolvers or the
+   * validator are compared by identity, so declare them once, e.g. in static
+   * fields, to share infrastructure across tests. Scalar settings and
+   * placeholder values are compared by value.
+   * <p>The default is {@code false}, unless enabled via the
+   * {@value #SHARED_INFRASTRUCTURE_PROPERTY_NAME} property.
+   *
+   * @since 4.0
+   */
+  public StandaloneMockMvcBuilder setSharedInfrastructure(boolean sharedInfrastructure) {
+    this.sharedInfrastructure = sharedInfrastructure;
+    return this;
+  }
+
   @Override
   protected WebApplicationContext initWebAppContext() {
     MockServletContext servletContext = new MockServletContext();
@@ -366,21 +416,57 @@ public class StandaloneMockMvcBuilder extends AbstractMockMvcBuilder<StandaloneM
     return wac;
   }
 
+  /**
+   * Return the key under which the infrastructure of this builder is shared:
+   * the builder class, the controller classes and all configuration that the
+   * shared infrastructure depends on. Settings that only apply to the
+   * objects created for every build, such as the view resolvers, are not
+   * part of the key.
+   */
+  List<Object> getInfrastructureKey() {
+    List<Object> interceptors = new ArrayList<>(this.mappedInterceptors.size());
+    for (MappedInterceptor interceptor : this.mappedInterceptors) {
+      String[] pathPatterns = interceptor.getPathPatterns();
+      interceptors.add(Arrays.asList(StandaloneInfrastructureCache.identity(interceptor.getInterceptor()),
+                                     (pathPatterns != null ? Arrays.asList(pathPatterns) : null)));
+    }
+    return Arrays.asList(getClass(),
+            StandaloneInfrastructureCache.classes(this.controllers),
+            StandaloneInfrastructureCache.classes(this.controllerAdvice),
+            StandaloneInfrastructureCache.identities(this.messageConverters),
+            StandaloneInfrastructureCache.identities(this.customArgumentResolvers),
+            StandaloneInfrastructureCache.identities(this.customReturnValueHandlers),
+            interceptors,
+            StandaloneInfrastructureCache.identity(this.validator),
+            StandaloneInfrastructureCache.identity(this.contentNegotiationManager),
+            StandaloneInfrastructureCache.identity(this.conversionService),
+            StandaloneInfrastructureCache.identities(this.handlerExceptionResolvers),
+            StandaloneInfrastructureCache.identity(this.patternParser),
+            StandaloneInfrastructureCache.identity(this.handlerMappingFactory),
+            this.asyncRequestTimeout, this.useSuffixPatternMatch, this.useTrailingSlashPatternMatch,
+            this.removeSemicolonContent, new HashMap<>(this.placeholderValues));
+  }
+
   private void registerMvcSingletons(StubWebApplicationContext wac) {
-    StandaloneConfiguration config = new StandaloneConfiguration();
+    List<Object> infrastructureKey = (this.sharedInfrastructure ? getInfrastructureKey() : null);
+    StandaloneInfrastructureCache.Infrastructure shared =
+            (infrastructureKey != null ? StandaloneInfrastructureCache.get(infrastructureKey) : null);
+
+    StandaloneConfiguration config = new StandaloneConfiguration(shared);
     config.setApplicationContext(wac);
     ServletContext sc = wac.getServletContext();
 
-    wac.addBeans(this.controllers);
     wac.addBeans(this.controllerAdvice);
 
-    FormattingConversionService mvcConversionService = config.mvcConversionService();
+    FormattingConversionService mvcConversionService =
+            (shared != null ? shared.conversionService() : config.mvcConversionService());
     wac.addBean("mvcConversionService", mvcConversionService);
     ResourceUrlProvider resourceUrlProvider = config.mvcResourceUrlProvider();
     wac.addBean("mvcResourceUrlProvider", resourceUrlProvider);
-    ContentNegotiationManager mvcContentNegotiationManager = config.mvcContentNegotiationManager();
+    ContentNegotiationManager mvcContentNegotiationManager =
+            (shared != null ? shared.contentNegotiationManager() : config.mvcContentNegotiationManager());
     wac.addBean("mvcContentNegotiationManager", mvcContentNegotiationManager);
-    Validator mvcValidator = config.mvcValidator();
+    Validator mvcValidator = (shared != null ? shared.validator() : config.mvcValidator());
     wac.addBean("mvcValidator", mvcValidator);
 
     RequestMappingHandlerMapping hm = config.getHandlerMapping(mvcConversionService, resourceUrlProvider);
@@ -388,7 +474,18 @@ public class StandaloneMockMvcBuilder extends AbstractMockMvcBuilder<StandaloneM
       hm.setServletContext(sc);
     }
     hm.setApplicationContext(wac);
-    hm.afterPropertiesSet();
+    Map<Object, Integer> controllerIndexes = null;
+    if (shared == null) {
+      // detect the handler methods of the controllers
+      controllerIndexes = addControllers(wac);
+      hm.afterPropertiesSet();
+    }
+    else {
+      // register the handler methods detected by an earlier build for the controllers of this one
+      hm.afterPropertiesSet();
+      shared.registerHandlerMethods(hm, this.controllers);
+      addControllers(wac);
+    }
     wac.addBean("requestMappingHandlerMapping", hm);
 
     RequestMappingHandlerAdapter ha = config.requestMappingHandlerAdapter(mvcContentNegotiationManager,
@@ -402,8 +499,15 @@ public class StandaloneMockMvcBuilder extends AbstractMockMvcBuilder<StandaloneM
 
     wac.addBean("handlerExceptionResolver", config.handlerExceptionResolver(mvcContentNegotiationManager));
 
+    if (infrastructureKey != null && controllerIndexes != null) {
+      StandaloneInfrastructureCache.put(infrastructureKey, StandaloneInfrastructureCache.Infrastructure.of(
+              hm, controllerIndexes, ha.getMessageConverters(),
+              mvcConversionService, mvcContentNegotiationManager, mvcValidator));
+    }
+
     wac.addBeans(initViewResolvers(wac));
-    wac.addBean(DispatcherServlet.LOCALE_RESOLVER_BEAN_NAME, this.localeResolver);
+    wac.addBean(DispatcherServlet.LOCALE_RESOLVER_BEAN_NAME,
+                (this.localeResolver != null ? this.localeResolver : new AcceptHeaderLocaleResolver()));
     wac.addBean(DispatcherServlet.THEME_RESOLVER_BEAN_NAME, new FixedThemeResolver());
     wac.addBean(DispatcherServlet.REQUEST_TO_VIEW_NAME_TRANSLATOR_BEAN_NAME, new DefaultRequestToViewNameTranslator());
 
@@ -413,6 +517,21 @@ public class StandaloneMockMvcBuilder extends AbstractMockMvcBuilder<StandaloneM
     extendMvcSingletons(sc).forEach(wac::addBean);
   }
 
+  /**
+   * Register the controllers of this builder, named by position and class,
+   * and return the position of each controller by bean name.
+   */
+  private Map<Object, Integer> addControllers(StubWebApplicationContext wac) {
+    Map<Object, Integer> indexes = new HashMap<>();
+    for (int i = 0; i < this.controllers.size(); i++) {
+      Object controller = this.controllers.get(i);
+      String name = "controller#" + i + "#" + controller.getClass().getName();
+      wac.addBean(name, controller);
+      indexes.put(name, i);
+    }
+    return indexes;
+  }
+
   private List<ViewResolver> initViewResolvers(WebApplicationContext wac) {
     this.viewResolvers = (this.viewResolvers != null ? this.viewResolvers :
                           Collections.singletonList(new InternalResourceViewResolver()));
@@ -439,12 +558,20 @@ public class StandaloneMockMvcBuilder extends AbstractMockMvcBuilder<StandaloneM
   /** Using the MVC Java configuration as the starting point for the "standalone" setup. */
   private class StandaloneConfiguration extends WebMvcConfigurationSupport {
 
+    @Nullable
+    private final StandaloneInfrastructureCache.Infrastructure shared;
+
+    StandaloneConfiguration(@Nullable StandaloneInfrastructureCache.Infrastructure shared) {
+      this.shared = shared;
+    }
+
     @SuppressWarnings("deprecation")
     public RequestMappingHandlerMapping getHandlerMapping(
             FormattingConversionService mvcConversionService,
             ResourceUrlProvider mvcResourceUrlProvider) {
 
-      RequestMappingHandlerMapping handlerMapping = handlerMappingFactory.get();
+      RequestMappingHandlerMapping handlerMapping = (handlerMappingFactory != null ?
+                                                     handlerMappingFactory.get() : new RequestMappingHandlerMapping());
       handlerMapping.setEmbeddedValueResolver(new StaticStringValueResolver(placeholderValues));
       if (patternParser != null) {
         handlerMapping.setPatternParser(patternParser);
@@ -463,7 +590,7 @@ public class StandaloneMockMvcBuilder extends AbstractMockMvcBuilder<StandaloneM
 
     @Override
     protected void configureMessageConverters(List<HttpMessageConverter<?>> converters) {
-      converters.addAll(messageConverters);
+      converters.addAll(this.shared != null ? this.shared.messageConverters() : messageConverters);
     }
 
     @Override
@@ -501,6 +628,11 @@ public class StandaloneMockMvcBuilder extends AbstractMockMvcBuilder<StandaloneM
       if (asyncRequestTimeout != null) {
         configurer.setDefaultTimeout(asyncRequestTimeout);
       }
+      Executor asyncExecutor = getAsyncExecutor();
+      if (asyncExecutor != null) {
+        configurer.setTaskExecutor(asyncExecutor instanceof AsyncTaskExecutor taskExecutor
+                                   ? taskExecutor : new TaskExecutorAdapter(asyncExecutor));
+      }
     }
 
     @Override
@@ -0,0 +1,142 @@
+/*
+ * Original Author -> Harry Yang (taketoday@foxmail.com) https://taketoday.cn
+ * Copyright © TODAY & 2017 - 2021 All Rights Reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see [http://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.test.web.servlet.setup;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+import cn.taketoday.test.web.servlet.MockMvc;
+import cn.taketoday.web.annotation.GetMapping;
+import cn.taketoday.web.annotation.PathVariable;
+import cn.taketoday.web.annotation.PostMapping;
+import cn.taketoday.web.annotation.RequestBody;
+import cn.taketoday.web.annotation.RestController;
+
+import static cn.taketoday.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static cn.taketoday.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Benchmark of {@link StandaloneMockMvcBuilder} builds with and without
+ * {@linkplain StandaloneMockMvcBuilder#setSharedInfrastructure(boolean)
+ * shared infrastructure}.
+ *
+ * <p>Run with {@code -Dtoday.test.benchmark=true}.
+ *
+ * @author TODAY
+ */
+@EnabledIfSystemProperty(named = "today.test.benchmark", matches = "true")
+class StandaloneInfrastructureBenchmarkTests {
+
+  private static final int WARMUP = 200;
+
+  private static final int ITERATIONS = 1000;
+
+  @Test
+  void sharedInfrastructureIsCheaperThanColdBuild() throws Exception {
+    long cold = measure(() -> MockMvcBuilders.standaloneSetup(new PersonController(), new OrderController())
+            .build());
+    long shared = measure(() -> MockMvcBuilders.standaloneSetup(new PersonController(), new OrderController())
+            .setSharedInfrastructure(true)
+            .build());
+
+    System.out.printf("standalone MockMvc build, median of %d: cold %,d ns, shared %,d ns (%.1fx)%n",
+            ITERATIONS, cold, shared, (double) cold / shared);
+    assertThat(shared).isLessThan(cold);
+  }
+
+  @Test
+  void sharedInfrastructureDispatchesToOwnControllers() throws Exception {
+    MockMvc first = MockMvcBuilders.standaloneSetup(new PersonController("first"))
+            .setSharedInfrastructure(true).build();
+    MockMvc second = MockMvcBuilders.standaloneSetup(new PersonController("second"))
+            .setSharedInfrastructure(true).build();
+
+    first.perform(get("/persons/1")).andExpect(content().string("first:1"));
+    second.perform(get("/persons/1")).andExpect(content().string("second:1"));
+  }
+
+  private static long measure(Supplier<MockMvc> build) {
+    for (int i = 0; i < WARMUP; i++) {
+      build.get();
+    }
+    long[] times = new long[ITERATIONS];
+    for (int i = 0; i < ITERATIONS; i++) {
+      long start = System.nanoTime();
+      build.get();
+      times[i] = System.nanoTime() - start;
+    }
+    Arrays.sort(times);
+    return times[ITERATIONS / 2];
+  }
+
+  @RestController
+  static class PersonController {
+
+    private final String name;
+
+    PersonController() {
+      this("person");
+    }
+
+    PersonController(String name) {
+      this.name = name;
+    }
+
+    @GetMapping("/persons/{id}")
+    String get(@PathVariable String id) {
+      return this.name + ":" + id;
+    }
+
+    @GetMapping("/persons")
+    String list() {
+      return this.name;
+    }
+
+    @PostMapping("/persons")
+    String create(@RequestBody String person) {
+      return person;
+    }
+  }
+
+  @RestController
+  static class OrderController {
+
+    @GetMapping("/orders/{id}")
+    String get(@PathVariable String id) {
+      return id;
+    }
+
+    @GetMapping("/orders")
+    String list() {
+      return "orders";
+    }
+
+    @PostMapping("/orders")
+    String create(@RequestBody String order) {
+      return order;
+    }
+  }
+
+}